@@ -2,6 +2,7 @@ package com.ecommerce.config;
 
 import com.ecommerce.repository.UsuarioRepository;
 import com.ecommerce.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -72,6 +73,10 @@ public class SecurityConfig {
         http
             .csrf(csrf -> csrf.disable())  // Desactivar CSRF para APIs REST
             .authorizeHttpRequests(auth -> auth
+                // Fin de respuestas asíncronas (exportaciones con StreamingResponseBody):
+                // la petición original ya pasó por estas reglas y el filtro JWT no corre en el despacho ASYNC
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                
                 // Endpoints públicos (sin autenticación)
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/productos/**").permitAll()
@@ -3,7 +3,12 @@ package com.ecommerce.controller;
 import com.ecommerce.dto.UsuarioDTO;
 import com.ecommerce.entity.Role;
 import com.ecommerce.entity.Usuario;
+import com.ecommerce.security.CachePrincipales;
+import com.ecommerce.service.CacheProductos;
+import com.ecommerce.service.EstadisticasGeneralesService;
+import com.ecommerce.service.EstadisticasVendedorService;
 import com.ecommerce.service.UsuarioService;
+import com.ecommerce.util.CacheRespuestasJson;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -13,7 +18,6 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -29,6 +33,21 @@ public class AdminController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private CachePrincipales cachePrincipales;
+    
+    @Autowired
+    private CacheProductos cacheProductos;
+    
+    @Autowired
+    private CacheRespuestasJson cacheRespuestasJson;
+
+    @Autowired
+    private EstadisticasVendedorService estadisticasVendedorService;
+
+    @Autowired
+    private EstadisticasGeneralesService estadisticasGeneralesService;
+
     /**
      * Obtener todos los usuarios (solo ADMIN)
      */
@@ -127,12 +146,11 @@ public class AdminController {
         if (request.getPassword() != null && !request.getPassword().isEmpty()) {
             usuario.setPassword(passwordEncoder.encode(request.getPassword()));
         }
-        if (request.getRole() != null) {
-            usuario.setRole(request.getRole());
-        }
 
         usuario.setUpdatedAt(LocalDateTime.now());
-        Usuario usuarioActualizado = usuarioService.save(usuario);
+        Usuario usuarioActualizado = request.getRole() != null
+                ? usuarioService.actualizarRol(usuario, request.getRole())
+                : usuarioService.save(usuario);
         return ResponseEntity.ok(new UsuarioDTO(usuarioActualizado));
     }
 
@@ -150,9 +168,9 @@ public class AdminController {
         String roleStr = request.get("role");
         try {
             Role newRole = Role.valueOf(roleStr.toUpperCase());
-            usuario.setRole(newRole);
             usuario.setUpdatedAt(LocalDateTime.now());
-            Usuario usuarioActualizado = usuarioService.save(usuario);
+            // Incrementa la versión de token: los tokens con el rol anterior dejan de valer
+            Usuario usuarioActualizado = usuarioService.actualizarRol(usuario, newRole);
             return ResponseEntity.ok(new UsuarioDTO(usuarioActualizado));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest()
@@ -181,20 +199,57 @@ public class AdminController {
     @GetMapping("/usuarios/estadisticas")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, Object>> getUsuariosStats() {
-        List<Usuario> usuarios = usuarioService.getAllUsuarios();
-        long totalUsuarios = usuarios.size();
-        long adminUsuarios = usuarios.stream()
-                .filter(u -> u.getRole() == Role.ADMIN)
-                .count();
-        long userUsuarios = usuarios.stream()
-                .filter(u -> u.getRole() == Role.USER)
-                .count();
-
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalUsuarios", totalUsuarios);
-        stats.put("adminUsuarios", adminUsuarios);
-        stats.put("userUsuarios", userUsuarios);
-        return ResponseEntity.ok(stats);
+        // COUNT por rol, servido desde una instantánea con refresco configurable
+        return ResponseEntity.ok(estadisticasGeneralesService.obtenerEstadisticasUsuarios());
+    }
+
+    /**
+     * Métricas de la cache de principales del filtro JWT (solo ADMIN)
+     */
+    @GetMapping("/cache/principales")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCachePrincipalesStats() {
+        return ResponseEntity.ok(cachePrincipales.estadisticas());
+    }
+
+    /**
+     * Métricas de la cache de detalle de productos (solo ADMIN)
+     */
+    @GetMapping("/cache/productos")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCacheProductosStats() {
+        return ResponseEntity.ok(cacheProductos.estadisticas());
+    }
+
+    /**
+     * Métricas de la cache de respuestas JSON serializadas del catálogo (solo ADMIN)
+     */
+    @GetMapping("/cache/respuestas")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCacheRespuestasStats() {
+        return ResponseEntity.ok(cacheRespuestasJson.estadisticas());
+    }
+
+    /**
+     * Recalcular los contadores de ventas por vendedor (seller_stats) desde detalle_pedidos (solo ADMIN)
+     */
+    @PostMapping("/estadisticas-vendedores/reconstruir")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> reconstruirEstadisticasVendedores() {
+        int filas = estadisticasVendedorService.reconstruir();
+        // Las estadísticas generales suman seller_stats: recalcular en la próxima lectura
+        estadisticasGeneralesService.invalidar();
+        return ResponseEntity.ok(Map.of("filas", filas));
+    }
+
+    /**
+     * Comparar los contadores de seller_stats con detalle_pedidos (solo ADMIN)
+     */
+    @GetMapping("/estadisticas-vendedores/consistencia")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> verificarEstadisticasVendedores() {
+        List<String> diferencias = estadisticasVendedorService.verificarConsistencia();
+        return ResponseEntity.ok(Map.of("consistente", diferencias.isEmpty(), "diferencias", diferencias));
     }
 
     // DTOs internos para requests
@@ -46,7 +46,7 @@ public class AuthController {
         }
 
         // Generar token JWT
-        String token = jwtUtil.generateToken(usuario.getEmail(), usuario.getId());
+        String token = jwtUtil.generateToken(usuario);
 
         // Crear respuesta
         LoginResponseDTO response = LoginResponseDTO.builder()
@@ -89,7 +89,7 @@ public class AuthController {
         Usuario usuarioGuardado = usuarioService.save(nuevoUsuario);
 
         // Generar token JWT
-        String token = jwtUtil.generateToken(usuarioGuardado.getEmail(), usuarioGuardado.getId());
+        String token = jwtUtil.generateToken(usuarioGuardado);
 
         // Crear respuesta
         LoginResponseDTO response = LoginResponseDTO.builder()
@@ -1,17 +1,22 @@
 package com.ecommerce.controller;
 
 import com.ecommerce.dto.CategoriaDTO;
+import com.ecommerce.dto.CategoriaVistaDTO;
 import com.ecommerce.entity.Categoria;
 import com.ecommerce.exception.CategoriaNotFoundException;
+import com.ecommerce.service.CatalogoCategorias;
 import com.ecommerce.service.CategoriaService;
+import com.ecommerce.util.CacheRespuestasJson;
+import com.ecommerce.util.Validadores;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
+import java.time.LocalDateTime;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/categorias")
@@ -21,28 +26,43 @@ public class CategoriaController {
     @Autowired
     private CategoriaService categoriaService;
     
+    @Autowired
+    private CacheRespuestasJson cacheRespuestasJson;
+    
     /**
      * GET /api/categorias
-     * Obtiene todas las categorías
+     * Obtiene todas las categorías (desde la instantánea en memoria, sin consultar la base)
+     * El ETag lleva la versión de la instantánea: con If-None-Match igual se responde 304 sin cuerpo
+     * El JSON se serializa una vez por versión
      */
     @GetMapping
-    public ResponseEntity<List<CategoriaDTO>> obtenerTodasLasCategorias() {
-        List<CategoriaDTO> categorias = categoriaService.getAllCategorias()
-                .stream()
-                .map(CategoriaDTO::new)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(categorias);
+    public ResponseEntity<byte[]> obtenerTodasLasCategorias(WebRequest request) {
+        CatalogoCategorias.Instantanea instantanea = categoriaService.obtenerInstantanea();
+        if (request.checkNotModified(Validadores.etag("categorias", instantanea.getVersion()),
+                instantanea.getPublicadaEn())) {
+            return null;
+        }
+        return cacheRespuestasJson.responder(ResponseEntity.ok().cacheControl(CacheControl.noCache()), "categorias",
+                instantanea.getVersion(), instantanea::getCategorias, request);
     }
     
     /**
      * GET /api/categorias/{id}
-     * Obtiene una categoría por su ID
+     * Obtiene una categoría por su ID (desde la instantánea en memoria)
+     * ETag y Last-Modified salen de la propia categoría: no cambian cuando se modifica otra
      */
     @GetMapping("/{id}")
-    public ResponseEntity<CategoriaDTO> obtenerCategoriaPorId(@PathVariable Long id) {
-        Optional<Categoria> categoria = categoriaService.getCategoriaById(id);
-        return categoria.map(c -> ResponseEntity.ok(new CategoriaDTO(c)))
-                     .orElseThrow(() -> new CategoriaNotFoundException(id));
+    public ResponseEntity<byte[]> obtenerCategoriaPorId(@PathVariable Long id, WebRequest request) {
+        CatalogoCategorias.Instantanea instantanea = categoriaService.obtenerInstantanea();
+        CategoriaVistaDTO categoria = instantanea.porId(id)
+                .orElseThrow(() -> new CategoriaNotFoundException(id));
+        LocalDateTime modificada = categoria.getUpdatedAt() != null ? categoria.getUpdatedAt() : categoria.getCreatedAt();
+        if (modificada != null && request.checkNotModified(Validadores.etag("categoria", id, modificada),
+                Validadores.milisegundos(modificada))) {
+            return null;
+        }
+        return cacheRespuestasJson.responder(ResponseEntity.ok().cacheControl(CacheControl.noCache()),
+                "categorias/" + id, instantanea.getVersion(), () -> categoria, request);
     }
     
     /**
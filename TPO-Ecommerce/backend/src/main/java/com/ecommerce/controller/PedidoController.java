@@ -1,22 +1,34 @@
 package com.ecommerce.controller;
 
 import com.ecommerce.dto.CreatePedidoDTO;
+import com.ecommerce.dto.PaginaDTO;
 import com.ecommerce.dto.PedidoDTO;
+import com.ecommerce.dto.VentaExportacionDTO;
+import com.ecommerce.dto.VersionColeccionDTO;
+import com.ecommerce.dto.VersionPedidoDTO;
 import com.ecommerce.entity.EstadoPedido;
 import com.ecommerce.entity.Pedido;
-import com.ecommerce.entity.Usuario;
 import com.ecommerce.exception.PedidoNotFoundException;
 import com.ecommerce.exception.UnauthorizedException;
 import com.ecommerce.exception.ForbiddenException;
+import com.ecommerce.service.EstadisticasGeneralesService;
+import com.ecommerce.service.ExportacionVentasService;
 import com.ecommerce.service.PedidoService;
-import com.ecommerce.service.UsuarioService;
-import com.ecommerce.util.JwtUtil;
+import com.ecommerce.security.UsuarioAutenticado;
+import com.ecommerce.util.Transacciones;
+import com.ecommerce.util.Validadores;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.HashMap;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -26,14 +38,17 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
 public class PedidoController {
     
+    // Respuestas con datos del usuario: solo el navegador las guarda y siempre las revalida
+    private static final CacheControl CACHE_PRIVADA = CacheControl.noCache().cachePrivate();
+    
     @Autowired
     private PedidoService pedidoService;
     
     @Autowired
-    private UsuarioService usuarioService;
+    private ExportacionVentasService exportacionVentasService;
     
     @Autowired
-    private JwtUtil jwtUtil;
+    private EstadisticasGeneralesService estadisticasGeneralesService;
     
     /**
      * GET /api/pedidos
@@ -41,9 +56,9 @@ public class PedidoController {
      */
     @GetMapping
     public ResponseEntity<?> obtenerTodosLosPedidos(
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+            @AuthenticationPrincipal UsuarioAutenticado usuario) {
         // Validar que sea admin
-        if (!isAdmin(authHeader)) {
+        if (!esAdmin(usuario)) {
             throw new ForbiddenException("Solo administradores pueden ver todos los pedidos");
         }
         
@@ -55,47 +70,72 @@ public class PedidoController {
     }
     
     /**
-     * GET /api/pedidos/mis-pedidos
-     * Obtiene los pedidos del usuario autenticado (historial)
+     * GET /api/pedidos/mis-pedidos?cursor=&size=
+     * Obtiene los pedidos del usuario autenticado (historial), los más recientes primero
+     * Paginación por cursor: usar el nextCursor de la respuesta para pedir la página siguiente
+     * El ETag sale de la cantidad y la última modificación de sus pedidos (una consulta por índice):
+     * con If-None-Match vigente responde 304 sin cargar la página
      */
     @GetMapping("/mis-pedidos")
     public ResponseEntity<?> obtenerMisPedidos(
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        Long userId = getUserIdFromAuth(authHeader);
-        if (userId == null) {
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PedidoService.TAMANIO_PAGINA_DEFAULT) int size,
+            @AuthenticationPrincipal UsuarioAutenticado usuario,
+            WebRequest request) {
+        if (usuario == null) {
             throw new UnauthorizedException("Debe iniciar sesión para ver sus pedidos");
         }
         
-        List<PedidoDTO> pedidos = pedidoService.obtenerPedidosPorUsuario(userId)
-                .stream()
-                .map(PedidoDTO::new)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(pedidos);
+        VersionColeccionDTO version = pedidoService.obtenerVersionPedidosDeUsuario(usuario.getId());
+        LocalDateTime ultimaModificacion = version.getUltimaModificacion();
+        String etag = ultimaModificacion == null
+                ? Validadores.etag("pedidos", usuario.getId(), version.getCantidad())
+                : Validadores.etag("pedidos", usuario.getId(), version.getCantidad(), ultimaModificacion);
+        long modificado = ultimaModificacion == null ? -1 : Validadores.milisegundos(ultimaModificacion);
+        if (request.checkNotModified(etag, modificado)) {
+            return null;
+        }
+        
+        PaginaDTO<PedidoDTO> pedidos = pedidoService.listarPedidosDeUsuario(usuario.getId(), cursor, size)
+                .map(PedidoDTO::new);
+        return ResponseEntity.ok().cacheControl(CACHE_PRIVADA).body(pedidos);
     }
     
     /**
      * GET /api/pedidos/{id}
      * Obtiene un pedido por ID
      * Solo el dueño del pedido o admin pueden verlo
+     * GET condicional (polling del detalle): el permiso y la versión se validan con una consulta
+     * que no carga items, y si no cambió responde 304
      */
     @GetMapping("/{id}")
     public ResponseEntity<?> obtenerPedidoPorId(
             @PathVariable Long id,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        Long userId = getUserIdFromAuth(authHeader);
-        if (userId == null) {
+            @AuthenticationPrincipal UsuarioAutenticado usuario,
+            WebRequest request) {
+        if (usuario == null) {
             throw new UnauthorizedException("Debe iniciar sesión");
         }
         
+        if (Validadores.esCondicional(request)) {
+            VersionPedidoDTO version = pedidoService.obtenerVersionPedido(id)
+                    .orElseThrow(() -> new PedidoNotFoundException(id));
+            validarPermiso(version.getUsuarioId(), usuario);
+            if (noModificado(request, id, version.getModificado())) {
+                return null;
+            }
+        }
+        
         Pedido pedido = pedidoService.obtenerPedidoPorId(id)
                 .orElseThrow(() -> new PedidoNotFoundException(id));
         
         // Validar que el usuario es el dueño o es admin
-        if (!pedido.getUsuario().getId().equals(userId) && !isAdmin(authHeader)) {
-            throw new ForbiddenException("No tienes permiso para ver este pedido");
-        }
+        validarPermiso(pedido.getUsuario().getId(), usuario);
         
-        return ResponseEntity.ok(new PedidoDTO(pedido));
+        if (noModificado(request, id, pedido.getUpdatedAt() != null ? pedido.getUpdatedAt() : pedido.getCreatedAt())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CACHE_PRIVADA).body(new PedidoDTO(pedido));
     }
     
     /**
@@ -105,15 +145,13 @@ public class PedidoController {
     @PostMapping
     public ResponseEntity<?> crearPedido(
             @RequestBody CreatePedidoDTO createPedidoDTO,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        // Obtener usuario del token
-        Long userId = getUserIdFromAuth(authHeader);
-        if (userId == null) {
+            @AuthenticationPrincipal UsuarioAutenticado usuario) {
+        if (usuario == null) {
             throw new UnauthorizedException("Debe iniciar sesión para crear un pedido");
         }
         
         // Crear el pedido
-        Pedido pedido = pedidoService.crearPedido(userId, createPedidoDTO);
+        Pedido pedido = pedidoService.crearPedido(usuario.getId(), createPedidoDTO);
         
         return ResponseEntity.status(HttpStatus.CREATED).body(new PedidoDTO(pedido));
     }
@@ -127,8 +165,8 @@ public class PedidoController {
     public ResponseEntity<?> actualizarEstado(
             @PathVariable Long id,
             @RequestParam EstadoPedido estado,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        if (!isAdmin(authHeader)) {
+            @AuthenticationPrincipal UsuarioAutenticado usuario) {
+        if (!esAdmin(usuario)) {
             throw new ForbiddenException("Solo administradores pueden cambiar el estado");
         }
         
@@ -144,13 +182,12 @@ public class PedidoController {
     @PutMapping("/{id}/cancelar")
     public ResponseEntity<?> cancelarPedido(
             @PathVariable Long id,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        Long userId = getUserIdFromAuth(authHeader);
-        if (userId == null) {
+            @AuthenticationPrincipal UsuarioAutenticado usuario) {
+        if (usuario == null) {
             throw new UnauthorizedException("Debe iniciar sesión");
         }
         
-        Pedido pedido = pedidoService.cancelarPedido(id, userId);
+        Pedido pedido = Transacciones.reintentandoConflictos(() -> pedidoService.cancelarPedido(id, usuario.getId()));
         return ResponseEntity.ok(new PedidoDTO(pedido));
     }
     
@@ -161,8 +198,8 @@ public class PedidoController {
     @GetMapping("/estado/{estado}")
     public ResponseEntity<?> obtenerPedidosPorEstado(
             @PathVariable EstadoPedido estado,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        if (!isAdmin(authHeader)) {
+            @AuthenticationPrincipal UsuarioAutenticado usuario) {
+        if (!esAdmin(usuario)) {
             throw new ForbiddenException("Solo administradores pueden filtrar por estado");
         }
         
@@ -179,61 +216,58 @@ public class PedidoController {
      */
     @GetMapping("/admin/ventas-totales")
     public ResponseEntity<?> obtenerTodasLasVentas(
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        if (!isAdmin(authHeader)) {
+            @AuthenticationPrincipal UsuarioAutenticado usuario) {
+        if (!esAdmin(usuario)) {
             throw new ForbiddenException("Solo administradores pueden ver todas las ventas");
         }
         
-        // Obtener todos los pedidos y extraer todos los items
-        List<Map<String, Object>> todasLasVentas = pedidoService.obtenerTodosLosPedidos()
-                .stream()
-                .flatMap(pedido -> pedido.getItems().stream().map(item -> {
-                    Map<String, Object> venta = new HashMap<>();
-                    venta.put("detalleId", item.getId());
-                    venta.put("pedidoId", pedido.getId());
-                    venta.put("productoNombre", item.getProductoNombre());
-                    venta.put("cantidad", item.getCantidad());
-                    venta.put("subtotal", item.getSubtotal());
-                    venta.put("estadoItem", item.getEstadoItem());
-                    venta.put("vendedorId", item.getVendedor() != null ? item.getVendedor().getId() : null);
-                    venta.put("vendedorNombre", item.getVendedor() != null ? 
-                            item.getVendedor().getNombre() + " " + item.getVendedor().getApellido() : null);
-                    venta.put("compradorNombre", pedido.getUsuario() != null ? 
-                            pedido.getUsuario().getNombre() + " " + pedido.getUsuario().getApellido() : null);
-                    venta.put("fechaPedido", pedido.getCreatedAt());
-                    return venta;
-                }))
-                .collect(Collectors.toList());
+        // Una sola consulta con los JOIN a pedido, vendedor y comprador
+        List<VentaExportacionDTO> todasLasVentas = exportacionVentasService.obtenerTodasLasVentas();
         
         return ResponseEntity.ok(todasLasVentas);
     }
     
+    /**
+     * GET /api/pedidos/admin/ventas-totales/exportar?formato=jsonl|csv
+     * Exporta todas las ventas escribiéndolas a medida que se leen (ADMIN)
+     * JSON lines (una venta por línea) por defecto, o CSV con encabezado
+     */
+    @GetMapping("/admin/ventas-totales/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarVentas(
+            @RequestParam(defaultValue = "jsonl") String formato,
+            @AuthenticationPrincipal UsuarioAutenticado usuario) {
+        if (!esAdmin(usuario)) {
+            throw new ForbiddenException("Solo administradores pueden exportar las ventas");
+        }
+        
+        ExportacionVentasService.Formato formatoExportacion;
+        try {
+            formatoExportacion = ExportacionVentasService.Formato.valueOf(formato.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Formato inválido: " + formato + " (usar jsonl o csv)");
+        }
+        
+        StreamingResponseBody cuerpo = salida -> exportacionVentasService.exportar(formatoExportacion, salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formatoExportacion.getTipoContenido() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"ventas." + formatoExportacion.getExtension() + "\"")
+                .body(cuerpo);
+    }
+    
     /**
      * GET /api/pedidos/admin/estadisticas-generales
      * Obtiene estadísticas generales del marketplace (ADMIN)
      */
     @GetMapping("/admin/estadisticas-generales")
     public ResponseEntity<?> obtenerEstadisticasGenerales(
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        if (!isAdmin(authHeader)) {
+            @AuthenticationPrincipal UsuarioAutenticado usuario) {
+        if (!esAdmin(usuario)) {
             throw new ForbiddenException("Solo administradores pueden ver estadísticas generales");
         }
         
-        List<Pedido> todosPedidos = pedidoService.obtenerTodosLosPedidos();
-        
-        Map<String, Object> estadisticas = new HashMap<>();
-        estadisticas.put("totalPedidos", todosPedidos.size());
-        estadisticas.put("totalItems", todosPedidos.stream()
-                .mapToLong(p -> p.getItems().size())
-                .sum());
-        estadisticas.put("itemsPendientes", todosPedidos.stream()
-                .flatMap(p -> p.getItems().stream())
-                .filter(i -> i.getEstadoItem() == EstadoPedido.PENDIENTE)
-                .count());
-        estadisticas.put("itemsEntregados", todosPedidos.stream()
-                .flatMap(p -> p.getItems().stream())
-                .filter(i -> i.getEstadoItem() == EstadoPedido.ENTREGADO)
-                .count());
+        // Consultas agregadas (COUNT / SUM), servidas desde una instantánea con refresco configurable
+        Map<String, Object> estadisticas = estadisticasGeneralesService.obtenerEstadisticasMarketplace();
         
         return ResponseEntity.ok(estadisticas);
     }
@@ -241,33 +275,23 @@ public class PedidoController {
     // ===== MÉTODOS AUXILIARES =====
     
     /**
-     * Extrae el ID del usuario del token JWT
+     * Verifica si el usuario autenticado es administrador (rol publicado por el filtro JWT)
      */
-    private Long getUserIdFromAuth(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return null;
-        }
-        
-        try {
-            String token = authHeader.substring(7);
-            return jwtUtil.getUserIdFromToken(token);
-        } catch (Exception e) {
-            return null;
-        }
+    private boolean esAdmin(UsuarioAutenticado usuario) {
+        return usuario != null && usuario.isAdmin();
     }
     
-    /**
-     * Verifica si el usuario es administrador
-     */
-    private boolean isAdmin(String authHeader) {
-        Long userId = getUserIdFromAuth(authHeader);
-        if (userId == null) {
-            return false;
+    private void validarPermiso(Long duenioId, UsuarioAutenticado usuario) {
+        if (!duenioId.equals(usuario.getId()) && !esAdmin(usuario)) {
+            throw new ForbiddenException("No tienes permiso para ver este pedido");
         }
-        
-        Usuario usuario = usuarioService.findById(userId);
-        return usuario != null && usuario.getRole().name().equals("ADMIN");
+    }
+    
+    // Valida el GET condicional del detalle y deja ETag y Last-Modified en la respuesta
+    // Los nombres de comprador y vendedores no forman parte de la versión: son informativos
+    private static boolean noModificado(WebRequest request, Long id, LocalDateTime modificado) {
+        return request.checkNotModified(Validadores.etag("pedido", id, modificado),
+                Validadores.milisegundos(modificado));
     }
     
 }
-
@@ -1,53 +1,106 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.PaginaDTO;
 import com.ecommerce.dto.ProductoDTO;
+import com.ecommerce.dto.ProductoFiltroDTO;
+import com.ecommerce.dto.ProductoVistaDTO;
+import com.ecommerce.dto.SugerenciaDTO;
+import com.ecommerce.dto.VersionProductoDTO;
 import com.ecommerce.entity.Producto;
 import com.ecommerce.exception.ProductoNotFoundException;
 import com.ecommerce.exception.UnauthorizedException;
+import com.ecommerce.repository.OrdenProducto;
+import com.ecommerce.security.UsuarioAutenticado;
+import com.ecommerce.service.BusquedaProductosService;
 import com.ecommerce.service.ProductoService;
-import com.ecommerce.util.JwtUtil;
+import com.ecommerce.service.SugerenciasProductos;
+import com.ecommerce.util.CacheRespuestasJson;
+import com.ecommerce.util.Validadores;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/productos")
-@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"}, exposedHeaders = HttpHeaders.ETAG)
 public class ProductoController {
     
     @Autowired
     private ProductoService productoService;
     
     @Autowired
-    private JwtUtil jwtUtil;
+    private BusquedaProductosService busquedaProductosService;
+    
+    @Autowired
+    private SugerenciasProductos sugerenciasProductos;
+    
+    @Autowired
+    private CacheRespuestasJson cacheRespuestasJson;
     
     /**
-     * GET /api/productos
-     * Obtiene todos los productos
+     * GET /api/productos?q=&categoriaId=&precioMin=&precioMax=&enStock=&ownerUserId=&orden=&direccion=&cursor=&size=
+     * Obtiene una página del catálogo con filtros combinables
+     * Paginación por cursor: usar el nextCursor de la respuesta para pedir la página siguiente
+     * La página ya serializada se reutiliza mientras no cambie la versión del catálogo,
+     * que también hace de ETag: con If-None-Match vigente responde 304 sin consultar
      */
     @GetMapping
-    public ResponseEntity<List<ProductoDTO>> obtenerTodosLosProductos() {
-        List<ProductoDTO> productos = productoService.obtenerTodosLosProductos()
-                .stream()
-                .map(ProductoDTO::new)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(productos);
+    public ResponseEntity<byte[]> obtenerTodosLosProductos(
+            ProductoFiltroDTO filtro,
+            @RequestParam(defaultValue = "ID") OrdenProducto orden,
+            @RequestParam(defaultValue = "ASC") Sort.Direction direccion,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ProductoService.TAMANIO_PAGINA_DEFAULT) int size,
+            WebRequest request) {
+        // La versión se lee antes de consultar (ver ProductoService.versionCatalogo)
+        long version = productoService.versionCatalogo();
+        if (request.checkNotModified(Validadores.etag("productos", version))) {
+            return null;
+        }
+        String clave = "productos?" + filtro + "&orden=" + orden + "&direccion=" + direccion
+                + "&cursor=" + cursor + "&size=" + size;
+        return cacheRespuestasJson.responder(ResponseEntity.ok().cacheControl(CacheControl.noCache()), clave, version,
+                () -> productoService.listarProductos(filtro, orden, direccion.isDescending(), cursor, size)
+                        .map(ProductoDTO::new),
+                request);
     }
     
     /**
      * GET /api/productos/{id}
-     * Obtiene un producto por su ID
+     * Obtiene un producto por su ID (servido desde la cache de productos)
+     * La vista cacheada hace de versión: mientras sea la misma se reutiliza su JSON ya serializado
+     * GET condicional (If-None-Match / If-Modified-Since): se valida con la versión y la última
+     * modificación del producto y responde 304 sin cargar categoría, vendedor ni imágenes
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ProductoDTO> obtenerProductoPorId(@PathVariable Long id) {
-        Optional<Producto> producto = productoService.obtenerProductoPorId(id);
-        return producto.map(p -> ResponseEntity.ok(new ProductoDTO(p)))
-                     .orElseThrow(() -> new ProductoNotFoundException(id));
+    public ResponseEntity<byte[]> obtenerProductoPorId(@PathVariable Long id, WebRequest request) {
+        // La generación se lee antes que el producto: si cambia en el medio, el ETag queda viejo y no al revés
+        long generacion = productoService.generacionCatalogo();
+        if (Validadores.esCondicional(request)) {
+            Optional<VersionProductoDTO> version = productoService.obtenerVersion(id);
+            if (version.isPresent() && noModificado(request, id, version.get().getVersion(),
+                    version.get().getModificado(), generacion)) {
+                return null;
+            }
+        }
+        ProductoVistaDTO vista = productoService.obtenerVistaProducto(id)
+                .orElseThrow(() -> new ProductoNotFoundException(id));
+        if (noModificado(request, id, vista.getVersion(),
+                vista.getUpdatedAt() != null ? vista.getUpdatedAt() : vista.getCreatedAt(), generacion)) {
+            return null;
+        }
+        return cacheRespuestasJson.responder(ResponseEntity.ok().cacheControl(CacheControl.noCache()),
+                "productos/" + id, vista, () -> vista, request);
     }
     
     /**
@@ -58,27 +111,35 @@ public class ProductoController {
     @PostMapping
     public ResponseEntity<ProductoDTO> crearProducto(
             @RequestBody Producto producto,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        // Obtener usuario del token
-        Long userId = getUserIdFromAuth(authHeader);
-        if (userId == null) {
+            @AuthenticationPrincipal UsuarioAutenticado usuario) {
+        if (usuario == null) {
             throw new UnauthorizedException("Debe iniciar sesión para crear un producto");
         }
         
         // Crear el producto asignándolo al usuario autenticado
-        Producto productoCreado = productoService.crearProducto(producto, userId);
+        Producto productoCreado = productoService.crearProducto(producto, usuario.getId());
         return ResponseEntity.status(HttpStatus.CREATED).body(new ProductoDTO(productoCreado));
     }
     
     /**
      * PUT /api/productos/{id}
      * Actualiza un producto existente
+     * Requiere If-Match con el ETag del GET: sin él responde 428, y si otra edición o un checkout
+     * modificó el producto desde esa lectura responde 412 en lugar de pisar el cambio
+     * Solo se compara la versión del producto, no la generación del catálogo que también lleva el ETag
+     * La respuesta lleva el ETag nuevo para encadenar la siguiente edición
      */
     @PutMapping("/{id}")
-    public ResponseEntity<ProductoDTO> actualizarProducto(@PathVariable Long id, @RequestBody Producto producto) {
-        Optional<Producto> productoActualizado = productoService.actualizarProducto(id, producto);
-        return productoActualizado.map(p -> ResponseEntity.ok(new ProductoDTO(p)))
-                                .orElseThrow(() -> new ProductoNotFoundException(id));
+    public ResponseEntity<ProductoDTO> actualizarProducto(
+            @PathVariable Long id,
+            @RequestBody Producto producto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Producto productoActualizado = productoService.actualizarProducto(id, producto, ifMatch)
+                .orElseThrow(() -> new ProductoNotFoundException(id));
+        // El ETag nuevo con la generación vigente, la misma que usará el próximo GET
+        return ResponseEntity.ok()
+                .eTag(ProductoService.etag(productoActualizado, productoService.generacionCatalogo()))
+                .body(new ProductoDTO(productoActualizado));
     }
     
     /**
@@ -95,42 +156,34 @@ public class ProductoController {
     }
     
     /**
-     * GET /api/productos/buscar?nombre={nombre}
-     * Busca productos por nombre
+     * GET /api/productos/buscar?q={texto}&cursor=&size=
+     * Búsqueda de texto en nombre, descripción y categoría, los más relevantes primero
+     * No distingue mayúsculas ni acentos; acepta también el parámetro anterior "nombre"
+     * Sin texto devuelve el catálogo completo (igual que GET /api/productos)
      */
     @GetMapping("/buscar")
-    public ResponseEntity<List<ProductoDTO>> buscarProductosPorNombre(@RequestParam(required = false) String nombre) {
-        List<ProductoDTO> productos = productoService.buscarProductosPorNombre(nombre)
-                .stream()
-                .map(ProductoDTO::new)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(productos);
-    }
-    
-    /**
-     * GET /api/productos/categoria/{categoryId}
-     * Busca productos por categoría
-     */
-    @GetMapping("/categoria/{categoryId}")
-    public ResponseEntity<List<ProductoDTO>> buscarProductosPorCategoria(@PathVariable Long categoryId) {
-        List<ProductoDTO> productos = productoService.buscarProductosPorCategoria(categoryId)
-                .stream()
-                .map(ProductoDTO::new)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(productos);
+    public ResponseEntity<PaginaDTO<ProductoDTO>> buscarProductos(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String nombre,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ProductoService.TAMANIO_PAGINA_DEFAULT) int size) {
+        String consulta = q != null ? q : nombre;
+        PaginaDTO<Producto> pagina = consulta == null || consulta.isBlank()
+                ? productoService.listarProductos(null, OrdenProducto.ID, false, cursor, size)
+                : busquedaProductosService.buscar(consulta, cursor, size);
+        return ResponseEntity.ok(pagina.map(ProductoDTO::new));
     }
     
     /**
-     * GET /api/productos/stock?disponible={disponible}
-     * Busca productos por disponibilidad de stock
+     * GET /api/productos/sugerencias?q={texto}&limite=
+     * Autocompletado del buscador: nombres de productos y categorías que empiezan con lo escrito
+     * Se responde desde memoria, sin consultar la base
      */
-    @GetMapping("/stock")
-    public ResponseEntity<List<ProductoDTO>> buscarProductosPorStock(@RequestParam(defaultValue = "true") boolean disponible) {
-        List<ProductoDTO> productos = productoService.buscarProductosPorStock(disponible)
-                .stream()
-                .map(ProductoDTO::new)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(productos);
+    @GetMapping("/sugerencias")
+    public ResponseEntity<List<SugerenciaDTO>> obtenerSugerencias(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "" + SugerenciasProductos.MAXIMO_SUGERENCIAS) int limite) {
+        return ResponseEntity.ok(sugerenciasProductos.sugerir(q, limite));
     }
     
     /**
@@ -142,21 +195,10 @@ public class ProductoController {
         return ResponseEntity.ok("Servicio de productos funcionando correctamente");
     }
     
-    // ===== MÉTODOS AUXILIARES =====
-    
-    /**
-     * Extrae el ID del usuario del token JWT
-     */
-    private Long getUserIdFromAuth(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return null;
-        }
-        
-        try {
-            String token = authHeader.substring(7);
-            return jwtUtil.getUserIdFromToken(token);
-        } catch (Exception e) {
-            return null;
-        }
+    // Valida el GET condicional y deja ETag y Last-Modified en la respuesta (la de 200 también los lleva)
+    private static boolean noModificado(WebRequest request, Long id, Long version, LocalDateTime modificado,
+                                        long generacion) {
+        return request.checkNotModified(ProductoService.etag(id, version, generacion),
+                Math.max(Validadores.milisegundos(modificado), generacion));
     }
 }
@@ -1,19 +1,26 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.ActualizarEstadoVentasDTO;
+import com.ecommerce.dto.PaginaDTO;
+import com.ecommerce.dto.ResultadoActualizacionLoteDTO;
 import com.ecommerce.dto.VentaDTO;
+import com.ecommerce.dto.VentasPorEstadoDTO;
 import com.ecommerce.entity.DetallePedido;
 import com.ecommerce.entity.EstadoPedido;
 import com.ecommerce.exception.UnauthorizedException;
+import com.ecommerce.service.EstadisticasVendedorService;
 import com.ecommerce.service.PedidoService;
-import com.ecommerce.util.JwtUtil;
+import com.ecommerce.security.UsuarioAutenticado;
+import com.ecommerce.util.Transacciones;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 /**
  * Controlador para gestionar las ventas desde la perspectiva del vendedor
@@ -28,38 +35,38 @@ public class VentasController {
     private PedidoService pedidoService;
     
     @Autowired
-    private JwtUtil jwtUtil;
+    private EstadisticasVendedorService estadisticasVendedorService;
     
     /**
-     * GET /api/ventas/mis-ventas
-     * Obtiene todas las ventas del usuario autenticado (como vendedor)
+     * GET /api/ventas/mis-ventas?cursor=&size=
+     * Obtiene las ventas del usuario autenticado (como vendedor), las más recientes primero
+     * Paginación por cursor: usar el nextCursor de la respuesta para pedir la página siguiente
      */
     @GetMapping("/mis-ventas")
     public ResponseEntity<?> obtenerMisVentas(
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        Long vendedorId = getUserIdFromAuth(authHeader);
-        if (vendedorId == null) {
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PedidoService.TAMANIO_PAGINA_DEFAULT) int size,
+            @AuthenticationPrincipal UsuarioAutenticado usuario) {
+        if (usuario == null) {
             throw new UnauthorizedException("Debe iniciar sesión para ver sus ventas");
         }
         
-        List<VentaDTO> ventas = pedidoService.obtenerVentasPorVendedor(vendedorId)
-                .stream()
-                .map(VentaDTO::new)
-                .collect(Collectors.toList());
-        
+        PaginaDTO<VentaDTO> ventas = pedidoService.listarVentasDeVendedor(usuario.getId(), null, cursor, size)
+                .map(VentaDTO::new);
         return ResponseEntity.ok(ventas);
     }
     
     /**
-     * GET /api/ventas/mis-ventas/estado/{estado}
-     * Obtiene las ventas del vendedor filtradas por estado
+     * GET /api/ventas/mis-ventas/estado/{estado}?cursor=&size=
+     * Obtiene las ventas del vendedor filtradas por estado (paginadas por cursor)
      */
     @GetMapping("/mis-ventas/estado/{estado}")
     public ResponseEntity<?> obtenerMisVentasPorEstado(
             @PathVariable String estado,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        Long vendedorId = getUserIdFromAuth(authHeader);
-        if (vendedorId == null) {
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PedidoService.TAMANIO_PAGINA_DEFAULT) int size,
+            @AuthenticationPrincipal UsuarioAutenticado usuario) {
+        if (usuario == null) {
             throw new UnauthorizedException("Debe iniciar sesión");
         }
         
@@ -70,11 +77,8 @@ public class VentasController {
             throw new IllegalArgumentException("Estado inválido: " + estado);
         }
         
-        List<VentaDTO> ventas = pedidoService.obtenerVentasPorVendedorYEstado(vendedorId, estadoPedido)
-                .stream()
-                .map(VentaDTO::new)
-                .collect(Collectors.toList());
-        
+        PaginaDTO<VentaDTO> ventas = pedidoService.listarVentasDeVendedor(usuario.getId(), estadoPedido, cursor, size)
+                .map(VentaDTO::new);
         return ResponseEntity.ok(ventas);
     }
     
@@ -85,16 +89,31 @@ public class VentasController {
     @GetMapping("/{detalleId}")
     public ResponseEntity<?> obtenerVentaPorId(
             @PathVariable Long detalleId,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        Long vendedorId = getUserIdFromAuth(authHeader);
-        if (vendedorId == null) {
+            @AuthenticationPrincipal UsuarioAutenticado usuario) {
+        if (usuario == null) {
             throw new UnauthorizedException("Debe iniciar sesión");
         }
         
-        DetallePedido detalle = pedidoService.obtenerVentaPorId(detalleId, vendedorId);
+        DetallePedido detalle = pedidoService.obtenerVentaPorId(detalleId, usuario.getId());
         return ResponseEntity.ok(new VentaDTO(detalle));
     }
     
+    /**
+     * GET /api/ventas/{detalleId}/estados-siguientes
+     * Obtiene los estados a los que el vendedor puede pasar la venta (vacío si es un estado final)
+     */
+    @GetMapping("/{detalleId}/estados-siguientes")
+    public ResponseEntity<?> obtenerEstadosSiguientes(
+            @PathVariable Long detalleId,
+            @AuthenticationPrincipal UsuarioAutenticado usuario) {
+        if (usuario == null) {
+            throw new UnauthorizedException("Debe iniciar sesión");
+        }
+        
+        Set<EstadoPedido> estadosSiguientes = pedidoService.obtenerEstadosSiguientes(detalleId, usuario.getId());
+        return ResponseEntity.ok(Map.of("detalleId", detalleId, "estadosSiguientes", estadosSiguientes));
+    }
+    
     /**
      * PUT /api/ventas/{detalleId}/estado
      * Actualiza el estado de una venta (item)
@@ -104,9 +123,8 @@ public class VentasController {
     public ResponseEntity<?> actualizarEstadoVenta(
             @PathVariable Long detalleId,
             @RequestParam String estado,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        Long vendedorId = getUserIdFromAuth(authHeader);
-        if (vendedorId == null) {
+            @AuthenticationPrincipal UsuarioAutenticado usuario) {
+        if (usuario == null) {
             throw new UnauthorizedException("Debe iniciar sesión");
         }
         
@@ -117,49 +135,67 @@ public class VentasController {
             throw new IllegalArgumentException("Estado inválido: " + estado);
         }
         
-        DetallePedido detalle = pedidoService.actualizarEstadoItem(detalleId, vendedorId, nuevoEstado);
+        // Otro vendedor del mismo pedido puede mover su item a la vez: el histograma se reintenta, no se pierde
+        DetallePedido detalle = Transacciones.reintentandoConflictos(
+                () -> pedidoService.actualizarEstadoItem(detalleId, usuario.getId(), nuevoEstado));
         return ResponseEntity.ok(new VentaDTO(detalle));
     }
     
+    /**
+     * PUT /api/ventas/estado
+     * Actualiza el estado de varias ventas (items) del vendedor en una sola llamada
+     * Body: { "detalleIds": [1, 2, 3], "estado": "ENVIADO" }
+     * Las ventas que no se pueden actualizar se devuelven en "fallidos" con su motivo
+     */
+    @PutMapping("/estado")
+    public ResponseEntity<?> actualizarEstadoVentas(
+            @RequestBody ActualizarEstadoVentasDTO request,
+            @AuthenticationPrincipal UsuarioAutenticado usuario) {
+        if (usuario == null) {
+            throw new UnauthorizedException("Debe iniciar sesión");
+        }
+        if (request.getEstado() == null) {
+            throw new IllegalArgumentException("Debe indicar el estado");
+        }
+        
+        EstadoPedido nuevoEstado;
+        try {
+            nuevoEstado = EstadoPedido.valueOf(request.getEstado().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Estado inválido: " + request.getEstado());
+        }
+        
+        ResultadoActualizacionLoteDTO resultado = Transacciones.reintentandoConflictos(
+                () -> pedidoService.actualizarEstadoItems(request.getDetalleIds(), usuario.getId(), nuevoEstado));
+        return ResponseEntity.ok(resultado);
+    }
+    
     /**
      * GET /api/ventas/estadisticas
      * Obtiene estadísticas de ventas del vendedor
      */
     @GetMapping("/estadisticas")
     public ResponseEntity<?> obtenerEstadisticasVentas(
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        Long vendedorId = getUserIdFromAuth(authHeader);
-        if (vendedorId == null) {
+            @AuthenticationPrincipal UsuarioAutenticado usuario) {
+        if (usuario == null) {
             throw new UnauthorizedException("Debe iniciar sesión");
         }
         
-        List<DetallePedido> todasLasVentas = pedidoService.obtenerVentasPorVendedor(vendedorId);
+        // Contadores materializados en seller_stats: lectura por clave primaria
+        EnumMap<EstadoPedido, VentasPorEstadoDTO> resumen = estadisticasVendedorService.obtenerResumen(usuario.getId());
         
         Map<String, Object> estadisticas = new HashMap<>();
-        estadisticas.put("totalVentas", todasLasVentas.size());
-        estadisticas.put("ventasPendientes", 
-                todasLasVentas.stream()
-                        .filter(v -> v.getEstadoItem() == EstadoPedido.PENDIENTE)
-                        .count());
-        estadisticas.put("ventasConfirmadas", 
-                todasLasVentas.stream()
-                        .filter(v -> v.getEstadoItem() == EstadoPedido.CONFIRMADO)
-                        .count());
-        estadisticas.put("ventasEnviadas", 
-                todasLasVentas.stream()
-                        .filter(v -> v.getEstadoItem() == EstadoPedido.ENVIADO || 
-                                   v.getEstadoItem() == EstadoPedido.EN_TRANSITO)
-                        .count());
-        estadisticas.put("ventasEntregadas", 
-                todasLasVentas.stream()
-                        .filter(v -> v.getEstadoItem() == EstadoPedido.ENTREGADO)
-                        .count());
-        estadisticas.put("ventasCanceladas", 
-                todasLasVentas.stream()
-                        .filter(v -> v.getEstadoItem() == EstadoPedido.CANCELADO ||
-                                   v.getEstadoItem() == EstadoPedido.CANCELADO_COMPRADOR || 
-                                   v.getEstadoItem() == EstadoPedido.CANCELADO_VENDEDOR)
-                        .count());
+        estadisticas.put("totalVentas", resumen.values().stream()
+                .mapToLong(VentasPorEstadoDTO::getCantidadItems)
+                .sum());
+        estadisticas.put("ventasPendientes", contar(resumen, EstadoPedido.PENDIENTE));
+        estadisticas.put("ventasConfirmadas", contar(resumen, EstadoPedido.CONFIRMADO));
+        estadisticas.put("ventasEnviadas", contar(resumen, EstadoPedido.ENVIADO, EstadoPedido.EN_TRANSITO));
+        estadisticas.put("ventasEntregadas", contar(resumen, EstadoPedido.ENTREGADO));
+        estadisticas.put("ventasCanceladas", contar(resumen, EstadoPedido.CANCELADO,
+                EstadoPedido.CANCELADO_COMPRADOR, EstadoPedido.CANCELADO_VENDEDOR));
+        estadisticas.put("ingresosEntregados", resumen.get(EstadoPedido.ENTREGADO).getIngresos());
+        estadisticas.put("porEstado", resumen);
         
         return ResponseEntity.ok(estadisticas);
     }
@@ -167,20 +203,13 @@ public class VentasController {
     // ===== MÉTODOS AUXILIARES =====
     
     /**
-     * Extrae el ID del usuario del token JWT
+     * Suma la cantidad de items de los estados indicados
      */
-    private Long getUserIdFromAuth(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return null;
-        }
-        
-        try {
-            String token = authHeader.substring(7);
-            return jwtUtil.getUserIdFromToken(token);
-        } catch (Exception e) {
-            return null;
+    private long contar(EnumMap<EstadoPedido, VentasPorEstadoDTO> resumen, EstadoPedido... estados) {
+        long total = 0;
+        for (EstadoPedido estado : estados) {
+            total += resumen.get(estado).getCantidadItems();
         }
+        return total;
     }
-    
 }
-
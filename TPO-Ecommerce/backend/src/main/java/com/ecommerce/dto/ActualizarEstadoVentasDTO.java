@@ -0,0 +1,20 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para cambiar el estado de varias ventas (items) del vendedor en una sola llamada
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ActualizarEstadoVentasDTO {
+    private List<Long> detalleIds;
+    private String estado;
+}
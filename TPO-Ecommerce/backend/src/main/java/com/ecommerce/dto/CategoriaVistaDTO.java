@@ -0,0 +1,27 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.entity.Categoria;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vista inmutable de una categoría (mismos campos que CategoriaDTO)
+ * Es lo que guarda la instantánea de CatalogoCategorias: se comparte entre requests sin copiarla
+ */
+@Value
+public class CategoriaVistaDTO {
+    Long id;
+    String nombre;
+    String descripcion;
+    LocalDateTime createdAt;
+    LocalDateTime updatedAt;
+
+    public CategoriaVistaDTO(Categoria categoria) {
+        this.id = categoria.getId();
+        this.nombre = categoria.getNombre();
+        this.descripcion = categoria.getDescripcion();
+        this.createdAt = categoria.getCreatedAt();
+        this.updatedAt = categoria.getUpdatedAt();
+    }
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.dto;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * Versión, stock, precio y nombre actuales de un producto (ver ProductoRepository.reservarStock)
+ * El checkout copia precio y nombre de la fila sobre la que descontó al detalle del pedido
+ */
+@Value
+public class EstadoStockDTO {
+    Long version;
+    Integer stock;
+    BigDecimal price;
+    String name;
+}
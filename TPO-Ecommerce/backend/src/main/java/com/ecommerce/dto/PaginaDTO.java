@@ -0,0 +1,33 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Página de resultados con paginación por cursor (keyset)
+ * nextCursor es null cuando no hay más resultados
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaginaDTO<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+    private int size;
+
+    // Convertir los items de la página manteniendo el cursor
+    public <R> PaginaDTO<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapeados = items.stream()
+                .map(mapper)
+                .collect(Collectors.toList());
+        return new PaginaDTO<>(mapeados, nextCursor, hasMore, size);
+    }
+}
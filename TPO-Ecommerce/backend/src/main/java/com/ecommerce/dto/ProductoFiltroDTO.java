@@ -0,0 +1,25 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Filtros combinables para el listado de productos
+ * Todos son opcionales; los que vienen en null no se aplican
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductoFiltroDTO {
+    private String q;              // Texto a buscar en el nombre
+    private Long categoriaId;
+    private BigDecimal precioMin;
+    private BigDecimal precioMax;
+    private Boolean enStock;       // true = stock > 0, false = stock = 0
+    private Long ownerUserId;
+}
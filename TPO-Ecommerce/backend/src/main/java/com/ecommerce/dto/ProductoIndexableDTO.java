@@ -0,0 +1,21 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Campos de texto de un producto que se indexan para la búsqueda
+ * Se arma en la consulta con JOIN a categoría, sin cargar entidades (ver ProductoRepository)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductoIndexableDTO {
+    private Long id;
+    private String nombre;
+    private String descripcion;
+    private String categoria;
+}
@@ -0,0 +1,48 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.entity.Producto;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Vista inmutable del detalle de un producto (mismos campos que ProductoDTO)
+ * Es lo que guarda CacheProductos: se comparte entre requests sin copiarla
+ */
+@Value
+public class ProductoVistaDTO {
+    Long id;
+    String name;
+    String description;
+    BigDecimal price;
+    Integer stock;
+    List<String> images;
+    Long categoriaId;
+    String categoriaNombre;
+    Long ownerUserId;
+    String ownerUserNombre;
+    LocalDateTime createdAt;
+    LocalDateTime updatedAt;
+    // Solo para el ETag (ver ProductoController): no forma parte del JSON
+    @JsonIgnore
+    Long version;
+
+    public ProductoVistaDTO(Producto producto) {
+        this.id = producto.getId();
+        this.name = producto.getName();
+        this.description = producto.getDescription();
+        this.price = producto.getPrice();
+        this.stock = producto.getStock();
+        this.images = producto.getImages() != null ? List.copyOf(producto.getImages()) : List.of();
+        this.categoriaId = producto.getCategoria() != null ? producto.getCategoria().getId() : null;
+        this.categoriaNombre = producto.getCategoria() != null ? producto.getCategoria().getNombre() : null;
+        this.ownerUserId = producto.getOwnerUser() != null ? producto.getOwnerUser().getId() : null;
+        this.ownerUserNombre = producto.getOwnerUser() != null ? producto.getOwnerUser().getNombre() : null;
+        this.createdAt = producto.getCreatedAt();
+        this.updatedAt = producto.getUpdatedAt();
+        this.version = producto.getVersion();
+    }
+}
@@ -0,0 +1,39 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.entity.EstadoPedido;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de un cambio de estado en lote: ventas actualizadas y ventas rechazadas con su motivo
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResultadoActualizacionLoteDTO {
+    private EstadoPedido estado;
+    
+    @Builder.Default
+    private List<Long> actualizados = new ArrayList<>();
+    
+    @Builder.Default
+    private List<FalloDTO> fallidos = new ArrayList<>();
+    
+    public void agregarFallo(Long detalleId, String motivo) {
+        fallidos.add(new FalloDTO(detalleId, motivo));
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FalloDTO {
+        private Long detalleId;
+        private String motivo;
+    }
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sugerencia del autocompletado del buscador: un nombre de producto o de categoría
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SugerenciaDTO {
+    private String texto;
+    private Tipo tipo;
+
+    public enum Tipo {
+        PRODUCTO,
+        CATEGORIA
+    }
+}
@@ -0,0 +1,31 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.entity.EstadoPedido;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Fila plana de una venta (item) para el listado y la exportación de ventas del admin
+ * Se arma en la consulta con JOIN a pedido, vendedor y comprador (ver DetallePedidoRepository)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VentaExportacionDTO {
+    private Long detalleId;
+    private Long pedidoId;
+    private String productoNombre;
+    private Integer cantidad;
+    private BigDecimal subtotal;
+    private EstadoPedido estadoItem;
+    private Long vendedorId;
+    private String vendedorNombre;
+    private String compradorNombre;
+    private LocalDateTime fechaPedido;
+}
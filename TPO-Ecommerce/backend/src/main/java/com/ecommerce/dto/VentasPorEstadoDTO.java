@@ -0,0 +1,29 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.entity.EstadoPedido;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Resumen de las ventas de un vendedor en un estado de item
+ * Se arma en la base con GROUP BY estadoItem (ver DetallePedidoRepository)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VentasPorEstadoDTO {
+    private EstadoPedido estado;
+    private Long cantidadItems;
+    private Long unidades;
+    private BigDecimal ingresos;
+    
+    // Resumen vacío para los estados sin ventas
+    public static VentasPorEstadoDTO vacio(EstadoPedido estado) {
+        return new VentasPorEstadoDTO(estado, 0L, 0L, BigDecimal.ZERO);
+    }
+}
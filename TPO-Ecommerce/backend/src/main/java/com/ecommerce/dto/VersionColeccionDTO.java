@@ -0,0 +1,15 @@
+package com.ecommerce.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Versión de una colección: cantidad de elementos y última modificación de cualquiera de ellos
+ * Cambia con cada alta, baja o modificación (las bajas cambian la cantidad)
+ */
+@Value
+public class VersionColeccionDTO {
+    Long cantidad;
+    LocalDateTime ultimaModificacion;
+}
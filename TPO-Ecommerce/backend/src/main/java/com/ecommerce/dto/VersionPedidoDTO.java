@@ -0,0 +1,15 @@
+package com.ecommerce.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Dueño y última modificación de un pedido, sin cargar sus items
+ * Alcanza para validar el permiso y responder 304 a un GET condicional (ver PedidoRepository)
+ */
+@Value
+public class VersionPedidoDTO {
+    Long usuarioId;
+    LocalDateTime modificado;
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Versión (@Version) y última modificación de un producto sin cargar su detalle
+ * Alcanzan para validar un GET condicional (ETag y Last-Modified, ver ProductoController)
+ */
+@Value
+public class VersionProductoDTO {
+    Long version;
+    LocalDateTime modificado;
+}
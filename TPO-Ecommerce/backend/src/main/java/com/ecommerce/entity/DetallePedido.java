@@ -3,6 +3,7 @@ package com.ecommerce.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 /**
  * Entidad que representa un item/detalle dentro de un pedido
@@ -10,7 +11,7 @@ import java.math.BigDecimal;
  * Cada item tiene su propio estado y vendedor (owner del producto)
  */
 @Entity
-@Table(name = "detalle_pedidos")
+@Table(name = "detalle_pedidos")  // Índices en db/migration/*/V3__indices_de_consulta.sql
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,7 +19,10 @@ import java.math.BigDecimal;
 public class DetallePedido {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "detalle_pedidos_id")
+    @TableGenerator(name = "detalle_pedidos_id", table = Secuencias.TABLA, pkColumnName = Secuencias.COLUMNA_NOMBRE,
+            valueColumnName = Secuencias.COLUMNA_VALOR, pkColumnValue = "detalle_pedidos",
+            allocationSize = Secuencias.TAMANIO_BLOQUE)
     private Long id;
     
     // Relación con el pedido (muchos items pertenecen a un pedido)
@@ -58,6 +62,18 @@ public class DetallePedido {
     @Builder.Default
     private EstadoPedido estadoItem = EstadoPedido.PENDIENTE;
     
+    // Fecha del pedido copiada en el item: permite paginar las ventas de un vendedor
+    // con un índice de detalle_pedidos sin hacer JOIN a pedidos para ordenar
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    public void prePersist() {
+        if (createdAt == null) {
+            createdAt = pedido != null && pedido.getCreatedAt() != null ? pedido.getCreatedAt() : LocalDateTime.now();
+        }
+    }
+    
     // Método auxiliar para calcular subtotal
     public BigDecimal getSubtotal() {
         return precioUnitario.multiply(BigDecimal.valueOf(cantidad));
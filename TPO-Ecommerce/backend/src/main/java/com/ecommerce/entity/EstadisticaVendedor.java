@@ -0,0 +1,38 @@
+package com.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Contadores de ventas materializados por vendedor y estado de item
+ * PedidoService los mantiene en la misma transacción que cambia los items,
+ * así las estadísticas del vendedor se leen por clave primaria
+ * Se pueden recalcular desde detalle_pedidos con EstadisticasVendedorService.reconstruir()
+ */
+@Entity
+@Table(name = "seller_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EstadisticaVendedor {
+    
+    @EmbeddedId
+    private EstadisticaVendedorId id;
+    
+    @Column(name = "cantidad_items", nullable = false)
+    private Long cantidadItems;
+    
+    @Column(nullable = false)
+    private Long unidades;
+    
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal ingresos;
+    
+    // Usado por la consulta de reconstrucción (SELECT new ... GROUP BY vendedor, estado)
+    public EstadisticaVendedor(Long vendedorId, EstadoPedido estado, Long cantidadItems, Long unidades, BigDecimal ingresos) {
+        this(new EstadisticaVendedorId(vendedorId, estado), cantidadItems, unidades, ingresos);
+    }
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Clave de seller_stats: un contador por vendedor y estado de item
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticaVendedorId implements Serializable {
+    
+    @Column(name = "vendedor_id", nullable = false)
+    private Long vendedorId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false, length = 30)
+    private EstadoPedido estado;
+}
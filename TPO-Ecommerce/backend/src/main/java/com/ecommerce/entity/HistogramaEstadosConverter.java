@@ -0,0 +1,53 @@
+package com.ecommerce.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Guarda el histograma de estados de los items de un pedido en una sola columna
+ * con el formato "PENDIENTE=2;CONFIRMADO=1" (solo estados con items)
+ */
+@Converter
+public class HistogramaEstadosConverter implements AttributeConverter<EnumMap<EstadoPedido, Integer>, String> {
+
+    private static final String SEPARADOR_ENTRADAS = ";";
+    private static final String SEPARADOR_VALOR = "=";
+
+    @Override
+    public String convertToDatabaseColumn(EnumMap<EstadoPedido, Integer> histograma) {
+        if (histograma == null) {
+            return null;
+        }
+        StringBuilder columna = new StringBuilder();
+        for (Map.Entry<EstadoPedido, Integer> entrada : histograma.entrySet()) {
+            if (entrada.getValue() == null || entrada.getValue() == 0) {
+                continue;
+            }
+            if (columna.length() > 0) {
+                columna.append(SEPARADOR_ENTRADAS);
+            }
+            columna.append(entrada.getKey().name()).append(SEPARADOR_VALOR).append(entrada.getValue());
+        }
+        return columna.toString();
+    }
+
+    @Override
+    public EnumMap<EstadoPedido, Integer> convertToEntityAttribute(String columna) {
+        if (columna == null) {
+            // Pedido anterior al histograma: Pedido lo arma desde sus items cuando lo necesita
+            return null;
+        }
+        EnumMap<EstadoPedido, Integer> histograma = new EnumMap<>(EstadoPedido.class);
+        if (columna.isBlank()) {
+            return histograma;
+        }
+        for (String entrada : columna.split(SEPARADOR_ENTRADAS)) {
+            String[] partes = entrada.split(SEPARADOR_VALOR, 2);
+            histograma.put(EstadoPedido.valueOf(partes[0].trim()), Integer.parseInt(partes[1].trim()));
+        }
+        return histograma;
+    }
+}
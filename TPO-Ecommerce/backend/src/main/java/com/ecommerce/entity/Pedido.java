@@ -2,9 +2,11 @@ package com.ecommerce.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 
 /**
@@ -13,7 +15,7 @@ import java.util.List;
  * Un pedido pertenece a un usuario
  */
 @Entity
-@Table(name = "pedidos")
+@Table(name = "pedidos")  // Índices en db/migration/*/V3__indices_de_consulta.sql
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -21,7 +23,10 @@ import java.util.List;
 public class Pedido {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "pedidos_id")
+    @TableGenerator(name = "pedidos_id", table = Secuencias.TABLA, pkColumnName = Secuencias.COLUMNA_NOMBRE,
+            valueColumnName = Secuencias.COLUMNA_VALOR, pkColumnValue = "pedidos",
+            allocationSize = Secuencias.TAMANIO_BLOQUE)
     private Long id;
     
     // Relación con usuario (muchos pedidos pertenecen a un usuario)
@@ -30,7 +35,9 @@ public class Pedido {
     private Usuario usuario;
     
     // Items del pedido (un pedido tiene muchos items)
+    // Al listar una página de pedidos, los items se cargan en lotes y no un SELECT por pedido
     @OneToMany(mappedBy = "pedido", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 50)
     @Builder.Default
     private List<DetallePedido> items = new ArrayList<>();
     
@@ -42,6 +49,13 @@ public class Pedido {
     @Builder.Default
     private EstadoPedido estado = EstadoPedido.PENDIENTE;
     
+    // Cantidad de items por estado, actualizada en cada cambio de estado de un item
+    // para derivar el estado general sin cargar ni recorrer la colección de items
+    // (null en pedidos anteriores: se arma desde los items la primera vez que se usa)
+    @Convert(converter = HistogramaEstadosConverter.class)
+    @Column(name = "histograma_estados", length = 400)
+    private EnumMap<EstadoPedido, Integer> histogramaEstados;
+    
     @Column(name = "direccion_envio", columnDefinition = "TEXT")
     private String direccionEnvio;
     
@@ -55,6 +69,12 @@ public class Pedido {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Concurrencia optimista (V4__control_de_concurrencia.sql): dos cambios de estado simultáneos
+    // sobre el mismo pedido no pueden pisarse el histograma: el segundo falla y los controladores
+    // lo reintentan sobre el pedido releído (Transacciones.reintentandoConflictos)
+    @Version
+    private Long version;
+    
     @PreUpdate
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
@@ -67,6 +87,90 @@ public class Pedido {
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
     
+    /**
+     * Agregar un item al pedido contándolo en el histograma de estados
+     */
+    public void agregarItem(DetallePedido item) {
+        EnumMap<EstadoPedido, Integer> histograma = copiarHistograma();
+        items.add(item);
+        histograma.merge(item.getEstadoItem(), 1, Integer::sum);
+        this.histogramaEstados = histograma;
+    }
+    
+    /**
+     * Cambiar el estado de un item del pedido moviéndolo de casillero en el histograma
+     */
+    public void cambiarEstadoItem(DetallePedido item, EstadoPedido nuevoEstado) {
+        moverEnHistograma(item.getEstadoItem(), nuevoEstado, 1);
+        item.setEstadoItem(nuevoEstado);
+    }
+    
+    /**
+     * Mover items de un estado a otro solo en el histograma
+     * Para cambios de estado aplicados con un UPDATE en lote sobre detalle_pedidos
+     */
+    public void moverEnHistograma(EstadoPedido estadoAnterior, EstadoPedido nuevoEstado, int cantidadItems) {
+        EnumMap<EstadoPedido, Integer> histograma = copiarHistograma();
+        histograma.computeIfPresent(estadoAnterior,
+                (estado, cantidad) -> cantidad > cantidadItems ? cantidad - cantidadItems : null);
+        histograma.merge(nuevoEstado, cantidadItems, Integer::sum);
+        this.histogramaEstados = histograma;
+    }
+    
+    /**
+     * Derivar el estado general del pedido a partir del histograma de estados de sus items
+     * - Si algún item está cancelado → CANCELADO_COMPRADOR
+     * - Si todos los items están ENTREGADO → ENTREGADO
+     * - Si hay items EN_TRANSITO o ENVIADO → ENVIADO
+     * - Si hay items CONFIRMADO o PREPARANDO → CONFIRMADO
+     * - Si todos están PENDIENTE → PENDIENTE
+     * - Estado mixto → CONFIRMADO
+     * Sin items devuelve el estado actual
+     */
+    public EstadoPedido calcularEstadoGeneral() {
+        EnumMap<EstadoPedido, Integer> histograma = histogramaEstados != null ? histogramaEstados : copiarHistograma();
+        int totalItems = 0;
+        for (int cantidad : histograma.values()) {
+            totalItems += cantidad;
+        }
+        if (totalItems == 0) {
+            return estado;
+        }
+        
+        if (contar(histograma, EstadoPedido.CANCELADO_COMPRADOR, EstadoPedido.CANCELADO_VENDEDOR) > 0) {
+            return EstadoPedido.CANCELADO_COMPRADOR;
+        } else if (contar(histograma, EstadoPedido.ENTREGADO) == totalItems) {
+            return EstadoPedido.ENTREGADO;
+        } else if (contar(histograma, EstadoPedido.EN_TRANSITO, EstadoPedido.ENVIADO) > 0) {
+            return EstadoPedido.ENVIADO;
+        } else if (contar(histograma, EstadoPedido.CONFIRMADO, EstadoPedido.PREPARANDO) > 0) {
+            return EstadoPedido.CONFIRMADO;
+        } else if (contar(histograma, EstadoPedido.PENDIENTE) == totalItems) {
+            return EstadoPedido.PENDIENTE;
+        }
+        return EstadoPedido.CONFIRMADO;
+    }
+    
+    // Se reemplaza el mapa en cada cambio (en vez de modificarlo) para que Hibernate detecte la actualización
+    private EnumMap<EstadoPedido, Integer> copiarHistograma() {
+        if (histogramaEstados != null) {
+            return new EnumMap<>(histogramaEstados);
+        }
+        EnumMap<EstadoPedido, Integer> histograma = new EnumMap<>(EstadoPedido.class);
+        for (DetallePedido item : items) {
+            histograma.merge(item.getEstadoItem(), 1, Integer::sum);
+        }
+        return histograma;
+    }
+    
+    private static int contar(EnumMap<EstadoPedido, Integer> histograma, EstadoPedido... estados) {
+        int cantidad = 0;
+        for (EstadoPedido e : estados) {
+            cantidad += histograma.getOrDefault(e, 0);
+        }
+        return cantidad;
+    }
+    
     @Override
     public String toString() {
         return "Pedido{" +
@@ -2,20 +2,40 @@ package com.ecommerce.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "productos")
+@Table(name = "productos")  // Índices en db/migration/*/V3__indices_de_consulta.sql
+// Grafos de carga para mapear a ProductoDTO sin N+1
+// - listado: solo relaciones a-uno (compatible con paginación); las imágenes se cargan por lotes
+// - detalle: incluye también la colección de imágenes
+@NamedEntityGraph(name = Producto.GRAFO_LISTADO, attributeNodes = {
+        @NamedAttributeNode("categoria"),
+        @NamedAttributeNode("ownerUser")
+})
+@NamedEntityGraph(name = Producto.GRAFO_DETALLE, attributeNodes = {
+        @NamedAttributeNode("categoria"),
+        @NamedAttributeNode("ownerUser"),
+        @NamedAttributeNode("images")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Producto {
     
+    public static final String GRAFO_LISTADO = "Producto.listado";
+    public static final String GRAFO_DETALLE = "Producto.detalle";
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "productos_id")
+    @TableGenerator(name = "productos_id", table = Secuencias.TABLA, pkColumnName = Secuencias.COLUMNA_NOMBRE,
+            valueColumnName = Secuencias.COLUMNA_VALOR, pkColumnValue = "productos",
+            allocationSize = Secuencias.TAMANIO_BLOQUE)
     private Long id;
     
     @Column(nullable = false)
@@ -31,6 +51,7 @@ public class Producto {
     private Integer stock;
     
     @ElementCollection
+    @BatchSize(size = 100)  // Una sola consulta de imágenes por página de productos
     @CollectionTable(name = "producto_imagenes", joinColumns = @JoinColumn(name = "producto_id"))
     @Column(name = "imagen_url")
     private List<String> images;
@@ -46,11 +67,17 @@ public class Producto {
     private Usuario ownerUser;
     
     @Column(name = "created_at")
-    private LocalDateTime createdAt;
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
     
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Concurrencia optimista (V4__control_de_concurrencia.sql): un UPDATE con una versión vieja no modifica filas
+    // Los UPDATE masivos de stock de ProductoRepository también la incrementan
+    @Version
+    private Long version;
+    
     // Constructor auxiliar para compatibilidad con ProductoService actual
     public Producto(String name, BigDecimal price) {
         this.name = name;
@@ -76,6 +103,7 @@ public class Producto {
                 ", ownerUser=" + (ownerUser != null ? ownerUser.getId() : null) +
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,19 @@
+package com.ecommerce.entity;
+
+/**
+ * Generación de ids por tabla de secuencias con bloques (optimizador pooled)
+ * A diferencia de IDENTITY permite que Hibernate agrupe los INSERT en batches JDBC
+ * y funciona igual en H2 (dev) y MySQL (prod), que no tiene secuencias
+ */
+public final class Secuencias {
+    
+    public static final String TABLA = "secuencias_id";
+    public static final String COLUMNA_NOMBRE = "secuencia";
+    public static final String COLUMNA_VALOR = "siguiente_valor";
+    
+    // Ids reservados por cada acceso a la tabla; igual a hibernate.jdbc.batch_size
+    public static final int TAMANIO_BLOQUE = 50;
+    
+    private Secuencias() {
+    }
+}
@@ -43,6 +43,11 @@ public class Usuario implements UserDetails {
     @Builder.Default
     private Role role = Role.USER;
     
+    // Versión de los tokens emitidos: se incrementa al cambiar el rol para invalidar los anteriores
+    @Column(name = "token_version")
+    @Builder.Default
+    private Long tokenVersion = 0L;
+    
     @Column(name = "created_at")
     @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
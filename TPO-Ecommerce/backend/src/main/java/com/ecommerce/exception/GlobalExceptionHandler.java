@@ -1,10 +1,13 @@
 package com.ecommerce.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -148,6 +151,43 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.CONFLICT);
     }
     
+    /**
+     * Conflicto de concurrencia optimista: el recurso cambió entre la lectura y la escritura
+     * 412 si el cliente condicionó la escritura con If-Match, 409 en otro caso
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleOptimisticLocking(
+            OptimisticLockingFailureException ex, WebRequest request) {
+        
+        HttpStatus status = request.getHeader(HttpHeaders.IF_MATCH) != null
+                ? HttpStatus.PRECONDITION_FAILED
+                : HttpStatus.CONFLICT;
+        
+        Map<String, Object> error = new HashMap<>();
+        error.put("timestamp", LocalDateTime.now());
+        error.put("status", status.value());
+        error.put("error", status.getReasonPhrase());
+        error.put("message", "El recurso fue modificado por otra operación. Vuelve a cargarlo e intenta de nuevo");
+        
+        return new ResponseEntity<>(error, status);
+    }
+    
+    /**
+     * Escritura sin If-Match en un recurso que lo exige (evita pisar cambios a ciegas)
+     */
+    @ExceptionHandler(PrecondicionRequeridaException.class)
+    public ResponseEntity<Map<String, Object>> handlePrecondicionRequerida(
+            PrecondicionRequeridaException ex) {
+        
+        Map<String, Object> error = new HashMap<>();
+        error.put("timestamp", LocalDateTime.now());
+        error.put("status", HttpStatus.PRECONDITION_REQUIRED.value());
+        error.put("error", "Precondition Required");
+        error.put("message", ex.getMessage());
+        
+        return new ResponseEntity<>(error, HttpStatus.PRECONDITION_REQUIRED);
+    }
+    
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationErrors(
             MethodArgumentNotValidException ex) {
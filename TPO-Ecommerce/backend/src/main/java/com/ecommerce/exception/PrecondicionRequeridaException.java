@@ -0,0 +1,16 @@
+package com.ecommerce.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.PRECONDITION_REQUIRED)
+public class PrecondicionRequeridaException extends RuntimeException {
+    
+    public PrecondicionRequeridaException(String mensaje) {
+        super(mensaje);
+    }
+    
+    public PrecondicionRequeridaException() {
+        super("La modificación requiere el encabezado If-Match con el ETag obtenido al leer el recurso");
+    }
+}
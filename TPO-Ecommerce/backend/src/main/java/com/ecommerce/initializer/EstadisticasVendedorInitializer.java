@@ -0,0 +1,32 @@
+package com.ecommerce.initializer;
+
+import com.ecommerce.repository.DetallePedidoRepository;
+import com.ecommerce.repository.EstadisticaVendedorRepository;
+import com.ecommerce.service.EstadisticasVendedorService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Genera seller_stats en bases que ya tenían ventas antes de existir la tabla
+ * Después los contadores se mantienen de forma incremental desde PedidoService
+ */
+@Component
+public class EstadisticasVendedorInitializer implements CommandLineRunner {
+
+    @Autowired
+    private EstadisticaVendedorRepository estadisticaVendedorRepository;
+
+    @Autowired
+    private DetallePedidoRepository detallePedidoRepository;
+
+    @Autowired
+    private EstadisticasVendedorService estadisticasVendedorService;
+
+    @Override
+    public void run(String... args) {
+        if (estadisticaVendedorRepository.count() == 0 && detallePedidoRepository.count() > 0) {
+            estadisticasVendedorService.reconstruir();
+        }
+    }
+}
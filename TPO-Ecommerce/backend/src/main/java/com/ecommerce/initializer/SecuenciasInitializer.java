@@ -0,0 +1,77 @@
+package com.ecommerce.initializer;
+
+import com.ecommerce.entity.Secuencias;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Alinea la tabla de secuencias con los ids ya existentes
+ * Las bases creadas con IDENTITY tienen filas pero no tienen secuencias:
+ * sin este paso los primeros ids generados chocarían con los existentes
+ * Corre como callback afterMigrate de Flyway, antes de que Hibernate reserve el primer bloque
+ * (un CommandLineRunner llegaba tarde: cualquier INSERT previo ya usaba la secuencia sin alinear)
+ */
+@Component
+public class SecuenciasInitializer implements Callback {
+
+    // Tablas cuyo id se genera con la tabla de secuencias (pkColumnValue = nombre de la tabla)
+    static final List<String> TABLAS = List.of("productos", "pedidos", "detalle_pedidos");
+
+    @Override
+    public boolean supports(Event event, Context context) {
+        return event == Event.AFTER_MIGRATE;
+    }
+
+    @Override
+    public boolean canHandleInTransaction(Event event, Context context) {
+        return true;
+    }
+
+    @Override
+    public void handle(Event event, Context context) {
+        // La conexión es de Flyway: no cerrarla al terminar
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        for (String tabla : TABLAS) {
+            alinear(jdbcTemplate, tabla);
+        }
+    }
+
+    @Override
+    public String getCallbackName() {
+        return getClass().getSimpleName();
+    }
+
+    static void alinear(JdbcTemplate jdbcTemplate, String tabla) {
+        Long maximo = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + tabla, Long.class);
+        if (maximo == null || maximo == 0) {
+            return;
+        }
+
+        // Deja un bloque entero libre por encima del máximo (válido para pooled y pooled-lo):
+        // con un valor menor el próximo bloque reservado todavía podría incluir ids existentes
+        long siguiente = maximo + Secuencias.TAMANIO_BLOQUE + 1;
+        int actualizadas = jdbcTemplate.update(
+                "UPDATE " + Secuencias.TABLA + " SET " + Secuencias.COLUMNA_VALOR + " = ?"
+                        + " WHERE " + Secuencias.COLUMNA_NOMBRE + " = ? AND " + Secuencias.COLUMNA_VALOR + " < ?",
+                siguiente, tabla, siguiente);
+        if (actualizadas > 0) {
+            return;
+        }
+
+        Integer existe = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + Secuencias.TABLA + " WHERE " + Secuencias.COLUMNA_NOMBRE + " = ?",
+                Integer.class, tabla);
+        if (existe == null || existe == 0) {
+            jdbcTemplate.update(
+                    "INSERT INTO " + Secuencias.TABLA + " (" + Secuencias.COLUMNA_NOMBRE + ", "
+                            + Secuencias.COLUMNA_VALOR + ") VALUES (?, ?)",
+                    tabla, siguiente);
+        }
+    }
+}
@@ -1,14 +1,33 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.dto.VentaExportacionDTO;
+import com.ecommerce.dto.VentasPorEstadoDTO;
 import com.ecommerce.entity.DetallePedido;
+import com.ecommerce.entity.EstadisticaVendedor;
 import com.ecommerce.entity.EstadoPedido;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface DetallePedidoRepository extends JpaRepository<DetallePedido, Long> {
+public interface DetallePedidoRepository extends JpaRepository<DetallePedido, Long>, DetallePedidoRepositoryCustom {
+    
+    // Filas de ventas para el admin: una sola consulta con los JOIN, sin cargar entidades
+    String CONSULTA_VENTAS = "SELECT new com.ecommerce.dto.VentaExportacionDTO(d.id, p.id, d.productoNombre, " +
+            "d.cantidad, d.precioUnitario * d.cantidad, d.estadoItem, v.id, " +
+            "CASE WHEN v.id IS NULL THEN NULL ELSE CONCAT(COALESCE(v.nombre, ''), ' ', COALESCE(v.apellido, '')) END, " +
+            "CASE WHEN u.id IS NULL THEN NULL ELSE CONCAT(COALESCE(u.nombre, ''), ' ', COALESCE(u.apellido, '')) END, " +
+            "p.createdAt) " +
+            "FROM DetallePedido d JOIN d.pedido p LEFT JOIN d.vendedor v LEFT JOIN p.usuario u " +
+            "ORDER BY d.id";
     
     // Buscar detalles por pedido
     List<DetallePedido> findByPedidoId(Long pedidoId);
@@ -24,10 +43,72 @@ public interface DetallePedidoRepository extends JpaRepository<DetallePedido, Lo
     // Buscar ventas de un vendedor por estado del item
     List<DetallePedido> findByVendedorIdAndEstadoItemOrderByPedidoCreatedAtDesc(Long vendedorId, EstadoPedido estadoItem);
     
+    // Ventas de un vendedor paginadas por cursor (keyset) sobre (created_at, id)
+    // Usan idx_detalle_vendedor_fecha / idx_detalle_vendedor_estado_fecha; el pedido y su comprador
+    // se traen en la misma consulta para armar VentaDTO
+    @EntityGraph(attributePaths = {"pedido", "pedido.usuario", "producto"})
+    @Query("SELECT d FROM DetallePedido d WHERE d.vendedor.id = :vendedorId " +
+           "ORDER BY d.createdAt DESC, d.id DESC")
+    List<DetallePedido> buscarPrimeraPaginaPorVendedor(@Param("vendedorId") Long vendedorId, Pageable limite);
+    
+    @EntityGraph(attributePaths = {"pedido", "pedido.usuario", "producto"})
+    @Query("SELECT d FROM DetallePedido d WHERE d.vendedor.id = :vendedorId " +
+           "AND (d.createdAt < :fecha OR (d.createdAt = :fecha AND d.id < :id)) " +
+           "ORDER BY d.createdAt DESC, d.id DESC")
+    List<DetallePedido> buscarPaginaPorVendedor(@Param("vendedorId") Long vendedorId,
+                                                @Param("fecha") LocalDateTime fecha,
+                                                @Param("id") Long id,
+                                                Pageable limite);
+    
+    @EntityGraph(attributePaths = {"pedido", "pedido.usuario", "producto"})
+    @Query("SELECT d FROM DetallePedido d WHERE d.vendedor.id = :vendedorId AND d.estadoItem = :estado " +
+           "ORDER BY d.createdAt DESC, d.id DESC")
+    List<DetallePedido> buscarPrimeraPaginaPorVendedorYEstado(@Param("vendedorId") Long vendedorId,
+                                                              @Param("estado") EstadoPedido estado,
+                                                              Pageable limite);
+    
+    @EntityGraph(attributePaths = {"pedido", "pedido.usuario", "producto"})
+    @Query("SELECT d FROM DetallePedido d WHERE d.vendedor.id = :vendedorId AND d.estadoItem = :estado " +
+           "AND (d.createdAt < :fecha OR (d.createdAt = :fecha AND d.id < :id)) " +
+           "ORDER BY d.createdAt DESC, d.id DESC")
+    List<DetallePedido> buscarPaginaPorVendedorYEstado(@Param("vendedorId") Long vendedorId,
+                                                       @Param("estado") EstadoPedido estado,
+                                                       @Param("fecha") LocalDateTime fecha,
+                                                       @Param("id") Long id,
+                                                       Pageable limite);
+    
+    // Ventas a actualizar en lote junto con su pedido y producto (una sola consulta)
+    @EntityGraph(attributePaths = {"pedido", "producto"})
+    List<DetallePedido> findByIdIn(Collection<Long> ids);
+    
+    // Cambio de estado en lote; el estado anterior en el WHERE detecta modificaciones concurrentes
+    @Modifying
+    @Query("UPDATE DetallePedido d SET d.estadoItem = :nuevoEstado " +
+           "WHERE d.id IN :ids AND d.estadoItem = :estadoAnterior")
+    int actualizarEstado(@Param("ids") Collection<Long> ids,
+                         @Param("estadoAnterior") EstadoPedido estadoAnterior,
+                         @Param("nuevoEstado") EstadoPedido nuevoEstado);
+    
+    // Todas las ventas como lista (GET /api/pedidos/admin/ventas-totales)
+    @Query(CONSULTA_VENTAS)
+    List<VentaExportacionDTO> listarVentas();
+    
     // Contar ventas totales de un vendedor
     Long countByVendedorId(Long vendedorId);
     
     // Contar ventas de un vendedor por estado
     Long countByVendedorIdAndEstadoItem(Long vendedorId, EstadoPedido estadoItem);
+    
+    // Cantidad de items, unidades e ingresos de un vendedor agrupados por estado (usa idx_detalle_vendedor_estado)
+    @Query("SELECT new com.ecommerce.dto.VentasPorEstadoDTO(d.estadoItem, COUNT(d), SUM(d.cantidad), " +
+           "SUM(d.precioUnitario * d.cantidad)) " +
+           "FROM DetallePedido d WHERE d.vendedor.id = :vendedorId GROUP BY d.estadoItem")
+    List<VentasPorEstadoDTO> resumirVentasPorEstado(@Param("vendedorId") Long vendedorId);
+    
+    // Los mismos contadores para todos los vendedores (reconstrucción de seller_stats)
+    @Query("SELECT new com.ecommerce.entity.EstadisticaVendedor(d.vendedor.id, d.estadoItem, COUNT(d), " +
+           "SUM(d.cantidad), SUM(d.precioUnitario * d.cantidad)) " +
+           "FROM DetallePedido d GROUP BY d.vendedor.id, d.estadoItem")
+    List<EstadisticaVendedor> resumirVentasDeTodosLosVendedores();
 }
 
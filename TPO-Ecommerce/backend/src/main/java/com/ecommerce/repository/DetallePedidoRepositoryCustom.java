@@ -0,0 +1,18 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.VentaExportacionDTO;
+
+import java.util.stream.Stream;
+
+/**
+ * Consultas de ventas con opciones de JDBC que se eligen por llamada
+ */
+public interface DetallePedidoRepositoryCustom {
+
+    /**
+     * Recorrer todas las ventas como cursor de solo avance (requiere una transacción abierta mientras se recorre)
+     * filasPorLectura se pasa al driver como fetch size; en MySQL, Integer.MIN_VALUE hace que Connector/J
+     * entregue las filas de a una en lugar de cargar el resultado entero en memoria
+     */
+    Stream<VentaExportacionDTO> recorrerVentas(int filasPorLectura);
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.VentaExportacionDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.stream.Stream;
+
+public class DetallePedidoRepositoryCustomImpl implements DetallePedidoRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<VentaExportacionDTO> recorrerVentas(int filasPorLectura) {
+        return entityManager.createQuery(DetallePedidoRepository.CONSULTA_VENTAS, VentaExportacionDTO.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, filasPorLectura)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
@@ -0,0 +1,40 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.VentasPorEstadoDTO;
+import com.ecommerce.entity.EstadisticaVendedor;
+import com.ecommerce.entity.EstadisticaVendedorId;
+import com.ecommerce.entity.EstadoPedido;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface EstadisticaVendedorRepository extends JpaRepository<EstadisticaVendedor, EstadisticaVendedorId>,
+        EstadisticaVendedorRepositoryCustom {
+    
+    // Contadores de un vendedor (prefijo de la clave primaria)
+    List<EstadisticaVendedor> findByIdVendedorId(Long vendedorId);
+    
+    // Totales del marketplace por estado de item: suma los contadores de todos los vendedores
+    // (recorre seller_stats, que tiene a lo sumo una fila por vendedor y estado)
+    @Query("SELECT new com.ecommerce.dto.VentasPorEstadoDTO(e.id.estado, SUM(e.cantidadItems), " +
+           "SUM(e.unidades), SUM(e.ingresos)) FROM EstadisticaVendedor e GROUP BY e.id.estado")
+    List<VentasPorEstadoDTO> resumirPorEstado();
+    
+    // Sumar (o restar) a los contadores de un vendedor y estado en un único UPDATE atómico
+    // Retorna 0 si todavía no existe la fila (ver insertar)
+    @Modifying
+    @Query("UPDATE EstadisticaVendedor e SET e.cantidadItems = e.cantidadItems + :items, " +
+           "e.unidades = e.unidades + :unidades, e.ingresos = e.ingresos + :ingresos " +
+           "WHERE e.id.vendedorId = :vendedorId AND e.id.estado = :estado")
+    int acumular(@Param("vendedorId") Long vendedorId,
+                 @Param("estado") EstadoPedido estado,
+                 @Param("items") long items,
+                 @Param("unidades") long unidades,
+                 @Param("ingresos") BigDecimal ingresos);
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.EstadoPedido;
+
+import java.math.BigDecimal;
+
+/**
+ * Escrituras de seller_stats que no pasan por el contexto de persistencia
+ */
+public interface EstadisticaVendedorRepositoryCustom {
+
+    /**
+     * Insertar la fila de un vendedor y estado con un INSERT directo
+     * Retorna false si otra transacción ya la creó: el fallo afecta solo a la sentencia,
+     * la transacción sigue activa y puede acumular sobre la fila existente
+     */
+    boolean insertar(Long vendedorId, EstadoPedido estado, long items, long unidades, BigDecimal ingresos);
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.EstadoPedido;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+
+public class EstadisticaVendedorRepositoryCustomImpl implements EstadisticaVendedorRepositoryCustom {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // JdbcTemplate usa la conexión de la transacción JPA en curso; a diferencia de persist/save,
+    // una clave duplicada no marca la transacción como rollback-only
+    @Override
+    public boolean insertar(Long vendedorId, EstadoPedido estado, long items, long unidades, BigDecimal ingresos) {
+        try {
+            jdbcTemplate.update("INSERT INTO seller_stats (vendedor_id, estado, cantidad_items, unidades, ingresos) "
+                    + "VALUES (?, ?, ?, ?, ?)", vendedorId, estado.name(), items, unidades, ingresos);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+}
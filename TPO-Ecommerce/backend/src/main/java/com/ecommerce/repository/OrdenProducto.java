@@ -0,0 +1,11 @@
+package com.ecommerce.repository;
+
+/**
+ * Columnas por las que se puede ordenar (y paginar por cursor) el catálogo
+ * El id siempre se usa como desempate para que el orden sea total
+ */
+public enum OrdenProducto {
+    ID,
+    PRICE,
+    CREATED_AT
+}
@@ -1,11 +1,18 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.dto.VersionColeccionDTO;
+import com.ecommerce.dto.VersionPedidoDTO;
 import com.ecommerce.entity.Pedido;
 import com.ecommerce.entity.EstadoPedido;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PedidoRepository extends JpaRepository<Pedido, Long> {
@@ -13,6 +20,18 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     // Buscar pedidos por usuario (para historial)
     List<Pedido> findByUsuarioIdOrderByCreatedAtDesc(Long usuarioId);
     
+    // Historial paginado por cursor (keyset) sobre (created_at, id): usa idx_pedido_usuario_fecha
+    @Query("SELECT p FROM Pedido p WHERE p.usuario.id = :usuarioId ORDER BY p.createdAt DESC, p.id DESC")
+    List<Pedido> buscarPrimeraPaginaPorUsuario(@Param("usuarioId") Long usuarioId, Pageable limite);
+    
+    @Query("SELECT p FROM Pedido p WHERE p.usuario.id = :usuarioId " +
+           "AND (p.createdAt < :fecha OR (p.createdAt = :fecha AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Pedido> buscarPaginaPorUsuario(@Param("usuarioId") Long usuarioId,
+                                        @Param("fecha") LocalDateTime fecha,
+                                        @Param("id") Long id,
+                                        Pageable limite);
+    
     // Buscar pedidos por estado
     List<Pedido> findByEstado(EstadoPedido estado);
     
@@ -21,5 +40,15 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     
     // Contar pedidos de un usuario
     Long countByUsuarioId(Long usuarioId);
+    
+    // Dueño y última modificación de un pedido sin cargar items ni usuario (GET condicional)
+    @Query("SELECT new com.ecommerce.dto.VersionPedidoDTO(p.usuario.id, COALESCE(p.updatedAt, p.createdAt)) " +
+           "FROM Pedido p WHERE p.id = :id")
+    Optional<VersionPedidoDTO> buscarVersion(@Param("id") Long id);
+    
+    // Versión del historial de un usuario: usa idx_pedido_usuario_fecha para el filtro
+    @Query("SELECT new com.ecommerce.dto.VersionColeccionDTO(COUNT(p), MAX(COALESCE(p.updatedAt, p.createdAt))) " +
+           "FROM Pedido p WHERE p.usuario.id = :usuarioId")
+    VersionColeccionDTO buscarVersionPorUsuario(@Param("usuarioId") Long usuarioId);
 }
 
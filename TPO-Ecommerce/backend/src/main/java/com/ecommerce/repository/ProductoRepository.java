@@ -1,32 +1,113 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.dto.EstadoStockDTO;
+import com.ecommerce.dto.ProductoIndexableDTO;
+import com.ecommerce.dto.VersionProductoDTO;
 import com.ecommerce.entity.Producto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
+public interface ProductoRepository extends JpaRepository<Producto, Long>, ProductoRepositoryCustom {
     
-    // Buscar productos por nombre (case insensitive)
-    @Query("SELECT p FROM Producto p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :nombre, '%'))")
-    List<Producto> findByNombreContainingIgnoreCase(@Param("nombre") String nombre);
+    // Texto indexable de los productos para la búsqueda (ver service.IndiceBusquedaProductos)
+    String CONSULTA_INDICE = "SELECT new com.ecommerce.dto.ProductoIndexableDTO(p.id, p.name, p.description, c.nombre) " +
+            "FROM Producto p LEFT JOIN p.categoria c";
     
-    // Buscar productos por categoría
-    List<Producto> findByCategoriaId(Long categoriaId);
+    // Filas que el driver trae por viaje al recorrer todo el catálogo
+    String FILAS_POR_LECTURA = "500";
     
-    // Buscar productos con stock disponible
-    List<Producto> findByStockGreaterThan(Integer stock);
+    // Todos los listados cargan categoría, propietario e imágenes en una sola consulta
+    // para que ProductoDTO no dispare consultas por fila (N+1)
     
-    // Buscar productos sin stock
-    List<Producto> findByStockEquals(Integer stock);
+    @Override
+    @EntityGraph(Producto.GRAFO_DETALLE)
+    List<Producto> findAll();
     
-    // Buscar productos por rango de precio
-    List<Producto> findByPriceBetween(java.math.BigDecimal precioMin, java.math.BigDecimal precioMax);
+    @Override
+    @EntityGraph(Producto.GRAFO_DETALLE)
+    Optional<Producto> findById(Long id);
     
-    // Buscar productos por propietario
-    List<Producto> findByOwnerUserId(Long ownerUserId);
+    // Productos de una página de resultados de búsqueda (el orden lo da el índice)
+    @EntityGraph(Producto.GRAFO_LISTADO)
+    @Query("SELECT p FROM Producto p WHERE p.id IN :ids")
+    List<Producto> buscarParaListado(@Param("ids") Collection<Long> ids);
+    
+    // Todo el catálogo como cursor de solo avance para cargar el índice de búsqueda:
+    // requiere una transacción abierta mientras se recorre
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FILAS_POR_LECTURA),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(CONSULTA_INDICE)
+    Stream<ProductoIndexableDTO> recorrerParaIndice();
+    
+    // Productos de una categoría para reindexarlos cuando cambia su nombre
+    @Query(CONSULTA_INDICE + " WHERE c.id = :categoriaId")
+    List<ProductoIndexableDTO> listarParaIndicePorCategoria(@Param("categoriaId") Long categoriaId);
+    
+    // Buscar varios productos por id (checkout): vendedor e imágenes en la misma consulta
+    @EntityGraph(attributePaths = {"ownerUser", "images"})
+    List<Producto> findByIdIn(Collection<Long> ids);
+    
+    // Versión y última modificación de un producto sin cargarlo (validar un GET condicional)
+    @Query("SELECT new com.ecommerce.dto.VersionProductoDTO(p.version, COALESCE(p.updatedAt, p.createdAt)) " +
+           "FROM Producto p WHERE p.id = :id")
+    Optional<VersionProductoDTO> findVersion(@Param("id") Long id);
+    
+    // ========== MÉTODOS DE STOCK (ATÓMICOS) ==========
+    // Todos incrementan la versión: una edición del vendedor leída antes del cambio de stock ya no puede pisarlo
+    // El UPDATE masivo no pasa por @PreUpdate: updated_at se fija acá para que cambie su Last-Modified
+    
+    // Descontar stock solo si alcanza: la validación y la escritura son una única sentencia,
+    // así dos compras concurrentes no pueden vender la misma unidad. Retorna 0 si no alcanzó.
+    @Modifying
+    @Transactional
+    @Query("UPDATE Producto p SET p.stock = p.stock - :cantidad, p.version = p.version + 1, p.updatedAt = :ahora " +
+           "WHERE p.id = :id AND p.stock >= :cantidad")
+    int descontarStock(@Param("id") Long id, @Param("cantidad") Integer cantidad, @Param("ahora") LocalDateTime ahora);
+    
+    default int descontarStock(Long id, Integer cantidad) {
+        return descontarStock(id, cantidad, LocalDateTime.now());
+    }
+    
+    // Reservar stock del checkout solo si el producto sigue en la versión leída (precio y nombre del pedido)
+    // Retorna 0 si no alcanzó el stock o si otra transacción lo modificó: descontar con descontarStock
+    // y leer precio y nombre de la fila descontada con buscarEstadoStock
+    @Modifying
+    @Transactional
+    @Query("UPDATE Producto p SET p.stock = p.stock - :cantidad, p.version = p.version + 1, p.updatedAt = :ahora " +
+           "WHERE p.id = :id AND p.version = :version AND p.stock >= :cantidad")
+    int reservarStock(@Param("id") Long id, @Param("cantidad") Integer cantidad, @Param("version") Long version,
+                      @Param("ahora") LocalDateTime ahora);
+    
+    // Estado actual de un producto (después de descontarStock, el de la fila descontada), sin pasar por el contexto de persistencia
+    @Query("SELECT new com.ecommerce.dto.EstadoStockDTO(p.version, p.stock, p.price, p.name) " +
+           "FROM Producto p WHERE p.id = :id")
+    Optional<EstadoStockDTO> buscarEstadoStock(@Param("id") Long id);
+    
+    // Devolver stock (cancelaciones) sin leer el valor actual
+    @Modifying
+    @Transactional
+    @Query("UPDATE Producto p SET p.stock = p.stock + :cantidad, p.version = p.version + 1, p.updatedAt = :ahora " +
+           "WHERE p.id = :id")
+    int devolverStock(@Param("id") Long id, @Param("cantidad") Integer cantidad, @Param("ahora") LocalDateTime ahora);
+    
+    default int devolverStock(Long id, Integer cantidad) {
+        return devolverStock(id, cantidad, LocalDateTime.now());
+    }
 }
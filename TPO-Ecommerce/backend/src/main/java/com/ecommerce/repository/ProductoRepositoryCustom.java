@@ -0,0 +1,20 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.ProductoFiltroDTO;
+import com.ecommerce.entity.Producto;
+import com.ecommerce.util.CursorPaginacion;
+
+import java.util.List;
+
+/**
+ * Consultas de productos que no se pueden expresar como métodos derivados
+ */
+public interface ProductoRepositoryCustom {
+
+    /**
+     * Buscar una página del catálogo con filtros combinables y paginación keyset
+     * Retorna como máximo 'limite' productos posteriores al cursor (si lo hay)
+     */
+    List<Producto> buscarPagina(ProductoFiltroDTO filtro, OrdenProducto orden, boolean descendente,
+                                CursorPaginacion cursor, int limite);
+}
@@ -0,0 +1,124 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.ProductoFiltroDTO;
+import com.ecommerce.entity.Producto;
+import com.ecommerce.util.CursorPaginacion;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+public class ProductoRepositoryCustomImpl implements ProductoRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Producto> buscarPagina(ProductoFiltroDTO filtro, OrdenProducto orden, boolean descendente,
+                                       CursorPaginacion cursor, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Producto> query = cb.createQuery(Producto.class);
+        Root<Producto> producto = query.from(Producto.class);
+
+        List<Predicate> predicados = new ArrayList<>();
+        agregarFiltros(cb, producto, filtro, predicados);
+
+        Path<Long> id = producto.get("id");
+        List<Order> ordenamiento = new ArrayList<>();
+
+        // El valor de orden del cursor se compara contra la misma columna que ordena
+        switch (orden) {
+            case PRICE -> {
+                Path<BigDecimal> price = producto.get("price");
+                ordenamiento.add(descendente ? cb.desc(price) : cb.asc(price));
+                if (cursor != null) {
+                    predicados.add(despuesDe(cb, price, parsearValor(cursor, BigDecimal::new), id, cursor.getId(), descendente));
+                }
+            }
+            case CREATED_AT -> {
+                Path<LocalDateTime> createdAt = producto.get("createdAt");
+                ordenamiento.add(descendente ? cb.desc(createdAt) : cb.asc(createdAt));
+                if (cursor != null) {
+                    predicados.add(despuesDe(cb, createdAt, parsearValor(cursor, LocalDateTime::parse), id, cursor.getId(), descendente));
+                }
+            }
+            default -> {
+                if (cursor != null) {
+                    predicados.add(descendente ? cb.lessThan(id, cursor.getId()) : cb.greaterThan(id, cursor.getId()));
+                }
+            }
+        }
+        ordenamiento.add(descendente ? cb.desc(id) : cb.asc(id));
+
+        query.select(producto)
+                .where(predicados.toArray(new Predicate[0]))
+                .orderBy(ordenamiento);
+
+        // Solo relaciones a-uno en el grafo: un fetch de colección junto a setMaxResults
+        // obligaría a Hibernate a paginar en memoria. Las imágenes llegan por @BatchSize.
+        return entityManager.createQuery(query)
+                .setHint("jakarta.persistence.fetchgraph", entityManager.getEntityGraph(Producto.GRAFO_LISTADO))
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    private void agregarFiltros(CriteriaBuilder cb, Root<Producto> producto, ProductoFiltroDTO filtro,
+                                List<Predicate> predicados) {
+        if (filtro == null) {
+            return;
+        }
+
+        if (filtro.getQ() != null && !filtro.getQ().isBlank()) {
+            predicados.add(cb.like(cb.lower(producto.get("name")),
+                    "%" + filtro.getQ().trim().toLowerCase() + "%"));
+        }
+        if (filtro.getCategoriaId() != null) {
+            predicados.add(cb.equal(producto.get("categoria").get("id"), filtro.getCategoriaId()));
+        }
+        if (filtro.getOwnerUserId() != null) {
+            predicados.add(cb.equal(producto.get("ownerUser").get("id"), filtro.getOwnerUserId()));
+        }
+        if (filtro.getPrecioMin() != null) {
+            predicados.add(cb.greaterThanOrEqualTo(producto.get("price"), filtro.getPrecioMin()));
+        }
+        if (filtro.getPrecioMax() != null) {
+            predicados.add(cb.lessThanOrEqualTo(producto.get("price"), filtro.getPrecioMax()));
+        }
+        if (filtro.getEnStock() != null) {
+            predicados.add(filtro.getEnStock()
+                    ? cb.greaterThan(producto.get("stock"), 0)
+                    : cb.equal(producto.get("stock"), 0));
+        }
+    }
+
+    // Un cursor generado con otro orden no tiene un valor parseable para esta columna
+    private <T> T parsearValor(CursorPaginacion cursor, Function<String, T> parser) {
+        try {
+            return parser.apply(cursor.getValor());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido para el orden solicitado");
+        }
+    }
+
+    // (clave, id) estrictamente después de (valor, ultimoId) en el sentido del orden
+    private <T extends Comparable<? super T>> Predicate despuesDe(CriteriaBuilder cb, Expression<T> clave, T valor,
+                                                                  Path<Long> id, Long ultimoId, boolean descendente) {
+        if (descendente) {
+            return cb.or(cb.lessThan(clave, valor),
+                    cb.and(cb.equal(clave, valor), cb.lessThan(id, ultimoId)));
+        }
+        return cb.or(cb.greaterThan(clave, valor),
+                cb.and(cb.equal(clave, valor), cb.greaterThan(id, ultimoId)));
+    }
+}
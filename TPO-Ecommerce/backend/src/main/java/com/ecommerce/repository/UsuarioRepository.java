@@ -23,4 +23,7 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     
     // Buscar usuarios por rol
     java.util.List<Usuario> findByRole(com.ecommerce.entity.Role role);
+    
+    // Contar usuarios por rol (SELECT COUNT, sin cargar entidades)
+    long countByRole(com.ecommerce.entity.Role role);
 }
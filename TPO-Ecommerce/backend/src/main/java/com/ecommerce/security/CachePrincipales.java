@@ -0,0 +1,169 @@
+package com.ecommerce.security;
+
+import com.ecommerce.entity.Role;
+import com.ecommerce.entity.Usuario;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache en memoria de principales por email delante de UserDetailsService.loadUserByUsername
+ * Acotada por tamaño (desaloja el menos usado) y por TTL; guarda un UsuarioAutenticado
+ * inmutable en lugar de la entidad Usuario con sus colecciones lazy
+ * UsuarioService la invalida al guardar o eliminar usuarios (incluye cambios de rol)
+ * Cada entrada guarda también la versión de token persistida (usuarios.token_version)
+ * con la que JwtAuthenticationFilter descarta los tokens emitidos antes de un cambio de rol
+ */
+@Component
+public class CachePrincipales {
+
+    @Value("${seguridad.cache-principales.tamanio-maximo:10000}")
+    private int tamanioMaximo;
+
+    @Value("${seguridad.cache-principales.ttl-segundos:300}")
+    private long ttlSegundos;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    // accessOrder = true: el primer elemento es siempre el menos usado recientemente
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Se incrementa en cada invalidación; una carga iniciada antes no se guarda (evita datos viejos)
+    private long generacion;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong desalojos = new AtomicLong();
+
+    /**
+     * Obtener el principal del usuario, cargándolo con el UserDetailsService si no está o venció
+     * @throws org.springframework.security.core.userdetails.UsernameNotFoundException si el usuario no existe
+     */
+    public UsuarioAutenticado obtener(String email) {
+        return entrada(email).principal();
+    }
+
+    /**
+     * Obtener el principal solo si un token con esa versión sigue vigente para el usuario
+     * La versión se compara con la persistida, así un cambio de rol sigue invalidando
+     * los tokens anteriores aunque el servidor se haya reiniciado desde entonces
+     * @return null si el token es de una versión anterior a la del usuario
+     * @throws org.springframework.security.core.userdetails.UsernameNotFoundException si el usuario no existe
+     */
+    public UsuarioAutenticado obtenerVigente(String email, long versionToken) {
+        Entrada entrada = entrada(email);
+        return versionToken >= entrada.versionToken() ? entrada.principal() : null;
+    }
+
+    /**
+     * Invalidar la entrada de un email
+     */
+    public void invalidar(String email) {
+        synchronized (entradas) {
+            generacion++;
+            entradas.remove(email);
+        }
+    }
+
+    /**
+     * Invalidar las entradas de un usuario por id (cubre cambios de email y eliminaciones)
+     */
+    public void invalidar(Long usuarioId) {
+        synchronized (entradas) {
+            generacion++;
+            entradas.values().removeIf(e -> usuarioId.equals(e.principal().getId()));
+        }
+    }
+
+    public void invalidarTodo() {
+        synchronized (entradas) {
+            generacion++;
+            entradas.clear();
+        }
+    }
+
+    /**
+     * Métricas de la cache: aciertos, fallos, desalojos y tamaño actual
+     */
+    public Map<String, Object> estadisticas() {
+        long totalAciertos = aciertos.get();
+        long totalFallos = fallos.get();
+        long consultas = totalAciertos + totalFallos;
+
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("aciertos", totalAciertos);
+        estadisticas.put("fallos", totalFallos);
+        estadisticas.put("tasaAciertos", consultas == 0 ? 0.0 : (double) totalAciertos / consultas);
+        estadisticas.put("desalojos", desalojos.get());
+        synchronized (entradas) {
+            estadisticas.put("tamanio", entradas.size());
+        }
+        estadisticas.put("tamanioMaximo", tamanioMaximo);
+        estadisticas.put("ttlSegundos", ttlSegundos);
+        return estadisticas;
+    }
+
+    private Entrada entrada(String email) {
+        long generacionCarga;
+        synchronized (entradas) {
+            Entrada entrada = entradas.get(email);
+            if (entrada != null) {
+                if (!entrada.vencida(System.nanoTime())) {
+                    aciertos.incrementAndGet();
+                    return entrada;
+                }
+                entradas.remove(email);
+                desalojos.incrementAndGet();
+            }
+            generacionCarga = generacion;
+        }
+
+        // Cargar fuera del lock para no serializar las consultas a la base
+        fallos.incrementAndGet();
+        Entrada entrada = aEntrada(userDetailsService.loadUserByUsername(email),
+                System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSegundos));
+
+        synchronized (entradas) {
+            if (generacionCarga == generacion) {
+                entradas.put(email, entrada);
+                desalojarExcedente();
+            }
+        }
+        return entrada;
+    }
+
+    private void desalojarExcedente() {
+        Iterator<Map.Entry<String, Entrada>> iterador = entradas.entrySet().iterator();
+        while (entradas.size() > tamanioMaximo && iterador.hasNext()) {
+            iterador.next();
+            iterador.remove();
+            desalojos.incrementAndGet();
+        }
+    }
+
+    private static Entrada aEntrada(UserDetails userDetails, long venceEn) {
+        if (userDetails instanceof Usuario usuario) {
+            return new Entrada(new UsuarioAutenticado(usuario.getId(), usuario.getEmail(), usuario.getRole()),
+                    usuario.getTokenVersion() != null ? usuario.getTokenVersion() : 0L, venceEn);
+        }
+        boolean esAdmin = userDetails.getAuthorities().stream()
+                .anyMatch(a -> ("ROLE_" + Role.ADMIN.name()).equals(a.getAuthority()));
+        return new Entrada(new UsuarioAutenticado(null, userDetails.getUsername(), esAdmin ? Role.ADMIN : Role.USER),
+                0L, venceEn);
+    }
+
+    private record Entrada(UsuarioAutenticado principal, long versionToken, long venceEn) {
+        boolean vencida(long ahora) {
+            return ahora - venceEn > 0;
+        }
+    }
+}
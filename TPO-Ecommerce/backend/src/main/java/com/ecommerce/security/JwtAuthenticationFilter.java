@@ -1,6 +1,7 @@
 package com.ecommerce.security;
 
 import com.ecommerce.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,8 +9,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -23,7 +22,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private CachePrincipales cachePrincipales;
+
+    @Autowired
+    private RevocacionTokens revocacionTokens;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
@@ -31,34 +33,49 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String email = null;
-        String jwt = null;
-
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                email = jwtUtil.getEmailFromToken(jwt);
-            } catch (Exception e) {
-                // Token inválido, continuar sin autenticación
-            }
-        }
-
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(jwt)) {
-                try {
-                    // Cargar UserDetails para obtener los roles y autoridades
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+                // Verificar firma y expiración una única vez por request
+                Claims claims = jwtUtil.parse(authorizationHeader.substring(7));
+                UsuarioAutenticado principal = principalDe(claims);
+                
+                if (principal != null) {
                     UsernamePasswordAuthenticationToken authToken = 
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                        new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
-                } catch (Exception e) {
-                    // Si no se puede cargar el usuario, continuar sin autenticación
-                    // Esto evitará errores 500 si el usuario no existe en la BD
                 }
+            } catch (Exception e) {
+                // Token inválido o usuario inexistente: continuar sin autenticación
+                // Esto evitará errores 500 si el usuario no existe en la BD
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Armar el principal del token con la cache de principales (sin consultar la base en un acierto)
+     * Devuelve null si el token fue invalidado por un cambio de rol o baja del usuario:
+     * - RevocacionTokens descarta los revocados en este proceso sin tocar la cache
+     * - la versión del token (claim ver) debe alcanzar la persistida en usuarios.token_version,
+     *   que sigue valiendo después de un reinicio; un usuario eliminado ya no se encuentra
+     */
+    private UsuarioAutenticado principalDe(Claims claims) {
+        Long userId = claims.get(JwtUtil.CLAIM_USER_ID, Long.class);
+        Long version = claims.get(JwtUtil.CLAIM_VERSION, Long.class);
+        long versionToken = version != null ? version : 0L;
+        
+        if (userId != null && !revocacionTokens.esVigente(userId, versionToken)) {
+            return null;
+        }
+        
+        UsuarioAutenticado principal = cachePrincipales.obtenerVigente(claims.getSubject(), versionToken);
+        // El email pudo quedar asignado a otro usuario después de emitido el token
+        if (principal == null || (userId != null && !userId.equals(principal.getId()))) {
+            return null;
+        }
+        return principal;
+    }
 }
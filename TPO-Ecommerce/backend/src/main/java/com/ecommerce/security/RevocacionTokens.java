@@ -0,0 +1,66 @@
+package com.ecommerce.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Versiones mínimas de token exigidas a los usuarios cuyo rol cambió o que fueron eliminados
+ * Descarta esos tokens sin pasar por la cache de principales (que para un usuario eliminado
+ * consultaría la base en cada request); vive solo en memoria, la verificación que sobrevive
+ * a un reinicio es la de usuarios.token_version en CachePrincipales.obtenerVigente
+ * Solo se registran los usuarios invalidados
+ * y cada entrada se descarta cuando ya expiró cualquier token emitido antes del cambio,
+ * así el mapa nunca crece más allá de los cambios ocurridos en una ventana de expiración
+ */
+@Component
+public class RevocacionTokens {
+
+    @Value("${jwt.expiration:86400000}")
+    private long expiracionTokenMs;
+
+    private final Map<Long, Revocacion> revocaciones = new ConcurrentHashMap<>();
+
+    /**
+     * Invalidar los tokens del usuario con versión menor a versionMinima
+     */
+    public void revocar(Long usuarioId, long versionMinima) {
+        long ahora = System.currentTimeMillis();
+        purgarVencidas(ahora);
+        revocaciones.merge(usuarioId, new Revocacion(versionMinima, ahora + expiracionTokenMs),
+                (actual, nueva) -> new Revocacion(Math.max(actual.versionMinima(), nueva.versionMinima()),
+                        nueva.venceEn()));
+    }
+
+    /**
+     * Invalidar todos los tokens del usuario (por ejemplo al eliminarlo)
+     */
+    public void revocarTodos(Long usuarioId) {
+        revocar(usuarioId, Long.MAX_VALUE);
+    }
+
+    public boolean esVigente(Long usuarioId, long versionToken) {
+        Revocacion revocacion = revocaciones.get(usuarioId);
+        if (revocacion == null) {
+            return true;
+        }
+        if (revocacion.venceEn() < System.currentTimeMillis()) {
+            revocaciones.remove(usuarioId, revocacion);
+            return true;
+        }
+        return versionToken >= revocacion.versionMinima();
+    }
+
+    public int cantidadRegistrada() {
+        return revocaciones.size();
+    }
+
+    private void purgarVencidas(long ahora) {
+        revocaciones.values().removeIf(r -> r.venceEn() < ahora);
+    }
+
+    private record Revocacion(long versionMinima, long venceEn) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.ecommerce.security;
+
+import com.ecommerce.entity.Role;
+import lombok.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+/**
+ * Principal publicado por JwtAuthenticationFilter tras verificar el token una sola vez
+ * Los controladores lo reciben con @AuthenticationPrincipal en lugar de releer el header Authorization
+ */
+@Value
+public class UsuarioAutenticado {
+    
+    Long id;
+    String email;
+    Role role;
+    
+    public boolean isAdmin() {
+        return role == Role.ADMIN;
+    }
+    
+    public List<GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+}
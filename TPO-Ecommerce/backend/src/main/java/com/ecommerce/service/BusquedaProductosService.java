@@ -0,0 +1,163 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.PaginaDTO;
+import com.ecommerce.dto.ProductoIndexableDTO;
+import com.ecommerce.entity.Categoria;
+import com.ecommerce.entity.Producto;
+import com.ecommerce.repository.CategoriaRepository;
+import com.ecommerce.repository.ProductoRepository;
+import com.ecommerce.util.CursorPaginacion;
+import com.ecommerce.util.Transacciones;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Búsqueda de texto del catálogo sobre IndiceBusquedaProductos
+ * El índice da los ids por relevancia y la base solo carga los productos de la página
+ * Mantiene también las sugerencias del buscador (SugerenciasProductos) con los mismos avisos
+ * ProductoService y CategoriaService avisan los cambios; el índice se actualiza al confirmarse la transacción
+ */
+@Service
+@Transactional(readOnly = true)
+public class BusquedaProductosService {
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private IndiceBusquedaProductos indice;
+
+    @Autowired
+    private SugerenciasProductos sugerencias;
+
+    /**
+     * Cargar el índice y las sugerencias con todo el catálogo (al iniciar, después de los initializers)
+     * @return cantidad de productos indexados
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public int indexarCatalogo() {
+        List<String> nombres = new ArrayList<>();
+        int indexados;
+        try (Stream<ProductoIndexableDTO> productos = productoRepository.recorrerParaIndice()) {
+            indexados = indice.reconstruir(productos.peek(producto -> nombres.add(producto.getNombre())));
+        }
+        sugerencias.reconstruir(nombres, nombresDeCategorias(null));
+        return indexados;
+    }
+
+    /**
+     * Buscar productos por texto en nombre, descripción y categoría, los más relevantes primero
+     * Paginación por cursor: el cursor guarda el puntaje y el id del último resultado
+     */
+    public PaginaDTO<Producto> buscar(String consulta, String cursor, int size) {
+        int tamanio = Math.min(Math.max(size, 1), ProductoService.TAMANIO_PAGINA_MAXIMO);
+        List<IndiceBusquedaProductos.Resultado> resultados = indice.buscar(consulta, posicion(cursor), tamanio + 1);
+
+        boolean hayMas = resultados.size() > tamanio;
+        if (hayMas) {
+            resultados = resultados.subList(0, tamanio);
+        }
+
+        // Una sola consulta para la página; el orden lo da el índice
+        List<Long> ids = resultados.stream().map(IndiceBusquedaProductos.Resultado::id).toList();
+        Map<Long, Producto> encontrados = ids.isEmpty() ? Map.of() : productoRepository.buscarParaListado(ids)
+                .stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+        List<Producto> productos = ids.stream()
+                .map(encontrados::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        // Productos borrados sin pasar por ProductoService (por ejemplo junto con su vendedor)
+        ids.stream().filter(id -> !encontrados.containsKey(id)).forEach(this::quitarDelIndice);
+
+        String siguienteCursor = null;
+        if (hayMas) {
+            IndiceBusquedaProductos.Resultado ultimo = resultados.get(resultados.size() - 1);
+            siguienteCursor = CursorPaginacion.codificar(ultimo.puntaje(), ultimo.id());
+        }
+        return new PaginaDTO<>(productos, siguienteCursor, hayMas, tamanio);
+    }
+
+    /**
+     * Reindexar un producto creado o modificado
+     */
+    public void indexar(Producto producto) {
+        ProductoIndexableDTO documento = new ProductoIndexableDTO(producto.getId(), producto.getName(),
+                producto.getDescription(),
+                producto.getCategoria() != null ? producto.getCategoria().getNombre() : null);
+        Transacciones.despuesDelCommit(() -> reindexar(documento));
+    }
+
+    public void eliminar(Long productoId) {
+        Transacciones.despuesDelCommit(() -> quitarDelIndice(productoId));
+    }
+
+    /**
+     * Reindexar los productos de una categoría creada o modificada (su nombre también se busca y se sugiere)
+     */
+    public void reindexarCategoria(Long categoriaId) {
+        List<ProductoIndexableDTO> productos = productoRepository.listarParaIndicePorCategoria(categoriaId);
+        List<String> categorias = nombresDeCategorias(null);
+        Transacciones.despuesDelCommit(() -> {
+            productos.forEach(this::reindexar);
+            sugerencias.reemplazarCategorias(categorias);
+        });
+    }
+
+    /**
+     * Quitar del índice los productos de una categoría que se va a eliminar (se borran en cascada)
+     */
+    public void eliminarCategoria(Long categoriaId) {
+        List<ProductoIndexableDTO> productos = productoRepository.listarParaIndicePorCategoria(categoriaId);
+        List<String> categorias = nombresDeCategorias(categoriaId);
+        Transacciones.despuesDelCommit(() -> {
+            productos.forEach(producto -> quitarDelIndice(producto.getId()));
+            sugerencias.reemplazarCategorias(categorias);
+        });
+    }
+
+    // ===== MÉTODOS AUXILIARES =====
+
+    // El índice devuelve el nombre anterior del producto para sacarlo de las sugerencias
+    private void reindexar(ProductoIndexableDTO producto) {
+        sugerencias.reemplazarProducto(indice.indexar(producto), producto.getNombre());
+    }
+
+    private void quitarDelIndice(Long productoId) {
+        sugerencias.reemplazarProducto(indice.eliminar(productoId), null);
+    }
+
+    private List<String> nombresDeCategorias(Long excluida) {
+        return categoriaRepository.findAll().stream()
+                .filter(categoria -> !categoria.getId().equals(excluida))
+                .map(Categoria::getNombre)
+                .collect(Collectors.toList());
+    }
+
+    private static IndiceBusquedaProductos.Resultado posicion(String cursor) {
+        CursorPaginacion posicion = CursorPaginacion.decodificar(cursor);
+        if (posicion == null) {
+            return null;
+        }
+        try {
+            return new IndiceBusquedaProductos.Resultado(posicion.getId(), Double.parseDouble(posicion.getValor()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+}
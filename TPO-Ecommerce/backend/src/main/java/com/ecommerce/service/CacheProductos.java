@@ -0,0 +1,231 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductoVistaDTO;
+import com.ecommerce.repository.ProductoRepository;
+import com.ecommerce.util.Transacciones;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache en memoria del detalle de productos (GET /api/productos/{id}) delante de ProductoRepository
+ * Acotada por tamaño (desaloja el menos usado) y por TTL; guarda ProductoVistaDTO inmutables
+ * Carga única por producto: si varios requests piden a la vez un producto que no está,
+ * solo el primero consulta la base y los demás esperan su resultado
+ * ProductoService, PedidoService y TransicionesEstadoItem la invalidan al confirmarse cada cambio
+ */
+@Component
+public class CacheProductos {
+
+    @Value("${productos.cache.tamanio-maximo:10000}")
+    private int tamanioMaximo;
+
+    @Value("${productos.cache.ttl-segundos:300}")
+    private long ttlSegundos;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    // accessOrder = true: el primer elemento es siempre el menos usado recientemente
+    private final LinkedHashMap<Long, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Cargas en curso por producto (mismo lock que entradas); invalidar una la descarta
+    private final Map<Long, CompletableFuture<Optional<ProductoVistaDTO>>> cargas = new HashMap<>();
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong esperas = new AtomicLong();
+    private final AtomicLong desalojos = new AtomicLong();
+
+    // Sube con cada invalidación confirmada: versión del catálogo para cachear respuestas (ver CacheRespuestasJson)
+    // Arranca en la hora de inicio para no repetir valores (ni ETags) de una ejecución anterior
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    // Momento (epoch millis) de la última invalidación total: un cambio de categoría o de vendedor
+    // modifica la vista sin tocar updated_at del producto, así que también forma parte de su ETag
+    private final AtomicLong generacion = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * Obtener la vista del producto, cargándola de la base si no está o venció
+     * @return vacío si el producto no existe (no se guarda: un producto nuevo se ve enseguida)
+     */
+    public Optional<ProductoVistaDTO> obtener(Long productoId) {
+        CompletableFuture<Optional<ProductoVistaDTO>> carga;
+        boolean cargaPropia;
+        synchronized (entradas) {
+            Entrada entrada = entradas.get(productoId);
+            if (entrada != null) {
+                if (!entrada.vencida(System.nanoTime())) {
+                    aciertos.incrementAndGet();
+                    return Optional.of(entrada.vista());
+                }
+                entradas.remove(productoId);
+                desalojos.incrementAndGet();
+            }
+
+            carga = cargas.get(productoId);
+            cargaPropia = carga == null;
+            if (cargaPropia) {
+                carga = new CompletableFuture<>();
+                cargas.put(productoId, carga);
+            }
+        }
+
+        // Otro request ya está consultando este producto: esperar su resultado (fuera del lock)
+        if (!cargaPropia) {
+            esperas.incrementAndGet();
+            return esperar(carga);
+        }
+
+        // Cargar fuera del lock para no serializar las consultas de productos distintos
+        fallos.incrementAndGet();
+        Optional<ProductoVistaDTO> vista;
+        try {
+            vista = productoRepository.findById(productoId).map(ProductoVistaDTO::new);
+        } catch (RuntimeException e) {
+            synchronized (entradas) {
+                cargas.remove(productoId, carga);
+            }
+            carga.completeExceptionally(e);
+            throw e;
+        }
+
+        synchronized (entradas) {
+            // Si se invalidó mientras tanto la carga ya no está registrada y puede traer datos viejos
+            if (cargas.remove(productoId, carga) && vista.isPresent()) {
+                entradas.put(productoId, new Entrada(vista.get(),
+                        System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSegundos)));
+                desalojarExcedente();
+            }
+        }
+        carga.complete(vista);
+        return vista;
+    }
+
+    /**
+     * Vista del producto solo si ya está cacheada y vigente: nunca consulta la base
+     */
+    public Optional<ProductoVistaDTO> buscar(Long productoId) {
+        synchronized (entradas) {
+            Entrada entrada = entradas.get(productoId);
+            return entrada == null || entrada.vencida(System.nanoTime())
+                    ? Optional.empty()
+                    : Optional.of(entrada.vista());
+        }
+    }
+
+    /**
+     * Invalidar un producto cuando se confirme la transacción actual
+     * (antes del commit otra lectura volvería a cargar el valor viejo)
+     */
+    public void invalidar(Long productoId) {
+        invalidar(List.of(productoId));
+    }
+
+    public void invalidar(Collection<Long> productoIds) {
+        List<Long> ids = List.copyOf(productoIds);
+        Transacciones.despuesDelCommit(() -> {
+            synchronized (entradas) {
+                for (Long id : ids) {
+                    entradas.remove(id);
+                    cargas.remove(id);
+                }
+            }
+            version.incrementAndGet();
+        });
+    }
+
+    /**
+     * Invalidar todo al confirmarse la transacción (cambios de categoría o de vendedor que afectan a muchas vistas)
+     */
+    public void invalidarTodo() {
+        Transacciones.despuesDelCommit(() -> {
+            synchronized (entradas) {
+                entradas.clear();
+                cargas.clear();
+            }
+            generacion.accumulateAndGet(System.currentTimeMillis(), (anterior, ahora) -> Math.max(anterior + 1, ahora));
+            version.incrementAndGet();
+        });
+    }
+
+    /**
+     * Versión del catálogo de productos: cambia cada vez que se confirma un cambio que invalida vistas
+     * (alta, modificación, baja, stock, categoría o vendedor)
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Momento (epoch millis) de la última invalidación total confirmada, o del inicio de la aplicación
+     */
+    public long generacion() {
+        return generacion.get();
+    }
+
+    /**
+     * Métricas de la cache: aciertos, fallos (consultas a la base), esperas de cargas en curso, desalojos y tamaño
+     */
+    public Map<String, Object> estadisticas() {
+        long totalAciertos = aciertos.get();
+        long totalFallos = fallos.get();
+        long totalEsperas = esperas.get();
+        long consultas = totalAciertos + totalFallos + totalEsperas;
+
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("aciertos", totalAciertos);
+        estadisticas.put("fallos", totalFallos);
+        estadisticas.put("esperas", totalEsperas);
+        estadisticas.put("tasaAciertos", consultas == 0 ? 0.0 : (double) (totalAciertos + totalEsperas) / consultas);
+        estadisticas.put("desalojos", desalojos.get());
+        estadisticas.put("version", version.get());
+        estadisticas.put("generacion", generacion.get());
+        synchronized (entradas) {
+            estadisticas.put("tamanio", entradas.size());
+            estadisticas.put("cargasEnCurso", cargas.size());
+        }
+        estadisticas.put("tamanioMaximo", tamanioMaximo);
+        estadisticas.put("ttlSegundos", ttlSegundos);
+        return estadisticas;
+    }
+
+    private void desalojarExcedente() {
+        Iterator<Map.Entry<Long, Entrada>> iterador = entradas.entrySet().iterator();
+        while (entradas.size() > tamanioMaximo && iterador.hasNext()) {
+            iterador.next();
+            iterador.remove();
+            desalojos.incrementAndGet();
+        }
+    }
+
+    // Esperar la carga de otro request; si falló, se propaga la misma excepción
+    private static Optional<ProductoVistaDTO> esperar(CompletableFuture<Optional<ProductoVistaDTO>> carga) {
+        try {
+            return carga.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private record Entrada(ProductoVistaDTO vista, long venceEn) {
+        boolean vencida(long ahora) {
+            return ahora - venceEn > 0;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.CategoriaVistaDTO;
+import com.ecommerce.repository.CategoriaRepository;
+import com.ecommerce.util.Transacciones;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Todas las categorías en memoria como una instantánea inmutable que se reemplaza entera
+ * Las lecturas (GET /api/categorias) no consultan la base ni toman locks: leen la instantánea actual
+ * CategoriaService la reconstruye al confirmarse cada alta, modificación o baja
+ */
+@Component
+public class CatalogoCategorias {
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    private volatile Instantanea actual;
+
+    /**
+     * Instantánea actual (se construye en la primera lectura si todavía no existe)
+     */
+    public Instantanea obtener() {
+        Instantanea instantanea = actual;
+        if (instantanea != null) {
+            return instantanea;
+        }
+        synchronized (this) {
+            if (actual == null) {
+                reconstruir();
+            }
+            return actual;
+        }
+    }
+
+    /**
+     * Leer todas las categorías y reemplazar la instantánea (al iniciar, después de los initializers)
+     * Sincronizado: dos reconstrucciones seguidas no pueden dejar publicada la más vieja
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reconstruir() {
+        Instantanea anterior = actual;
+        // La primera versión sale del reloj: después de un reinicio no se repiten versiones que un cliente tenga guardadas
+        long version = anterior == null ? System.currentTimeMillis() : anterior.getVersion() + 1;
+        actual = new Instantanea(version, categoriaRepository.findAll().stream()
+                .map(CategoriaVistaDTO::new)
+                .toList());
+    }
+
+    /**
+     * Reconstruir cuando se confirme la transacción actual (antes del commit se leerían los datos viejos)
+     */
+    public void reconstruirDespuesDelCommit() {
+        Transacciones.despuesDelCommit(this::reconstruir);
+    }
+
+    /**
+     * Categorías vigentes en una versión: arreglo ordenado por id más índices por id y por nombre
+     * No cambia después de construida; un cambio publica una instantánea nueva con otra versión
+     */
+    public static final class Instantanea {
+
+        private final long version;
+        private final long publicadaEn;
+        private final CategoriaVistaDTO[] categorias;
+        private final List<CategoriaVistaDTO> lista;
+        private final Map<Long, CategoriaVistaDTO> porId;
+        private final Map<String, CategoriaVistaDTO> porNombre;
+
+        public Instantanea(long version, List<CategoriaVistaDTO> categorias) {
+            this.version = version;
+            this.publicadaEn = System.currentTimeMillis();
+            this.categorias = categorias.toArray(new CategoriaVistaDTO[0]);
+            Arrays.sort(this.categorias, Comparator.comparing(CategoriaVistaDTO::getId));
+            this.lista = Collections.unmodifiableList(Arrays.asList(this.categorias));
+
+            Map<Long, CategoriaVistaDTO> ids = new HashMap<>();
+            Map<String, CategoriaVistaDTO> nombres = new HashMap<>();
+            for (CategoriaVistaDTO categoria : this.categorias) {
+                ids.put(categoria.getId(), categoria);
+                if (categoria.getNombre() != null) {
+                    nombres.put(categoria.getNombre(), categoria);
+                }
+            }
+            this.porId = Map.copyOf(ids);
+            this.porNombre = Map.copyOf(nombres);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Momento (epoch millis) en que se armó la instantánea: Last-Modified del listado
+         */
+        public long getPublicadaEn() {
+            return publicadaEn;
+        }
+
+        /**
+         * Todas las categorías ordenadas por id, como las devolvía la base (lista de solo lectura)
+         */
+        public List<CategoriaVistaDTO> getCategorias() {
+            return lista;
+        }
+
+        public Optional<CategoriaVistaDTO> porId(Long id) {
+            return id == null ? Optional.empty() : Optional.ofNullable(porId.get(id));
+        }
+
+        public Optional<CategoriaVistaDTO> porNombre(String nombre) {
+            return nombre == null ? Optional.empty() : Optional.ofNullable(porNombre.get(nombre));
+        }
+
+        public int cantidad() {
+            return categorias.length;
+        }
+    }
+}
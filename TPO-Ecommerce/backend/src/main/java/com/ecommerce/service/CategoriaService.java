@@ -4,6 +4,7 @@ import com.ecommerce.entity.Categoria;
 import com.ecommerce.repository.CategoriaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -16,6 +17,21 @@ public class CategoriaService {
     @Autowired
     private CategoriaRepository categoriaRepository;
     
+    @Autowired
+    private BusquedaProductosService busquedaProductosService;
+    
+    @Autowired
+    private CacheProductos cacheProductos;
+    
+    @Autowired
+    private CatalogoCategorias catalogoCategorias;
+    
+    // Instantánea en memoria de todas las categorías (sin transacción: no consulta la base)
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CatalogoCategorias.Instantanea obtenerInstantanea() {
+        return catalogoCategorias.obtener();
+    }
+    
     // Obtener todas las categorías
     public List<Categoria> getAllCategorias() {
         return categoriaRepository.findAll();
@@ -31,14 +47,25 @@ public class CategoriaService {
         return categoriaRepository.findByNombre(nombre);
     }
     
-    // Crear o actualizar categoría
+    // Crear o actualizar categoría (si cambia el nombre, sus productos se buscan y se sugiere por el nombre nuevo)
     public Categoria saveCategoria(Categoria categoria) {
-        return categoriaRepository.save(categoria);
+        boolean existente = categoria.getId() != null;
+        Categoria guardada = categoriaRepository.save(categoria);
+        busquedaProductosService.reindexarCategoria(guardada.getId());
+        catalogoCategorias.reconstruirDespuesDelCommit();
+        if (existente) {
+            // El detalle cacheado de sus productos muestra el nombre de la categoría
+            cacheProductos.invalidarTodo();
+        }
+        return guardada;
     }
     
-    // Eliminar categoría
+    // Eliminar categoría (sus productos se eliminan en cascada)
     public void deleteCategoria(Long id) {
+        busquedaProductosService.eliminarCategoria(id);
         categoriaRepository.deleteById(id);
+        catalogoCategorias.reconstruirDespuesDelCommit();
+        cacheProductos.invalidarTodo();
     }
     
     // Verificar si existe una categoría
@@ -0,0 +1,136 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.VentasPorEstadoDTO;
+import com.ecommerce.entity.EstadoPedido;
+import com.ecommerce.entity.Role;
+import com.ecommerce.repository.EstadisticaVendedorRepository;
+import com.ecommerce.repository.PedidoRepository;
+import com.ecommerce.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estadísticas generales del panel de administración (marketplace y usuarios)
+ * Se calculan con consultas agregadas (COUNT / SUM sobre seller_stats) y se guardan como una
+ * instantánea que se recalcula a lo sumo una vez cada estadisticas.generales.refresco-segundos
+ * Sin @Transactional: servir la instantánea no debe tomar una conexión; cada consulta usa la suya
+ */
+@Service
+public class EstadisticasGeneralesService {
+    
+    // Estados que no suman al volumen bruto de ventas (GMV)
+    private static final EnumSet<EstadoPedido> ESTADOS_SIN_VENTA = EnumSet.of(
+            EstadoPedido.CANCELADO, EstadoPedido.CANCELADO_COMPRADOR,
+            EstadoPedido.CANCELADO_VENDEDOR, EstadoPedido.DEVUELTO);
+    
+    @Value("${estadisticas.generales.refresco-segundos:30}")
+    private long refrescoSegundos;
+    
+    @Autowired
+    private PedidoRepository pedidoRepository;
+    
+    @Autowired
+    private EstadisticaVendedorRepository estadisticaVendedorRepository;
+    
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    
+    private volatile Instantanea marketplace;
+    private volatile Instantanea usuarios;
+    
+    /**
+     * Pedidos, items por estado y GMV de todo el marketplace
+     */
+    public Map<String, Object> obtenerEstadisticasMarketplace() {
+        Instantanea actual = marketplace;
+        if (vigente(actual)) {
+            return actual.valores();
+        }
+        synchronized (this) {
+            // Otro hilo pudo haberla recalculado mientras se esperaba el lock
+            if (!vigente(marketplace)) {
+                marketplace = new Instantanea(calcularMarketplace(), System.nanoTime());
+            }
+            return marketplace.valores();
+        }
+    }
+    
+    /**
+     * Cantidad de usuarios total y por rol
+     */
+    public Map<String, Object> obtenerEstadisticasUsuarios() {
+        Instantanea actual = usuarios;
+        if (vigente(actual)) {
+            return actual.valores();
+        }
+        synchronized (this) {
+            if (!vigente(usuarios)) {
+                usuarios = new Instantanea(calcularUsuarios(), System.nanoTime());
+            }
+            return usuarios.valores();
+        }
+    }
+    
+    /**
+     * Descartar las instantáneas (la próxima lectura recalcula)
+     */
+    public void invalidar() {
+        marketplace = null;
+        usuarios = null;
+    }
+    
+    // ===== MÉTODOS AUXILIARES =====
+    
+    private Map<String, Object> calcularMarketplace() {
+        EnumMap<EstadoPedido, Long> itemsPorEstado = new EnumMap<>(EstadoPedido.class);
+        for (EstadoPedido estado : EstadoPedido.values()) {
+            itemsPorEstado.put(estado, 0L);
+        }
+        long totalItems = 0;
+        BigDecimal gmv = BigDecimal.ZERO;
+        for (VentasPorEstadoDTO resumen : estadisticaVendedorRepository.resumirPorEstado()) {
+            itemsPorEstado.put(resumen.getEstado(), resumen.getCantidadItems());
+            totalItems += resumen.getCantidadItems();
+            if (!ESTADOS_SIN_VENTA.contains(resumen.getEstado())) {
+                gmv = gmv.add(resumen.getIngresos());
+            }
+        }
+        
+        Map<String, Object> valores = new LinkedHashMap<>();
+        valores.put("totalPedidos", pedidoRepository.count());
+        valores.put("totalItems", totalItems);
+        valores.put("itemsPendientes", itemsPorEstado.get(EstadoPedido.PENDIENTE));
+        valores.put("itemsEntregados", itemsPorEstado.get(EstadoPedido.ENTREGADO));
+        valores.put("itemsPorEstado", Collections.unmodifiableMap(itemsPorEstado));
+        valores.put("gmv", gmv);
+        valores.put("generadoEn", LocalDateTime.now());
+        return Collections.unmodifiableMap(valores);
+    }
+    
+    private Map<String, Object> calcularUsuarios() {
+        Map<String, Object> valores = new LinkedHashMap<>();
+        valores.put("totalUsuarios", usuarioRepository.count());
+        valores.put("adminUsuarios", usuarioRepository.countByRole(Role.ADMIN));
+        valores.put("userUsuarios", usuarioRepository.countByRole(Role.USER));
+        valores.put("generadoEn", LocalDateTime.now());
+        return Collections.unmodifiableMap(valores);
+    }
+    
+    private boolean vigente(Instantanea instantanea) {
+        return instantanea != null
+                && System.nanoTime() - instantanea.calculadaEn() < TimeUnit.SECONDS.toNanos(refrescoSegundos);
+    }
+    
+    private record Instantanea(Map<String, Object> valores, long calculadaEn) {
+    }
+}
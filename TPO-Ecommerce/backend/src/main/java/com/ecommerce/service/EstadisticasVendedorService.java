@@ -0,0 +1,179 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.VentasPorEstadoDTO;
+import com.ecommerce.entity.DetallePedido;
+import com.ecommerce.entity.EstadisticaVendedor;
+import com.ecommerce.entity.EstadisticaVendedorId;
+import com.ecommerce.entity.EstadoPedido;
+import com.ecommerce.repository.DetallePedidoRepository;
+import com.ecommerce.repository.EstadisticaVendedorRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Mantenimiento incremental de seller_stats (contadores por vendedor y estado de item)
+ * PedidoService llama a estos métodos dentro de su transacción cada vez que crea,
+ * cambia de estado o elimina items, así los contadores nunca quedan a medio aplicar
+ */
+@Service
+@Transactional
+public class EstadisticasVendedorService {
+
+    @Autowired
+    private EstadisticaVendedorRepository estadisticaVendedorRepository;
+
+    @Autowired
+    private DetallePedidoRepository detallePedidoRepository;
+
+    /**
+     * Obtener los contadores de un vendedor (lectura por clave primaria)
+     * Incluye todos los estados, con ceros para los que no tienen ventas
+     */
+    @Transactional(readOnly = true)
+    public EnumMap<EstadoPedido, VentasPorEstadoDTO> obtenerResumen(Long vendedorId) {
+        EnumMap<EstadoPedido, VentasPorEstadoDTO> resumen = new EnumMap<>(EstadoPedido.class);
+        for (EstadoPedido estado : EstadoPedido.values()) {
+            resumen.put(estado, VentasPorEstadoDTO.vacio(estado));
+        }
+        for (EstadisticaVendedor estadistica : estadisticaVendedorRepository.findByIdVendedorId(vendedorId)) {
+            resumen.put(estadistica.getId().getEstado(), aDTO(estadistica));
+        }
+        return resumen;
+    }
+
+    /**
+     * Sumar items nuevos (checkout) a los contadores de sus vendedores
+     * Agrupa por vendedor y estado para hacer un UPDATE por grupo y no uno por item
+     */
+    public void registrarAltas(Collection<DetallePedido> items) {
+        acumularAgrupado(items, 1, DetallePedido::getEstadoItem);
+    }
+
+    /**
+     * Restar items eliminados de los contadores de sus vendedores
+     */
+    public void registrarBajas(Collection<DetallePedido> items) {
+        acumularAgrupado(items, -1, DetallePedido::getEstadoItem);
+    }
+
+    /**
+     * Mover un item del contador de su estado anterior al de su estado actual
+     */
+    public void registrarCambioEstado(DetallePedido detalle, EstadoPedido estadoAnterior) {
+        if (estadoAnterior == detalle.getEstadoItem()) {
+            return;
+        }
+        Long vendedorId = detalle.getVendedor().getId();
+        acumular(vendedorId, estadoAnterior, -1, -detalle.getCantidad(), detalle.getSubtotal().negate());
+        acumular(vendedorId, detalle.getEstadoItem(), 1, detalle.getCantidad(), detalle.getSubtotal());
+    }
+
+    /**
+     * Mover en lote items del mismo estado anterior a un nuevo estado
+     * Un UPDATE por vendedor y estado en lugar de dos por item
+     */
+    public void registrarCambiosEstado(Collection<DetallePedido> items, EstadoPedido estadoAnterior,
+                                       EstadoPedido nuevoEstado) {
+        if (estadoAnterior == nuevoEstado) {
+            return;
+        }
+        acumularAgrupado(items, -1, item -> estadoAnterior);
+        acumularAgrupado(items, 1, item -> nuevoEstado);
+    }
+    
+    /**
+     * Recalcular todos los contadores desde detalle_pedidos
+     * Usar tras una migración o si verificarConsistencia() encuentra diferencias
+     * @return cantidad de filas de seller_stats generadas
+     */
+    public int reconstruir() {
+        estadisticaVendedorRepository.deleteAllInBatch();
+        List<EstadisticaVendedor> recalculadas = detallePedidoRepository.resumirVentasDeTodosLosVendedores();
+        estadisticaVendedorRepository.saveAll(recalculadas);
+        return recalculadas.size();
+    }
+
+    /**
+     * Comparar los contadores materializados con un GROUP BY sobre detalle_pedidos
+     * @return descripción de cada diferencia encontrada (vacía si son consistentes)
+     */
+    @Transactional(readOnly = true)
+    public List<String> verificarConsistencia() {
+        Map<EstadisticaVendedorId, EstadisticaVendedor> esperadas = new HashMap<>();
+        for (EstadisticaVendedor estadistica : detallePedidoRepository.resumirVentasDeTodosLosVendedores()) {
+            esperadas.put(estadistica.getId(), estadistica);
+        }
+
+        List<String> diferencias = new ArrayList<>();
+        for (EstadisticaVendedor actual : estadisticaVendedorRepository.findAll()) {
+            EstadisticaVendedor esperada = esperadas.remove(actual.getId());
+            if (esperada == null) {
+                if (actual.getCantidadItems() != 0 || actual.getUnidades() != 0
+                        || actual.getIngresos().signum() != 0) {
+                    diferencias.add(actual.getId() + ": contadores sin ventas en detalle_pedidos");
+                }
+            } else if (!coinciden(esperada, actual)) {
+                diferencias.add(actual.getId() + ": esperado " + aDTO(esperada) + ", materializado " + aDTO(actual));
+            }
+        }
+        for (EstadisticaVendedor faltante : esperadas.values()) {
+            diferencias.add(faltante.getId() + ": falta en seller_stats");
+        }
+        return diferencias;
+    }
+
+    // ===== MÉTODOS AUXILIARES =====
+
+    private void acumularAgrupado(Collection<DetallePedido> items, int signo,
+                                  Function<DetallePedido, EstadoPedido> estadoDelItem) {
+        Map<EstadisticaVendedorId, EstadisticaVendedor> deltas = new HashMap<>();
+        for (DetallePedido item : items) {
+            EstadisticaVendedorId clave = new EstadisticaVendedorId(item.getVendedor().getId(), estadoDelItem.apply(item));
+            EstadisticaVendedor delta = deltas.computeIfAbsent(clave,
+                    c -> new EstadisticaVendedor(c, 0L, 0L, BigDecimal.ZERO));
+            delta.setCantidadItems(delta.getCantidadItems() + signo);
+            delta.setUnidades(delta.getUnidades() + (long) signo * item.getCantidad());
+            delta.setIngresos(delta.getIngresos().add(signo > 0 ? item.getSubtotal() : item.getSubtotal().negate()));
+        }
+        for (EstadisticaVendedor delta : deltas.values()) {
+            acumular(delta.getId().getVendedorId(), delta.getId().getEstado(),
+                    delta.getCantidadItems(), delta.getUnidades(), delta.getIngresos());
+        }
+    }
+
+    private void acumular(Long vendedorId, EstadoPedido estado, long items, long unidades, BigDecimal ingresos) {
+        if (estadisticaVendedorRepository.acumular(vendedorId, estado, items, unidades, ingresos) == 0
+                && !estadisticaVendedorRepository.insertar(vendedorId, estado, items, unidades, ingresos)) {
+            // Primera venta del vendedor en este estado, pero un checkout simultáneo creó la fila
+            // entre el UPDATE y el INSERT: ahora el UPDATE la encuentra
+            // Si tampoco la encuentra (por ejemplo la borró una reconstrucción) el delta se perdería:
+            // fallar hace rollback del checkout en lugar de dejar seller_stats desfasada
+            if (estadisticaVendedorRepository.acumular(vendedorId, estado, items, unidades, ingresos) != 1) {
+                throw new IllegalStateException("No se pudieron acumular las ventas del vendedor " + vendedorId
+                        + " en estado " + estado);
+            }
+        }
+    }
+
+    private static boolean coinciden(EstadisticaVendedor esperada, EstadisticaVendedor actual) {
+        return Objects.equals(esperada.getCantidadItems(), actual.getCantidadItems())
+                && Objects.equals(esperada.getUnidades(), actual.getUnidades())
+                && esperada.getIngresos().compareTo(actual.getIngresos()) == 0;
+    }
+
+    private static VentasPorEstadoDTO aDTO(EstadisticaVendedor estadistica) {
+        return new VentasPorEstadoDTO(estadistica.getId().getEstado(), estadistica.getCantidadItems(),
+                estadistica.getUnidades(), estadistica.getIngresos());
+    }
+}
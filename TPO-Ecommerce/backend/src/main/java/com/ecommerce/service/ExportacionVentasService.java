@@ -0,0 +1,134 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.VentaExportacionDTO;
+import com.ecommerce.repository.DetallePedidoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Listado y exportación de todas las ventas del marketplace (admin)
+ * La exportación recorre la consulta con un cursor y escribe cada fila apenas llega,
+ * así la memoria usada no depende de la cantidad de ventas
+ */
+@Service
+@Transactional(readOnly = true)
+public class ExportacionVentasService {
+    
+    public enum Formato {
+        JSONL("application/x-ndjson", "jsonl"),
+        CSV("text/csv", "csv");
+        
+        private final String tipoContenido;
+        private final String extension;
+        
+        Formato(String tipoContenido, String extension) {
+            this.tipoContenido = tipoContenido;
+            this.extension = extension;
+        }
+        
+        public String getTipoContenido() {
+            return tipoContenido;
+        }
+        
+        public String getExtension() {
+            return extension;
+        }
+    }
+    
+    private static final String ENCABEZADO_CSV = "detalleId,pedidoId,productoNombre,cantidad,subtotal,"
+            + "estadoItem,vendedorId,vendedorNombre,compradorNombre,fechaPedido";
+    
+    // Cada cuántas filas se envía lo escrito al cliente
+    private static final int FILAS_POR_ENVIO = 500;
+    
+    // Fetch size de la consulta de exportación; en prod (MySQL) Integer.MIN_VALUE activa el streaming
+    // del driver solo para esta consulta (ver application-prod.properties)
+    @Value("${exportacion.ventas.filas-por-lectura:500}")
+    private int filasPorLectura;
+    
+    @Autowired
+    private DetallePedidoRepository detallePedidoRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    /**
+     * Obtener todas las ventas en memoria (para listados chicos; usar exportar() para volúmenes grandes)
+     */
+    public List<VentaExportacionDTO> obtenerTodasLasVentas() {
+        return detallePedidoRepository.listarVentas();
+    }
+    
+    /**
+     * Escribir todas las ventas en la salida, una fila por venta
+     * Se ejecuta en su propia transacción de solo lectura (el cursor necesita la conexión abierta)
+     * @return cantidad de filas escritas
+     */
+    public long exportar(Formato formato, OutputStream salida) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        if (formato == Formato.CSV) {
+            escritor.write(ENCABEZADO_CSV);
+            escritor.write('\n');
+        }
+        
+        long filas = 0;
+        try (Stream<VentaExportacionDTO> ventas = detallePedidoRepository.recorrerVentas(filasPorLectura)) {
+            Iterator<VentaExportacionDTO> iterador = ventas.iterator();
+            while (iterador.hasNext()) {
+                VentaExportacionDTO venta = iterador.next();
+                escritor.write(formato == Formato.CSV ? aCsv(venta) : objectMapper.writeValueAsString(venta));
+                escritor.write('\n');
+                if (++filas % FILAS_POR_ENVIO == 0) {
+                    escritor.flush();
+                }
+            }
+        }
+        // No se cierra el escritor: la salida es del contenedor
+        escritor.flush();
+        return filas;
+    }
+    
+    // ===== MÉTODOS AUXILIARES =====
+    
+    private static String aCsv(VentaExportacionDTO venta) {
+        return String.join(",",
+                valor(venta.getDetalleId()),
+                valor(venta.getPedidoId()),
+                texto(venta.getProductoNombre()),
+                valor(venta.getCantidad()),
+                valor(venta.getSubtotal() != null ? venta.getSubtotal().toPlainString() : null),
+                valor(venta.getEstadoItem()),
+                valor(venta.getVendedorId()),
+                texto(venta.getVendedorNombre()),
+                texto(venta.getCompradorNombre()),
+                valor(venta.getFechaPedido()));
+    }
+    
+    private static String valor(Object valor) {
+        return valor != null ? valor.toString() : "";
+    }
+    
+    // Texto libre: entre comillas si contiene separadores, comillas o saltos de línea (RFC 4180)
+    private static String texto(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,273 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductoIndexableDTO;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Índice invertido en memoria del catálogo para la búsqueda de texto
+ * Indexa nombre, descripción y nombre de categoría sin acentos ni mayúsculas
+ * y ordena por relevancia (BM25, con el nombre pesando más que la descripción)
+ * BusquedaProductosService lo carga al iniciar y lo mantiene al crear, editar o eliminar productos
+ */
+@Component
+public class IndiceBusquedaProductos {
+
+    // Cuántas veces cuenta una aparición del término según el campo
+    static final int PESO_NOMBRE = 3;
+    static final int PESO_CATEGORIA = 2;
+    static final int PESO_DESCRIPCION = 1;
+
+    // Parámetros habituales de BM25: saturación de la frecuencia y normalización por largo
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los",
+            "o", "para", "por", "sin", "su", "un", "una", "y");
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Mejor puntaje primero; a igual puntaje, menor id primero (orden total para el cursor)
+    private static final Comparator<Resultado> POR_RELEVANCIA = Comparator
+            .comparingDouble(Resultado::puntaje).reversed()
+            .thenComparing(Resultado::id);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Estado estado = new Estado();
+
+    /**
+     * Agregar o reemplazar un producto en el índice
+     * @return nombre con el que estaba indexado (null si no estaba)
+     */
+    public String indexar(ProductoIndexableDTO producto) {
+        Map<String, Integer> frecuencias = frecuencias(producto);
+        lock.writeLock().lock();
+        try {
+            String nombreAnterior = estado.quitar(producto.getId());
+            estado.agregar(producto.getId(), producto.getNombre(), frecuencias);
+            return nombreAnterior;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return nombre con el que estaba indexado (null si no estaba)
+     */
+    public String eliminar(Long productoId) {
+        lock.writeLock().lock();
+        try {
+            return estado.quitar(productoId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reemplazar el índice completo por uno nuevo armado con los productos recibidos
+     * Se arma fuera del lock: las búsquedas siguen usando el índice anterior mientras tanto
+     * @return cantidad de productos indexados
+     */
+    public int reconstruir(Stream<ProductoIndexableDTO> productos) {
+        Estado nuevo = new Estado();
+        productos.forEach(producto -> {
+            nuevo.quitar(producto.getId());
+            nuevo.agregar(producto.getId(), producto.getNombre(), frecuencias(producto));
+        });
+
+        lock.writeLock().lock();
+        try {
+            estado = nuevo;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return nuevo.documentos.size();
+    }
+
+    /**
+     * Buscar los productos que contienen todos los términos de la consulta, por relevancia
+     * @param desde último resultado de la página anterior (null para la primera página)
+     * @param limite cantidad máxima de resultados
+     */
+    public List<Resultado> buscar(String consulta, Resultado desde, int limite) {
+        List<String> terminos = new ArrayList<>(new LinkedHashSet<>(terminos(consulta)));
+        if (terminos.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Map<Long, Integer>> listas = new ArrayList<>();
+            for (String termino : terminos) {
+                Map<Long, Integer> lista = estado.posteos.get(termino);
+                if (lista == null) {
+                    return List.of();
+                }
+                listas.add(lista);
+            }
+            // Recorrer la lista más corta y descartar lo que no esté en las demás
+            listas.sort(Comparator.comparingInt(Map::size));
+
+            double largoPromedio = (double) estado.largoTotal / estado.documentos.size();
+            double[] idf = new double[listas.size()];
+            for (int i = 0; i < listas.size(); i++) {
+                int df = listas.get(i).size();
+                idf[i] = Math.log(1 + (estado.documentos.size() - df + 0.5) / (df + 0.5));
+            }
+
+            // Montículo con los mejores `limite` resultados posteriores al cursor; el peor queda arriba
+            PriorityQueue<Resultado> mejores = new PriorityQueue<>(limite + 1, POR_RELEVANCIA.reversed());
+            candidatos:
+            for (Long productoId : listas.get(0).keySet()) {
+                double puntaje = 0;
+                double normalizacion = K1 * (1 - B + B * estado.documentos.get(productoId).largo() / largoPromedio);
+                for (int i = 0; i < listas.size(); i++) {
+                    Integer frecuencia = listas.get(i).get(productoId);
+                    if (frecuencia == null) {
+                        continue candidatos;
+                    }
+                    puntaje += idf[i] * frecuencia * (K1 + 1) / (frecuencia + normalizacion);
+                }
+
+                Resultado resultado = new Resultado(productoId, puntaje);
+                if (desde != null && POR_RELEVANCIA.compare(resultado, desde) <= 0) {
+                    continue;
+                }
+                mejores.add(resultado);
+                if (mejores.size() > limite) {
+                    mejores.poll();
+                }
+            }
+
+            List<Resultado> resultados = new ArrayList<>(mejores);
+            resultados.sort(POR_RELEVANCIA);
+            return resultados;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int cantidadProductos() {
+        lock.readLock().lock();
+        try {
+            return estado.documentos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int cantidadTerminos() {
+        lock.readLock().lock();
+        try {
+            return estado.posteos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Pasar a minúsculas y quitar acentos y diéresis ("Electrónica" → "electronica")
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinMarcas = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinMarcas.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Términos indexables de un texto: palabras normalizadas, sin artículos ni preposiciones
+     */
+    public static List<String> terminos(String texto) {
+        List<String> terminos = new ArrayList<>();
+        for (String palabra : SEPARADORES.split(normalizar(texto))) {
+            if (!palabra.isEmpty() && !PALABRAS_VACIAS.contains(palabra)) {
+                terminos.add(palabra);
+            }
+        }
+        return terminos;
+    }
+
+    static boolean esPalabraVacia(String palabra) {
+        return PALABRAS_VACIAS.contains(palabra);
+    }
+
+    // ===== MÉTODOS AUXILIARES =====
+
+    private static Map<String, Integer> frecuencias(ProductoIndexableDTO producto) {
+        Map<String, Integer> frecuencias = new HashMap<>();
+        sumar(frecuencias, producto.getNombre(), PESO_NOMBRE);
+        sumar(frecuencias, producto.getCategoria(), PESO_CATEGORIA);
+        sumar(frecuencias, producto.getDescripcion(), PESO_DESCRIPCION);
+        return frecuencias;
+    }
+
+    private static void sumar(Map<String, Integer> frecuencias, String texto, int peso) {
+        for (String termino : terminos(texto)) {
+            frecuencias.merge(termino, peso, Integer::sum);
+        }
+    }
+
+    /**
+     * Resultado de una búsqueda; también sirve de posición para pedir la página siguiente
+     */
+    public record Resultado(Long id, double puntaje) {
+    }
+
+    // Listas de posteo y largo de cada documento; solo se modifica con el lock de escritura tomado
+    private static final class Estado {
+
+        // término → (id de producto → frecuencia ponderada del término en el producto)
+        private final Map<String, Map<Long, Integer>> posteos = new HashMap<>();
+        private final Map<Long, Documento> documentos = new HashMap<>();
+        private long largoTotal;
+
+        private void agregar(Long productoId, String nombre, Map<String, Integer> frecuencias) {
+            int largo = 0;
+            for (Map.Entry<String, Integer> entrada : frecuencias.entrySet()) {
+                posteos.computeIfAbsent(entrada.getKey(), t -> new HashMap<>()).put(productoId, entrada.getValue());
+                largo += entrada.getValue();
+            }
+            documentos.put(productoId, new Documento(nombre, frecuencias.keySet().toArray(new String[0]), largo));
+            largoTotal += largo;
+        }
+
+        private String quitar(Long productoId) {
+            Documento documento = documentos.remove(productoId);
+            if (documento == null) {
+                return null;
+            }
+            for (String termino : documento.terminos()) {
+                Map<Long, Integer> lista = posteos.get(termino);
+                lista.remove(productoId);
+                if (lista.isEmpty()) {
+                    posteos.remove(termino);
+                }
+            }
+            largoTotal -= documento.largo();
+            return documento.nombre();
+        }
+    }
+
+    // Nombre y términos del documento (para quitarlo al reindexar) y su largo ponderado
+    private record Documento(String nombre, String[] terminos, int largo) {
+    }
+}
@@ -1,6 +1,12 @@
 package com.ecommerce.service;
 
 import com.ecommerce.dto.CreatePedidoDTO;
+import com.ecommerce.dto.EstadoStockDTO;
+import com.ecommerce.dto.PaginaDTO;
+import com.ecommerce.dto.ResultadoActualizacionLoteDTO;
+import com.ecommerce.dto.VentasPorEstadoDTO;
+import com.ecommerce.dto.VersionColeccionDTO;
+import com.ecommerce.dto.VersionPedidoDTO;
 import com.ecommerce.entity.*;
 import com.ecommerce.exception.PedidoNotFoundException;
 import com.ecommerce.exception.ProductoNotFoundException;
@@ -10,20 +16,40 @@ import com.ecommerce.repository.DetallePedidoRepository;
 import com.ecommerce.repository.PedidoRepository;
 import com.ecommerce.repository.ProductoRepository;
 import com.ecommerce.repository.UsuarioRepository;
+import com.ecommerce.util.CursorPaginacion;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class PedidoService {
     
+    public static final int TAMANIO_PAGINA_DEFAULT = 20;
+    public static final int TAMANIO_PAGINA_MAXIMO = 100;
+    
+    // Límite de ventas por cambio de estado en lote (acota la lista IN de las consultas)
+    static final int MAXIMO_VENTAS_POR_LOTE = 500;
+    
+    
     @Autowired
     private PedidoRepository pedidoRepository;
     
@@ -36,6 +62,15 @@ public class PedidoService {
     @Autowired
     private UsuarioRepository usuarioRepository;
     
+    @Autowired
+    private EstadisticasVendedorService estadisticasVendedorService;
+    
+    @Autowired
+    private TransicionesEstadoItem transicionesEstadoItem;
+    
+    @Autowired
+    private CacheProductos cacheProductos;
+    
     /**
      * Obtener todos los pedidos
      */
@@ -52,6 +87,22 @@ public class PedidoService {
         return pedidoRepository.findById(id);
     }
     
+    /**
+     * Dueño y última modificación de un pedido, sin cargar items (GET condicional del detalle)
+     */
+    @Transactional(readOnly = true)
+    public Optional<VersionPedidoDTO> obtenerVersionPedido(Long id) {
+        return pedidoRepository.buscarVersion(id);
+    }
+    
+    /**
+     * Cantidad y última modificación de los pedidos de un usuario (GET condicional del historial)
+     */
+    @Transactional(readOnly = true)
+    public VersionColeccionDTO obtenerVersionPedidosDeUsuario(Long usuarioId) {
+        return pedidoRepository.buscarVersionPorUsuario(usuarioId);
+    }
+    
     /**
      * Obtener pedidos de un usuario (historial)
      */
@@ -60,6 +111,22 @@ public class PedidoService {
         return pedidoRepository.findByUsuarioIdOrderByCreatedAtDesc(usuarioId);
     }
     
+    /**
+     * Historial de pedidos de un usuario paginado por cursor (keyset) sobre (createdAt, id)
+     * Los más recientes primero; se pide un registro extra para saber si hay página siguiente
+     */
+    @Transactional(readOnly = true)
+    public PaginaDTO<Pedido> listarPedidosDeUsuario(Long usuarioId, String cursor, int size) {
+        int tamanio = tamanioPagina(size);
+        CursorPaginacion posicion = CursorPaginacion.decodificar(cursor);
+        Pageable limite = PageRequest.of(0, tamanio + 1);
+        
+        List<Pedido> pedidos = posicion == null
+                ? pedidoRepository.buscarPrimeraPaginaPorUsuario(usuarioId, limite)
+                : pedidoRepository.buscarPaginaPorUsuario(usuarioId, fechaDelCursor(posicion), posicion.getId(), limite);
+        return armarPagina(pedidos, tamanio, Pedido::getCreatedAt, Pedido::getId);
+    }
+    
     /**
      * Obtener pedidos por estado
      */
@@ -71,10 +138,13 @@ public class PedidoService {
     /**
      * Crear un nuevo pedido desde el carrito
      * - Valida stock disponible
-     * - Descuenta stock de productos
+     * - Descuenta stock de productos (concurrencia optimista, sin locks: ver reservarStock)
      * - Crea el pedido y los detalles
      * - Calcula el total
+     * READ_COMMITTED: si la versión leída ya cambió, el stock del mensaje de error tiene que ser el confirmado
+     * por la otra transacción (con REPEATABLE READ, el default de MySQL, se volvería a leer la misma instantánea)
      */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public Pedido crearPedido(Long usuarioId, CreatePedidoDTO createPedidoDTO) {
         // 1. Validar que el usuario existe
         Usuario usuario = usuarioRepository.findById(usuarioId)
@@ -96,54 +166,76 @@ public class PedidoService {
                 .items(new ArrayList<>())
                 .build();
         
-        // 4. Procesar cada item del carrito
+        // 4. Agrupar cantidades por producto (el carrito puede repetir un producto)
+        Map<Long, Integer> cantidadesPorProducto = new LinkedHashMap<>();
+        for (CreatePedidoDTO.ItemCarritoDTO itemDTO : createPedidoDTO.getItems()) {
+            if (itemDTO.getProductoId() == null) {
+                throw new IllegalArgumentException("Cada item del pedido debe indicar un producto");
+            }
+            if (itemDTO.getCantidad() == null || itemDTO.getCantidad() <= 0) {
+                throw new IllegalArgumentException("La cantidad de cada producto debe ser mayor a cero");
+            }
+            cantidadesPorProducto.merge(itemDTO.getProductoId(), itemDTO.getCantidad(), Integer::sum);
+        }
+        
+        // 5. Cargar todos los productos del carrito (con vendedor e imágenes) en una sola consulta
+        Map<Long, Producto> productos = productoRepository.findByIdIn(cantidadesPorProducto.keySet())
+                .stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+        
+        // 6. Procesar cada producto del carrito
         BigDecimal totalPedido = BigDecimal.ZERO;
         
-        for (CreatePedidoDTO.ItemCarritoDTO itemDTO : createPedidoDTO.getItems()) {
-            // 4.1 Obtener el producto
-            Producto producto = productoRepository.findById(itemDTO.getProductoId())
-                    .orElseThrow(() -> new ProductoNotFoundException(itemDTO.getProductoId()));
+        for (Map.Entry<Long, Integer> linea : cantidadesPorProducto.entrySet()) {
+            Long productoId = linea.getKey();
+            Integer cantidad = linea.getValue();
             
-            // 4.2 Validar stock disponible
-            if (producto.getStock() < itemDTO.getCantidad()) {
-                throw new StockInsuficienteException(
-                        producto.getName(), 
-                        producto.getStock(), 
-                        itemDTO.getCantidad()
-                );
+            // 6.1 Obtener el producto
+            Producto producto = productos.get(productoId);
+            if (producto == null) {
+                throw new ProductoNotFoundException(productoId);
             }
             
-            // 4.3 Crear detalle del pedido (asignando vendedor = owner del producto)
+            // 6.2 Reservar stock con un UPDATE condicionado a que alcance;
+            // la excepción (sin stock) hace rollback de las reservas anteriores
+            EstadoStockDTO reservado = reservarStock(producto, cantidad);
+            
+            // 6.3 Crear detalle del pedido (asignando vendedor = owner del producto)
+            // Precio y nombre de la misma versión sobre la que se reservó el stock
             DetallePedido detalle = DetallePedido.builder()
                     .pedido(pedido)
                     .producto(producto)
                     .vendedor(producto.getOwnerUser())  // Asignar el vendedor (owner del producto)
-                    .cantidad(itemDTO.getCantidad())
-                    .precioUnitario(producto.getPrice())
-                    .productoNombre(producto.getName())
+                    .cantidad(cantidad)
+                    .precioUnitario(reservado.getPrice())
+                    .productoNombre(reservado.getName())
                     .productoImagen(producto.getImages() != null && !producto.getImages().isEmpty() 
                             ? producto.getImages().get(0) 
                             : null)
                     .estadoItem(EstadoPedido.PENDIENTE)  // Estado inicial del item
                     .build();
             
-            // 4.4 Agregar detalle al pedido
-            pedido.getItems().add(detalle);
-            
-            // 4.5 Descontar stock del producto
-            producto.setStock(producto.getStock() - itemDTO.getCantidad());
-            productoRepository.save(producto);
+            // 6.4 Agregar detalle al pedido (lo cuenta en el histograma de estados)
+            pedido.agregarItem(detalle);
             
-            // 4.6 Calcular subtotal y agregar al total
-            BigDecimal subtotal = producto.getPrice().multiply(BigDecimal.valueOf(itemDTO.getCantidad()));
+            // 6.5 Calcular subtotal y agregar al total
+            BigDecimal subtotal = reservado.getPrice().multiply(BigDecimal.valueOf(cantidad));
             totalPedido = totalPedido.add(subtotal);
         }
         
-        // 5. Establecer el total del pedido
+        // 7. Establecer el total del pedido
         pedido.setTotal(totalPedido);
         
-        // 6. Guardar el pedido (cascade guardará los detalles automáticamente)
-        return pedidoRepository.save(pedido);
+        // 8. Guardar el pedido (cascade guardará los detalles automáticamente)
+        Pedido pedidoGuardado = pedidoRepository.save(pedido);
+        
+        // 9. Sumar los items nuevos a las estadísticas de cada vendedor
+        estadisticasVendedorService.registrarAltas(pedidoGuardado.getItems());
+        
+        // 10. El stock cambió: descartar el detalle cacheado de esos productos al confirmarse
+        cacheProductos.invalidar(cantidadesPorProducto.keySet());
+        
+        return pedidoGuardado;
     }
     
     /**
@@ -182,12 +274,9 @@ public class PedidoService {
         for (DetallePedido detalle : pedido.getItems()) {
             // Solo cancelar items que estén en estado PENDIENTE
             if (detalle.getEstadoItem() == EstadoPedido.PENDIENTE) {
-                Producto producto = detalle.getProducto();
-                if (producto != null) {
-                    producto.setStock(producto.getStock() + detalle.getCantidad());
-                    productoRepository.save(producto);
-                }
-                detalle.setEstadoItem(EstadoPedido.CANCELADO_COMPRADOR);
+                // La transición devuelve el stock al producto
+                transicionesEstadoItem.transicionar(detalle, EstadoPedido.CANCELADO_COMPRADOR);
+                estadisticasVendedorService.registrarCambioEstado(detalle, EstadoPedido.PENDIENTE);
             }
         }
         
@@ -202,11 +291,14 @@ public class PedidoService {
      * Eliminar un pedido (solo admin)
      */
     public boolean eliminarPedido(Long id) {
-        if (pedidoRepository.existsById(id)) {
-            pedidoRepository.deleteById(id);
-            return true;
+        Optional<Pedido> pedido = pedidoRepository.findById(id);
+        if (pedido.isEmpty()) {
+            return false;
         }
-        return false;
+        // Restar sus items de las estadísticas de los vendedores
+        estadisticasVendedorService.registrarBajas(pedido.get().getItems());
+        pedidoRepository.delete(pedido.get());
+        return true;
     }
     
     /**
@@ -238,6 +330,48 @@ public class PedidoService {
         return detallePedidoRepository.findByVendedorIdAndEstadoItemOrderByPedidoCreatedAtDesc(vendedorId, estado);
     }
     
+    /**
+     * Ventas de un vendedor (opcionalmente de un estado) paginadas por cursor (keyset) sobre (createdAt, id)
+     * Las más recientes primero
+     */
+    @Transactional(readOnly = true)
+    public PaginaDTO<DetallePedido> listarVentasDeVendedor(Long vendedorId, EstadoPedido estado, String cursor, int size) {
+        int tamanio = tamanioPagina(size);
+        CursorPaginacion posicion = CursorPaginacion.decodificar(cursor);
+        Pageable limite = PageRequest.of(0, tamanio + 1);
+        
+        List<DetallePedido> ventas;
+        if (estado == null) {
+            ventas = posicion == null
+                    ? detallePedidoRepository.buscarPrimeraPaginaPorVendedor(vendedorId, limite)
+                    : detallePedidoRepository.buscarPaginaPorVendedor(vendedorId, fechaDelCursor(posicion),
+                            posicion.getId(), limite);
+        } else {
+            ventas = posicion == null
+                    ? detallePedidoRepository.buscarPrimeraPaginaPorVendedorYEstado(vendedorId, estado, limite)
+                    : detallePedidoRepository.buscarPaginaPorVendedorYEstado(vendedorId, estado,
+                            fechaDelCursor(posicion), posicion.getId(), limite);
+        }
+        return armarPagina(ventas, tamanio, DetallePedido::getCreatedAt, DetallePedido::getId);
+    }
+    
+    /**
+     * Resumen de ventas de un vendedor por estado de item (cantidad, unidades e ingresos)
+     * Se agrega en la base: el costo no depende de la cantidad de ventas históricas
+     * Incluye todos los estados, con ceros para los que no tienen ventas
+     */
+    @Transactional(readOnly = true)
+    public EnumMap<EstadoPedido, VentasPorEstadoDTO> obtenerResumenVentasPorEstado(Long vendedorId) {
+        EnumMap<EstadoPedido, VentasPorEstadoDTO> resumen = new EnumMap<>(EstadoPedido.class);
+        for (EstadoPedido estado : EstadoPedido.values()) {
+            resumen.put(estado, VentasPorEstadoDTO.vacio(estado));
+        }
+        for (VentasPorEstadoDTO fila : detallePedidoRepository.resumirVentasPorEstado(vendedorId)) {
+            resumen.put(fila.getEstado(), fila);
+        }
+        return resumen;
+    }
+    
     /**
      * Actualizar estado de un item de venta (solo el vendedor puede hacerlo)
      */
@@ -250,162 +384,113 @@ public class PedidoService {
             throw new IllegalArgumentException("No tienes permiso para modificar este item");
         }
         
-        // Validar transiciones de estado válidas
-        validarTransicionEstado(detalle.getEstadoItem(), nuevoEstado);
-        
-        // Si se cancela por parte del vendedor, devolver stock
-        if (nuevoEstado == EstadoPedido.CANCELADO_VENDEDOR) {
-            Producto producto = detalle.getProducto();
-            if (producto != null) {
-                producto.setStock(producto.getStock() + detalle.getCantidad());
-                productoRepository.save(producto);
-            }
-        }
-        
-        detalle.setEstadoItem(nuevoEstado);
+        // Validar y aplicar la transición (si se cancela, devuelve el stock)
+        EstadoPedido estadoAnterior = detalle.getEstadoItem();
+        Pedido pedido = detalle.getPedido();
+        transicionesEstadoItem.transicionar(detalle, nuevoEstado);
         DetallePedido detalleGuardado = detallePedidoRepository.save(detalle);
+        estadisticasVendedorService.registrarCambioEstado(detalleGuardado, estadoAnterior);
         
-        // Actualizar el estado del pedido general basado en el estado de todos los items
-        actualizarEstadoPedidoGeneral(detalle.getPedido().getId());
+        // Actualizar el estado del pedido general basado en el histograma de estados de sus items
+        actualizarEstadoPedidoGeneral(pedido);
         
         return detalleGuardado;
     }
     
     /**
-     * Actualiza el estado del pedido general basado en el estado de todos sus items
-     * Lógica:
-     * - Si todos los items están ENTREGADO → pedido ENTREGADO
-     * - Si algún item está CANCELADO → pedido CANCELADO_COMPRADOR
-     * - Si hay items EN_TRANSITO o ENVIADO → pedido ENVIADO
-     * - Si hay items CONFIRMADO o PREPARANDO → pedido CONFIRMADO
-     * - Si todos están PENDIENTE → pedido PENDIENTE
+     * Actualizar en lote el estado de varias ventas del vendedor
+     * Valida todas con una sola consulta, aplica un UPDATE por estado de origen, devuelve el stock
+     * agrupado por producto y recalcula una vez el estado de cada pedido afectado
+     * Las ventas que no se pueden actualizar se informan en el resultado sin abortar el resto
      */
-    private void actualizarEstadoPedidoGeneral(Long pedidoId) {
-        Pedido pedido = pedidoRepository.findById(pedidoId)
-                .orElseThrow(() -> new IllegalArgumentException("Pedido no encontrado"));
-        
-        List<DetallePedido> items = pedido.getItems();
-        if (items.isEmpty()) {
-            return;
+    public ResultadoActualizacionLoteDTO actualizarEstadoItems(Collection<Long> detalleIds, Long vendedorId,
+                                                               EstadoPedido nuevoEstado) {
+        if (detalleIds == null || detalleIds.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos una venta");
         }
-        
-        // Contar estados de los items
-        long totalItems = items.size();
-        long itemsEntregados = items.stream()
-                .filter(item -> item.getEstadoItem() == EstadoPedido.ENTREGADO)
-                .count();
-        long itemsCancelados = items.stream()
-                .filter(item -> item.getEstadoItem() == EstadoPedido.CANCELADO_COMPRADOR || 
-                              item.getEstadoItem() == EstadoPedido.CANCELADO_VENDEDOR)
-                .count();
-        long itemsEnTransito = items.stream()
-                .filter(item -> item.getEstadoItem() == EstadoPedido.EN_TRANSITO)
-                .count();
-        long itemsEnviados = items.stream()
-                .filter(item -> item.getEstadoItem() == EstadoPedido.ENVIADO)
-                .count();
-        long itemsConfirmados = items.stream()
-                .filter(item -> item.getEstadoItem() == EstadoPedido.CONFIRMADO ||
-                              item.getEstadoItem() == EstadoPedido.PREPARANDO)
-                .count();
-        long itemsPendientes = items.stream()
-                .filter(item -> item.getEstadoItem() == EstadoPedido.PENDIENTE)
-                .count();
-        
-        EstadoPedido nuevoEstadoPedido;
-        
-        // Lógica de decisión del estado del pedido
-        if (itemsCancelados > 0) {
-            // Si hay algún item cancelado, el pedido está cancelado
-            nuevoEstadoPedido = EstadoPedido.CANCELADO_COMPRADOR;
-        } else if (itemsEntregados == totalItems) {
-            // Si todos los items están entregados
-            nuevoEstadoPedido = EstadoPedido.ENTREGADO;
-        } else if (itemsEnTransito > 0 || itemsEnviados > 0) {
-            // Si hay items en tránsito o enviados
-            nuevoEstadoPedido = EstadoPedido.ENVIADO;
-        } else if (itemsConfirmados > 0) {
-            // Si hay items confirmados o preparando
-            nuevoEstadoPedido = EstadoPedido.CONFIRMADO;
-        } else if (itemsPendientes == totalItems) {
-            // Si todos están pendientes
-            nuevoEstadoPedido = EstadoPedido.PENDIENTE;
-        } else {
-            // Estado mixto, usar el más avanzado
-            nuevoEstadoPedido = EstadoPedido.CONFIRMADO;
+        if (detalleIds.size() > MAXIMO_VENTAS_POR_LOTE) {
+            throw new IllegalArgumentException("No se pueden actualizar más de " + MAXIMO_VENTAS_POR_LOTE
+                    + " ventas por vez");
         }
         
-        // Solo actualizar si el estado cambió
-        if (!pedido.getEstado().equals(nuevoEstadoPedido)) {
-            pedido.setEstado(nuevoEstadoPedido);
-            pedido.setUpdatedAt(LocalDateTime.now());
-            pedidoRepository.save(pedido);
-        }
-    }
-    
-    /**
-     * Validar que la transición de estado es válida
-     */
-    private void validarTransicionEstado(EstadoPedido estadoActual, EstadoPedido nuevoEstado) {
-        // PENDIENTE puede ir a: CONFIRMADO, CANCELADO_VENDEDOR, CANCELADO_COMPRADOR
-        if (estadoActual == EstadoPedido.PENDIENTE) {
-            if (nuevoEstado != EstadoPedido.CONFIRMADO && 
-                nuevoEstado != EstadoPedido.CANCELADO_VENDEDOR && 
-                nuevoEstado != EstadoPedido.CANCELADO_COMPRADOR) {
-                throw new IllegalArgumentException("Transición de estado inválida desde PENDIENTE");
-            }
-        }
+        ResultadoActualizacionLoteDTO resultado = ResultadoActualizacionLoteDTO.builder()
+                .estado(nuevoEstado)
+                .build();
         
-        // CONFIRMADO puede ir a: PREPARANDO, CANCELADO_VENDEDOR
-        else if (estadoActual == EstadoPedido.CONFIRMADO) {
-            if (nuevoEstado != EstadoPedido.PREPARANDO && 
-                nuevoEstado != EstadoPedido.CANCELADO_VENDEDOR) {
-                throw new IllegalArgumentException("Transición de estado inválida desde CONFIRMADO");
+        // 1. Cargar todas las ventas (con pedido y producto) en una consulta
+        Set<Long> ids = new LinkedHashSet<>(detalleIds);
+        ids.remove(null);
+        Map<Long, DetallePedido> detalles = detallePedidoRepository.findByIdIn(ids)
+                .stream()
+                .collect(Collectors.toMap(DetallePedido::getId, Function.identity()));
+        
+        // 2. Validar cada venta y agruparlas por su estado actual
+        Map<EstadoPedido, List<DetallePedido>> porEstadoAnterior = new EnumMap<>(EstadoPedido.class);
+        for (Long id : ids) {
+            DetallePedido detalle = detalles.get(id);
+            if (detalle == null) {
+                resultado.agregarFallo(id, "Venta no encontrada");
+                continue;
             }
-        }
-        
-        // PREPARANDO puede ir a: ENVIADO
-        else if (estadoActual == EstadoPedido.PREPARANDO) {
-            if (nuevoEstado != EstadoPedido.ENVIADO) {
-                throw new IllegalArgumentException("Transición de estado inválida desde PREPARANDO");
+            if (!detalle.getVendedor().getId().equals(vendedorId)) {
+                resultado.agregarFallo(id, "No tienes permiso para modificar este item");
+                continue;
             }
-        }
-        
-        // ENVIADO puede ir a: EN_TRANSITO, ENTREGADO
-        else if (estadoActual == EstadoPedido.ENVIADO) {
-            if (nuevoEstado != EstadoPedido.EN_TRANSITO && 
-                nuevoEstado != EstadoPedido.ENTREGADO) {
-                throw new IllegalArgumentException("Transición de estado inválida desde ENVIADO");
+            try {
+                transicionesEstadoItem.validarTransicion(detalle.getEstadoItem(), nuevoEstado);
+            } catch (IllegalArgumentException e) {
+                resultado.agregarFallo(id, e.getMessage());
+                continue;
             }
+            porEstadoAnterior.computeIfAbsent(detalle.getEstadoItem(), estado -> new ArrayList<>()).add(detalle);
         }
         
-        // EN_TRANSITO puede ir a: ENTREGADO
-        else if (estadoActual == EstadoPedido.EN_TRANSITO) {
-            if (nuevoEstado != EstadoPedido.ENTREGADO) {
-                throw new IllegalArgumentException("Transición de estado inválida desde EN_TRANSITO");
+        // 3. Un UPDATE por estado de origen; histogramas y estadísticas se ajustan por grupo
+        // (las entidades cargadas no se modifican en memoria, así Hibernate no repite el UPDATE por fila)
+        List<DetallePedido> aplicados = new ArrayList<>();
+        Map<Long, Pedido> pedidosAfectados = new LinkedHashMap<>();
+        for (Map.Entry<EstadoPedido, List<DetallePedido>> grupo : porEstadoAnterior.entrySet()) {
+            EstadoPedido estadoAnterior = grupo.getKey();
+            List<DetallePedido> items = grupo.getValue();
+            List<Long> idsGrupo = items.stream().map(DetallePedido::getId).collect(Collectors.toList());
+            
+            if (detallePedidoRepository.actualizarEstado(idsGrupo, estadoAnterior, nuevoEstado) != items.size()) {
+                // Otra operación cambió alguna de estas ventas después de validarlas: se revierte todo el lote
+                throw new IllegalArgumentException(
+                        "Algunas ventas cambiaron de estado durante la actualización, vuelva a intentarlo");
             }
-        }
-        
-        // ENTREGADO puede ir a: DEVOLUCION_SOLICITADA
-        else if (estadoActual == EstadoPedido.ENTREGADO) {
-            if (nuevoEstado != EstadoPedido.DEVOLUCION_SOLICITADA) {
-                throw new IllegalArgumentException("Transición de estado inválida desde ENTREGADO");
+            for (DetallePedido detalle : items) {
+                Pedido pedido = detalle.getPedido();
+                pedido.moverEnHistograma(estadoAnterior, nuevoEstado, 1);
+                pedidosAfectados.putIfAbsent(pedido.getId(), pedido);
             }
+            estadisticasVendedorService.registrarCambiosEstado(items, estadoAnterior, nuevoEstado);
+            aplicados.addAll(items);
+            resultado.getActualizados().addAll(idsGrupo);
         }
         
-        // DEVOLUCION_SOLICITADA puede ir a: DEVUELTO
-        else if (estadoActual == EstadoPedido.DEVOLUCION_SOLICITADA) {
-            if (nuevoEstado != EstadoPedido.DEVUELTO) {
-                throw new IllegalArgumentException("Transición de estado inválida desde DEVOLUCION_SOLICITADA");
-            }
-        }
+        // 4. Acciones del nuevo estado (devolución de stock agrupada por producto)
+        transicionesEstadoItem.ejecutarAcciones(aplicados, nuevoEstado);
+        
+        // 5. Recalcular una vez el estado de cada pedido afectado
+        pedidosAfectados.values().forEach(this::actualizarEstadoPedidoGeneral);
+        
+        return resultado;
+    }
+    
+    /**
+     * Actualiza el estado del pedido general a partir del histograma de estados de sus items
+     * (ver Pedido.calcularEstadoGeneral); no recarga el pedido ni su colección de items
+     */
+    private void actualizarEstadoPedidoGeneral(Pedido pedido) {
+        EstadoPedido nuevoEstadoPedido = pedido.calcularEstadoGeneral();
         
-        // Estados finales no pueden cambiar
-        else if (estadoActual == EstadoPedido.CANCELADO_COMPRADOR || 
-                 estadoActual == EstadoPedido.CANCELADO_VENDEDOR || 
-                 estadoActual == EstadoPedido.DEVUELTO) {
-            throw new IllegalArgumentException("No se puede cambiar el estado de un item cancelado o devuelto");
+        // Solo actualizar si el estado cambió
+        if (!pedido.getEstado().equals(nuevoEstadoPedido)) {
+            pedido.setEstado(nuevoEstadoPedido);
+            pedido.setUpdatedAt(LocalDateTime.now());
         }
+        pedidoRepository.save(pedido);
     }
     
     /**
@@ -423,5 +508,68 @@ public class PedidoService {
         
         return detalle;
     }
+    
+    /**
+     * Obtener los estados a los que el vendedor puede pasar un item de venta
+     */
+    @Transactional(readOnly = true)
+    public Set<EstadoPedido> obtenerEstadosSiguientes(Long detalleId, Long vendedorId) {
+        DetallePedido detalle = obtenerVentaPorId(detalleId, vendedorId);
+        return transicionesEstadoItem.siguientesEstados(detalle.getEstadoItem());
+    }
+    
+    // ===== CHECKOUT =====
+    
+    // Reserva sin locks: el precio y el nombre copiados al pedido tienen que ser los del producto al descontar
+    // - Si sigue en la versión leída, un UPDATE condicionado a esa versión los confirma sin otra consulta
+    // - Si no (otro checkout o una edición en el medio), se descuenta solo con la guarda de stock y se leen
+    //   de la fila ya descontada, que esta transacción mantiene bloqueada hasta confirmar
+    // Los checkouts concurrentes del mismo producto nunca fallan por conflicto mientras alcance el stock
+    private EstadoStockDTO reservarStock(Producto producto, int cantidad) {
+        if (producto.getStock() < cantidad) {
+            throw new StockInsuficienteException(producto.getName(), producto.getStock(), cantidad);
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        if (productoRepository.reservarStock(producto.getId(), cantidad, producto.getVersion(), ahora) == 1) {
+            return new EstadoStockDTO(producto.getVersion(), producto.getStock(), producto.getPrice(),
+                    producto.getName());
+        }
+        int descontado = productoRepository.descontarStock(producto.getId(), cantidad, ahora);
+        EstadoStockDTO actual = productoRepository.buscarEstadoStock(producto.getId())
+                .orElseThrow(() -> new ProductoNotFoundException(producto.getId()));
+        if (descontado == 0) {
+            throw new StockInsuficienteException(actual.getName(), actual.getStock(), cantidad);
+        }
+        return actual;
+    }
+    
+    // ===== PAGINACIÓN =====
+    
+    private static int tamanioPagina(int size) {
+        return Math.min(Math.max(size, 1), TAMANIO_PAGINA_MAXIMO);
+    }
+    
+    // Un cursor de otro listado no tiene una fecha en su valor
+    private static LocalDateTime fechaDelCursor(CursorPaginacion cursor) {
+        try {
+            return LocalDateTime.parse(cursor.getValor());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+    
+    private static <T> PaginaDTO<T> armarPagina(List<T> filas, int tamanio, Function<T, LocalDateTime> fecha,
+                                                Function<T, Long> id) {
+        boolean hayMas = filas.size() > tamanio;
+        if (hayMas) {
+            filas = filas.subList(0, tamanio);
+        }
+        
+        String siguienteCursor = null;
+        if (hayMas) {
+            T ultimo = filas.get(filas.size() - 1);
+            siguienteCursor = CursorPaginacion.codificar(fecha.apply(ultimo), id.apply(ultimo));
+        }
+        return new PaginaDTO<>(filas, siguienteCursor, hayMas, tamanio);
+    }
 }
-
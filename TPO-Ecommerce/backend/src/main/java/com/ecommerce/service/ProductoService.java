@@ -1,15 +1,25 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.PaginaDTO;
+import com.ecommerce.dto.ProductoFiltroDTO;
+import com.ecommerce.dto.ProductoVistaDTO;
+import com.ecommerce.dto.VersionProductoDTO;
 import com.ecommerce.entity.Producto;
 import com.ecommerce.entity.Usuario;
+import com.ecommerce.exception.PrecondicionRequeridaException;
 import com.ecommerce.exception.UsuarioNotFoundException;
+import com.ecommerce.repository.OrdenProducto;
 import com.ecommerce.repository.ProductoRepository;
+import com.ecommerce.util.CursorPaginacion;
+import com.ecommerce.util.Validadores;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,11 +27,20 @@ import java.util.Optional;
 @Transactional
 public class ProductoService {
 
+    public static final int TAMANIO_PAGINA_DEFAULT = 20;
+    public static final int TAMANIO_PAGINA_MAXIMO = 100;
+
     @Autowired
     private ProductoRepository productoRepository;
     
     @Autowired
     private UsuarioService usuarioService;
+    
+    @Autowired
+    private BusquedaProductosService busquedaProductosService;
+    
+    @Autowired
+    private CacheProductos cacheProductos;
 
     /**
      * Obtener todos los productos
@@ -31,6 +50,39 @@ public class ProductoService {
         return productoRepository.findAll();
     }
 
+    /**
+     * Listar productos paginados por cursor (keyset) con filtros combinables
+     * - Se pide un registro extra para saber si hay página siguiente sin hacer COUNT
+     * - El tamaño de página se limita a TAMANIO_PAGINA_MAXIMO
+     */
+    @Transactional(readOnly = true)
+    public PaginaDTO<Producto> listarProductos(ProductoFiltroDTO filtro, OrdenProducto orden, boolean descendente,
+                                               String cursor, int size) {
+        if (filtro != null && filtro.getPrecioMin() != null && filtro.getPrecioMax() != null
+                && filtro.getPrecioMin().compareTo(filtro.getPrecioMax()) > 0) {
+            throw new IllegalArgumentException("El precio mínimo no puede ser mayor al precio máximo");
+        }
+
+        int tamanio = Math.min(Math.max(size, 1), TAMANIO_PAGINA_MAXIMO);
+        OrdenProducto ordenEfectivo = orden != null ? orden : OrdenProducto.ID;
+
+        List<Producto> productos = productoRepository.buscarPagina(filtro, ordenEfectivo, descendente,
+                CursorPaginacion.decodificar(cursor), tamanio + 1);
+
+        boolean hayMas = productos.size() > tamanio;
+        if (hayMas) {
+            productos = productos.subList(0, tamanio);
+        }
+
+        String siguienteCursor = null;
+        if (hayMas) {
+            Producto ultimo = productos.get(productos.size() - 1);
+            siguienteCursor = CursorPaginacion.codificar(valorDeOrden(ultimo, ordenEfectivo), ultimo.getId());
+        }
+
+        return new PaginaDTO<>(productos, siguienteCursor, hayMas, tamanio);
+    }
+
     /**
      * Obtener producto por ID
      */
@@ -39,6 +91,66 @@ public class ProductoService {
         return productoRepository.findById(id);
     }
 
+    /**
+     * Obtener la vista de detalle de un producto desde CacheProductos
+     * Sin transacción propia: un acierto no toca la base y en un fallo el repositorio abre la suya
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<ProductoVistaDTO> obtenerVistaProducto(Long id) {
+        return cacheProductos.obtener(id);
+    }
+
+    /**
+     * Versión actual del catálogo (cambia con cada alta, modificación, baja o cambio de stock confirmado)
+     * Leerla antes de consultar: una respuesta generada después queda asociada a esta versión o a una anterior
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long versionCatalogo() {
+        return cacheProductos.version();
+    }
+
+    /**
+     * Generación del catálogo: cambia al renombrar categorías o vendedores (ver CacheProductos.generacion)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long generacionCatalogo() {
+        return cacheProductos.generacion();
+    }
+
+    /**
+     * ETag de un producto: su validador de edición seguido de la generación del catálogo
+     * La generación solo invalida las copias del GET (If-None-Match); el PUT compara solo el validador
+     */
+    public static String etag(Producto producto, long generacion) {
+        return etag(producto.getId(), producto.getVersion(), generacion);
+    }
+
+    public static String etag(Long id, Long version, long generacion) {
+        return Validadores.etag("producto", id, version, generacion);
+    }
+
+    /**
+     * Validador del If-Match: solo la versión propia del producto (@Version)
+     * Cambia con cada edición y cada cambio de stock, pero no al editar otros usuarios o categorías
+     */
+    public static String validadorEdicion(Long id, Long version) {
+        return Validadores.etag("producto", id, version);
+    }
+
+    /**
+     * Versión y última modificación de un producto sin cargar su detalle (validar un GET condicional)
+     * Usa la vista cacheada si está; si no, una consulta de dos columnas
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<VersionProductoDTO> obtenerVersion(Long id) {
+        Optional<ProductoVistaDTO> vista = cacheProductos.buscar(id);
+        if (vista.isPresent()) {
+            return vista.map(v -> new VersionProductoDTO(v.getVersion(),
+                    v.getUpdatedAt() != null ? v.getUpdatedAt() : v.getCreatedAt()));
+        }
+        return productoRepository.findVersion(id);
+    }
+
     /**
      * Crear nuevo producto
      * Asigna automáticamente el producto al usuario (vendedor) que lo crea
@@ -54,19 +166,50 @@ public class ProductoService {
         producto.setOwnerUser(ownerUser);
         producto.setCreatedAt(LocalDateTime.now());
         
-        return productoRepository.save(producto);
+        Producto guardado = productoRepository.save(producto);
+        busquedaProductosService.indexar(guardado);
+        cacheProductos.invalidar(guardado.getId());
+        return guardado;
     }
 
     /**
-     * Actualizar producto existente
+     * Actualizar producto existente condicionado al ETag de la lectura (If-Match)
+     * Copia los campos editables sobre el producto cargado en lugar de reemplazar la fila:
+     * si otra transacción lo modifica en el medio (por ejemplo un checkout que descuenta stock)
+     * la versión ya no coincide y la escritura falla en vez de pisar ese cambio
+     * @throws PrecondicionRequeridaException si no viene If-Match
+     * @throws ObjectOptimisticLockingFailureException si el producto cambió desde esa lectura
+     *         (solo cuenta su versión: editar otros usuarios o categorías no invalida el formulario)
      */
-    public Optional<Producto> actualizarProducto(Long id, Producto productoActualizado) {
+    public Optional<Producto> actualizarProducto(Long id, Producto productoActualizado, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            throw new PrecondicionRequeridaException();
+        }
         return productoRepository.findById(id)
                 .map(productoExistente -> {
-                productoActualizado.setId(id);
-                    productoActualizado.setCreatedAt(productoExistente.getCreatedAt()); // Preservar fecha de creación
-                productoActualizado.setUpdatedAt(LocalDateTime.now());
-                    return productoRepository.save(productoActualizado);
+                    if (!Validadores.coincideValidador(ifMatch, validadorEdicion(id, productoExistente.getVersion()))) {
+                        throw new ObjectOptimisticLockingFailureException(Producto.class, id);
+                    }
+                    productoExistente.setName(productoActualizado.getName());
+                    productoExistente.setDescription(productoActualizado.getDescription());
+                    productoExistente.setPrice(productoActualizado.getPrice());
+                    productoExistente.setStock(productoActualizado.getStock());
+                    productoExistente.setImages(productoActualizado.getImages() != null
+                            ? new ArrayList<>(productoActualizado.getImages())
+                            : new ArrayList<>());
+                    // Categoría y vendedor solo si vienen en el cuerpo (el formulario no los envía como entidad)
+                    if (productoActualizado.getCategoria() != null) {
+                        productoExistente.setCategoria(productoActualizado.getCategoria());
+                    }
+                    if (productoActualizado.getOwnerUser() != null) {
+                        productoExistente.setOwnerUser(productoActualizado.getOwnerUser());
+                    }
+                    // Flush inmediato: el conflicto de versión sale de acá y la respuesta
+                    // lleva la versión y la fecha de modificación ya escritas (ETag nuevo)
+                    Producto guardado = productoRepository.saveAndFlush(productoExistente);
+                    busquedaProductosService.indexar(guardado);
+                    cacheProductos.invalidar(id);
+                    return guardado;
                 });
     }
 
@@ -76,59 +219,13 @@ public class ProductoService {
     public boolean eliminarProducto(Long id) {
         if (productoRepository.existsById(id)) {
             productoRepository.deleteById(id);
+            busquedaProductosService.eliminar(id);
+            cacheProductos.invalidar(id);
             return true;
         }
         return false;
     }
 
-    /**
-     * Buscar productos por nombre
-     */
-    @Transactional(readOnly = true)
-    public List<Producto> buscarProductosPorNombre(String nombre) {
-        if (nombre == null || nombre.trim().isEmpty()) {
-            return obtenerTodosLosProductos();
-        }
-        
-        return productoRepository.findByNombreContainingIgnoreCase(nombre);
-    }
-
-    /**
-     * Buscar productos por categoría
-     */
-    @Transactional(readOnly = true)
-    public List<Producto> buscarProductosPorCategoria(Long categoryId) {
-        return productoRepository.findByCategoriaId(categoryId);
-    }
-
-    /**
-     * Buscar productos por disponibilidad de stock
-     */
-    @Transactional(readOnly = true)
-    public List<Producto> buscarProductosPorStock(boolean disponible) {
-        if (disponible) {
-            return productoRepository.findByStockGreaterThan(0);
-        } else {
-            return productoRepository.findByStockEquals(0);
-        }
-    }
-
-    /**
-     * Buscar productos por propietario
-     */
-    @Transactional(readOnly = true)
-    public List<Producto> buscarProductosPorPropietario(Long ownerUserId) {
-        return productoRepository.findByOwnerUserId(ownerUserId);
-    }
-
-    /**
-     * Buscar productos por rango de precio
-     */
-    @Transactional(readOnly = true)
-    public List<Producto> buscarProductosPorPrecio(BigDecimal precioMin, BigDecimal precioMax) {
-        return productoRepository.findByPriceBetween(precioMin, precioMax);
-    }
-
     /**
      * Contar total de productos
      */
@@ -144,4 +241,13 @@ public class ProductoService {
     public boolean existeProducto(Long id) {
         return productoRepository.existsById(id);
     }
+
+    // Valor de la columna de orden que se guarda en el cursor
+    private Object valorDeOrden(Producto producto, OrdenProducto orden) {
+        return switch (orden) {
+            case PRICE -> producto.getPrice().toPlainString();
+            case CREATED_AT -> producto.getCreatedAt();
+            default -> null;
+        };
+    }
 }
\ No newline at end of file
@@ -0,0 +1,464 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.SugerenciaDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Autocompletado del buscador: trie comprimido en memoria con los nombres de productos y de categorías
+ * Las claves se normalizan como en IndiceBusquedaProductos (sin acentos ni mayúsculas) y un nombre
+ * también se encuentra desde sus palabras siguientes ("gamer" sugiere "Laptop Gamer")
+ * Cada nodo guarda sus mejores sugerencias ya ordenadas: una consulta solo recorre el prefijo escrito
+ * BusquedaProductosService lo carga al iniciar y lo mantiene al crear, editar o eliminar productos y categorías
+ */
+@Component
+public class SugerenciasProductos {
+
+    // Sugerencias que guarda cada nodo; también es el máximo que devuelve una consulta
+    public static final int MAXIMO_SUGERENCIAS = 10;
+
+    // Claves por nombre: la completa y a lo sumo dos desde palabras siguientes
+    // Cada clave agrega como mucho dos nodos, así la memoria es proporcional a la cantidad de nombres
+    private static final int MAXIMO_CLAVES_POR_NOMBRE = 3;
+
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Nodo[] SIN_HIJOS = new Nodo[0];
+    private static final Entrada[] SIN_ENTRADAS = new Entrada[0];
+
+    // Categorías primero, después los nombres que comparten más productos y, a igualdad, el más corto
+    private static final Comparator<Entrada> POR_RELEVANCIA = Comparator
+            .comparing((Entrada entrada) -> entrada.tipo != SugerenciaDTO.Tipo.CATEGORIA)
+            .thenComparing(Comparator.comparingInt((Entrada entrada) -> entrada.peso).reversed())
+            .thenComparingInt(entrada -> entrada.texto.length())
+            .thenComparing(entrada -> entrada.texto);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Arbol arbol = new Arbol();
+
+    /**
+     * Reemplazar todas las sugerencias por las de los nombres recibidos
+     * Se arma fuera del lock: las consultas siguen usando el trie anterior mientras tanto
+     * @return cantidad de nombres distintos
+     */
+    public int reconstruir(Collection<String> nombresProductos, Collection<String> nombresCategorias) {
+        Arbol nuevo = new Arbol();
+        nombresProductos.forEach(nombre -> nuevo.agregar(nuevo.productos, nombre, SugerenciaDTO.Tipo.PRODUCTO, false));
+        nombresCategorias.forEach(nombre -> nuevo.agregar(nuevo.categorias, nombre, SugerenciaDTO.Tipo.CATEGORIA, false));
+        // Las mejores de cada nodo se calculan una sola vez, de las hojas hacia la raíz
+        nuevo.recalcularTodo(nuevo.raiz);
+
+        lock.writeLock().lock();
+        try {
+            arbol = nuevo;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return nuevo.productos.size() + nuevo.categorias.size();
+    }
+
+    /**
+     * Actualizar el nombre de un producto: null como anterior al crearlo y como nuevo al eliminarlo
+     */
+    public void reemplazarProducto(String nombreAnterior, String nombreNuevo) {
+        if (clave(nombreAnterior).equals(clave(nombreNuevo))) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            arbol.quitar(arbol.productos, nombreAnterior);
+            arbol.agregar(arbol.productos, nombreNuevo, SugerenciaDTO.Tipo.PRODUCTO, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reemplazar las categorías sugeridas por las recibidas (son pocas: se quitan y se vuelven a agregar)
+     */
+    public void reemplazarCategorias(Collection<String> nombresCategorias) {
+        lock.writeLock().lock();
+        try {
+            for (String clave : new ArrayList<>(arbol.categorias.keySet())) {
+                arbol.descartar(arbol.categorias, clave);
+            }
+            nombresCategorias.forEach(nombre ->
+                    arbol.agregar(arbol.categorias, nombre, SugerenciaDTO.Tipo.CATEGORIA, true));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Nombres que empiezan con lo escrito (o que tienen una palabra que empieza así), los más relevantes primero
+     * @param limite cantidad máxima de sugerencias (hasta MAXIMO_SUGERENCIAS)
+     */
+    public List<SugerenciaDTO> sugerir(String consulta, int limite) {
+        String prefijo = clave(consulta);
+        if (prefijo.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Nodo nodo = arbol.bajar(prefijo);
+            if (nodo == null) {
+                return List.of();
+            }
+            int cantidad = Math.min(limite, nodo.mejores.length);
+            List<SugerenciaDTO> sugerencias = new ArrayList<>(cantidad);
+            for (int i = 0; i < cantidad; i++) {
+                sugerencias.add(new SugerenciaDTO(nodo.mejores[i].texto, nodo.mejores[i].tipo));
+            }
+            return sugerencias;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int cantidadNombres() {
+        lock.readLock().lock();
+        try {
+            return arbol.productos.size() + arbol.categorias.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int cantidadNodos() {
+        lock.readLock().lock();
+        try {
+            return arbol.nodos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Clave de un texto: sus palabras normalizadas separadas por un espacio ("Funda p/ Laptop" → "funda p laptop")
+     */
+    static String clave(String texto) {
+        StringBuilder clave = new StringBuilder();
+        for (String palabra : SEPARADORES.split(IndiceBusquedaProductos.normalizar(texto))) {
+            if (palabra.isEmpty()) {
+                continue;
+            }
+            if (clave.length() > 0) {
+                clave.append(' ');
+            }
+            clave.append(palabra);
+        }
+        return clave.toString();
+    }
+
+    // ===== MÉTODOS AUXILIARES =====
+
+    // La clave completa y las que empiezan en las palabras siguientes, salvo artículos y preposiciones
+    private static List<String> subclaves(String clave) {
+        List<String> subclaves = new ArrayList<>(MAXIMO_CLAVES_POR_NOMBRE);
+        subclaves.add(clave);
+        int espacio = clave.indexOf(' ');
+        while (espacio >= 0 && subclaves.size() < MAXIMO_CLAVES_POR_NOMBRE) {
+            int inicio = espacio + 1;
+            espacio = clave.indexOf(' ', inicio);
+            String palabra = espacio < 0 ? clave.substring(inicio) : clave.substring(inicio, espacio);
+            if (!IndiceBusquedaProductos.esPalabraVacia(palabra)) {
+                subclaves.add(clave.substring(inicio));
+            }
+        }
+        return subclaves;
+    }
+
+    // Cantidad de caracteres de la etiqueta que coinciden con el texto a partir de `desde`
+    private static int comunes(char[] etiqueta, String texto, int desde) {
+        int comunes = 0;
+        while (comunes < etiqueta.length && desde + comunes < texto.length()
+                && etiqueta[comunes] == texto.charAt(desde + comunes)) {
+            comunes++;
+        }
+        return comunes;
+    }
+
+    private static Entrada[] con(Entrada[] entradas, Entrada entrada) {
+        Entrada[] nuevas = Arrays.copyOf(entradas, entradas.length + 1);
+        nuevas[entradas.length] = entrada;
+        return nuevas;
+    }
+
+    private static Entrada[] sin(Entrada[] entradas, Entrada entrada) {
+        return Arrays.stream(entradas).filter(otra -> otra != entrada).toArray(Entrada[]::new);
+    }
+
+    // Trie y entradas por clave; solo se modifica antes de publicarse o con el lock de escritura tomado
+    private static final class Arbol {
+
+        private final Nodo raiz = new Nodo(new char[0]);
+        private final Map<String, Entrada> productos = new HashMap<>();
+        private final Map<String, Entrada> categorias = new HashMap<>();
+        private int nodos = 1;
+
+        private void agregar(Map<String, Entrada> entradas, String nombre, SugerenciaDTO.Tipo tipo, boolean recalcular) {
+            String clave = clave(nombre);
+            if (clave.isEmpty()) {
+                return;
+            }
+            Entrada entrada = entradas.get(clave);
+            if (entrada != null) {
+                // Otro producto con el mismo nombre: sube en el orden de las sugerencias
+                entrada.peso++;
+                if (recalcular) {
+                    subclaves(clave).forEach(subclave -> actualizarCamino(subclave, null));
+                }
+                return;
+            }
+            entrada = new Entrada(nombre.strip(), tipo);
+            entradas.put(clave, entrada);
+            for (String subclave : subclaves(clave)) {
+                insertar(subclave, entrada, recalcular);
+            }
+        }
+
+        private void quitar(Map<String, Entrada> entradas, String nombre) {
+            String clave = clave(nombre);
+            Entrada entrada = entradas.get(clave);
+            if (entrada == null) {
+                return;
+            }
+            entrada.peso--;
+            if (entrada.peso > 0) {
+                subclaves(clave).forEach(subclave -> actualizarCamino(subclave, null));
+                return;
+            }
+            descartar(entradas, clave);
+        }
+
+        private void descartar(Map<String, Entrada> entradas, String clave) {
+            Entrada entrada = entradas.remove(clave);
+            for (String subclave : subclaves(clave)) {
+                actualizarCamino(subclave, entrada);
+            }
+        }
+
+        // Baja por la clave creando o partiendo nodos y deja la entrada en el nodo donde termina
+        private void insertar(String clave, Entrada entrada, boolean recalcular) {
+            List<Nodo> camino = new ArrayList<>();
+            Nodo nodo = raiz;
+            camino.add(nodo);
+            int i = 0;
+            while (i < clave.length()) {
+                int posicion = nodo.posicionHijo(clave.charAt(i));
+                if (posicion < 0) {
+                    Nodo hoja = new Nodo(clave.substring(i).toCharArray());
+                    nodo.agregarHijo(-posicion - 1, hoja);
+                    nodos++;
+                    nodo = hoja;
+                    camino.add(nodo);
+                    break;
+                }
+                Nodo hijo = nodo.hijos[posicion];
+                int comunes = comunes(hijo.etiqueta, clave, i);
+                if (comunes < hijo.etiqueta.length) {
+                    // La clave se separa a mitad de la etiqueta: un nodo intermedio con la parte común
+                    Nodo intermedio = new Nodo(Arrays.copyOf(hijo.etiqueta, comunes));
+                    hijo.etiqueta = Arrays.copyOfRange(hijo.etiqueta, comunes, hijo.etiqueta.length);
+                    intermedio.hijos = new Nodo[]{hijo};
+                    intermedio.mejores = hijo.mejores;
+                    nodo.hijos[posicion] = intermedio;
+                    nodos++;
+                    hijo = intermedio;
+                }
+                nodo = hijo;
+                camino.add(nodo);
+                i += comunes;
+            }
+            nodo.terminales = con(nodo.terminales, entrada);
+            if (recalcular) {
+                compactarYRecalcular(camino);
+            }
+        }
+
+        // Recalcula las mejores del camino de una clave; si se pasa una entrada, antes la quita de donde termina
+        private void actualizarCamino(String clave, Entrada quitada) {
+            List<Nodo> camino = new ArrayList<>();
+            Nodo nodo = raiz;
+            camino.add(nodo);
+            int i = 0;
+            while (i < clave.length()) {
+                int posicion = nodo.posicionHijo(clave.charAt(i));
+                if (posicion < 0) {
+                    return;
+                }
+                nodo = nodo.hijos[posicion];
+                if (comunes(nodo.etiqueta, clave, i) < nodo.etiqueta.length) {
+                    return;
+                }
+                i += nodo.etiqueta.length;
+                camino.add(nodo);
+            }
+            if (quitada != null) {
+                nodo.terminales = sin(nodo.terminales, quitada);
+            }
+            compactarYRecalcular(camino);
+        }
+
+        // De abajo hacia arriba: saca los nodos que quedaron vacíos, une los que quedaron con un solo hijo
+        // y recalcula las mejores de los demás a partir de sus hijos
+        private void compactarYRecalcular(List<Nodo> camino) {
+            for (int j = camino.size() - 1; j >= 0; j--) {
+                Nodo actual = camino.get(j);
+                if (j > 0 && actual.terminales.length == 0 && actual.hijos.length <= 1) {
+                    Nodo padre = camino.get(j - 1);
+                    if (actual.hijos.length == 0) {
+                        padre.quitarHijo(actual);
+                    } else {
+                        Nodo unico = actual.hijos[0];
+                        char[] etiqueta = Arrays.copyOf(actual.etiqueta, actual.etiqueta.length + unico.etiqueta.length);
+                        System.arraycopy(unico.etiqueta, 0, etiqueta, actual.etiqueta.length, unico.etiqueta.length);
+                        unico.etiqueta = etiqueta;
+                        padre.hijos[padre.posicionHijo(etiqueta[0])] = unico;
+                    }
+                    nodos--;
+                    continue;
+                }
+                actual.recalcular();
+            }
+        }
+
+        private void recalcularTodo(Nodo nodo) {
+            for (Nodo hijo : nodo.hijos) {
+                recalcularTodo(hijo);
+            }
+            nodo.recalcular();
+        }
+
+        // Nodo donde termina el prefijo (puede terminar a mitad de su etiqueta) o null si nada empieza así
+        private Nodo bajar(String prefijo) {
+            Nodo nodo = raiz;
+            int i = 0;
+            while (i < prefijo.length()) {
+                int posicion = nodo.posicionHijo(prefijo.charAt(i));
+                if (posicion < 0) {
+                    return null;
+                }
+                nodo = nodo.hijos[posicion];
+                int comunes = comunes(nodo.etiqueta, prefijo, i);
+                i += comunes;
+                if (comunes < nodo.etiqueta.length && i < prefijo.length()) {
+                    return null;
+                }
+            }
+            return nodo;
+        }
+    }
+
+    private static final class Nodo {
+
+        // Tramo de la clave desde el padre (más de un carácter cuando no hay bifurcaciones)
+        private char[] etiqueta;
+        // Ordenados por el primer carácter de su etiqueta
+        private Nodo[] hijos = SIN_HIJOS;
+        // Entradas cuya clave termina en este nodo
+        private Entrada[] terminales = SIN_ENTRADAS;
+        // Las MAXIMO_SUGERENCIAS mejores entradas del subárbol, ordenadas
+        private Entrada[] mejores = SIN_ENTRADAS;
+
+        private Nodo(char[] etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+
+        // Búsqueda binaria por primer carácter; si no está, -(posición donde iría) - 1
+        private int posicionHijo(char caracter) {
+            int desde = 0;
+            int hasta = hijos.length - 1;
+            while (desde <= hasta) {
+                int medio = (desde + hasta) >>> 1;
+                char actual = hijos[medio].etiqueta[0];
+                if (actual < caracter) {
+                    desde = medio + 1;
+                } else if (actual > caracter) {
+                    hasta = medio - 1;
+                } else {
+                    return medio;
+                }
+            }
+            return -desde - 1;
+        }
+
+        private void agregarHijo(int posicion, Nodo hijo) {
+            Nodo[] nuevos = new Nodo[hijos.length + 1];
+            System.arraycopy(hijos, 0, nuevos, 0, posicion);
+            nuevos[posicion] = hijo;
+            System.arraycopy(hijos, posicion, nuevos, posicion + 1, hijos.length - posicion);
+            hijos = nuevos;
+        }
+
+        private void quitarHijo(Nodo hijo) {
+            int posicion = posicionHijo(hijo.etiqueta[0]);
+            Nodo[] nuevos = new Nodo[hijos.length - 1];
+            System.arraycopy(hijos, 0, nuevos, 0, posicion);
+            System.arraycopy(hijos, posicion + 1, nuevos, posicion, hijos.length - posicion - 1);
+            hijos = nuevos.length == 0 ? SIN_HIJOS : nuevos;
+        }
+
+        // Las mejores del subárbol salen de las entradas propias y de las mejores de cada hijo
+        private void recalcular() {
+            Entrada[] propias = terminales.clone();
+            Arrays.sort(propias, POR_RELEVANCIA);
+            terminales = propias;
+            if (hijos.length == 0 && propias.length <= MAXIMO_SUGERENCIAS) {
+                // Hoja: comparte el arreglo ordenado de sus entradas
+                mejores = propias;
+                return;
+            }
+
+            // Mezcla de listas ya ordenadas: solo se recorren las primeras MAXIMO_SUGERENCIAS
+            int[] posiciones = new int[hijos.length + 1];
+            List<Entrada> seleccion = new ArrayList<>(MAXIMO_SUGERENCIAS);
+            while (seleccion.size() < MAXIMO_SUGERENCIAS) {
+                Entrada mejor = null;
+                int origen = -1;
+                for (int k = 0; k <= hijos.length; k++) {
+                    Entrada[] lista = k < hijos.length ? hijos[k].mejores : propias;
+                    if (posiciones[k] < lista.length
+                            && (mejor == null || POR_RELEVANCIA.compare(lista[posiciones[k]], mejor) < 0)) {
+                        mejor = lista[posiciones[k]];
+                        origen = k;
+                    }
+                }
+                if (mejor == null) {
+                    break;
+                }
+                posiciones[origen]++;
+                // Un nombre puede llegar por más de una de sus claves
+                if (!seleccion.contains(mejor)) {
+                    seleccion.add(mejor);
+                }
+            }
+            mejores = seleccion.toArray(SIN_ENTRADAS);
+        }
+    }
+
+    // Nombre a mostrar y cuántos productos (o categorías) lo comparten; una por clave distinta
+    private static final class Entrada {
+
+        private final String texto;
+        private final SugerenciaDTO.Tipo tipo;
+        private int peso = 1;
+
+        private Entrada(String texto, SugerenciaDTO.Tipo tipo) {
+            this.texto = texto;
+            this.tipo = tipo;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.DetallePedido;
+import com.ecommerce.entity.EstadoPedido;
+import com.ecommerce.entity.Producto;
+import com.ecommerce.repository.ProductoRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Máquina de estados de los items de un pedido
+ * La tabla de transiciones se arma una sola vez; validar un cambio es una consulta a un EnumSet
+ * Las acciones registradas con alEntrar() se ejecutan cuando uno o más items llegan a ese estado
+ * (por ejemplo devolver el stock al cancelar); reciben la lista completa para poder agrupar
+ */
+@Component
+public class TransicionesEstadoItem {
+    
+    private static final EnumMap<EstadoPedido, Set<EstadoPedido>> TRANSICIONES = new EnumMap<>(EstadoPedido.class);
+    
+    static {
+        permitir(EstadoPedido.PENDIENTE,
+                EstadoPedido.CONFIRMADO, EstadoPedido.CANCELADO_VENDEDOR, EstadoPedido.CANCELADO_COMPRADOR);
+        permitir(EstadoPedido.CONFIRMADO, EstadoPedido.PREPARANDO, EstadoPedido.CANCELADO_VENDEDOR);
+        permitir(EstadoPedido.PREPARANDO, EstadoPedido.ENVIADO);
+        permitir(EstadoPedido.ENVIADO, EstadoPedido.EN_TRANSITO, EstadoPedido.ENTREGADO);
+        permitir(EstadoPedido.EN_TRANSITO, EstadoPedido.ENTREGADO);
+        permitir(EstadoPedido.ENTREGADO, EstadoPedido.DEVOLUCION_SOLICITADA);
+        permitir(EstadoPedido.DEVOLUCION_SOLICITADA, EstadoPedido.DEVUELTO);
+        // Estados finales: no pueden cambiar
+        permitir(EstadoPedido.CANCELADO);
+        permitir(EstadoPedido.CANCELADO_COMPRADOR);
+        permitir(EstadoPedido.CANCELADO_VENDEDOR);
+        permitir(EstadoPedido.DEVUELTO);
+    }
+    
+    @Autowired
+    private ProductoRepository productoRepository;
+    
+    @Autowired
+    private CacheProductos cacheProductos;
+    
+    private final EnumMap<EstadoPedido, List<Consumer<List<DetallePedido>>>> accionesAlEntrar = new EnumMap<>(EstadoPedido.class);
+    
+    @PostConstruct
+    void registrarAcciones() {
+        // El stock reservado en el checkout vuelve al producto en cualquier cancelación
+        alEntrar(EstadoPedido.CANCELADO_VENDEDOR, this::devolverStock);
+        alEntrar(EstadoPedido.CANCELADO_COMPRADOR, this::devolverStock);
+    }
+    
+    /**
+     * Estados a los que puede pasar un item desde el estado actual (vacío si es final)
+     */
+    public Set<EstadoPedido> siguientesEstados(EstadoPedido estadoActual) {
+        return TRANSICIONES.getOrDefault(estadoActual, Collections.emptySet());
+    }
+    
+    public boolean esTransicionValida(EstadoPedido estadoActual, EstadoPedido nuevoEstado) {
+        return siguientesEstados(estadoActual).contains(nuevoEstado);
+    }
+    
+    /**
+     * Validar que la transición de estado es válida
+     * @throws IllegalArgumentException si el estado actual es final o no admite el nuevo estado
+     */
+    public void validarTransicion(EstadoPedido estadoActual, EstadoPedido nuevoEstado) {
+        Set<EstadoPedido> siguientes = siguientesEstados(estadoActual);
+        if (siguientes.isEmpty()) {
+            throw new IllegalArgumentException("No se puede cambiar el estado de un item cancelado o devuelto");
+        }
+        if (!siguientes.contains(nuevoEstado)) {
+            throw new IllegalArgumentException("Transición de estado inválida desde " + estadoActual);
+        }
+    }
+    
+    /**
+     * Validar y aplicar la transición: mueve el item en el histograma de su pedido,
+     * cambia su estado y ejecuta las acciones registradas para el nuevo estado
+     */
+    public void transicionar(DetallePedido detalle, EstadoPedido nuevoEstado) {
+        validarTransicion(detalle.getEstadoItem(), nuevoEstado);
+        detalle.getPedido().cambiarEstadoItem(detalle, nuevoEstado);
+        ejecutarAcciones(List.of(detalle), nuevoEstado);
+    }
+    
+    /**
+     * Ejecutar las acciones registradas para items que ya pasaron al estado indicado
+     * (usado directamente por los cambios de estado en lote)
+     */
+    public void ejecutarAcciones(List<DetallePedido> detalles, EstadoPedido nuevoEstado) {
+        if (detalles.isEmpty()) {
+            return;
+        }
+        for (Consumer<List<DetallePedido>> accion : accionesAlEntrar.getOrDefault(nuevoEstado, List.of())) {
+            accion.accept(detalles);
+        }
+    }
+    
+    /**
+     * Registrar una acción a ejecutar cuando items entran en el estado indicado
+     */
+    public synchronized void alEntrar(EstadoPedido estado, Consumer<List<DetallePedido>> accion) {
+        // Copia inmutable para que transicionar() pueda leer sin sincronizar
+        List<Consumer<List<DetallePedido>>> acciones = new ArrayList<>(accionesAlEntrar.getOrDefault(estado, List.of()));
+        acciones.add(accion);
+        accionesAlEntrar.put(estado, List.copyOf(acciones));
+    }
+    
+    // Un UPDATE por producto aunque se cancelen varios items del mismo producto
+    private void devolverStock(List<DetallePedido> detalles) {
+        Map<Long, Integer> cantidadesPorProducto = new LinkedHashMap<>();
+        for (DetallePedido detalle : detalles) {
+            Producto producto = detalle.getProducto();
+            if (producto != null) {
+                cantidadesPorProducto.merge(producto.getId(), detalle.getCantidad(), Integer::sum);
+            }
+        }
+        cantidadesPorProducto.forEach(productoRepository::devolverStock);
+        cacheProductos.invalidar(cantidadesPorProducto.keySet());
+    }
+    
+    private static void permitir(EstadoPedido desde, EstadoPedido... hacia) {
+        EnumSet<EstadoPedido> siguientes = EnumSet.noneOf(EstadoPedido.class);
+        Collections.addAll(siguientes, hacia);
+        TRANSICIONES.put(desde, Collections.unmodifiableSet(siguientes));
+    }
+}
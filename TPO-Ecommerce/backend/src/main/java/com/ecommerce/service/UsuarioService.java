@@ -3,6 +3,9 @@ package com.ecommerce.service;
 import com.ecommerce.entity.Role;
 import com.ecommerce.entity.Usuario;
 import com.ecommerce.repository.UsuarioRepository;
+import com.ecommerce.security.CachePrincipales;
+import com.ecommerce.security.RevocacionTokens;
+import com.ecommerce.util.Transacciones;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -21,6 +24,15 @@ public class UsuarioService {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private RevocacionTokens revocacionTokens;
+    
+    @Autowired
+    private CachePrincipales cachePrincipales;
+    
+    @Autowired
+    private CacheProductos cacheProductos;
+    
     // Obtener todos los usuarios
     public List<Usuario> getAllUsuarios() {
         return usuarioRepository.findAll();
@@ -59,16 +71,49 @@ public class UsuarioService {
     
     // Crear o actualizar usuario
     public Usuario saveUsuario(Usuario usuario) {
+        boolean existente = usuario.getId() != null;
         // Encriptar contraseña si no está ya encriptada
         if (usuario.getPassword() != null && !usuario.getPassword().startsWith("$2a$")) {
             usuario.setPassword(passwordEncoder.encode(usuario.getPassword()));
         }
-        return usuarioRepository.save(usuario);
+        Usuario guardado = usuarioRepository.save(usuario);
+        // El rol o el email pueden haber cambiado: descartar el principal cacheado
+        // después del commit, para que una carga concurrente no vuelva a cachear la fila anterior
+        Transacciones.despuesDelCommit(() -> {
+            cachePrincipales.invalidar(guardado.getEmail());
+            if (guardado.getId() != null) {
+                cachePrincipales.invalidar(guardado.getId());
+            }
+        });
+        if (existente) {
+            // El detalle cacheado de sus productos muestra el nombre del vendedor
+            cacheProductos.invalidarTodo();
+        }
+        return guardado;
+    }
+    
+    // Cambiar el rol de un usuario e invalidar los tokens emitidos con el rol anterior
+    // (la revocación se registra recién cuando la nueva token_version quedó confirmada)
+    public Usuario actualizarRol(Usuario usuario, Role nuevoRol) {
+        if (usuario.getRole() != nuevoRol) {
+            long nuevaVersion = (usuario.getTokenVersion() != null ? usuario.getTokenVersion() : 0L) + 1;
+            Long usuarioId = usuario.getId();
+            usuario.setRole(nuevoRol);
+            usuario.setTokenVersion(nuevaVersion);
+            Transacciones.despuesDelCommit(() -> revocacionTokens.revocar(usuarioId, nuevaVersion));
+        }
+        return saveUsuario(usuario);
     }
     
-    // Eliminar usuario
+    // Eliminar usuario (sus tokens dejan de ser válidos)
     public void deleteUsuario(Long id) {
         usuarioRepository.deleteById(id);
+        Transacciones.despuesDelCommit(() -> {
+            revocacionTokens.revocarTodos(id);
+            cachePrincipales.invalidar(id);
+        });
+        // Sus productos se eliminan en cascada
+        cacheProductos.invalidarTodo();
     }
     
     // Verificar si existe un email
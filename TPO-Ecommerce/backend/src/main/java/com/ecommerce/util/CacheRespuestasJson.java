@@ -0,0 +1,186 @@
+package com.ecommerce.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache de respuestas JSON ya serializadas (y comprimidas con gzip) para los endpoints de catálogo
+ * Cada respuesta se guarda con la versión del recurso que la generó: si la versión cambió se vuelve
+ * a serializar, así que los cambios no necesitan invalidar nada acá
+ * Acotada por bytes totales (desaloja la menos usada) y por TTL
+ */
+@Component
+public class CacheRespuestasJson {
+
+    // Por debajo de este tamaño gzip no ahorra lo suficiente para justificar el header
+    static final int MINIMO_BYTES_GZIP = 1024;
+
+    @Value("${respuestas.cache.megabytes-maximo:64}")
+    private long megabytesMaximo;
+
+    @Value("${respuestas.cache.ttl-segundos:300}")
+    private long ttlSegundos;
+
+    // El mismo ObjectMapper que usa Spring MVC: los bytes son idénticos a los de una respuesta normal
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // accessOrder = true: el primer elemento es siempre el menos usado recientemente
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytesTotales;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong desalojos = new AtomicLong();
+
+    /**
+     * Completar la respuesta con el JSON del recurso en esa versión, serializándolo solo si no estaba
+     * Si el cliente acepta gzip y la respuesta es grande se envía la variante comprimida
+     * @param respuesta status y headers propios del endpoint (ETag, etc.)
+     * @param clave recurso (ruta más parámetros que cambian el contenido)
+     * @param version versión del recurso; se compara con equals
+     * @param cuerpo genera el objeto a serializar (solo se llama si no está en la cache)
+     */
+    public ResponseEntity<byte[]> responder(ResponseEntity.BodyBuilder respuesta, String clave, Object version,
+                                            Supplier<?> cuerpo, WebRequest request) {
+        Entrada entrada = obtener(clave, version, cuerpo);
+        respuesta.contentType(MediaType.APPLICATION_JSON);
+        if (entrada.gzip() == null) {
+            return respuesta.body(entrada.json());
+        }
+        respuesta.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (aceptaGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            return respuesta.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(entrada.gzip());
+        }
+        return respuesta.body(entrada.json());
+    }
+
+    /**
+     * Métricas de la cache: aciertos, fallos (serializaciones), desalojos, tamaño y bytes ocupados
+     */
+    public Map<String, Object> estadisticas() {
+        long totalAciertos = aciertos.get();
+        long totalFallos = fallos.get();
+        long consultas = totalAciertos + totalFallos;
+
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("aciertos", totalAciertos);
+        estadisticas.put("fallos", totalFallos);
+        estadisticas.put("tasaAciertos", consultas == 0 ? 0.0 : (double) totalAciertos / consultas);
+        estadisticas.put("desalojos", desalojos.get());
+        synchronized (entradas) {
+            estadisticas.put("tamanio", entradas.size());
+            estadisticas.put("bytes", bytesTotales);
+        }
+        estadisticas.put("megabytesMaximo", megabytesMaximo);
+        estadisticas.put("ttlSegundos", ttlSegundos);
+        return estadisticas;
+    }
+
+    private Entrada obtener(String clave, Object version, Supplier<?> cuerpo) {
+        synchronized (entradas) {
+            Entrada entrada = entradas.get(clave);
+            if (entrada != null && Objects.equals(entrada.version(), version) && !entrada.vencida(System.nanoTime())) {
+                aciertos.incrementAndGet();
+                return entrada;
+            }
+        }
+
+        // Serializar fuera del lock; si dos requests coinciden, el segundo reemplaza al primero
+        fallos.incrementAndGet();
+        byte[] json = serializar(cuerpo.get());
+        Entrada nueva = new Entrada(version, json, json.length >= MINIMO_BYTES_GZIP ? comprimir(json) : null,
+                System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSegundos));
+
+        synchronized (entradas) {
+            Entrada anterior = entradas.put(clave, nueva);
+            if (anterior != null) {
+                bytesTotales -= anterior.bytes();
+            }
+            bytesTotales += nueva.bytes();
+            desalojarExcedente();
+        }
+        return nueva;
+    }
+
+    private void desalojarExcedente() {
+        long maximo = megabytesMaximo * 1024 * 1024;
+        Iterator<Entrada> iterador = entradas.values().iterator();
+        while (bytesTotales > maximo && iterador.hasNext()) {
+            bytesTotales -= iterador.next().bytes();
+            iterador.remove();
+            desalojos.incrementAndGet();
+        }
+    }
+
+    private byte[] serializar(Object cuerpo) {
+        try {
+            return objectMapper.writeValueAsBytes(cuerpo);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo serializar la respuesta", e);
+        }
+    }
+
+    private static byte[] comprimir(byte[] json) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return salida.toByteArray();
+    }
+
+    // Acepta "gzip" (o el comodín "*" si gzip no aparece) salvo que venga con q=0
+    static boolean aceptaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean comodin = false;
+        for (String codificacion : acceptEncoding.split(",")) {
+            String[] partes = codificacion.trim().split(";");
+            String nombre = partes[0].trim();
+            boolean rechazada = false;
+            for (int i = 1; i < partes.length; i++) {
+                if (partes[i].replace(" ", "").matches("(?i)q=0(\\.0*)?")) {
+                    rechazada = true;
+                }
+            }
+            if (nombre.equalsIgnoreCase("gzip")) {
+                return !rechazada;
+            }
+            if (nombre.equals("*")) {
+                comodin = !rechazada;
+            }
+        }
+        return comodin;
+    }
+
+    private record Entrada(Object version, byte[] json, byte[] gzip, long venceEn) {
+        boolean vencida(long ahora) {
+            return ahora - venceEn > 0;
+        }
+
+        long bytes() {
+            return json.length + (gzip != null ? gzip.length : 0);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ecommerce.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor opaco para paginación keyset (por valor de orden + id)
+ * Se serializa como Base64 URL-safe para viajar en query params
+ */
+public final class CursorPaginacion {
+
+    private static final String SEPARADOR = "|";
+
+    private final String valor;
+    private final Long id;
+
+    public CursorPaginacion(String valor, Long id) {
+        this.valor = valor != null ? valor : "";
+        this.id = id;
+    }
+
+    public String getValor() {
+        return valor;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String codificar() {
+        String plano = valor + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String codificar(Object valor, Long id) {
+        return new CursorPaginacion(valor != null ? valor.toString() : "", id).codificar();
+    }
+
+    /**
+     * Decodifica un cursor recibido del cliente
+     * Retorna null si no se envió cursor (primera página)
+     */
+    public static CursorPaginacion decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = plano.lastIndexOf(SEPARADOR);
+            if (separador < 0) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return new CursorPaginacion(plano.substring(0, separador),
+                    Long.valueOf(plano.substring(separador + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.ecommerce.util;
 
+import com.ecommerce.entity.Role;
+import com.ecommerce.entity.Usuario;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,55 +13,66 @@ import java.util.Date;
 @Component
 public class JwtUtil {
 
+    public static final String CLAIM_USER_ID = "userId";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_VERSION = "ver";
+
     @Value("${jwt.expiration:86400000}") // 24 horas en milisegundos
     private int expiration;
 
-    // Generar clave segura automáticamente (512 bits para HS512)
-    private SecretKey getSigningKey() {
-        // Para desarrollo: clave fija segura
-        String secretKey = "mySecretKeyForJWTDevelopment123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890";
-        return Keys.hmacShaKeyFor(secretKey.getBytes());
+    // Para desarrollo: clave fija segura (512 bits para HS512)
+    static final String SECRET_KEY = "mySecretKeyForJWTDevelopment123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890";
+
+    // La clave y el parser se crean una sola vez: el JwtParser es inmutable y thread-safe
+    private static final SecretKey SIGNING_KEY = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    private static final JwtParser PARSER = Jwts.parser()
+            .verifyWith(SIGNING_KEY)
+            .build();
+
+    /**
+     * Verificar la firma y la expiración del token una sola vez y devolver todos sus claims
+     * @throws JwtException si el token es inválido o expiró
+     * @throws IllegalArgumentException si el token es nulo o vacío
+     */
+    public Claims parse(String token) {
+        return PARSER.parseSignedClaims(token).getPayload();
+    }
+
+    /**
+     * Generar el token de un usuario con su rol y versión de token
+     * El filtro JWT arma las autoridades a partir de estos claims, sin consultar la base
+     */
+    public String generateToken(Usuario usuario) {
+        return generateToken(usuario.getEmail(), usuario.getId(), usuario.getRole(),
+                usuario.getTokenVersion() != null ? usuario.getTokenVersion() : 0L);
     }
 
-    public String generateToken(String email, Long userId) {
+    public String generateToken(String email, Long userId, Role role, long tokenVersion) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
 
         return Jwts.builder()
                 .setSubject(email)
-                .claim("userId", userId)
+                .claim(CLAIM_USER_ID, userId)
+                .claim(CLAIM_ROLE, role.name())
+                .claim(CLAIM_VERSION, tokenVersion)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(SIGNING_KEY, SignatureAlgorithm.HS512)
                 .compact();
     }
 
     public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        
-        return claims.getSubject();
+        return parse(token).getSubject();
     }
 
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        
-        return claims.get("userId", Long.class);
+        return parse(token).get(CLAIM_USER_ID, Long.class);
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token);
+            parse(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
@@ -67,13 +80,7 @@ public class JwtUtil {
     }
 
     public Date getExpirationDateFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        
-        return claims.getExpiration();
+        return parse(token).getExpiration();
     }
 
     public boolean isTokenExpired(String token) {
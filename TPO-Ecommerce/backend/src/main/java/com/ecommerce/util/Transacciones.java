@@ -0,0 +1,54 @@
+package com.ecommerce.util;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Utilidades para acciones que dependen del resultado de la transacción
+ */
+public final class Transacciones {
+
+    // Intentos ante conflictos de @Version: con pocos escritores por fila basta con releer un par de veces
+    static final int MAXIMO_INTENTOS_CONFLICTO = 5;
+
+    private Transacciones() {
+    }
+
+    /**
+     * Ejecutar la acción cuando la transacción actual se confirme (en el momento si no hay transacción)
+     * Si la transacción hace rollback la acción no se ejecuta
+     */
+    public static void despuesDelCommit(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    /**
+     * Ejecutar una operación transaccional reintentándola si otra transacción modificó la misma fila
+     * (OptimisticLockingFailureException); cada intento abre una transacción nueva y relee los datos
+     * Llamar desde fuera de la transacción: dentro, el intento fallido ya la dejó marcada para rollback
+     * Tras MAXIMO_INTENTOS_CONFLICTO intentos se propaga la excepción (409)
+     */
+    public static <T> T reintentandoConflictos(Supplier<T> operacion) {
+        for (int intento = 1; ; intento++) {
+            try {
+                return operacion.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (intento >= MAXIMO_INTENTOS_CONFLICTO) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
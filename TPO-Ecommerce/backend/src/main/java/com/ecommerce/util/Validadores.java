@@ -0,0 +1,90 @@
+package com.ecommerce.util;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Validadores HTTP (ETag y Last-Modified) para responder GETs condicionales con 304
+ * Los ETag se arman con la identidad y la versión del recurso, sin serializar el cuerpo
+ * Son débiles: el mismo contenido puede viajar con o sin gzip (ver CacheRespuestasJson)
+ */
+public final class Validadores {
+
+    private Validadores() {
+    }
+
+    /**
+     * ETag con las partes que identifican la versión del recurso, por ejemplo ("producto", id, modificado)
+     * Las fechas se toman con la precisión de las columnas (microsegundos)
+     */
+    public static String etag(Object... partes) {
+        StringBuilder etag = new StringBuilder("W/\"");
+        for (int i = 0; i < partes.length; i++) {
+            if (i > 0) {
+                etag.append('-');
+            }
+            Object parte = partes[i];
+            etag.append(parte instanceof LocalDateTime fecha ? microsegundos(fecha) : parte);
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * Fecha para Last-Modified (milisegundos desde epoch, en la zona del servidor como se guardan)
+     */
+    public static long milisegundos(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Si el request trae If-None-Match o If-Modified-Since
+     * Sin validadores no vale la pena consultar la versión antes de cargar el recurso
+     */
+    public static boolean esCondicional(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    /**
+     * Si el If-Match de una escritura coincide con el ETag actual del recurso ("*" acepta cualquiera)
+     * Comparación débil, ignorando "W/": nuestros ETag identifican la versión y no los bytes del cuerpo
+     */
+    public static boolean coincide(String ifMatch, String etag) {
+        String actual = sinPrefijoDebil(etag);
+        for (String candidato : ifMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*") || sinPrefijoDebil(valor).equals(actual)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Como coincide, pero contra la parte estable de un ETag compuesto: el If-Match puede traer el validador
+     * solo o seguido de "-" y partes que solo importan al GET (por ejemplo la generación del catálogo)
+     */
+    public static boolean coincideValidador(String ifMatch, String validador) {
+        String actual = sinPrefijoDebil(validador);
+        String prefijo = actual.substring(0, actual.length() - 1) + "-";
+        for (String candidato : ifMatch.split(",")) {
+            String valor = sinPrefijoDebil(candidato.trim());
+            if (valor.equals("*") || valor.equals(actual) || valor.startsWith(prefijo)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String sinPrefijoDebil(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static long microsegundos(LocalDateTime fecha) {
+        return ChronoUnit.MICROS.between(LocalDateTime.of(1970, 1, 1, 0, 0), fecha);
+    }
+}
@@ -0,0 +1,100 @@
+-- Esquema inicial (H2, perfil dev y tests)
+-- Mismas tablas que db/migration/mysql; los TEXT de MySQL son VARCHAR sin largo
+
+CREATE TABLE usuarios (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    nombre        VARCHAR(255) NOT NULL,
+    apellido      VARCHAR(255) NOT NULL,
+    username      VARCHAR(255) NOT NULL,
+    email         VARCHAR(255) NOT NULL,
+    password      VARCHAR(255) NOT NULL,
+    role          ENUM('USER','ADMIN') NOT NULL,
+    token_version BIGINT       DEFAULT 0,
+    created_at    TIMESTAMP(6),
+    updated_at    TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_usuarios_username UNIQUE (username),
+    CONSTRAINT uk_usuarios_email UNIQUE (email)
+);
+
+CREATE TABLE categorias (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    nombre      VARCHAR(255) NOT NULL,
+    descripcion VARCHAR,
+    created_at  TIMESTAMP(6),
+    updated_at  TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_categorias_nombre UNIQUE (nombre)
+);
+
+-- Ids de productos, pedidos y detalle_pedidos (ver entity.Secuencias)
+CREATE TABLE secuencias_id (
+    secuencia       VARCHAR(255) NOT NULL,
+    siguiente_valor BIGINT,
+    PRIMARY KEY (secuencia)
+);
+
+CREATE TABLE productos (
+    id            BIGINT         NOT NULL,
+    name          VARCHAR(255)   NOT NULL,
+    description   VARCHAR,
+    price         DECIMAL(10, 2) NOT NULL,
+    stock         INTEGER        NOT NULL,
+    category_id   BIGINT,
+    owner_user_id BIGINT,
+    created_at    TIMESTAMP(6),
+    updated_at    TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_productos_categoria FOREIGN KEY (category_id) REFERENCES categorias (id),
+    CONSTRAINT fk_productos_owner FOREIGN KEY (owner_user_id) REFERENCES usuarios (id)
+);
+
+CREATE TABLE producto_imagenes (
+    producto_id BIGINT NOT NULL,
+    imagen_url  VARCHAR(255),
+    CONSTRAINT fk_producto_imagenes_producto FOREIGN KEY (producto_id) REFERENCES productos (id)
+);
+
+CREATE TABLE pedidos (
+    id                 BIGINT         NOT NULL,
+    usuario_id         BIGINT         NOT NULL,
+    total              DECIMAL(10, 2) NOT NULL,
+    estado             ENUM('PENDIENTE','CONFIRMADO','PREPARANDO','ENVIADO','EN_TRANSITO','ENTREGADO','CANCELADO',
+                            'CANCELADO_COMPRADOR','CANCELADO_VENDEDOR','DEVOLUCION_SOLICITADA','DEVUELTO') NOT NULL,
+    histograma_estados VARCHAR(400),
+    direccion_envio    VARCHAR,
+    notas              VARCHAR(255),
+    created_at         TIMESTAMP(6)   NOT NULL,
+    updated_at         TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_pedidos_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
+
+CREATE TABLE detalle_pedidos (
+    id              BIGINT         NOT NULL,
+    pedido_id       BIGINT         NOT NULL,
+    producto_id     BIGINT         NOT NULL,
+    vendedor_id     BIGINT         NOT NULL,
+    cantidad        INTEGER        NOT NULL,
+    precio_unitario DECIMAL(10, 2) NOT NULL,
+    producto_nombre VARCHAR(255)   NOT NULL,
+    producto_imagen VARCHAR(255),
+    estado_item     ENUM('PENDIENTE','CONFIRMADO','PREPARANDO','ENVIADO','EN_TRANSITO','ENTREGADO','CANCELADO',
+                         'CANCELADO_COMPRADOR','CANCELADO_VENDEDOR','DEVOLUCION_SOLICITADA','DEVUELTO') NOT NULL,
+    created_at      TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_detalle_pedidos_pedido FOREIGN KEY (pedido_id) REFERENCES pedidos (id),
+    CONSTRAINT fk_detalle_pedidos_producto FOREIGN KEY (producto_id) REFERENCES productos (id),
+    CONSTRAINT fk_detalle_pedidos_vendedor FOREIGN KEY (vendedor_id) REFERENCES usuarios (id)
+);
+
+-- Contadores de ventas por vendedor y estado (ver service.EstadisticasVendedorService)
+CREATE TABLE seller_stats (
+    vendedor_id    BIGINT         NOT NULL,
+    estado         ENUM('PENDIENTE','CONFIRMADO','PREPARANDO','ENVIADO','EN_TRANSITO','ENTREGADO','CANCELADO',
+                        'CANCELADO_COMPRADOR','CANCELADO_VENDEDOR','DEVOLUCION_SOLICITADA','DEVUELTO') NOT NULL,
+    cantidad_items BIGINT         NOT NULL,
+    unidades       BIGINT         NOT NULL,
+    ingresos       DECIMAL(12, 2) NOT NULL,
+    PRIMARY KEY (vendedor_id, estado)
+);
@@ -0,0 +1,14 @@
+-- Equivalente H2 de mysql/V2: completa bases creadas antes de las migraciones
+-- La base en memoria de dev siempre se crea con V1, así que aquí no cambia nada
+
+ALTER TABLE usuarios ADD COLUMN IF NOT EXISTS token_version BIGINT DEFAULT 0;
+ALTER TABLE pedidos ADD COLUMN IF NOT EXISTS histograma_estados VARCHAR(400);
+ALTER TABLE detalle_pedidos ADD COLUMN IF NOT EXISTS created_at TIMESTAMP(6);
+
+UPDATE usuarios SET token_version = 0 WHERE token_version IS NULL;
+
+UPDATE productos SET created_at = CURRENT_TIMESTAMP(6) WHERE created_at IS NULL;
+
+UPDATE detalle_pedidos
+SET created_at = (SELECT p.created_at FROM pedidos p WHERE p.id = detalle_pedidos.pedido_id)
+WHERE created_at IS NULL;
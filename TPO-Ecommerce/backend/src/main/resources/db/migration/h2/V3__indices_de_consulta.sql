@@ -0,0 +1,15 @@
+-- Índices para las consultas de los repositorios (ver mysql/V3)
+
+CREATE INDEX IF NOT EXISTS idx_producto_categoria ON productos (category_id, id);
+CREATE INDEX IF NOT EXISTS idx_producto_owner ON productos (owner_user_id, id);
+CREATE INDEX IF NOT EXISTS idx_producto_precio ON productos (price, id);
+CREATE INDEX IF NOT EXISTS idx_producto_fecha ON productos (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_producto_stock ON productos (stock);
+
+CREATE INDEX IF NOT EXISTS idx_pedido_usuario_fecha ON pedidos (usuario_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_pedido_estado ON pedidos (estado);
+
+CREATE INDEX IF NOT EXISTS idx_detalle_vendedor_fecha ON detalle_pedidos (vendedor_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_detalle_vendedor_estado_fecha ON detalle_pedidos (vendedor_id, estado_item, created_at, id);
+
+DROP INDEX IF EXISTS idx_detalle_vendedor_estado;
@@ -0,0 +1,4 @@
+-- Versión para control de concurrencia optimista (ver mysql/V4)
+
+ALTER TABLE productos ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE pedidos ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
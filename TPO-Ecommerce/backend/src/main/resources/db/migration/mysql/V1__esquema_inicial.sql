@@ -0,0 +1,101 @@
+-- Esquema inicial (MySQL)
+-- Las bases que ya existían con ddl-auto=update se marcan como versión 1 sin ejecutar este
+-- script (spring.flyway.baseline-on-migrate) y V2 completa lo que les falte
+
+CREATE TABLE usuarios (
+    id            BIGINT       NOT NULL AUTO_INCREMENT,
+    nombre        VARCHAR(255) NOT NULL,
+    apellido      VARCHAR(255) NOT NULL,
+    username      VARCHAR(255) NOT NULL,
+    email         VARCHAR(255) NOT NULL,
+    password      VARCHAR(255) NOT NULL,
+    role          ENUM('USER','ADMIN') NOT NULL,
+    token_version BIGINT       DEFAULT 0,
+    created_at    DATETIME(6),
+    updated_at    DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_usuarios_username UNIQUE (username),
+    CONSTRAINT uk_usuarios_email UNIQUE (email)
+) ENGINE = InnoDB;
+
+CREATE TABLE categorias (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    nombre      VARCHAR(255) NOT NULL,
+    descripcion TEXT,
+    created_at  DATETIME(6),
+    updated_at  DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_categorias_nombre UNIQUE (nombre)
+) ENGINE = InnoDB;
+
+-- Ids de productos, pedidos y detalle_pedidos (ver entity.Secuencias)
+CREATE TABLE secuencias_id (
+    secuencia       VARCHAR(255) NOT NULL,
+    siguiente_valor BIGINT,
+    PRIMARY KEY (secuencia)
+) ENGINE = InnoDB;
+
+CREATE TABLE productos (
+    id            BIGINT         NOT NULL,
+    name          VARCHAR(255)   NOT NULL,
+    description   TEXT,
+    price         DECIMAL(10, 2) NOT NULL,
+    stock         INT            NOT NULL,
+    category_id   BIGINT,
+    owner_user_id BIGINT,
+    created_at    DATETIME(6),
+    updated_at    DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_productos_categoria FOREIGN KEY (category_id) REFERENCES categorias (id),
+    CONSTRAINT fk_productos_owner FOREIGN KEY (owner_user_id) REFERENCES usuarios (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE producto_imagenes (
+    producto_id BIGINT NOT NULL,
+    imagen_url  VARCHAR(255),
+    CONSTRAINT fk_producto_imagenes_producto FOREIGN KEY (producto_id) REFERENCES productos (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE pedidos (
+    id                 BIGINT         NOT NULL,
+    usuario_id         BIGINT         NOT NULL,
+    total              DECIMAL(10, 2) NOT NULL,
+    estado             ENUM('PENDIENTE','CONFIRMADO','PREPARANDO','ENVIADO','EN_TRANSITO','ENTREGADO','CANCELADO',
+                            'CANCELADO_COMPRADOR','CANCELADO_VENDEDOR','DEVOLUCION_SOLICITADA','DEVUELTO') NOT NULL,
+    histograma_estados VARCHAR(400),
+    direccion_envio    TEXT,
+    notas              VARCHAR(255),
+    created_at         DATETIME(6)    NOT NULL,
+    updated_at         DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_pedidos_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE detalle_pedidos (
+    id              BIGINT         NOT NULL,
+    pedido_id       BIGINT         NOT NULL,
+    producto_id     BIGINT         NOT NULL,
+    vendedor_id     BIGINT         NOT NULL,
+    cantidad        INT            NOT NULL,
+    precio_unitario DECIMAL(10, 2) NOT NULL,
+    producto_nombre VARCHAR(255)   NOT NULL,
+    producto_imagen VARCHAR(255),
+    estado_item     ENUM('PENDIENTE','CONFIRMADO','PREPARANDO','ENVIADO','EN_TRANSITO','ENTREGADO','CANCELADO',
+                         'CANCELADO_COMPRADOR','CANCELADO_VENDEDOR','DEVOLUCION_SOLICITADA','DEVUELTO') NOT NULL,
+    created_at      DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_detalle_pedidos_pedido FOREIGN KEY (pedido_id) REFERENCES pedidos (id),
+    CONSTRAINT fk_detalle_pedidos_producto FOREIGN KEY (producto_id) REFERENCES productos (id),
+    CONSTRAINT fk_detalle_pedidos_vendedor FOREIGN KEY (vendedor_id) REFERENCES usuarios (id)
+) ENGINE = InnoDB;
+
+-- Contadores de ventas por vendedor y estado (ver service.EstadisticasVendedorService)
+CREATE TABLE seller_stats (
+    vendedor_id    BIGINT         NOT NULL,
+    estado         ENUM('PENDIENTE','CONFIRMADO','PREPARANDO','ENVIADO','EN_TRANSITO','ENTREGADO','CANCELADO',
+                        'CANCELADO_COMPRADOR','CANCELADO_VENDEDOR','DEVOLUCION_SOLICITADA','DEVUELTO') NOT NULL,
+    cantidad_items BIGINT         NOT NULL,
+    unidades       BIGINT         NOT NULL,
+    ingresos       DECIMAL(12, 2) NOT NULL,
+    PRIMARY KEY (vendedor_id, estado)
+) ENGINE = InnoDB;
@@ -0,0 +1,62 @@
+-- Completa las bases creadas con ddl-auto=update antes de las migraciones
+-- Según la versión del código con la que se crearon pueden faltarles tablas y columnas;
+-- en una base creada por V1 ya existen todas y este script solo ejecuta UPDATEs sin filas
+
+CREATE TABLE IF NOT EXISTS secuencias_id (
+    secuencia       VARCHAR(255) NOT NULL,
+    siguiente_valor BIGINT,
+    PRIMARY KEY (secuencia)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS seller_stats (
+    vendedor_id    BIGINT         NOT NULL,
+    estado         ENUM('PENDIENTE','CONFIRMADO','PREPARANDO','ENVIADO','EN_TRANSITO','ENTREGADO','CANCELADO',
+                        'CANCELADO_COMPRADOR','CANCELADO_VENDEDOR','DEVOLUCION_SOLICITADA','DEVUELTO') NOT NULL,
+    cantidad_items BIGINT         NOT NULL,
+    unidades       BIGINT         NOT NULL,
+    ingresos       DECIMAL(12, 2) NOT NULL,
+    PRIMARY KEY (vendedor_id, estado)
+) ENGINE = InnoDB;
+
+-- MySQL no tiene ADD COLUMN IF NOT EXISTS
+DROP PROCEDURE IF EXISTS agregar_columna_si_falta;
+DELIMITER $$
+CREATE PROCEDURE agregar_columna_si_falta(IN tabla VARCHAR(64), IN columna VARCHAR(64), IN definicion VARCHAR(255))
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = DATABASE() AND table_name = tabla AND column_name = columna) THEN
+        SET @sentencia = CONCAT('ALTER TABLE ', tabla, ' ADD COLUMN ', columna, ' ', definicion);
+        PREPARE sentencia FROM @sentencia;
+        EXECUTE sentencia;
+        DEALLOCATE PREPARE sentencia;
+    END IF;
+END$$
+DELIMITER ;
+
+CALL agregar_columna_si_falta('usuarios', 'token_version', 'BIGINT DEFAULT 0');
+CALL agregar_columna_si_falta('pedidos', 'histograma_estados', 'VARCHAR(400)');
+CALL agregar_columna_si_falta('detalle_pedidos', 'created_at', 'DATETIME(6)');
+
+DROP PROCEDURE agregar_columna_si_falta;
+
+-- ddl-auto=update no modifica columnas existentes: los enums pueden no tener los estados nuevos
+ALTER TABLE usuarios MODIFY role ENUM('USER','ADMIN') NOT NULL;
+ALTER TABLE pedidos MODIFY estado
+    ENUM('PENDIENTE','CONFIRMADO','PREPARANDO','ENVIADO','EN_TRANSITO','ENTREGADO','CANCELADO',
+         'CANCELADO_COMPRADOR','CANCELADO_VENDEDOR','DEVOLUCION_SOLICITADA','DEVUELTO') NOT NULL;
+ALTER TABLE detalle_pedidos MODIFY estado_item
+    ENUM('PENDIENTE','CONFIRMADO','PREPARANDO','ENVIADO','EN_TRANSITO','ENTREGADO','CANCELADO',
+         'CANCELADO_COMPRADOR','CANCELADO_VENDEDOR','DEVOLUCION_SOLICITADA','DEVUELTO') NOT NULL;
+
+-- Datos de las columnas agregadas después de crear las filas
+-- (secuencias_id y seller_stats las completan SecuenciasInitializer y EstadisticasVendedorInitializer)
+UPDATE usuarios SET token_version = 0 WHERE token_version IS NULL;
+
+-- El catálogo se pagina por (created_at, id): un producto sin fecha quedaría fuera del listado
+UPDATE productos SET created_at = CURRENT_TIMESTAMP(6) WHERE created_at IS NULL;
+
+-- Las ventas se paginan por (vendedor_id, created_at, id): cada item toma la fecha de su pedido
+UPDATE detalle_pedidos d
+    JOIN pedidos p ON p.id = d.pedido_id
+SET d.created_at = p.created_at
+WHERE d.created_at IS NULL;
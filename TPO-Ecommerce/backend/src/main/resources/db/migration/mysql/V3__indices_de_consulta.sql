@@ -0,0 +1,50 @@
+-- Índices para las consultas de los repositorios
+-- Condicionales porque las bases creadas con ddl-auto=update pueden tener algunos de ellos
+
+DROP PROCEDURE IF EXISTS crear_indice_si_falta;
+DROP PROCEDURE IF EXISTS eliminar_indice_si_existe;
+DELIMITER $$
+CREATE PROCEDURE crear_indice_si_falta(IN tabla VARCHAR(64), IN indice VARCHAR(64), IN columnas VARCHAR(255))
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.statistics
+                   WHERE table_schema = DATABASE() AND table_name = tabla AND index_name = indice) THEN
+        SET @sentencia = CONCAT('CREATE INDEX ', indice, ' ON ', tabla, ' (', columnas, ')');
+        PREPARE sentencia FROM @sentencia;
+        EXECUTE sentencia;
+        DEALLOCATE PREPARE sentencia;
+    END IF;
+END$$
+CREATE PROCEDURE eliminar_indice_si_existe(IN tabla VARCHAR(64), IN indice VARCHAR(64))
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = tabla AND index_name = indice) THEN
+        SET @sentencia = CONCAT('DROP INDEX ', indice, ' ON ', tabla);
+        PREPARE sentencia FROM @sentencia;
+        EXECUTE sentencia;
+        DEALLOCATE PREPARE sentencia;
+    END IF;
+END$$
+DELIMITER ;
+
+-- Catálogo: filtros por categoría y vendedor, orden y rangos de precio, orden por fecha, filtro enStock
+CALL crear_indice_si_falta('productos', 'idx_producto_categoria', 'category_id, id');
+CALL crear_indice_si_falta('productos', 'idx_producto_owner', 'owner_user_id, id');
+CALL crear_indice_si_falta('productos', 'idx_producto_precio', 'price, id');
+CALL crear_indice_si_falta('productos', 'idx_producto_fecha', 'created_at, id');
+CALL crear_indice_si_falta('productos', 'idx_producto_stock', 'stock');
+
+-- Historial de pedidos del usuario paginado por (created_at, id) y pedidos por estado (admin)
+CALL crear_indice_si_falta('pedidos', 'idx_pedido_usuario_fecha', 'usuario_id, created_at, id');
+CALL crear_indice_si_falta('pedidos', 'idx_pedido_estado', 'estado');
+
+-- Ventas del vendedor paginadas por (created_at, id), con y sin filtro de estado
+-- El segundo también sirve a las consultas por (vendedor_id, estado_item)
+CALL crear_indice_si_falta('detalle_pedidos', 'idx_detalle_vendedor_fecha', 'vendedor_id, created_at, id');
+CALL crear_indice_si_falta('detalle_pedidos', 'idx_detalle_vendedor_estado_fecha',
+                           'vendedor_id, estado_item, created_at, id');
+
+-- Reemplazado por idx_detalle_vendedor_estado_fecha (mismo prefijo)
+CALL eliminar_indice_si_existe('detalle_pedidos', 'idx_detalle_vendedor_estado');
+
+DROP PROCEDURE crear_indice_si_falta;
+DROP PROCEDURE eliminar_indice_si_existe;
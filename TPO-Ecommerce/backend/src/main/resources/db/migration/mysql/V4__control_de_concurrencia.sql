@@ -0,0 +1,6 @@
+-- Versión para control de concurrencia optimista (@Version en Producto y Pedido)
+-- Cada UPDATE la incrementa y exige la versión leída: una escritura basada en datos viejos no modifica filas
+-- Las filas existentes arrancan en 0
+
+ALTER TABLE productos ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE pedidos ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
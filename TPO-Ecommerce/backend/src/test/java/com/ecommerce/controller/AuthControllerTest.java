@@ -65,7 +65,7 @@ class AuthControllerTest {
 
         when(usuarioService.findByEmailOrUsername("juan@test.com")).thenReturn(usuario);
         when(passwordEncoder.matches("password123", usuario.getPassword())).thenReturn(true);
-        when(jwtUtil.generateToken("juan@test.com", 1L)).thenReturn("jwt-token");
+        when(jwtUtil.generateToken(usuario)).thenReturn("jwt-token");
 
         // Act
         ResponseEntity<?> respuesta = authController.login(loginRequest);
@@ -75,7 +75,7 @@ class AuthControllerTest {
         assertNotNull(respuesta.getBody());
         verify(usuarioService, times(1)).findByEmailOrUsername("juan@test.com");
         verify(passwordEncoder, times(1)).matches("password123", usuario.getPassword());
-        verify(jwtUtil, times(1)).generateToken("juan@test.com", 1L);
+        verify(jwtUtil, times(1)).generateToken(usuario);
     }
 
     @Test
@@ -89,7 +89,7 @@ class AuthControllerTest {
 
         when(usuarioService.findByEmailOrUsername("juan")).thenReturn(usuario);
         when(passwordEncoder.matches("password123", usuario.getPassword())).thenReturn(true);
-        when(jwtUtil.generateToken("juan@test.com", 1L)).thenReturn("jwt-token");
+        when(jwtUtil.generateToken(usuario)).thenReturn("jwt-token");
 
         // Act
         ResponseEntity<?> respuesta = authController.login(loginRequest);
@@ -159,7 +159,7 @@ class AuthControllerTest {
         when(usuarioService.existsByEmail("maria@test.com")).thenReturn(false);
         when(usuarioService.existsByUsername("maria")).thenReturn(false);
         when(usuarioService.save(any(Usuario.class))).thenReturn(nuevoUsuario);
-        when(jwtUtil.generateToken("maria@test.com", 2L)).thenReturn("jwt-token");
+        when(jwtUtil.generateToken(nuevoUsuario)).thenReturn("jwt-token");
 
         // Act
         ResponseEntity<?> respuesta = authController.register(registerRequest);
@@ -170,7 +170,7 @@ class AuthControllerTest {
         verify(usuarioService, times(1)).existsByEmail("maria@test.com");
         verify(usuarioService, times(1)).existsByUsername("maria");
         verify(usuarioService, times(1)).save(any(Usuario.class));
-        verify(jwtUtil, times(1)).generateToken("maria@test.com", 2L);
+        verify(jwtUtil, times(1)).generateToken(nuevoUsuario);
     }
 
     @Test
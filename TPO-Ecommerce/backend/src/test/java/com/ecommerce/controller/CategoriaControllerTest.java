@@ -1,21 +1,34 @@
 package com.ecommerce.controller;
 
 import com.ecommerce.dto.CategoriaDTO;
+import com.ecommerce.dto.CategoriaVistaDTO;
 import com.ecommerce.entity.Categoria;
 import com.ecommerce.exception.CategoriaNotFoundException;
+import com.ecommerce.service.CatalogoCategorias;
 import com.ecommerce.service.CategoriaService;
+import com.ecommerce.util.CacheRespuestasJson;
+import com.ecommerce.util.Validadores;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,64 +43,113 @@ class CategoriaControllerTest {
     @Mock
     private CategoriaService categoriaService;
 
+    // Instancia real: los tests leen el JSON que devuelve el controller
+    @Spy
+    private CacheRespuestasJson cacheRespuestasJson = new CacheRespuestasJson();
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
     @InjectMocks
     private CategoriaController categoriaController;
 
     private Categoria categoria;
+    private CatalogoCategorias.Instantanea instantanea;
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(cacheRespuestasJson, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(cacheRespuestasJson, "megabytesMaximo", 1L);
+        ReflectionTestUtils.setField(cacheRespuestasJson, "ttlSegundos", 300L);
+
         categoria = Categoria.builder()
                 .id(1L)
                 .nombre("Electrónicos")
                 .descripcion("Dispositivos electrónicos")
                 .createdAt(LocalDateTime.now())
                 .build();
+        instantanea = new CatalogoCategorias.Instantanea(7L, List.of(new CategoriaVistaDTO(categoria)));
     }
 
     @Test
-    @DisplayName("Debería obtener todas las categorías")
-    void testObtenerTodasLasCategorias() {
+    @DisplayName("Debería obtener todas las categorías desde la instantánea con su versión como ETag")
+    void testObtenerTodasLasCategorias() throws IOException {
         // Arrange
-        List<Categoria> categorias = Arrays.asList(categoria);
-        when(categoriaService.getAllCategorias()).thenReturn(categorias);
+        when(categoriaService.obtenerInstantanea()).thenReturn(instantanea);
+
+        ServletWebRequest request = request(null);
 
         // Act
-        ResponseEntity<List<CategoriaDTO>> respuesta = categoriaController.obtenerTodasLasCategorias();
+        ResponseEntity<byte[]> respuesta = categoriaController.obtenerTodasLasCategorias(request);
+        ResponseEntity<byte[]> otra = categoriaController.obtenerTodasLasCategorias(request(null));
 
         // Assert
         assertEquals(HttpStatus.OK, respuesta.getStatusCode());
-        assertNotNull(respuesta.getBody());
-        assertEquals(1, respuesta.getBody().size());
-        verify(categoriaService, times(1)).getAllCategorias();
+        JsonNode json = objectMapper.readTree(respuesta.getBody());
+        assertEquals(1, json.size());
+        assertEquals("Electrónicos", json.get(0).get("nombre").asText());
+        assertEquals("W/\"categorias-7\"", request.getResponse().getHeader(HttpHeaders.ETAG));
+        assertEquals("no-cache", respuesta.getHeaders().getCacheControl());
+        // Misma versión: se reutilizan los bytes ya serializados
+        assertSame(respuesta.getBody(), otra.getBody());
+        verify(categoriaService, never()).getAllCategorias();
     }
 
     @Test
-    @DisplayName("Debería obtener una categoría por ID cuando existe")
-    void testObtenerCategoriaPorId_Existe() {
+    @DisplayName("Debería responder 304 cuando el cliente ya tiene la versión actual")
+    void testObtenerTodasLasCategorias_NoModificadas() {
         // Arrange
-        when(categoriaService.getCategoriaById(1L)).thenReturn(Optional.of(categoria));
+        when(categoriaService.obtenerInstantanea()).thenReturn(instantanea);
+        ServletWebRequest request = request("\"categorias-7\"");
 
         // Act
-        ResponseEntity<CategoriaDTO> respuesta = categoriaController.obtenerCategoriaPorId(1L);
+        ResponseEntity<byte[]> respuesta = categoriaController.obtenerTodasLasCategorias(request);
+
+        // Assert
+        assertNull(respuesta);
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), request.getResponse().getStatus());
+    }
+
+    @Test
+    @DisplayName("Debería obtener una categoría por ID cuando existe")
+    void testObtenerCategoriaPorId_Existe() throws IOException {
+        // Arrange
+        when(categoriaService.obtenerInstantanea()).thenReturn(instantanea);
+
+        // Act: el cliente tiene una versión vieja, se responde el cuerpo completo
+        ResponseEntity<byte[]> respuesta = categoriaController.obtenerCategoriaPorId(1L, request("\"categorias-6\""));
 
         // Assert
         assertEquals(HttpStatus.OK, respuesta.getStatusCode());
-        assertNotNull(respuesta.getBody());
-        assertEquals("Electrónicos", respuesta.getBody().getNombre());
-        verify(categoriaService, times(1)).getCategoriaById(1L);
+        assertEquals("Electrónicos", objectMapper.readTree(respuesta.getBody()).get("nombre").asText());
+        verify(categoriaService, never()).getCategoriaById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Debería responder 304 por categoría aunque haya cambiado otra")
+    void testObtenerCategoriaPorId_NoModificada() {
+        // Arrange: la instantánea cambió de versión pero la categoría 1 es la misma
+        Categoria otra = Categoria.builder().id(2L).nombre("Hogar").createdAt(LocalDateTime.now()).build();
+        when(categoriaService.obtenerInstantanea()).thenReturn(new CatalogoCategorias.Instantanea(8L,
+                List.of(new CategoriaVistaDTO(categoria), new CategoriaVistaDTO(otra))));
+        ServletWebRequest request = request(Validadores.etag("categoria", 1L, categoria.getCreatedAt()));
+
+        // Act
+        ResponseEntity<byte[]> respuesta = categoriaController.obtenerCategoriaPorId(1L, request);
+
+        // Assert
+        assertNull(respuesta);
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), request.getResponse().getStatus());
     }
 
     @Test
     @DisplayName("Debería lanzar excepción cuando la categoría no existe")
     void testObtenerCategoriaPorId_NoExiste() {
         // Arrange
-        when(categoriaService.getCategoriaById(999L)).thenReturn(Optional.empty());
+        when(categoriaService.obtenerInstantanea()).thenReturn(instantanea);
 
         // Act & Assert
         assertThrows(CategoriaNotFoundException.class,
-                () -> categoriaController.obtenerCategoriaPorId(999L));
-        verify(categoriaService, times(1)).getCategoriaById(999L);
+                () -> categoriaController.obtenerCategoriaPorId(999L, request(null)));
     }
 
     @Test
@@ -143,5 +205,12 @@ class CategoriaControllerTest {
         verify(categoriaService, times(1)).getCategoriaById(1L);
         verify(categoriaService, times(1)).deleteCategoria(1L);
     }
-}
 
+    private ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/categorias");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
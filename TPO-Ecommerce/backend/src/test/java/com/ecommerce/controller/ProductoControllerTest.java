@@ -1,22 +1,47 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.PaginaDTO;
 import com.ecommerce.dto.ProductoDTO;
+import com.ecommerce.dto.ProductoFiltroDTO;
+import com.ecommerce.dto.ProductoVistaDTO;
+import com.ecommerce.dto.SugerenciaDTO;
+import com.ecommerce.dto.VersionProductoDTO;
 import com.ecommerce.entity.Categoria;
 import com.ecommerce.entity.Producto;
+import com.ecommerce.entity.Role;
 import com.ecommerce.entity.Usuario;
+import com.ecommerce.exception.PrecondicionRequeridaException;
 import com.ecommerce.exception.ProductoNotFoundException;
+import com.ecommerce.exception.UnauthorizedException;
+import com.ecommerce.repository.OrdenProducto;
+import com.ecommerce.security.UsuarioAutenticado;
+import com.ecommerce.service.BusquedaProductosService;
 import com.ecommerce.service.ProductoService;
-import com.ecommerce.util.JwtUtil;
+import com.ecommerce.service.SugerenciasProductos;
+import com.ecommerce.util.CacheRespuestasJson;
+import com.ecommerce.util.Validadores;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -25,7 +50,9 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,10 +61,19 @@ class ProductoControllerTest {
 
     @Mock
     private ProductoService productoService;
-    
+
+    @Mock
+    private BusquedaProductosService busquedaProductosService;
+
     @Mock
-    private JwtUtil jwtUtil;
+    private SugerenciasProductos sugerenciasProductos;
 
+    // Instancia real: los tests leen el JSON que devuelve el controller
+    @Spy
+    private CacheRespuestasJson cacheRespuestasJson = new CacheRespuestasJson();
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    
     @InjectMocks
     private ProductoController productoController;
 
@@ -45,6 +81,10 @@ class ProductoControllerTest {
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(cacheRespuestasJson, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(cacheRespuestasJson, "megabytesMaximo", 1L);
+        ReflectionTestUtils.setField(cacheRespuestasJson, "ttlSegundos", 300L);
+
         Categoria categoria = Categoria.builder()
                 .id(1L)
                 .nombre("Electrónicos")
@@ -64,66 +104,132 @@ class ProductoControllerTest {
                 .categoria(categoria)
                 .ownerUser(usuario)
                 .createdAt(LocalDateTime.now())
+                .version(3L)
                 .build();
     }
 
     @Test
-    @DisplayName("Debería obtener todos los productos")
-    void testObtenerTodosLosProductos() {
+    @DisplayName("Debería obtener una página de productos y reutilizar su JSON mientras no cambie el catálogo")
+    void testObtenerTodosLosProductos() throws IOException {
         // Arrange
-        List<Producto> productos = Arrays.asList(producto);
-        when(productoService.obtenerTodosLosProductos()).thenReturn(productos);
+        ProductoFiltroDTO filtro = new ProductoFiltroDTO();
+        PaginaDTO<Producto> pagina = new PaginaDTO<>(Arrays.asList(producto), "cursor-siguiente", true, 1);
+        when(productoService.versionCatalogo()).thenReturn(3L, 3L, 4L);
+        when(productoService.listarProductos(filtro, OrdenProducto.ID, false, null, 1)).thenReturn(pagina);
 
         // Act
-        ResponseEntity<List<ProductoDTO>> respuesta = productoController.obtenerTodosLosProductos();
+        ResponseEntity<byte[]> respuesta = productoController.obtenerTodosLosProductos(
+                filtro, OrdenProducto.ID, Sort.Direction.ASC, null, 1, request());
+        productoController.obtenerTodosLosProductos(filtro, OrdenProducto.ID, Sort.Direction.ASC, null, 1, request());
+        productoController.obtenerTodosLosProductos(filtro, OrdenProducto.ID, Sort.Direction.ASC, null, 1, request());
 
         // Assert
         assertEquals(HttpStatus.OK, respuesta.getStatusCode());
-        assertNotNull(respuesta.getBody());
-        assertEquals(1, respuesta.getBody().size());
-        verify(productoService, times(1)).obtenerTodosLosProductos();
+        JsonNode json = objectMapper.readTree(respuesta.getBody());
+        assertEquals(1, json.get("items").size());
+        assertEquals("Laptop", json.get("items").get(0).get("name").asText());
+        assertEquals("cursor-siguiente", json.get("nextCursor").asText());
+        assertTrue(json.get("hasMore").asBoolean());
+        // La segunda llamada sale de la cache; la tercera ve una versión nueva del catálogo
+        verify(productoService, times(2)).listarProductos(filtro, OrdenProducto.ID, false, null, 1);
+    }
+
+    @Test
+    @DisplayName("Debería responder 304 al listado sin consultar cuando el catálogo no cambió")
+    void testObtenerTodosLosProductos_NoModificados() {
+        // Arrange
+        when(productoService.versionCatalogo()).thenReturn(3L);
+        ServletWebRequest request = request(Validadores.etag("productos", 3L));
+
+        // Act
+        ResponseEntity<byte[]> respuesta = productoController.obtenerTodosLosProductos(
+                new ProductoFiltroDTO(), OrdenProducto.ID, Sort.Direction.ASC, null, 1, request);
+
+        // Assert
+        assertNull(respuesta);
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), request.getResponse().getStatus());
+        verify(productoService, never()).listarProductos(any(), any(), anyBoolean(), any(), anyInt());
     }
 
     @Test
     @DisplayName("Debería obtener un producto por ID cuando existe")
-    void testObtenerProductoPorId_Existe() {
+    void testObtenerProductoPorId_Existe() throws IOException {
         // Arrange
-        when(productoService.obtenerProductoPorId(1L)).thenReturn(Optional.of(producto));
+        when(productoService.obtenerVistaProducto(1L)).thenReturn(Optional.of(new ProductoVistaDTO(producto)));
 
         // Act
-        ResponseEntity<ProductoDTO> respuesta = productoController.obtenerProductoPorId(1L);
+        ResponseEntity<byte[]> respuesta = productoController.obtenerProductoPorId(1L, request());
 
         // Assert
         assertEquals(HttpStatus.OK, respuesta.getStatusCode());
-        assertNotNull(respuesta.getBody());
-        assertEquals("Laptop", respuesta.getBody().getName());
-        verify(productoService, times(1)).obtenerProductoPorId(1L);
+        assertEquals("Laptop", objectMapper.readTree(respuesta.getBody()).get("name").asText());
+        assertEquals("Electrónicos", objectMapper.readTree(respuesta.getBody()).get("categoriaNombre").asText());
+        verify(productoService, times(1)).obtenerVistaProducto(1L);
+        verify(productoService, never()).obtenerVersion(anyLong());
+    }
+
+    @Test
+    @DisplayName("Debería responder 304 con la versión del producto sin cargar su detalle")
+    void testObtenerProductoPorId_NoModificado() {
+        // Arrange
+        when(productoService.generacionCatalogo()).thenReturn(5L);
+        when(productoService.obtenerVersion(1L))
+                .thenReturn(Optional.of(new VersionProductoDTO(3L, producto.getCreatedAt())));
+        ServletWebRequest request = request(Validadores.etag("producto", 1L, 3L, 5L));
+
+        // Act
+        ResponseEntity<byte[]> respuesta = productoController.obtenerProductoPorId(1L, request);
+
+        // Assert
+        assertNull(respuesta);
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), request.getResponse().getStatus());
+        verify(productoService, never()).obtenerVistaProducto(anyLong());
+    }
+
+    @Test
+    @DisplayName("Debería responder el producto completo cuando cambió la generación del catálogo")
+    void testObtenerProductoPorId_GeneracionNueva() throws IOException {
+        // Arrange: se renombró una categoría después de que el cliente guardó su copia
+        when(productoService.generacionCatalogo()).thenReturn(6L);
+        when(productoService.obtenerVersion(1L))
+                .thenReturn(Optional.of(new VersionProductoDTO(3L, producto.getCreatedAt())));
+        when(productoService.obtenerVistaProducto(1L)).thenReturn(Optional.of(new ProductoVistaDTO(producto)));
+        ServletWebRequest request = request(Validadores.etag("producto", 1L, 3L, 5L));
+
+        // Act
+        ResponseEntity<byte[]> respuesta = productoController.obtenerProductoPorId(1L, request);
+
+        // Assert
+        assertEquals(HttpStatus.OK, respuesta.getStatusCode());
+        assertEquals("Laptop", objectMapper.readTree(respuesta.getBody()).get("name").asText());
+        assertEquals(Validadores.etag("producto", 1L, 3L, 6L), request.getResponse().getHeader(HttpHeaders.ETAG));
+        // La versión es solo para el ETag: no viaja en el cuerpo
+        assertNull(objectMapper.readTree(respuesta.getBody()).get("version"));
     }
 
     @Test
     @DisplayName("Debería lanzar excepción cuando el producto no existe")
     void testObtenerProductoPorId_NoExiste() {
         // Arrange
-        when(productoService.obtenerProductoPorId(999L)).thenReturn(Optional.empty());
+        when(productoService.obtenerVistaProducto(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ProductoNotFoundException.class,
-                () -> productoController.obtenerProductoPorId(999L));
-        verify(productoService, times(1)).obtenerProductoPorId(999L);
+                () -> productoController.obtenerProductoPorId(999L, request()));
+        verify(productoService, times(1)).obtenerVistaProducto(999L);
     }
 
     @Test
     @DisplayName("Debería crear un nuevo producto")
     void testCrearProducto() {
         // Arrange
-        String authHeader = "Bearer test-token";
         Long userId = 1L;
+        UsuarioAutenticado usuario = new UsuarioAutenticado(userId, "juan@test.com", Role.USER);
         
-        when(jwtUtil.getUserIdFromToken("test-token")).thenReturn(userId);
         when(productoService.crearProducto(any(Producto.class), eq(userId))).thenReturn(producto);
 
         // Act
-        ResponseEntity<ProductoDTO> respuesta = productoController.crearProducto(producto, authHeader);
+        ResponseEntity<ProductoDTO> respuesta = productoController.crearProducto(producto, usuario);
 
         // Assert
         assertEquals(HttpStatus.CREATED, respuesta.getStatusCode());
@@ -133,25 +239,69 @@ class ProductoControllerTest {
     }
 
     @Test
-    @DisplayName("Debería actualizar un producto existente")
+    @DisplayName("Debería rechazar la creación sin usuario autenticado")
+    void testCrearProducto_SinAutenticacion() {
+        // Act & Assert
+        assertThrows(UnauthorizedException.class,
+                () -> productoController.crearProducto(producto, null));
+        verify(productoService, never()).crearProducto(any(Producto.class), any());
+    }
+
+    @Test
+    @DisplayName("Debería actualizar un producto existente y devolver su ETag nuevo")
     void testActualizarProducto_Existe() {
         // Arrange
         Producto productoActualizado = Producto.builder()
                 .id(1L)
                 .name("Laptop Actualizada")
                 .price(new BigDecimal("1600.00"))
+                .createdAt(producto.getCreatedAt())
+                .updatedAt(producto.getCreatedAt().plusMinutes(1))
+                .version(4L)
                 .build();
+        String ifMatch = Validadores.etag("producto", 1L, 3L, 5L);
 
-        when(productoService.actualizarProducto(1L, productoActualizado))
+        when(productoService.generacionCatalogo()).thenReturn(5L);
+        when(productoService.actualizarProducto(1L, productoActualizado, ifMatch))
                 .thenReturn(Optional.of(productoActualizado));
 
         // Act
-        ResponseEntity<ProductoDTO> respuesta = productoController.actualizarProducto(1L, productoActualizado);
+        ResponseEntity<ProductoDTO> respuesta = productoController.actualizarProducto(1L, productoActualizado, ifMatch);
 
         // Assert
         assertEquals(HttpStatus.OK, respuesta.getStatusCode());
         assertNotNull(respuesta.getBody());
-        verify(productoService, times(1)).actualizarProducto(1L, productoActualizado);
+        assertEquals(Validadores.etag("producto", 1L, 4L, 5L), respuesta.getHeaders().getETag());
+        verify(productoService, times(1)).actualizarProducto(1L, productoActualizado, ifMatch);
+    }
+
+    @Test
+    @DisplayName("Debería propagar el rechazo del servicio sin If-Match o con uno desactualizado")
+    void testActualizarProducto_PrecondicionRechazada() {
+        // Arrange
+        String etagViejo = Validadores.etag("producto", 1L, 2L, 5L);
+
+        when(productoService.actualizarProducto(1L, producto, null))
+                .thenThrow(new PrecondicionRequeridaException());
+        when(productoService.actualizarProducto(1L, producto, etagViejo))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Producto.class, 1L));
+
+        // Act & Assert
+        assertThrows(PrecondicionRequeridaException.class,
+                () -> productoController.actualizarProducto(1L, producto, null));
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> productoController.actualizarProducto(1L, producto, etagViejo));
+    }
+
+    @Test
+    @DisplayName("Debería lanzar excepción al actualizar un producto que no existe")
+    void testActualizarProducto_NoExiste() {
+        // Arrange
+        when(productoService.actualizarProducto(999L, producto, "*")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(ProductoNotFoundException.class,
+                () -> productoController.actualizarProducto(999L, producto, "*"));
     }
 
     @Test
@@ -169,19 +319,69 @@ class ProductoControllerTest {
     }
 
     @Test
-    @DisplayName("Debería buscar productos por nombre")
-    void testBuscarProductosPorNombre() {
+    @DisplayName("Debería buscar productos con el índice de búsqueda")
+    void testBuscarProductos() {
         // Arrange
-        List<Producto> productos = Arrays.asList(producto);
-        when(productoService.buscarProductosPorNombre("laptop")).thenReturn(productos);
+        PaginaDTO<Producto> pagina = new PaginaDTO<>(Arrays.asList(producto), null, false, 20);
+        when(busquedaProductosService.buscar("laptop", null, 20)).thenReturn(pagina);
 
         // Act
-        ResponseEntity<List<ProductoDTO>> respuesta = productoController.buscarProductosPorNombre("laptop");
+        ResponseEntity<PaginaDTO<ProductoDTO>> respuesta = productoController.buscarProductos("laptop", null, null, 20);
 
         // Assert
         assertEquals(HttpStatus.OK, respuesta.getStatusCode());
         assertNotNull(respuesta.getBody());
-        verify(productoService, times(1)).buscarProductosPorNombre("laptop");
+        assertEquals(1, respuesta.getBody().getItems().size());
+        verifyNoInteractions(productoService);
     }
-}
 
+    @Test
+    @DisplayName("Debería aceptar el parámetro nombre y listar el catálogo si no hay texto")
+    void testBuscarProductos_ParametroNombreYSinTexto() {
+        // Arrange
+        PaginaDTO<Producto> pagina = new PaginaDTO<>(Arrays.asList(producto), null, false, 20);
+        when(busquedaProductosService.buscar("laptop", null, 20)).thenReturn(pagina);
+        when(productoService.listarProductos(isNull(), eq(OrdenProducto.ID), eq(false), isNull(), anyInt()))
+                .thenReturn(pagina);
+
+        // Act
+        productoController.buscarProductos(null, "laptop", null, 20);
+        ResponseEntity<PaginaDTO<ProductoDTO>> sinTexto = productoController.buscarProductos(" ", null, null, 20);
+
+        // Assert
+        assertEquals(1, sinTexto.getBody().getItems().size());
+        verify(busquedaProductosService, times(1)).buscar("laptop", null, 20);
+        verify(productoService, times(1)).listarProductos(isNull(), eq(OrdenProducto.ID), eq(false), isNull(), eq(20));
+    }
+
+    @Test
+    @DisplayName("Debería devolver las sugerencias del buscador sin pasar por la base")
+    void testObtenerSugerencias() {
+        // Arrange
+        List<SugerenciaDTO> sugerencias = List.of(new SugerenciaDTO("Laptop Gamer", SugerenciaDTO.Tipo.PRODUCTO));
+        when(sugerenciasProductos.sugerir("lap", SugerenciasProductos.MAXIMO_SUGERENCIAS)).thenReturn(sugerencias);
+
+        // Act
+        ResponseEntity<List<SugerenciaDTO>> respuesta =
+                productoController.obtenerSugerencias("lap", SugerenciasProductos.MAXIMO_SUGERENCIAS);
+
+        // Assert
+        assertEquals(HttpStatus.OK, respuesta.getStatusCode());
+        assertEquals(sugerencias, respuesta.getBody());
+        verifyNoInteractions(productoService, busquedaProductosService);
+    }
+
+    // Simula el servicio: evalúa la precondición del controller contra el producto actual
+
+    private ServletWebRequest request() {
+        return request(null);
+    }
+
+    private ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/productos");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
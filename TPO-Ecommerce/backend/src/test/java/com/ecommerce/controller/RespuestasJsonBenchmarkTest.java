@@ -0,0 +1,119 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.dto.CategoriaVistaDTO;
+import com.ecommerce.dto.PaginaDTO;
+import com.ecommerce.dto.ProductoDTO;
+import com.ecommerce.entity.Categoria;
+import com.ecommerce.entity.Producto;
+import com.ecommerce.entity.Usuario;
+import com.ecommerce.util.CacheRespuestasJson;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Respuestas del catálogo: serializar con Jackson en cada request contra los bytes cacheados por versión
+ * Mide una página de 100 productos y el listado de 50 categorías (el tamaño típico de una respuesta)
+ * Solo corre con: mvn test -Dtest=RespuestasJsonBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Benchmark - Respuestas JSON cacheadas")
+class RespuestasJsonBenchmarkTest {
+
+    private static final int REPETICIONES = 20_000;
+    private static final int CALENTAMIENTO = 5_000;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private CacheRespuestasJson cache;
+    private ServletWebRequest request;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CacheRespuestasJson();
+        ReflectionTestUtils.setField(cache, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(cache, "megabytesMaximo", 64L);
+        ReflectionTestUtils.setField(cache, "ttlSegundos", 300L);
+        request = new ServletWebRequest(new MockHttpServletRequest("GET", "/api/productos"));
+    }
+
+    @Test
+    @DisplayName("Serializar por request contra bytes cacheados")
+    void compararSerializacion() {
+        Categoria categoria = Categoria.builder().id(1L).nombre("Electrónica").descripcion("Dispositivos").build();
+        Usuario vendedor = Usuario.builder().id(1L).nombre("Vendedor").build();
+        List<ProductoDTO> productos = new ArrayList<>();
+        List<CategoriaVistaDTO> categorias = new ArrayList<>();
+        for (long i = 1; i <= 100; i++) {
+            productos.add(new ProductoDTO(Producto.builder()
+                    .id(i)
+                    .name("Producto " + i)
+                    .description("Descripción del producto número " + i + " con algo de texto de relleno")
+                    .price(new BigDecimal("1999.90"))
+                    .stock((int) i)
+                    .images(List.of("https://cdn.example.com/productos/" + i + ".jpg"))
+                    .categoria(categoria)
+                    .ownerUser(vendedor)
+                    .createdAt(LocalDateTime.now())
+                    .build()));
+            if (i <= 50) {
+                categorias.add(new CategoriaVistaDTO(Categoria.builder().id(i).nombre("Categoría " + i)
+                        .descripcion("Descripción de la categoría " + i).createdAt(LocalDateTime.now()).build()));
+            }
+        }
+        PaginaDTO<ProductoDTO> pagina = new PaginaDTO<>(productos, "siguiente", true, 100);
+
+        comparar("página de 100 productos", pagina);
+        comparar("50 categorías", categorias);
+    }
+
+    private void comparar(String nombre, Object cuerpo) {
+        double porRequest = medir(() -> ResponseEntity.ok(serializar(cuerpo)));
+        double cacheado = medir(() -> cache.responder(ResponseEntity.ok(), nombre, 1L, () -> cuerpo, request));
+        int bytes = serializar(cuerpo).length;
+        System.out.printf("%s (%d bytes): serializar %.2f µs, cacheado %.2f µs (%.0fx)%n",
+                nombre, bytes, porRequest, cacheado, porRequest / cacheado);
+        assertArrayEquals(serializar(cuerpo),
+                cache.responder(ResponseEntity.ok(), nombre, 1L, () -> cuerpo, request).getBody());
+    }
+
+    // Tiempo promedio por ejecución en microsegundos, después de un calentamiento para el JIT
+    private static double medir(Supplier<ResponseEntity<byte[]>> respuesta) {
+        long bytes = 0;
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            bytes += respuesta.get().getBody().length;
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < REPETICIONES; i++) {
+            bytes += respuesta.get().getBody().length;
+        }
+        double promedio = (System.nanoTime() - inicio) / 1_000.0 / REPETICIONES;
+        assertTrue(bytes > 0); // evita que el JIT descarte el trabajo
+        return promedio;
+    }
+
+    private byte[] serializar(Object cuerpo) {
+        try {
+            return objectMapper.writeValueAsBytes(cuerpo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.ecommerce.initializer;
+
+import com.ecommerce.entity.Secuencias;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Alineación de secuencias_id con los ids que ya existen en una base creada con IDENTITY
+ */
+@DataJpaTest
+@ActiveProfiles("dev")
+@DisplayName("Tests de Repositorio - Alineación de secuencias")
+class SecuenciasInitializerTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long maximo;
+
+    @BeforeEach
+    void setUp() {
+        // Id por encima de cualquiera que haya dejado otro test del contexto
+        maximo = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM productos", Long.class) + 10_000;
+        jdbcTemplate.update("INSERT INTO productos (id, name, price, stock) VALUES (?, 'Existente', 10.00, 1)", maximo);
+        jdbcTemplate.update("DELETE FROM " + Secuencias.TABLA + " WHERE " + Secuencias.COLUMNA_NOMBRE + " = 'productos'");
+    }
+
+    @Test
+    @DisplayName("Crea la secuencia un bloque por encima del máximo si no existe")
+    void testAlinear_SinSecuencia() {
+        // Act
+        SecuenciasInitializer.alinear(jdbcTemplate, "productos");
+
+        // Assert
+        assertEquals(maximo + Secuencias.TAMANIO_BLOQUE + 1, siguienteValor());
+    }
+
+    @Test
+    @DisplayName("Corre la secuencia aunque ya esté por encima del máximo pero dentro del bloque")
+    void testAlinear_SecuenciaDentroDelBloque() {
+        // Arrange: el próximo bloque reservado (pooled) incluiría ids existentes
+        insertarSecuencia(maximo + 10);
+
+        // Act
+        SecuenciasInitializer.alinear(jdbcTemplate, "productos");
+
+        // Assert
+        assertEquals(maximo + Secuencias.TAMANIO_BLOQUE + 1, siguienteValor());
+    }
+
+    @Test
+    @DisplayName("No retrocede una secuencia que ya dejó un bloque libre")
+    void testAlinear_SecuenciaAdelantada() {
+        // Arrange
+        insertarSecuencia(maximo + 500);
+
+        // Act
+        SecuenciasInitializer.alinear(jdbcTemplate, "productos");
+
+        // Assert
+        assertEquals(maximo + 500, siguienteValor());
+    }
+
+    private void insertarSecuencia(long valor) {
+        jdbcTemplate.update("INSERT INTO " + Secuencias.TABLA + " (" + Secuencias.COLUMNA_NOMBRE + ", "
+                + Secuencias.COLUMNA_VALOR + ") VALUES ('productos', ?)", valor);
+    }
+
+    private long siguienteValor() {
+        return jdbcTemplate.queryForObject("SELECT " + Secuencias.COLUMNA_VALOR + " FROM " + Secuencias.TABLA
+                + " WHERE " + Secuencias.COLUMNA_NOMBRE + " = 'productos'", Long.class);
+    }
+}
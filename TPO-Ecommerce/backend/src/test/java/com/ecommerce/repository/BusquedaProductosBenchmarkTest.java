@@ -0,0 +1,158 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.ProductoFiltroDTO;
+import com.ecommerce.service.BusquedaProductosService;
+import com.ecommerce.service.IndiceBusquedaProductos;
+import com.ecommerce.service.SugerenciasProductos;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Búsqueda de texto: índice invertido en memoria contra LIKE sobre la base
+ * Compara el tiempo por consulta para una página de resultados con 100k y 1M productos
+ * y mide el percentil 99 de las sugerencias del buscador (trie en memoria)
+ * Es lento y con 1M productos el índice ocupa más de 1 GB de heap, por eso solo corre con:
+ * mvn test -Dtest=BusquedaProductosBenchmarkTest -Dbenchmark=true
+ */
+@DataJpaTest
+@ActiveProfiles("dev")
+@Import({BusquedaProductosService.class, IndiceBusquedaProductos.class, SugerenciasProductos.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Benchmark - Búsqueda de productos")
+class BusquedaProductosBenchmarkTest {
+
+    private static final int TAMANIO_PAGINA = 20;
+    private static final int REPETICIONES = 20;
+    private static final int FILAS_POR_BATCH = 5_000;
+
+    private static final String[] TIPOS = {"Laptop", "Mouse", "Teclado", "Monitor", "Auriculares", "Parlante",
+            "Remera", "Buzo", "Zapatillas", "Campera", "Mochila", "Lámpara", "Silla", "Escritorio", "Taza"};
+    private static final String[] MARCAS = {"Acme", "Nova", "Ñandú", "Pampa", "Andina", "Austral", "Óptima"};
+    private static final String[] ADJETIVOS = {"inalámbrico", "gamer", "ergonómico", "compacto", "clásico",
+            "deportivo", "premium", "económico", "térmico", "plegable"};
+
+    private static final String[] CONSULTAS = {"laptop", "auriculares inalambrico", "nandu", "silla ergonomico premium"};
+    private static final String[] PREFIJOS = {"l", "lap", "auri", "nan", "silla nova e", "gam"};
+    private static final int CONSULTAS_SUGERENCIAS = 10_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private BusquedaProductosService busquedaProductosService;
+
+    @Autowired
+    private IndiceBusquedaProductos indice;
+
+    @Autowired
+    private SugerenciasProductos sugerencias;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM productos");
+        jdbcTemplate.update("DELETE FROM categorias");
+    }
+
+    @ParameterizedTest(name = "{0} productos")
+    @ValueSource(ints = {100_000, 1_000_000})
+    @DisplayName("Índice en memoria contra LIKE")
+    void testBuscar_IndiceContraLike(int cantidadProductos) {
+        insertarProductos(cantidadProductos);
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+
+        long inicio = System.nanoTime();
+        Integer indexados = transaccion.execute(status -> busquedaProductosService.indexarCatalogo());
+        System.out.printf("%d productos: índice cargado en %d ms (%d términos)%n", cantidadProductos,
+                (System.nanoTime() - inicio) / 1_000_000, indice.cantidadTerminos());
+        assertEquals(cantidadProductos, indexados);
+
+        for (String consulta : CONSULTAS) {
+            double msIndice = medir(() -> indice.buscar(consulta, null, TAMANIO_PAGINA + 1));
+            // El LIKE del catálogo solo ve el nombre y no ignora acentos: se le pasa el primer término
+            ProductoFiltroDTO filtro = ProductoFiltroDTO.builder().q(consulta.split(" ")[0]).build();
+            double msLike = medir(() -> transaccion.execute(status ->
+                    productoRepository.buscarPagina(filtro, OrdenProducto.ID, false, null, TAMANIO_PAGINA + 1)));
+
+            System.out.printf("  \"%s\": índice %.2f ms, LIKE %.2f ms (%.0fx)%n",
+                    consulta, msIndice, msLike, msLike / msIndice);
+            assertFalse(indice.buscar(consulta, null, TAMANIO_PAGINA).isEmpty());
+        }
+
+        System.out.printf("  sugerencias: %d nombres, %d nodos%n", sugerencias.cantidadNombres(), sugerencias.cantidadNodos());
+        for (String prefijo : PREFIJOS) {
+            long[] tiempos = new long[CONSULTAS_SUGERENCIAS];
+            for (int i = 0; i < tiempos.length; i++) {
+                long inicioConsulta = System.nanoTime();
+                sugerencias.sugerir(prefijo, SugerenciasProductos.MAXIMO_SUGERENCIAS);
+                tiempos[i] = System.nanoTime() - inicioConsulta;
+            }
+            Arrays.sort(tiempos);
+            System.out.printf("  sugerir \"%s\": p50 %.3f ms, p99 %.3f ms%n", prefijo,
+                    tiempos[tiempos.length / 2] / 1_000_000.0, tiempos[tiempos.length * 99 / 100] / 1_000_000.0);
+            assertFalse(sugerencias.sugerir(prefijo, SugerenciasProductos.MAXIMO_SUGERENCIAS).isEmpty());
+        }
+    }
+
+    // Tiempo promedio por ejecución, después de una ejecución de calentamiento
+    private static double medir(Supplier<?> consulta) {
+        consulta.get();
+        long inicio = System.nanoTime();
+        for (int i = 0; i < REPETICIONES; i++) {
+            consulta.get();
+        }
+        return (System.nanoTime() - inicio) / 1_000_000.0 / REPETICIONES;
+    }
+
+    private void insertarProductos(int cantidad) {
+        jdbcTemplate.update("INSERT INTO categorias (nombre, descripcion) VALUES ('Electrónica', 'Tecnología')");
+        Long categoriaId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM categorias", Long.class);
+
+        Random random = new Random(42);
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> filas = new ArrayList<>(FILAS_POR_BATCH);
+        for (long id = 1; id <= cantidad; id++) {
+            String tipo = TIPOS[random.nextInt(TIPOS.length)];
+            String marca = MARCAS[random.nextInt(MARCAS.length)];
+            String adjetivo = ADJETIVOS[random.nextInt(ADJETIVOS.length)];
+            String descripcion = tipo + " " + adjetivo + " de la línea " + marca + " modelo " + random.nextInt(10_000)
+                    + ", " + ADJETIVOS[random.nextInt(ADJETIVOS.length)] + " y " + ADJETIVOS[random.nextInt(ADJETIVOS.length)];
+            filas.add(new Object[]{id, tipo + " " + marca + " " + adjetivo, descripcion,
+                    BigDecimal.valueOf(random.nextInt(100_000), 2), random.nextInt(50), categoriaId, ahora});
+            if (filas.size() == FILAS_POR_BATCH || id == cantidad) {
+                jdbcTemplate.batchUpdate("INSERT INTO productos (id, name, description, price, stock, category_id, created_at)"
+                        + " VALUES (?, ?, ?, ?, ?, ?, ?)", filas);
+                filas.clear();
+            }
+        }
+    }
+}
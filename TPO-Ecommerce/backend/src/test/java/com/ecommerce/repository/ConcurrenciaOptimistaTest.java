@@ -0,0 +1,308 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.CreatePedidoDTO;
+import com.ecommerce.entity.DetallePedido;
+import com.ecommerce.entity.EstadisticaVendedor;
+import com.ecommerce.entity.EstadoPedido;
+import com.ecommerce.entity.Pedido;
+import com.ecommerce.entity.Producto;
+import com.ecommerce.entity.Usuario;
+import com.ecommerce.exception.PrecondicionRequeridaException;
+import com.ecommerce.exception.StockInsuficienteException;
+import com.ecommerce.service.BusquedaProductosService;
+import com.ecommerce.service.CacheProductos;
+import com.ecommerce.service.EstadisticasVendedorService;
+import com.ecommerce.service.IndiceBusquedaProductos;
+import com.ecommerce.service.PedidoService;
+import com.ecommerce.service.ProductoService;
+import com.ecommerce.service.SugerenciasProductos;
+import com.ecommerce.service.TransicionesEstadoItem;
+import com.ecommerce.service.UsuarioService;
+import com.ecommerce.support.DatosPrueba;
+import com.ecommerce.util.Transacciones;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.ecommerce.support.DatosPrueba.usuario;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ediciones del vendedor y checkouts simultáneos sobre el mismo producto, y cambios de estado
+ * simultáneos sobre el mismo pedido
+ * Las ediciones pasan por ProductoService.actualizarProducto con el ETag leído (If-Match), como el PUT
+ * Con @Version ninguna escritura pisa a otra: las ediciones desactualizadas fallan,
+ * los checkouts descuentan con la guarda de stock sin tomar locks y los cambios de estado se reintentan
+ */
+@DataJpaTest
+@ActiveProfiles("dev")
+@Import({PedidoService.class, EstadisticasVendedorService.class, TransicionesEstadoItem.class, CacheProductos.class,
+        ProductoService.class, BusquedaProductosService.class, IndiceBusquedaProductos.class, SugerenciasProductos.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Tests de Concurrencia - Concurrencia optimista")
+class ConcurrenciaOptimistaTest {
+
+    private static final int HILOS_CHECKOUT = 8;
+    private static final int CHECKOUTS_POR_HILO = 40;
+    private static final int HILOS_EDICION = 2;
+    private static final int EDICIONES_POR_HILO = 40;
+    private static final int STOCK_INICIAL = 250;
+    private static final int PEDIDOS_COMPARTIDOS = 20;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private ProductoService productoService;
+
+    // Solo lo usa crearProducto; evita levantar la configuración de seguridad
+    @MockBean
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private DetallePedidoRepository detallePedidoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EstadisticaVendedorRepository estadisticaVendedorRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transaccion;
+    private Long compradorId;
+    private Long productoId;
+
+    @BeforeEach
+    void setUp() {
+        transaccion = new TransactionTemplate(transactionManager);
+        Usuario vendedor = transaccion.execute(status -> usuarioRepository.save(usuario("vendedor")));
+        compradorId = transaccion.execute(status -> usuarioRepository.save(usuario("comprador")).getId());
+        productoId = transaccion.execute(status -> productoRepository.save(Producto.builder()
+                .name("Producto caliente")
+                .price(new BigDecimal("10.00"))
+                .stock(STOCK_INICIAL)
+                .ownerUser(vendedor)
+                .build()).getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        DatosPrueba.limpiar(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Una edición con la versión vieja falla y no pisa el stock descontado por un checkout")
+    void testEdicionDesactualizada() {
+        // Arrange: el vendedor abre el formulario y mientras tanto se vende una unidad
+        Producto formulario = leerProducto();
+        String etag = etag(formulario);
+        pedidoService.crearPedido(compradorId, carrito());
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> editar(formulario, etag));
+        Producto actual = leerProducto();
+        assertEquals(STOCK_INICIAL - 1, actual.getStock());
+        assertEquals(formulario.getVersion() + 1, actual.getVersion());
+
+        // Releyendo, la edición pasa
+        editar(actual, etag(actual));
+        assertEquals(new BigDecimal("11.00"), leerProducto().getPrice());
+        assertEquals(STOCK_INICIAL - 1, leerProducto().getStock());
+    }
+
+    @Test
+    @DisplayName("Una edición sin If-Match se rechaza y no modifica el producto")
+    void testEdicionSinIfMatch() {
+        // Arrange
+        Producto formulario = leerProducto();
+
+        // Act & Assert
+        assertThrows(PrecondicionRequeridaException.class, () -> editar(formulario, null));
+        Producto actual = leerProducto();
+        assertEquals(new BigDecimal("10.00"), actual.getPrice());
+        assertEquals(formulario.getVersion(), actual.getVersion());
+    }
+
+    @Test
+    @DisplayName("Con ediciones y checkouts simultáneos no se pierden unidades vendidas")
+    void testEdicionesYCheckoutsSimultaneos() throws Exception {
+        // Sin venta previa: los primeros checkouts compiten por crear la fila de seller_stats del vendedor
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS_CHECKOUT + HILOS_EDICION);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger ventas = new AtomicInteger();
+        AtomicInteger sinStock = new AtomicInteger();
+        AtomicInteger checkoutsAbandonados = new AtomicInteger();
+        AtomicInteger ediciones = new AtomicInteger();
+        AtomicInteger edicionesRechazadas = new AtomicInteger();
+        List<Future<?>> tareas = new ArrayList<>();
+
+        try {
+            for (int h = 0; h < HILOS_CHECKOUT; h++) {
+                tareas.add(executor.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < CHECKOUTS_POR_HILO; i++) {
+                        try {
+                            pedidoService.crearPedido(compradorId, carrito());
+                            ventas.incrementAndGet();
+                        } catch (StockInsuficienteException e) {
+                            sinStock.incrementAndGet();
+                        } catch (OptimisticLockingFailureException e) {
+                            checkoutsAbandonados.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (int h = 0; h < HILOS_EDICION; h++) {
+                tareas.add(executor.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < EDICIONES_POR_HILO; i++) {
+                        // El formulario reenvía el stock que leyó: si se aplicara sobre una versión
+                        // más nueva, devolvería al producto las unidades vendidas en el medio
+                        Producto formulario = leerProducto();
+                        try {
+                            editar(formulario, etag(formulario));
+                            ediciones.incrementAndGet();
+                        } catch (OptimisticLockingFailureException e) {
+                            edicionesRechazadas.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            largada.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert
+        int unidadesVendidas = transaccion.execute(status -> (int) detallePedidoRepository.count());
+        assertEquals(ventas.get(), unidadesVendidas);
+        assertEquals(STOCK_INICIAL - unidadesVendidas, leerProducto().getStock(),
+                "Ninguna edición debe devolver stock ya vendido");
+        assertEquals(HILOS_CHECKOUT * CHECKOUTS_POR_HILO,
+                ventas.get() + sinStock.get() + checkoutsAbandonados.get());
+        assertEquals(0, checkoutsAbandonados.get(), "Un checkout no debe fallar por conflicto mientras alcance el stock");
+        assertEquals(STOCK_INICIAL, ventas.get());
+        assertEquals(HILOS_EDICION * EDICIONES_POR_HILO, ediciones.get() + edicionesRechazadas.get());
+        assertEquals(new BigDecimal("10.00").add(BigDecimal.valueOf(ediciones.get())), leerProducto().getPrice());
+        long unidadesEnEstadisticas = transaccion.execute(status -> estadisticaVendedorRepository.findAll().stream()
+                .mapToLong(EstadisticaVendedor::getUnidades).sum());
+        assertEquals(unidadesVendidas, unidadesEnEstadisticas, "seller_stats debe contar todas las unidades vendidas");
+    }
+
+    @Test
+    @DisplayName("Dos vendedores cambian a la vez sus items de los mismos pedidos sin perder cambios del histograma")
+    void testCambiosDeEstadoSimultaneosEnElMismoPedido() throws Exception {
+        // Arrange: cada pedido tiene un item de cada vendedor
+        Long otroProductoId = transaccion.execute(status -> productoRepository.save(Producto.builder()
+                .name("Otro producto")
+                .price(new BigDecimal("5.00"))
+                .stock(STOCK_INICIAL)
+                .ownerUser(usuarioRepository.save(usuario("otro")))
+                .build()).getId());
+        List<Long> pedidos = new ArrayList<>();
+        for (int i = 0; i < PEDIDOS_COMPARTIDOS; i++) {
+            pedidos.add(pedidoService.crearPedido(compradorId, CreatePedidoDTO.builder()
+                    .items(List.of(new CreatePedidoDTO.ItemCarritoDTO(productoId, 1),
+                            new CreatePedidoDTO.ItemCarritoDTO(otroProductoId, 1)))
+                    .direccionEnvio("Calle 123")
+                    .build()).getId());
+        }
+
+        // Act: cada vendedor confirma sus items en su propio hilo, como hace VentasController
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> tareas = new ArrayList<>();
+        try {
+            for (Long id : List.of(productoId, otroProductoId)) {
+                List<DetallePedido> items = transaccion.execute(status -> detallePedidoRepository.findByProductoId(id));
+                tareas.add(executor.submit(() -> {
+                    largada.await();
+                    for (DetallePedido item : items) {
+                        Transacciones.reintentandoConflictos(() -> pedidoService.actualizarEstadoItem(
+                                item.getId(), item.getVendedor().getId(), EstadoPedido.CONFIRMADO));
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert
+        for (Long pedidoId : pedidos) {
+            Pedido pedido = transaccion.execute(status -> pedidoRepository.findById(pedidoId).orElseThrow());
+            assertEquals(Map.of(EstadoPedido.CONFIRMADO, 2), pedido.getHistogramaEstados());
+            assertEquals(EstadoPedido.CONFIRMADO, pedido.getEstado());
+        }
+    }
+
+    private Producto leerProducto() {
+        return transaccion.execute(status -> productoRepository.findById(productoId).orElseThrow());
+    }
+
+    // ETag que el GET le da al formulario (el PUT solo compara su versión, no la generación)
+    private String etag(Producto producto) {
+        return ProductoService.etag(producto, productoService.generacionCatalogo());
+    }
+
+    // Mismo camino que el PUT: el formulario reenvía lo que leyó con el precio subido en uno
+    private void editar(Producto formulario, String ifMatch) {
+        productoService.actualizarProducto(productoId, Producto.builder()
+                .name(formulario.getName())
+                .description(formulario.getDescription())
+                .price(formulario.getPrice().add(BigDecimal.ONE))
+                .stock(formulario.getStock())
+                .build(), ifMatch);
+    }
+
+    private CreatePedidoDTO carrito() {
+        return CreatePedidoDTO.builder()
+                .items(List.of(new CreatePedidoDTO.ItemCarritoDTO(productoId, 1)))
+                .direccionEnvio("Calle 123")
+                .build();
+    }
+}
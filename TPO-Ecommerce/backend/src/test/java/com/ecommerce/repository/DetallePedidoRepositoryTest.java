@@ -0,0 +1,110 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.VentasPorEstadoDTO;
+import com.ecommerce.entity.DetallePedido;
+import com.ecommerce.entity.EstadoPedido;
+import com.ecommerce.entity.Pedido;
+import com.ecommerce.entity.Producto;
+import com.ecommerce.entity.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.ecommerce.support.DatosPrueba.usuario;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("dev")
+@DisplayName("Tests de Repositorio - DetallePedidoRepository (agregados por vendedor)")
+class DetallePedidoRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DetallePedidoRepository detallePedidoRepository;
+
+    private Usuario vendedor;
+    private Usuario otroVendedor;
+    private Producto producto;
+    private Pedido pedido;
+
+    @BeforeEach
+    void setUp() {
+        vendedor = entityManager.persist(usuario("vendedor"));
+        otroVendedor = entityManager.persist(usuario("otro"));
+        Usuario comprador = entityManager.persist(usuario("comprador"));
+
+        producto = entityManager.persist(Producto.builder()
+                .name("Producto")
+                .price(new BigDecimal("10.00"))
+                .stock(100)
+                .ownerUser(vendedor)
+                .build());
+
+        pedido = Pedido.builder()
+                .usuario(comprador)
+                .total(BigDecimal.ZERO)
+                .items(new ArrayList<>())
+                .build();
+        agregarItem(vendedor, 2, EstadoPedido.PENDIENTE);
+        agregarItem(vendedor, 3, EstadoPedido.PENDIENTE);
+        agregarItem(vendedor, 1, EstadoPedido.ENTREGADO);
+        agregarItem(otroVendedor, 4, EstadoPedido.PENDIENTE);
+        entityManager.persist(pedido);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Debería agrupar cantidad, unidades e ingresos por estado del vendedor")
+    void testResumirVentasPorEstado() {
+        // Act
+        Map<EstadoPedido, VentasPorEstadoDTO> resumen = detallePedidoRepository
+                .resumirVentasPorEstado(vendedor.getId())
+                .stream()
+                .collect(Collectors.toMap(VentasPorEstadoDTO::getEstado, Function.identity()));
+
+        // Assert
+        assertEquals(2, resumen.size());
+        VentasPorEstadoDTO pendientes = resumen.get(EstadoPedido.PENDIENTE);
+        assertEquals(2L, pendientes.getCantidadItems());
+        assertEquals(5L, pendientes.getUnidades());
+        assertEquals(0, new BigDecimal("50.00").compareTo(pendientes.getIngresos()));
+        assertEquals(1L, resumen.get(EstadoPedido.ENTREGADO).getCantidadItems());
+    }
+
+    @Test
+    @DisplayName("Debería devolver una lista vacía para un vendedor sin ventas")
+    void testResumirVentasPorEstado_SinVentas() {
+        // Act
+        List<VentasPorEstadoDTO> resumen = detallePedidoRepository.resumirVentasPorEstado(-1L);
+
+        // Assert
+        assertTrue(resumen.isEmpty());
+    }
+
+    private void agregarItem(Usuario vendedorItem, int cantidad, EstadoPedido estado) {
+        pedido.getItems().add(DetallePedido.builder()
+                .pedido(pedido)
+                .producto(producto)
+                .vendedor(vendedorItem)
+                .cantidad(cantidad)
+                .precioUnitario(producto.getPrice())
+                .productoNombre(producto.getName())
+                .estadoItem(estado)
+                .build());
+    }
+}
@@ -0,0 +1,183 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.CreatePedidoDTO;
+import com.ecommerce.dto.ResultadoActualizacionLoteDTO;
+import com.ecommerce.dto.VentasPorEstadoDTO;
+import com.ecommerce.entity.DetallePedido;
+import com.ecommerce.entity.EstadoPedido;
+import com.ecommerce.entity.Pedido;
+import com.ecommerce.entity.Producto;
+import com.ecommerce.entity.Usuario;
+import com.ecommerce.service.CacheProductos;
+import com.ecommerce.service.EstadisticasVendedorService;
+import com.ecommerce.service.PedidoService;
+import com.ecommerce.service.TransicionesEstadoItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.List;
+
+import static com.ecommerce.support.DatosPrueba.usuario;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Los contadores de seller_stats deben coincidir con un GROUP BY sobre detalle_pedidos
+ * después de cualquier secuencia de checkout, cambios de estado y cancelaciones
+ */
+@DataJpaTest
+@ActiveProfiles("dev")
+@Import({PedidoService.class, EstadisticasVendedorService.class, TransicionesEstadoItem.class, CacheProductos.class})
+@DisplayName("Tests de Repositorio - Consistencia de seller_stats")
+class EstadisticasVendedorConsistenciaTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private EstadisticasVendedorService estadisticasVendedorService;
+
+    @Autowired
+    private EstadisticaVendedorRepository estadisticaVendedorRepository;
+
+    private Usuario vendedor;
+    private Usuario comprador;
+    private Producto producto;
+    private Producto otroProducto;
+
+    @BeforeEach
+    void setUp() {
+        vendedor = entityManager.persist(usuario("vendedor"));
+        Usuario otroVendedor = entityManager.persist(usuario("otro"));
+        comprador = entityManager.persist(usuario("comprador"));
+        producto = entityManager.persist(producto("Producto", vendedor));
+        otroProducto = entityManager.persist(producto("Otro producto", otroVendedor));
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Los contadores coinciden con detalle_pedidos tras checkout, cambios de estado y cancelación")
+    void testContadoresConsistentes() {
+        // Arrange
+        Pedido primero = pedidoService.crearPedido(comprador.getId(), carrito(2, 1));
+        Pedido segundo = pedidoService.crearPedido(comprador.getId(), carrito(3, 4));
+
+        // Act
+        DetallePedido itemVendedor = itemDelVendedor(primero);
+        pedidoService.actualizarEstadoItem(itemVendedor.getId(), vendedor.getId(), EstadoPedido.CONFIRMADO);
+        pedidoService.cancelarPedido(segundo.getId(), comprador.getId());
+        sincronizar();
+
+        // Assert
+        assertEquals(List.of(), estadisticasVendedorService.verificarConsistencia());
+        EnumMap<EstadoPedido, VentasPorEstadoDTO> resumen = estadisticasVendedorService.obtenerResumen(vendedor.getId());
+        assertEquals(1L, resumen.get(EstadoPedido.CONFIRMADO).getCantidadItems());
+        assertEquals(2L, resumen.get(EstadoPedido.CONFIRMADO).getUnidades());
+        assertEquals(0L, resumen.get(EstadoPedido.PENDIENTE).getCantidadItems());
+        assertEquals(3L, resumen.get(EstadoPedido.CANCELADO_COMPRADOR).getUnidades());
+    }
+
+    @Test
+    @DisplayName("Debería detectar contadores corruptos y corregirlos al reconstruir")
+    void testReconstruirCorrigeDiferencias() {
+        // Arrange
+        pedidoService.crearPedido(comprador.getId(), carrito(2, 1));
+        sincronizar();
+        estadisticaVendedorRepository.acumular(vendedor.getId(), EstadoPedido.PENDIENTE, 5L, 5L, BigDecimal.TEN);
+        sincronizar();
+        assertEquals(1, estadisticasVendedorService.verificarConsistencia().size());
+
+        // Act
+        int filas = estadisticasVendedorService.reconstruir();
+        sincronizar();
+
+        // Assert
+        assertEquals(2, filas);
+        assertTrue(estadisticasVendedorService.verificarConsistencia().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Eliminar un pedido resta sus items de los contadores")
+    void testEliminarPedido() {
+        // Arrange
+        Pedido pedido = pedidoService.crearPedido(comprador.getId(), carrito(2, 1));
+        sincronizar();
+
+        // Act
+        pedidoService.eliminarPedido(pedido.getId());
+        sincronizar();
+
+        // Assert
+        assertTrue(estadisticasVendedorService.verificarConsistencia().isEmpty());
+        assertEquals(0L, estadisticasVendedorService.obtenerResumen(vendedor.getId())
+                .get(EstadoPedido.PENDIENTE).getCantidadItems());
+    }
+
+    @Test
+    @DisplayName("Un cambio de estado en lote mantiene contadores, stock y estado de los pedidos")
+    void testActualizacionEnLote() {
+        // Arrange
+        Pedido primero = pedidoService.crearPedido(comprador.getId(), carrito(2, 1));
+        Pedido segundo = pedidoService.crearPedido(comprador.getId(), carrito(3, 1));
+        List<Long> ventasVendedor = List.of(
+                itemDelVendedor(primero).getId(),
+                itemDelVendedor(segundo).getId());
+        sincronizar();
+
+        // Act
+        ResultadoActualizacionLoteDTO resultado = pedidoService.actualizarEstadoItems(
+                ventasVendedor, vendedor.getId(), EstadoPedido.CANCELADO_VENDEDOR);
+        sincronizar();
+
+        // Assert
+        assertEquals(ventasVendedor, resultado.getActualizados());
+        assertTrue(resultado.getFallidos().isEmpty());
+        assertTrue(estadisticasVendedorService.verificarConsistencia().isEmpty());
+        assertEquals(100, entityManager.find(Producto.class, producto.getId()).getStock());
+        Pedido recargado = entityManager.find(Pedido.class, primero.getId());
+        assertEquals(EstadoPedido.CANCELADO_COMPRADOR, recargado.getEstado());
+        assertEquals(1, recargado.getHistogramaEstados().get(EstadoPedido.CANCELADO_VENDEDOR));
+        assertEquals(1, recargado.getHistogramaEstados().get(EstadoPedido.PENDIENTE));
+    }
+
+    // Los UPDATE de contadores son consultas JPQL: sincronizar el contexto antes de comparar
+    private void sincronizar() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private DetallePedido itemDelVendedor(Pedido pedido) {
+        return pedido.getItems().stream()
+                .filter(item -> item.getVendedor().getId().equals(vendedor.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private CreatePedidoDTO carrito(int cantidadProducto, int cantidadOtroProducto) {
+        return CreatePedidoDTO.builder()
+                .items(List.of(
+                        new CreatePedidoDTO.ItemCarritoDTO(producto.getId(), cantidadProducto),
+                        new CreatePedidoDTO.ItemCarritoDTO(otroProducto.getId(), cantidadOtroProducto)))
+                .direccionEnvio("Calle 123")
+                .build();
+    }
+
+    private Producto producto(String nombre, Usuario dueno) {
+        return Producto.builder()
+                .name(nombre)
+                .price(new BigDecimal("10.00"))
+                .stock(100)
+                .ownerUser(dueno)
+                .build();
+    }
+}
@@ -0,0 +1,140 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.VentaExportacionDTO;
+import com.ecommerce.entity.DetallePedido;
+import com.ecommerce.entity.EstadoPedido;
+import com.ecommerce.entity.Pedido;
+import com.ecommerce.entity.Producto;
+import com.ecommerce.entity.Usuario;
+import com.ecommerce.service.ExportacionVentasService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.ecommerce.support.DatosPrueba.usuario;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("dev")
+@Import(ExportacionVentasService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@DisplayName("Tests de Repositorio - Exportación de ventas")
+class ExportacionVentasTest {
+
+    private static final int CANTIDAD_PEDIDOS = 20;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ExportacionVentasService exportacionVentasService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        Usuario vendedor = entityManager.persist(usuario("vendedor", "Pérez, Juan"));
+        Usuario comprador = entityManager.persist(usuario("comprador", "Ana"));
+        Producto producto = entityManager.persist(Producto.builder()
+                .name("Mouse \"gamer\"")
+                .price(new BigDecimal("10.00"))
+                .stock(100)
+                .ownerUser(vendedor)
+                .build());
+
+        for (int i = 0; i < CANTIDAD_PEDIDOS; i++) {
+            Pedido pedido = Pedido.builder()
+                    .usuario(comprador)
+                    .total(new BigDecimal("20.00"))
+                    .items(new ArrayList<>())
+                    .build();
+            pedido.agregarItem(DetallePedido.builder()
+                    .pedido(pedido)
+                    .producto(producto)
+                    .vendedor(vendedor)
+                    .cantidad(2)
+                    .precioUnitario(producto.getPrice())
+                    .productoNombre(producto.getName())
+                    .estadoItem(EstadoPedido.PENDIENTE)
+                    .build());
+            entityManager.persist(pedido);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Debería listar las ventas con una sola consulta")
+    void testObtenerTodasLasVentas_UnaConsulta() {
+        // Arrange
+        Statistics estadisticas = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        // Act
+        List<VentaExportacionDTO> ventas = exportacionVentasService.obtenerTodasLasVentas();
+
+        // Assert
+        assertEquals(CANTIDAD_PEDIDOS, ventas.size());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        assertEquals(0, estadisticas.getEntityLoadCount());
+        VentaExportacionDTO venta = ventas.get(0);
+        assertEquals(new BigDecimal("20.00"), venta.getSubtotal());
+        assertEquals("Pérez, Juan Test", venta.getVendedorNombre());
+        assertEquals("Ana Test", venta.getCompradorNombre());
+    }
+
+    @Test
+    @DisplayName("Debería exportar una venta por línea en JSON")
+    void testExportar_JsonLines() throws Exception {
+        // Arrange
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        // Act
+        long filas = exportacionVentasService.exportar(ExportacionVentasService.Formato.JSONL, salida);
+
+        // Assert
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(CANTIDAD_PEDIDOS, filas);
+        assertEquals(CANTIDAD_PEDIDOS, lineas.length);
+        JsonNode primera = objectMapper.readTree(lineas[0]);
+        assertEquals("PENDIENTE", primera.get("estadoItem").asText());
+        assertEquals(2, primera.get("cantidad").asInt());
+        assertEquals("Mouse \"gamer\"", primera.get("productoNombre").asText());
+    }
+
+    @Test
+    @DisplayName("Debería exportar CSV con encabezado y campos escapados")
+    void testExportar_Csv() throws Exception {
+        // Arrange
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        // Act
+        exportacionVentasService.exportar(ExportacionVentasService.Formato.CSV, salida);
+
+        // Assert
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(CANTIDAD_PEDIDOS + 1, lineas.length);
+        assertTrue(lineas[0].startsWith("detalleId,pedidoId,productoNombre"));
+        assertTrue(lineas[1].contains(",\"Mouse \"\"gamer\"\"\",2,20.00,PENDIENTE,"));
+        assertTrue(lineas[1].contains(",\"Pérez, Juan Test\",Ana Test,"));
+    }
+}
@@ -0,0 +1,60 @@
+package com.ecommerce.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Esquema creado por las migraciones de db/migration/h2
+ * Si una entidad no coincide con las tablas el contexto no levanta (ddl-auto=validate)
+ */
+@DataJpaTest
+@ActiveProfiles("dev")
+@DisplayName("Tests de Repositorio - Migraciones del esquema")
+class MigracionesTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Todas las migraciones se aplicaron y no queda ninguna pendiente")
+    void testMigracionesAplicadas() {
+        assertEquals("4", flyway.info().current().getVersion().getVersion());
+        assertEquals(0, flyway.info().pending().length);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = {
+            "IDX_PRODUCTO_CATEGORIA", "IDX_PRODUCTO_OWNER", "IDX_PRODUCTO_PRECIO", "IDX_PRODUCTO_FECHA",
+            "IDX_PRODUCTO_STOCK", "IDX_PEDIDO_USUARIO_FECHA", "IDX_PEDIDO_ESTADO",
+            "IDX_DETALLE_VENDEDOR_FECHA", "IDX_DETALLE_VENDEDOR_ESTADO_FECHA"
+    })
+    @DisplayName("Los índices de consulta existen")
+    void testIndiceCreado(String indice) {
+        Integer cantidad = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = ?", Integer.class, indice);
+
+        assertEquals(1, cantidad);
+    }
+
+    @Test
+    @DisplayName("El índice reemplazado por idx_detalle_vendedor_estado_fecha no existe")
+    void testIndiceReemplazadoEliminado() {
+        Integer cantidad = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = 'IDX_DETALLE_VENDEDOR_ESTADO'",
+                Integer.class);
+
+        assertEquals(0, cantidad);
+    }
+}
@@ -0,0 +1,143 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.DetallePedido;
+import com.ecommerce.entity.EstadoPedido;
+import com.ecommerce.entity.Pedido;
+import com.ecommerce.entity.Producto;
+import com.ecommerce.entity.Usuario;
+import com.ecommerce.support.DatosPrueba;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+
+import static com.ecommerce.support.DatosPrueba.usuario;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Persistencia de pedidos con ids por tabla de secuencias y batches JDBC
+ * Verifica que guardar un pedido de N items no cueste N INSERT
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("dev")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Tests de Repositorio - Inserción de pedidos en batch")
+class PedidoBatchInsertTest {
+
+    private static final int PEDIDOS_MEDICION = 200;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transaccion;
+    private Usuario comprador;
+    private Producto producto;
+
+    @BeforeEach
+    void setUp() {
+        transaccion = new TransactionTemplate(transactionManager);
+        comprador = transaccion.execute(status -> usuarioRepository.save(usuario("comprador")));
+        producto = transaccion.execute(status -> productoRepository.save(Producto.builder()
+                .name("Producto")
+                .price(new BigDecimal("10.00"))
+                .stock(1000)
+                .ownerUser(comprador)
+                .build()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        DatosPrueba.limpiar(jdbcTemplate);
+    }
+
+    @ParameterizedTest(name = "Pedido de {0} items")
+    @ValueSource(ints = {1, 10, 50})
+    @DisplayName("Los items de un pedido se insertan en batch")
+    void testGuardarPedido_InsertsEnBatch(int cantidadItems) {
+        // Calentar el generador de ids para no contar la reserva del primer bloque
+        transaccion.executeWithoutResult(status -> pedidoRepository.save(nuevoPedido(1)));
+
+        Statistics estadisticas = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        transaccion.executeWithoutResult(status -> pedidoRepository.save(nuevoPedido(cantidadItems)));
+
+        assertEquals(1 + cantidadItems, estadisticas.getEntityInsertCount());
+        // INSERT del pedido + un batch de items + a lo sumo una reserva de bloque por tabla
+        long sentencias = estadisticas.getPrepareStatementCount();
+        assertTrue(sentencias <= 6, "Se prepararon " + sentencias + " sentencias para " + cantidadItems + " items");
+    }
+
+    /**
+     * Pedidos/s guardando pedidos completos (para comparar con IDENTITY correr sobre la versión anterior)
+     * Solo corre con: mvn test -Dtest=PedidoBatchInsertTest -Dbenchmark=true
+     */
+    @ParameterizedTest(name = "Pedido de {0} items")
+    @ValueSource(ints = {1, 10, 50})
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("Pedidos guardados por segundo")
+    void testGuardarPedido_PedidosPorSegundo(int cantidadItems) {
+        transaccion.executeWithoutResult(status -> pedidoRepository.save(nuevoPedido(1)));
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < PEDIDOS_MEDICION; i++) {
+            transaccion.executeWithoutResult(status -> pedidoRepository.save(nuevoPedido(cantidadItems)));
+        }
+        double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+        System.out.printf("Pedidos de %d items: %.0f pedidos/s%n", cantidadItems, PEDIDOS_MEDICION / segundos);
+
+        assertEquals(PEDIDOS_MEDICION + 1, pedidoRepository.count());
+    }
+
+    private Pedido nuevoPedido(int cantidadItems) {
+        Pedido pedido = Pedido.builder()
+                .usuario(comprador)
+                .total(producto.getPrice().multiply(BigDecimal.valueOf(cantidadItems)))
+                .items(new ArrayList<>())
+                .build();
+        for (int i = 0; i < cantidadItems; i++) {
+            pedido.getItems().add(DetallePedido.builder()
+                    .pedido(pedido)
+                    .producto(producto)
+                    .vendedor(comprador)
+                    .cantidad(1)
+                    .precioUnitario(producto.getPrice())
+                    .productoNombre(producto.getName())
+                    .estadoItem(EstadoPedido.PENDIENTE)
+                    .build());
+        }
+        return pedido;
+    }
+}
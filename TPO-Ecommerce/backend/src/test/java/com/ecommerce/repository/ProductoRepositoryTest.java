@@ -0,0 +1,152 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.ProductoDTO;
+import com.ecommerce.dto.ProductoFiltroDTO;
+import com.ecommerce.dto.VersionProductoDTO;
+import com.ecommerce.entity.Categoria;
+import com.ecommerce.entity.Producto;
+import com.ecommerce.entity.Role;
+import com.ecommerce.entity.Usuario;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Presupuesto de consultas SQL de los listados de productos
+ * Falla si el mapeo a ProductoDTO vuelve a disparar consultas por fila (N+1)
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("dev")
+@DisplayName("Tests de Repositorio - ProductoRepository (presupuesto de consultas)")
+class ProductoRepositoryTest {
+
+    private static final int CANTIDAD_PRODUCTOS = 30;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    private Categoria categoria;
+    private Usuario vendedor;
+
+    @BeforeEach
+    void setUp() {
+        categoria = entityManager.persist(Categoria.builder()
+                .nombre("Electrónica")
+                .build());
+
+        vendedor = entityManager.persist(Usuario.builder()
+                .nombre("Vendedor")
+                .apellido("Test")
+                .username("vendedor")
+                .email("vendedor@test.com")
+                .password("password")
+                .role(Role.USER)
+                .build());
+
+        for (int i = 0; i < CANTIDAD_PRODUCTOS; i++) {
+            entityManager.persist(Producto.builder()
+                    .name("Producto " + i)
+                    .price(new BigDecimal("10.00").add(BigDecimal.valueOf(i)))
+                    .stock(i % 5)
+                    .images(List.of("https://img/" + i + "-a.jpg", "https://img/" + i + "-b.jpg"))
+                    .categoria(categoria)
+                    .ownerUser(vendedor)
+                    .build());
+        }
+
+        // Vaciar el contexto de persistencia para que todo se lea desde la base
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Una página del catálogo se mapea a DTO en a lo sumo 2 consultas")
+    void testBuscarPagina_PresupuestoDeConsultas() {
+        List<ProductoDTO> pagina = conPresupuesto(2, () -> mapear(
+                productoRepository.buscarPagina(new ProductoFiltroDTO(), OrdenProducto.ID, false, null, 20)));
+
+        assertEquals(20, pagina.size());
+        assertEquals("Electrónica", pagina.get(0).getCategoriaNombre());
+        assertEquals(2, pagina.get(0).getImages().size());
+    }
+
+    @Test
+    @DisplayName("La página filtrada por categoría y stock respeta el presupuesto de consultas")
+    void testBuscarPagina_ConFiltros() {
+        ProductoFiltroDTO filtro = ProductoFiltroDTO.builder()
+                .categoriaId(categoria.getId())
+                .ownerUserId(vendedor.getId())
+                .enStock(true)
+                .build();
+
+        List<ProductoDTO> pagina = conPresupuesto(2, () -> mapear(
+                productoRepository.buscarPagina(filtro, OrdenProducto.PRICE, true, null, 50)));
+
+        assertEquals(CANTIDAD_PRODUCTOS * 4 / 5, pagina.size());
+        assertTrue(pagina.stream().allMatch(p -> p.getStock() > 0));
+    }
+
+    @Test
+    @DisplayName("La versión y la última modificación se leen en una consulta y cambian al descontar stock")
+    void testVersion_CambiaConElStock() {
+        Long id = productoRepository.findAll().stream()
+                .filter(p -> p.getStock() > 0)
+                .findFirst().orElseThrow().getId();
+        entityManager.clear();
+
+        VersionProductoDTO leida = conPresupuesto(1, () -> productoRepository.findVersion(id)).orElseThrow();
+        // El UPDATE masivo no pasa por @PreUpdate: sin fijar updated_at el Last-Modified no cambiaría
+        assertEquals(1, productoRepository.descontarStock(id, 1, leida.getModificado().plusSeconds(1)));
+
+        VersionProductoDTO actual = productoRepository.findVersion(id).orElseThrow();
+        assertEquals(leida.getVersion() + 1, actual.getVersion());
+        assertEquals(leida.getModificado().plusSeconds(1), actual.getModificado());
+        assertTrue(productoRepository.findVersion(-1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("El catálogo completo se resuelve en una sola consulta")
+    void testFindAll_UnaConsulta() {
+        assertEquals(CANTIDAD_PRODUCTOS, conPresupuesto(1,
+                () -> mapear(productoRepository.findAll())).size());
+    }
+
+    private List<ProductoDTO> mapear(List<Producto> productos) {
+        return productos.stream()
+                .map(ProductoDTO::new)
+                .collect(Collectors.toList());
+    }
+
+    // Ejecuta la acción y falla si se preparan más sentencias SQL que el presupuesto
+    private <T> T conPresupuesto(int maximoConsultas, Supplier<T> accion) {
+        Statistics estadisticas = entityManager.getEntityManager()
+                .getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        estadisticas.clear();
+
+        T resultado = accion.get();
+
+        long consultas = estadisticas.getPrepareStatementCount();
+        assertTrue(consultas <= maximoConsultas,
+                "Se esperaban a lo sumo " + maximoConsultas + " consultas y se ejecutaron " + consultas);
+        entityManager.clear();
+        return resultado;
+    }
+}
@@ -0,0 +1,183 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.Producto;
+import com.ecommerce.support.DatosPrueba;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reserva de stock concurrente sobre un único producto "caliente"
+ * Cada hilo confirma su propia transacción, igual que checkouts simultáneos
+ */
+@DataJpaTest
+@ActiveProfiles("dev")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Tests de Concurrencia - Reserva de stock")
+class ProductoStockConcurrenciaTest {
+
+    private static final int HILOS = 16;
+    private static final int INTENTOS_POR_HILO = 50;
+    private static final int STOCK_INICIAL = 200;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transaccion;
+    private Long productoId;
+
+    @BeforeEach
+    void setUp() {
+        transaccion = new TransactionTemplate(transactionManager);
+        productoId = transaccion.execute(status -> productoRepository.save(Producto.builder()
+                .name("Producto caliente")
+                .price(new BigDecimal("10.00"))
+                .stock(STOCK_INICIAL)
+                .build()).getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        DatosPrueba.limpiar(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("El UPDATE condicionado nunca vende más unidades que el stock disponible")
+    void testDescontarStock_SinSobreventa() throws Exception {
+        Resultado resultado = martillar(() -> transaccion.execute(status ->
+                productoRepository.descontarStock(productoId, 1) == 1));
+
+        assertEquals(STOCK_INICIAL, resultado.exitos, "Deben venderse exactamente las unidades en stock");
+        assertEquals(0, stockActual());
+        assertEquals(0, resultado.errores);
+    }
+
+    @Test
+    @DisplayName("Con @Version la lectura + escritura no confirma ventas sin descontar su unidad")
+    void testLecturaEscritura_SinActualizacionesPerdidas() throws Exception {
+        Resultado resultado = martillar(this::reservarLeyendo);
+        int vendidasRealmente = STOCK_INICIAL - stockActual();
+
+        // Sin @Version dos guardados con el mismo stock leído confirmaban dos ventas por una unidad;
+        // con la versión el guardado desactualizado falla y cuenta como error
+        assertEquals(vendidasRealmente, resultado.exitos, "Cada venta confirmada descuenta exactamente una unidad");
+        assertEquals(HILOS * INTENTOS_POR_HILO, resultado.exitos + resultado.fallidos + resultado.errores);
+        assertTrue(stockActual() >= 0);
+    }
+
+    /**
+     * Intentos por segundo del UPDATE condicionado contra la lectura + escritura previa
+     * Solo corre con: mvn test -Dtest=ProductoStockConcurrenciaTest -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("Comparación con la lectura + escritura previa (SELECT + UPDATE por item)")
+    void testComparacionConLecturaEscritura() throws Exception {
+        Resultado condicionado = martillar(() -> transaccion.execute(status ->
+                productoRepository.descontarStock(productoId, 1) == 1));
+
+        transaccion.executeWithoutResult(status -> {
+            Producto producto = productoRepository.findById(productoId).orElseThrow();
+            producto.setStock(STOCK_INICIAL);
+        });
+
+        Resultado lecturaEscritura = martillar(this::reservarLeyendo);
+
+        System.out.printf("UPDATE condicionado: %d ventas, %.0f intentos/s%n",
+                condicionado.exitos, condicionado.intentosPorSegundo());
+        System.out.printf("Lectura + escritura: %d ventas, %d conflictos, %.0f intentos/s%n",
+                lecturaEscritura.exitos, lecturaEscritura.errores, lecturaEscritura.intentosPorSegundo());
+
+        assertEquals(STOCK_INICIAL, condicionado.exitos);
+    }
+
+    // Implementación anterior: leer, comparar en Java y guardar
+    private boolean reservarLeyendo() {
+        return Boolean.TRUE.equals(transaccion.execute(status -> {
+            Producto producto = productoRepository.findById(productoId).orElseThrow();
+            if (producto.getStock() < 1) {
+                return false;
+            }
+            producto.setStock(producto.getStock() - 1);
+            productoRepository.save(producto);
+            return true;
+        }));
+    }
+
+    private int stockActual() {
+        return transaccion.execute(status -> productoRepository.findById(productoId).orElseThrow().getStock());
+    }
+
+    // Lanza HILOS hilos que intentan reservar a la vez y cuenta reservas exitosas, sin stock y con error
+    private Resultado martillar(BooleanSupplier reservar) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger exitos = new AtomicInteger();
+        AtomicInteger fallidos = new AtomicInteger();
+        AtomicInteger errores = new AtomicInteger();
+        List<Future<?>> tareas = new ArrayList<>();
+
+        try {
+            for (int h = 0; h < HILOS; h++) {
+                tareas.add(executor.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < INTENTOS_POR_HILO; i++) {
+                        try {
+                            if (reservar.getAsBoolean()) {
+                                exitos.incrementAndGet();
+                            } else {
+                                fallidos.incrementAndGet();
+                            }
+                        } catch (RuntimeException e) {
+                            errores.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            long inicio = System.nanoTime();
+            largada.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+            return new Resultado(exitos.get(), fallidos.get(), errores.get(), System.nanoTime() - inicio);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private record Resultado(int exitos, int fallidos, int errores, long nanos) {
+        double intentosPorSegundo() {
+            return (double) HILOS * INTENTOS_POR_HILO / (nanos / 1_000_000_000.0);
+        }
+    }
+}
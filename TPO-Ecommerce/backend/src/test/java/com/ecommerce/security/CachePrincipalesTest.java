@@ -0,0 +1,137 @@
+package com.ecommerce.security;
+
+import com.ecommerce.entity.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static com.ecommerce.support.DatosPrueba.usuario;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests Unitarios - CachePrincipales")
+class CachePrincipalesTest {
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @InjectMocks
+    private CachePrincipales cachePrincipales;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cachePrincipales, "tamanioMaximo", 2);
+        ReflectionTestUtils.setField(cachePrincipales, "ttlSegundos", 300L);
+    }
+
+    @Test
+    @DisplayName("Debería cargar el usuario una sola vez y contar aciertos y fallos")
+    void testObtener_CacheaPrincipal() {
+        // Arrange
+        when(userDetailsService.loadUserByUsername("juan@test.com")).thenReturn(usuario(1L, "juan"));
+
+        // Act
+        UsuarioAutenticado primero = cachePrincipales.obtener("juan@test.com");
+        UsuarioAutenticado segundo = cachePrincipales.obtener("juan@test.com");
+
+        // Assert
+        assertSame(primero, segundo);
+        assertEquals(1L, primero.getId());
+        Map<String, Object> estadisticas = cachePrincipales.estadisticas();
+        assertEquals(1L, estadisticas.get("aciertos"));
+        assertEquals(1L, estadisticas.get("fallos"));
+        verify(userDetailsService, times(1)).loadUserByUsername("juan@test.com");
+    }
+
+    @Test
+    @DisplayName("Debería desalojar el menos usado al superar el tamaño máximo")
+    void testObtener_AcotadaPorTamanio() {
+        // Arrange
+        when(userDetailsService.loadUserByUsername(anyString()))
+                .thenAnswer(invocation -> usuario(1L, invocation.<String>getArgument(0).replace("@test.com", "")));
+
+        // Act
+        cachePrincipales.obtener("a@test.com");
+        cachePrincipales.obtener("b@test.com");
+        cachePrincipales.obtener("a@test.com");
+        cachePrincipales.obtener("c@test.com"); // desaloja b
+        cachePrincipales.obtener("a@test.com");
+        cachePrincipales.obtener("b@test.com"); // vuelve a cargarse
+
+        // Assert
+        assertEquals(2, cachePrincipales.estadisticas().get("tamanio"));
+        verify(userDetailsService, times(1)).loadUserByUsername("a@test.com");
+        verify(userDetailsService, times(2)).loadUserByUsername("b@test.com");
+    }
+
+    @Test
+    @DisplayName("Debería volver a cargar el usuario cuando venció el TTL")
+    void testObtener_VenceTtl() {
+        // Arrange
+        ReflectionTestUtils.setField(cachePrincipales, "ttlSegundos", -1L);
+        when(userDetailsService.loadUserByUsername("juan@test.com")).thenReturn(usuario(1L, "juan"));
+
+        // Act
+        cachePrincipales.obtener("juan@test.com");
+        cachePrincipales.obtener("juan@test.com");
+
+        // Assert
+        verify(userDetailsService, times(2)).loadUserByUsername("juan@test.com");
+    }
+
+    @Test
+    @DisplayName("Debería descartar las entradas del usuario al invalidarlo por id")
+    void testInvalidar_PorId() {
+        // Arrange
+        when(userDetailsService.loadUserByUsername("juan@test.com")).thenReturn(usuario(1L, "juan"));
+        cachePrincipales.obtener("juan@test.com");
+
+        // Act
+        cachePrincipales.invalidar(1L);
+        cachePrincipales.obtener("juan@test.com");
+
+        // Assert
+        verify(userDetailsService, times(2)).loadUserByUsername("juan@test.com");
+    }
+
+    @Test
+    @DisplayName("Debería rechazar tokens de versión anterior a la persistida del usuario")
+    void testObtenerVigente_ComparaConVersionPersistida() {
+        // Arrange
+        Usuario juan = usuario(1L, "juan");
+        juan.setTokenVersion(2L);
+        when(userDetailsService.loadUserByUsername("juan@test.com")).thenReturn(juan);
+
+        // Act
+        UsuarioAutenticado tokenViejo = cachePrincipales.obtenerVigente("juan@test.com", 1L);
+        UsuarioAutenticado tokenVigente = cachePrincipales.obtenerVigente("juan@test.com", 2L);
+
+        // Assert
+        assertNull(tokenViejo);
+        assertNotNull(tokenVigente);
+        assertEquals(1L, tokenVigente.getId());
+        verify(userDetailsService, times(1)).loadUserByUsername("juan@test.com");
+    }
+
+    @Test
+    @DisplayName("No debería cachear usuarios inexistentes")
+    void testObtener_UsuarioInexistente() {
+        // Arrange
+        when(userDetailsService.loadUserByUsername("nadie@test.com"))
+                .thenThrow(new UsernameNotFoundException("Usuario no encontrado"));
+
+        // Act & Assert
+        assertThrows(UsernameNotFoundException.class, () -> cachePrincipales.obtener("nadie@test.com"));
+        assertEquals(0, cachePrincipales.estadisticas().get("tamanio"));
+    }
+}
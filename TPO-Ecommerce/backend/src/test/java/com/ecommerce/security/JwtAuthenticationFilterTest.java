@@ -0,0 +1,216 @@
+package com.ecommerce.security;
+
+import com.ecommerce.entity.Role;
+import com.ecommerce.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests Unitarios - JwtAuthenticationFilter")
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private CachePrincipales cachePrincipales;
+
+    @Mock
+    private RevocacionTokens revocacionTokens;
+
+    @InjectMocks
+    private JwtAuthenticationFilter filtro;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Debería armar el principal con la cache de principales si la versión del token está vigente")
+    void testDoFilter_TokenConRol() throws Exception {
+        // Arrange
+        Claims claims = Jwts.claims().subject("admin@test.com")
+                .add(JwtUtil.CLAIM_USER_ID, 7L)
+                .add(JwtUtil.CLAIM_ROLE, "ADMIN")
+                .add(JwtUtil.CLAIM_VERSION, 2L)
+                .build();
+        when(jwtUtil.parse("token-valido")).thenReturn(claims);
+        when(revocacionTokens.esVigente(7L, 2L)).thenReturn(true);
+        when(cachePrincipales.obtenerVigente("admin@test.com", 2L))
+                .thenReturn(new UsuarioAutenticado(7L, "admin@test.com", Role.ADMIN));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token-valido");
+
+        // Act
+        filtro.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Assert
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(autenticacion);
+        UsuarioAutenticado principal = (UsuarioAutenticado) autenticacion.getPrincipal();
+        assertEquals(7L, principal.getId());
+        assertTrue(principal.isAdmin());
+        assertTrue(autenticacion.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN")));
+        verify(jwtUtil, times(1)).parse("token-valido");
+        verifyNoMoreInteractions(jwtUtil);
+    }
+
+    @Test
+    @DisplayName("Debería ignorar un token emitido antes de un cambio de rol")
+    void testDoFilter_TokenRevocado() throws Exception {
+        // Arrange
+        Claims claims = Jwts.claims().subject("juan@test.com")
+                .add(JwtUtil.CLAIM_USER_ID, 3L)
+                .add(JwtUtil.CLAIM_ROLE, "ADMIN")
+                .add(JwtUtil.CLAIM_VERSION, 0L)
+                .build();
+        when(jwtUtil.parse("token-viejo")).thenReturn(claims);
+        when(revocacionTokens.esVigente(3L, 0L)).thenReturn(false);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token-viejo");
+
+        // Act
+        filtro.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Assert
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(cachePrincipales);
+    }
+
+    @Test
+    @DisplayName("Debería ignorar un token de versión anterior a la persistida aunque no haya revocación en memoria")
+    void testDoFilter_TokenRevocadoAntesDeReiniciar() throws Exception {
+        // Arrange
+        Claims claims = Jwts.claims().subject("juan@test.com")
+                .add(JwtUtil.CLAIM_USER_ID, 3L)
+                .add(JwtUtil.CLAIM_ROLE, "ADMIN")
+                .add(JwtUtil.CLAIM_VERSION, 0L)
+                .build();
+        when(jwtUtil.parse("token-viejo")).thenReturn(claims);
+        when(revocacionTokens.esVigente(3L, 0L)).thenReturn(true);
+        when(cachePrincipales.obtenerVigente("juan@test.com", 0L)).thenReturn(null);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token-viejo");
+
+        // Act
+        filtro.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Assert
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    @DisplayName("Debería ignorar el token de un usuario eliminado")
+    void testDoFilter_UsuarioEliminado() throws Exception {
+        // Arrange
+        Claims claims = Jwts.claims().subject("juan@test.com")
+                .add(JwtUtil.CLAIM_USER_ID, 3L)
+                .add(JwtUtil.CLAIM_ROLE, "USER")
+                .add(JwtUtil.CLAIM_VERSION, 0L)
+                .build();
+        when(jwtUtil.parse("token-valido")).thenReturn(claims);
+        when(revocacionTokens.esVigente(3L, 0L)).thenReturn(true);
+        when(cachePrincipales.obtenerVigente("juan@test.com", 0L))
+                .thenThrow(new UsernameNotFoundException("Usuario no encontrado"));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token-valido");
+
+        // Act
+        filtro.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Assert
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    @DisplayName("Debería ignorar el token si su email pertenece ahora a otro usuario")
+    void testDoFilter_EmailReasignado() throws Exception {
+        // Arrange
+        Claims claims = Jwts.claims().subject("juan@test.com")
+                .add(JwtUtil.CLAIM_USER_ID, 3L)
+                .add(JwtUtil.CLAIM_ROLE, "USER")
+                .add(JwtUtil.CLAIM_VERSION, 0L)
+                .build();
+        when(jwtUtil.parse("token-valido")).thenReturn(claims);
+        when(revocacionTokens.esVigente(3L, 0L)).thenReturn(true);
+        when(cachePrincipales.obtenerVigente("juan@test.com", 0L))
+                .thenReturn(new UsuarioAutenticado(9L, "juan@test.com", Role.USER));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token-valido");
+
+        // Act
+        filtro.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Assert
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    @DisplayName("Debería resolver el rol con la cache de principales para tokens sin claim de rol")
+    void testDoFilter_TokenSinRol() throws Exception {
+        // Arrange
+        Claims claims = Jwts.claims().subject("admin@test.com").add("userId", 7L).build();
+        when(jwtUtil.parse("token-valido")).thenReturn(claims);
+        when(revocacionTokens.esVigente(7L, 0L)).thenReturn(true);
+        when(cachePrincipales.obtenerVigente("admin@test.com", 0L))
+                .thenReturn(new UsuarioAutenticado(7L, "admin@test.com", Role.ADMIN));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token-valido");
+
+        // Act
+        filtro.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Assert
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(autenticacion);
+        UsuarioAutenticado principal = (UsuarioAutenticado) autenticacion.getPrincipal();
+        assertEquals(7L, principal.getId());
+        assertEquals("admin@test.com", principal.getEmail());
+        assertTrue(principal.isAdmin());
+        verify(jwtUtil, times(1)).parse("token-valido");
+        verifyNoMoreInteractions(jwtUtil);
+    }
+
+    @Test
+    @DisplayName("Debería continuar sin autenticación cuando el token es inválido")
+    void testDoFilter_TokenInvalido() throws Exception {
+        // Arrange
+        when(jwtUtil.parse("token-invalido")).thenThrow(new MalformedJwtException("inválido"));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token-invalido");
+        MockFilterChain cadena = new MockFilterChain();
+
+        // Act
+        filtro.doFilter(request, new MockHttpServletResponse(), cadena);
+
+        // Assert
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertNotNull(cadena.getRequest());
+        verifyNoInteractions(cachePrincipales);
+    }
+}
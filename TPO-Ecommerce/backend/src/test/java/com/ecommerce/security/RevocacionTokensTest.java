@@ -0,0 +1,48 @@
+package com.ecommerce.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests Unitarios - RevocacionTokens")
+class RevocacionTokensTest {
+
+    private RevocacionTokens revocacionTokens;
+
+    @BeforeEach
+    void setUp() {
+        revocacionTokens = new RevocacionTokens();
+        ReflectionTestUtils.setField(revocacionTokens, "expiracionTokenMs", 60_000L);
+    }
+
+    @Test
+    @DisplayName("Debería rechazar solo los tokens con versión anterior a la revocada")
+    void testEsVigente_SegunVersion() {
+        // Act
+        revocacionTokens.revocar(1L, 2L);
+
+        // Assert
+        assertFalse(revocacionTokens.esVigente(1L, 1L));
+        assertTrue(revocacionTokens.esVigente(1L, 2L));
+        assertTrue(revocacionTokens.esVigente(99L, 0L));
+    }
+
+    @Test
+    @DisplayName("Debería descartar las revocaciones cuando vencieron los tokens afectados")
+    void testRevocar_PurgaEntradasVencidas() {
+        // Arrange
+        ReflectionTestUtils.setField(revocacionTokens, "expiracionTokenMs", -1L);
+        revocacionTokens.revocarTodos(1L);
+
+        // Act
+        ReflectionTestUtils.setField(revocacionTokens, "expiracionTokenMs", 60_000L);
+        revocacionTokens.revocar(2L, 1L);
+
+        // Assert
+        assertEquals(1, revocacionTokens.cantidadRegistrada());
+        assertTrue(revocacionTokens.esVigente(1L, 0L));
+    }
+}
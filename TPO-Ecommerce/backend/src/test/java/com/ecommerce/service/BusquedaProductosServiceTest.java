@@ -0,0 +1,137 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.PaginaDTO;
+import com.ecommerce.dto.ProductoIndexableDTO;
+import com.ecommerce.dto.SugerenciaDTO;
+import com.ecommerce.entity.Categoria;
+import com.ecommerce.entity.Producto;
+import com.ecommerce.repository.CategoriaRepository;
+import com.ecommerce.repository.ProductoRepository;
+import com.ecommerce.util.CursorPaginacion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests Unitarios - BusquedaProductosService")
+class BusquedaProductosServiceTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private CategoriaRepository categoriaRepository;
+
+    // Índice real: el servicio solo traduce sus resultados a páginas de productos
+    @Spy
+    private IndiceBusquedaProductos indice = new IndiceBusquedaProductos();
+
+    @Spy
+    private SugerenciasProductos sugerencias = new SugerenciasProductos();
+
+    @InjectMocks
+    private BusquedaProductosService busquedaProductosService;
+
+    @BeforeEach
+    void setUp() {
+        when(categoriaRepository.findAll()).thenReturn(List.of(Categoria.builder().id(1L).nombre("Electrónica").build()));
+        when(productoRepository.recorrerParaIndice()).thenReturn(Stream.of(
+                new ProductoIndexableDTO(1L, "Laptop", null, "Electrónica"),
+                new ProductoIndexableDTO(2L, "Funda para laptop", null, "Accesorios"),
+                new ProductoIndexableDTO(3L, "Soporte de laptop", "Aluminio", "Accesorios")));
+        busquedaProductosService.indexarCatalogo();
+    }
+
+    @Test
+    @DisplayName("Debería cargar la página en el orden de relevancia del índice")
+    void testBuscar_OrdenDelIndice() {
+        // Arrange: la base devuelve los productos en otro orden
+        when(productoRepository.buscarParaListado(List.of(1L, 2L)))
+                .thenReturn(List.of(producto(2L), producto(1L)));
+
+        // Act
+        PaginaDTO<Producto> pagina = busquedaProductosService.buscar("laptop", null, 2);
+
+        // Assert
+        assertEquals(List.of(1L, 2L), pagina.getItems().stream().map(Producto::getId).toList());
+        assertTrue(pagina.isHasMore());
+        assertEquals(2L, CursorPaginacion.decodificar(pagina.getNextCursor()).getId());
+    }
+
+    @Test
+    @DisplayName("Debería quitar del índice los productos que ya no existen en la base")
+    void testBuscar_ProductoBorrado() {
+        // Arrange
+        when(productoRepository.buscarParaListado(anyCollection())).thenReturn(List.of(producto(3L)));
+
+        // Act
+        PaginaDTO<Producto> pagina = busquedaProductosService.buscar("soporte laptop aluminio", null, 20);
+        busquedaProductosService.buscar("electronica", null, 20);
+
+        // Assert
+        assertEquals(1, pagina.getItems().size());
+        verify(indice).eliminar(1L);
+        assertEquals(2, indice.cantidadProductos());
+    }
+
+    @Test
+    @DisplayName("Debería reindexar un producto con el nombre de su categoría")
+    void testIndexar() {
+        // Arrange
+        Producto producto = producto(4L);
+        producto.setName("Monitor");
+        producto.setCategoria(Categoria.builder().id(1L).nombre("Electrónica").build());
+
+        // Act: sin transacción activa el índice se actualiza en el momento
+        busquedaProductosService.indexar(producto);
+
+        // Assert
+        assertEquals(List.of(4L), indice.buscar("monitor electronica", null, 10).stream()
+                .map(IndiceBusquedaProductos.Resultado::id).toList());
+    }
+
+    @Test
+    @DisplayName("Debería cargar las sugerencias con el catálogo y actualizarlas al editar y eliminar")
+    void testSugerencias() {
+        // Act: sin transacción activa los cambios se aplican en el momento
+        List<String> alIniciar = textos(sugerencias.sugerir("e", 10));
+        Producto renombrado = producto(2L);
+        renombrado.setName("Estuche para laptop");
+        busquedaProductosService.indexar(renombrado);
+        busquedaProductosService.eliminar(3L);
+
+        // Assert
+        assertEquals(List.of("Electrónica"), alIniciar);
+        assertEquals(List.of("Electrónica", "Estuche para laptop"), textos(sugerencias.sugerir("e", 10)));
+        assertTrue(sugerencias.sugerir("funda", 10).isEmpty());
+        assertEquals(List.of("Laptop", "Estuche para laptop"), textos(sugerencias.sugerir("lap", 10)));
+    }
+
+    @Test
+    @DisplayName("Debería rechazar un cursor que no es de búsqueda")
+    void testBuscar_CursorInvalido() {
+        String cursor = CursorPaginacion.codificar("2024-01-01T00:00", 5L);
+
+        assertThrows(IllegalArgumentException.class, () -> busquedaProductosService.buscar("laptop", cursor, 20));
+    }
+
+    private static List<String> textos(List<SugerenciaDTO> sugerencias) {
+        return sugerencias.stream().map(SugerenciaDTO::getTexto).toList();
+    }
+
+    private static Producto producto(Long id) {
+        return Producto.builder().id(id).name("Producto " + id).build();
+    }
+}
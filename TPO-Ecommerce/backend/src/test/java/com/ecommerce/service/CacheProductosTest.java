@@ -0,0 +1,198 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductoVistaDTO;
+import com.ecommerce.entity.Categoria;
+import com.ecommerce.entity.Producto;
+import com.ecommerce.repository.ProductoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests Unitarios - CacheProductos")
+class CacheProductosTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @InjectMocks
+    private CacheProductos cacheProductos;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cacheProductos, "tamanioMaximo", 2);
+        ReflectionTestUtils.setField(cacheProductos, "ttlSegundos", 300L);
+    }
+
+    @Test
+    @DisplayName("Debería cargar el producto una sola vez y devolver una vista inmutable")
+    void testObtener_CacheaVista() {
+        // Arrange
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto(1L)));
+
+        // Act
+        ProductoVistaDTO primero = cacheProductos.obtener(1L).orElseThrow();
+        ProductoVistaDTO segundo = cacheProductos.obtener(1L).orElseThrow();
+
+        // Assert
+        assertSame(primero, segundo);
+        assertEquals("Electrónica", primero.getCategoriaNombre());
+        assertThrows(UnsupportedOperationException.class, () -> primero.getImages().add("otra.jpg"));
+        assertEquals(1L, cacheProductos.estadisticas().get("aciertos"));
+        verify(productoRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Debería hacer una sola consulta aunque lleguen muchos requests a la vez")
+    void testObtener_CargaUnica() throws Exception {
+        // Arrange: la consulta queda bloqueada hasta que todos los requests estén esperando
+        CountDownLatch liberarConsulta = new CountDownLatch(1);
+        when(productoRepository.findById(1L)).thenAnswer(invocation -> {
+            liberarConsulta.await(5, TimeUnit.SECONDS);
+            return Optional.of(producto(1L));
+        });
+        int requests = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+
+        try {
+            // Act
+            List<Future<Optional<ProductoVistaDTO>>> resultados = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                resultados.add(executor.submit(() -> cacheProductos.obtener(1L)));
+            }
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while ((long) cacheProductos.estadisticas().get("esperas") < requests - 1 && System.nanoTime() < limite) {
+                Thread.sleep(5);
+            }
+            liberarConsulta.countDown();
+
+            // Assert
+            ProductoVistaDTO vista = resultados.get(0).get(5, TimeUnit.SECONDS).orElseThrow();
+            for (Future<Optional<ProductoVistaDTO>> resultado : resultados) {
+                assertSame(vista, resultado.get(5, TimeUnit.SECONDS).orElseThrow());
+            }
+            assertEquals((long) requests - 1, cacheProductos.estadisticas().get("esperas"));
+            verify(productoRepository, times(1)).findById(1L);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("No debería guardar una carga que estaba en curso cuando se invalidó el producto")
+    void testObtener_InvalidadoDuranteLaCarga() {
+        // Arrange: el stock cambia mientras se consulta la base
+        when(productoRepository.findById(1L)).thenAnswer(invocation -> {
+            cacheProductos.invalidar(1L);
+            return Optional.of(producto(1L));
+        });
+
+        // Act
+        cacheProductos.obtener(1L);
+        cacheProductos.obtener(1L);
+
+        // Assert
+        assertEquals(0, cacheProductos.estadisticas().get("tamanio"));
+        verify(productoRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Debería invalidar recién cuando se confirma la transacción")
+    void testInvalidar_DespuesDelCommit() {
+        // Arrange
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto(1L)));
+        cacheProductos.obtener(1L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            // Act: antes del commit sigue sirviendo la vista cacheada
+            cacheProductos.invalidar(List.of(1L));
+            cacheProductos.obtener(1L);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        cacheProductos.obtener(1L);
+
+        // Assert
+        verify(productoRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Debería desalojar el menos usado y no cachear productos inexistentes")
+    void testObtener_AcotadaPorTamanio() {
+        // Arrange
+        when(productoRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.of(producto(invocation.getArgument(0))));
+        when(productoRepository.findById(999L)).thenReturn(Optional.empty());
+
+        // Act
+        cacheProductos.obtener(1L);
+        cacheProductos.obtener(2L);
+        cacheProductos.obtener(1L);
+        cacheProductos.obtener(3L); // desaloja 2
+        Optional<ProductoVistaDTO> inexistente = cacheProductos.obtener(999L);
+        cacheProductos.obtener(2L); // vuelve a cargarse
+
+        // Assert
+        assertTrue(inexistente.isEmpty());
+        assertEquals(2, cacheProductos.estadisticas().get("tamanio"));
+        verify(productoRepository, times(1)).findById(1L);
+        verify(productoRepository, times(2)).findById(2L);
+    }
+
+    @Test
+    @DisplayName("Debería buscar sin cargar y cambiar la generación solo al invalidar todo")
+    void testBuscar_YGeneracion() {
+        // Arrange
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto(1L)));
+        long generacionInicial = cacheProductos.generacion();
+
+        // Act
+        Optional<ProductoVistaDTO> antesDeCargar = cacheProductos.buscar(1L);
+        cacheProductos.obtener(1L);
+        Optional<ProductoVistaDTO> cargado = cacheProductos.buscar(1L);
+        cacheProductos.invalidar(1L);
+        long generacionTrasInvalidar = cacheProductos.generacion();
+        cacheProductos.invalidarTodo();
+
+        // Assert
+        assertTrue(antesDeCargar.isEmpty());
+        assertTrue(cargado.isPresent());
+        assertTrue(cacheProductos.buscar(1L).isEmpty());
+        assertEquals(generacionInicial, generacionTrasInvalidar);
+        assertTrue(cacheProductos.generacion() > generacionInicial);
+        verify(productoRepository, times(1)).findById(1L);
+    }
+
+    private Producto producto(Long id) {
+        return Producto.builder()
+                .id(id)
+                .name("Laptop")
+                .price(new BigDecimal("1500.00"))
+                .stock(10)
+                .images(new ArrayList<>(List.of("laptop.jpg")))
+                .categoria(Categoria.builder().id(1L).nombre("Electrónica").build())
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.CategoriaVistaDTO;
+import com.ecommerce.entity.Categoria;
+import com.ecommerce.repository.CategoriaRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests Unitarios - CatalogoCategorias")
+class CatalogoCategoriasTest {
+
+    @Mock
+    private CategoriaRepository categoriaRepository;
+
+    @InjectMocks
+    private CatalogoCategorias catalogoCategorias;
+
+    @Test
+    @DisplayName("Debería construir la instantánea una sola vez y buscar por id y por nombre")
+    void testObtener() {
+        // Arrange
+        when(categoriaRepository.findAll()).thenReturn(List.of(categoria(2L, "Ropa"), categoria(1L, "Electrónica")));
+
+        // Act
+        CatalogoCategorias.Instantanea primera = catalogoCategorias.obtener();
+        CatalogoCategorias.Instantanea segunda = catalogoCategorias.obtener();
+
+        // Assert
+        assertSame(primera, segunda);
+        assertEquals(2, primera.cantidad());
+        assertEquals(List.of(1L, 2L), primera.getCategorias().stream().map(CategoriaVistaDTO::getId).toList());
+        assertEquals("Ropa", primera.porId(2L).orElseThrow().getNombre());
+        assertEquals(1L, primera.porNombre("Electrónica").orElseThrow().getId());
+        assertTrue(primera.porId(99L).isEmpty());
+        assertTrue(primera.porNombre(null).isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> primera.getCategorias().remove(0));
+        verify(categoriaRepository, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Debería publicar una instantánea nueva con otra versión sin tocar la anterior")
+    void testReconstruir() {
+        // Arrange
+        when(categoriaRepository.findAll())
+                .thenReturn(List.of(categoria(1L, "Electrónica")))
+                .thenReturn(List.of(categoria(1L, "Electrónica"), categoria(2L, "Ropa")));
+        CatalogoCategorias.Instantanea anterior = catalogoCategorias.obtener();
+
+        // Act
+        catalogoCategorias.reconstruir();
+        CatalogoCategorias.Instantanea nueva = catalogoCategorias.obtener();
+
+        // Assert
+        assertEquals(anterior.getVersion() + 1, nueva.getVersion());
+        assertEquals(1, anterior.cantidad());
+        assertTrue(anterior.porNombre("Ropa").isEmpty());
+        assertEquals(2L, nueva.porNombre("Ropa").orElseThrow().getId());
+    }
+
+    @Test
+    @DisplayName("Debería reconstruir recién cuando se confirma la transacción")
+    void testReconstruirDespuesDelCommit() {
+        // Arrange
+        when(categoriaRepository.findAll()).thenReturn(List.of(categoria(1L, "Electrónica")));
+        long version = catalogoCategorias.obtener().getVersion();
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            // Act
+            catalogoCategorias.reconstruirDespuesDelCommit();
+            assertEquals(version, catalogoCategorias.obtener().getVersion());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert
+        assertEquals(version + 1, catalogoCategorias.obtener().getVersion());
+        verify(categoriaRepository, times(2)).findAll();
+    }
+
+    private Categoria categoria(Long id, String nombre) {
+        return Categoria.builder().id(id).nombre(nombre).build();
+    }
+}
@@ -26,6 +26,15 @@ class CategoriaServiceTest {
     @Mock
     private CategoriaRepository categoriaRepository;
 
+    @Mock
+    private BusquedaProductosService busquedaProductosService;
+
+    @Mock
+    private CacheProductos cacheProductos;
+
+    @Mock
+    private CatalogoCategorias catalogoCategorias;
+
     @InjectMocks
     private CategoriaService categoriaService;
 
@@ -125,6 +134,27 @@ class CategoriaServiceTest {
         assertNotNull(resultado);
         assertNotNull(resultado.getId());
         verify(categoriaRepository, times(1)).save(any(Categoria.class));
+        // La categoría nueva pasa a las sugerencias del buscador
+        verify(busquedaProductosService, times(1)).reindexarCategoria(2L);
+        verifyNoInteractions(cacheProductos);
+        verify(catalogoCategorias, times(1)).reconstruirDespuesDelCommit();
+    }
+
+    @Test
+    @DisplayName("Debería reindexar los productos al actualizar una categoría existente")
+    void testSaveCategoria_Existente() {
+        // Arrange
+        categoria.setNombre("Electrónica");
+        when(categoriaRepository.save(categoria)).thenReturn(categoria);
+
+        // Act
+        categoriaService.saveCategoria(categoria);
+
+        // Assert
+        verify(busquedaProductosService, times(1)).reindexarCategoria(1L);
+        // El nombre de la categoría está en las vistas cacheadas de sus productos
+        verify(cacheProductos, times(1)).invalidarTodo();
+        verify(catalogoCategorias, times(1)).reconstruirDespuesDelCommit();
     }
 
     @Test
@@ -138,6 +168,24 @@ class CategoriaServiceTest {
 
         // Assert
         verify(categoriaRepository, times(1)).deleteById(1L);
+        verify(busquedaProductosService, times(1)).eliminarCategoria(1L);
+        verify(cacheProductos, times(1)).invalidarTodo();
+        verify(catalogoCategorias, times(1)).reconstruirDespuesDelCommit();
+    }
+
+    @Test
+    @DisplayName("Debería obtener la instantánea de categorías sin consultar la base")
+    void testObtenerInstantanea() {
+        // Arrange
+        CatalogoCategorias.Instantanea instantanea = new CatalogoCategorias.Instantanea(1L, List.of());
+        when(catalogoCategorias.obtener()).thenReturn(instantanea);
+
+        // Act
+        CatalogoCategorias.Instantanea resultado = categoriaService.obtenerInstantanea();
+
+        // Assert
+        assertSame(instantanea, resultado);
+        verifyNoInteractions(categoriaRepository);
     }
 
     @Test
@@ -0,0 +1,106 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.VentasPorEstadoDTO;
+import com.ecommerce.entity.EstadoPedido;
+import com.ecommerce.entity.Role;
+import com.ecommerce.repository.EstadisticaVendedorRepository;
+import com.ecommerce.repository.PedidoRepository;
+import com.ecommerce.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests Unitarios - EstadisticasGeneralesService")
+class EstadisticasGeneralesServiceTest {
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @Mock
+    private EstadisticaVendedorRepository estadisticaVendedorRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @InjectMocks
+    private EstadisticasGeneralesService estadisticasGeneralesService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(estadisticasGeneralesService, "refrescoSegundos", 300L);
+    }
+
+    @Test
+    @DisplayName("Debería calcular los totales del marketplace con consultas agregadas")
+    void testObtenerEstadisticasMarketplace() {
+        // Arrange
+        when(pedidoRepository.count()).thenReturn(4L);
+        when(estadisticaVendedorRepository.resumirPorEstado()).thenReturn(List.of(
+                new VentasPorEstadoDTO(EstadoPedido.PENDIENTE, 3L, 5L, new BigDecimal("50.00")),
+                new VentasPorEstadoDTO(EstadoPedido.ENTREGADO, 2L, 2L, new BigDecimal("20.00")),
+                new VentasPorEstadoDTO(EstadoPedido.CANCELADO_VENDEDOR, 1L, 1L, new BigDecimal("10.00"))));
+
+        // Act
+        Map<String, Object> estadisticas = estadisticasGeneralesService.obtenerEstadisticasMarketplace();
+
+        // Assert
+        assertEquals(4L, estadisticas.get("totalPedidos"));
+        assertEquals(6L, estadisticas.get("totalItems"));
+        assertEquals(3L, estadisticas.get("itemsPendientes"));
+        assertEquals(2L, estadisticas.get("itemsEntregados"));
+        // Las cancelaciones no suman al GMV
+        assertEquals(new BigDecimal("70.00"), estadisticas.get("gmv"));
+        verify(pedidoRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Debería servir la instantánea hasta que venza el intervalo de refresco")
+    void testObtenerEstadisticasUsuarios_Instantanea() {
+        // Arrange
+        when(usuarioRepository.count()).thenReturn(10L);
+        when(usuarioRepository.countByRole(Role.ADMIN)).thenReturn(2L);
+        when(usuarioRepository.countByRole(Role.USER)).thenReturn(8L);
+
+        // Act
+        Map<String, Object> primera = estadisticasGeneralesService.obtenerEstadisticasUsuarios();
+        Map<String, Object> segunda = estadisticasGeneralesService.obtenerEstadisticasUsuarios();
+
+        // Assert
+        assertSame(primera, segunda);
+        assertEquals(10L, primera.get("totalUsuarios"));
+        assertEquals(2L, primera.get("adminUsuarios"));
+        assertEquals(8L, primera.get("userUsuarios"));
+        verify(usuarioRepository, times(1)).count();
+        verify(usuarioRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Debería recalcular en cada lectura con refresco 0 o tras invalidar")
+    void testObtenerEstadisticasUsuarios_Refresco() {
+        // Arrange
+        when(usuarioRepository.count()).thenReturn(1L);
+        estadisticasGeneralesService.obtenerEstadisticasUsuarios();
+
+        // Act
+        estadisticasGeneralesService.invalidar();
+        estadisticasGeneralesService.obtenerEstadisticasUsuarios();
+        ReflectionTestUtils.setField(estadisticasGeneralesService, "refrescoSegundos", 0L);
+        estadisticasGeneralesService.obtenerEstadisticasUsuarios();
+
+        // Assert
+        verify(usuarioRepository, times(3)).count();
+    }
+}
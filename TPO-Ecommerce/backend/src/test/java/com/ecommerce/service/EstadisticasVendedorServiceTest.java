@@ -0,0 +1,148 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.DetallePedido;
+import com.ecommerce.entity.EstadisticaVendedor;
+import com.ecommerce.entity.EstadoPedido;
+import com.ecommerce.entity.Usuario;
+import com.ecommerce.repository.DetallePedidoRepository;
+import com.ecommerce.repository.EstadisticaVendedorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests Unitarios - EstadisticasVendedorService")
+class EstadisticasVendedorServiceTest {
+
+    @Mock
+    private EstadisticaVendedorRepository estadisticaVendedorRepository;
+
+    @Mock
+    private DetallePedidoRepository detallePedidoRepository;
+
+    @InjectMocks
+    private EstadisticasVendedorService estadisticasVendedorService;
+
+    private Usuario vendedor;
+
+    @BeforeEach
+    void setUp() {
+        vendedor = Usuario.builder()
+                .id(2L)
+                .nombre("Vendedor")
+                .build();
+    }
+
+    @Test
+    @DisplayName("Debería agrupar los items nuevos en un UPDATE por vendedor y estado")
+    void testRegistrarAltas_AgrupaPorVendedorYEstado() {
+        // Arrange
+        when(estadisticaVendedorRepository.acumular(2L, EstadoPedido.PENDIENTE, 2L, 5L, new BigDecimal("50.00")))
+                .thenReturn(1);
+
+        // Act
+        estadisticasVendedorService.registrarAltas(List.of(
+                item(2, EstadoPedido.PENDIENTE),
+                item(3, EstadoPedido.PENDIENTE)));
+
+        // Assert
+        verify(estadisticaVendedorRepository, times(1))
+                .acumular(2L, EstadoPedido.PENDIENTE, 2L, 5L, new BigDecimal("50.00"));
+        verify(estadisticaVendedorRepository, never()).insertar(any(), any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Debería mover el item del contador del estado anterior al nuevo")
+    void testRegistrarCambioEstado() {
+        // Arrange
+        DetallePedido detalle = item(2, EstadoPedido.CONFIRMADO);
+        when(estadisticaVendedorRepository.acumular(2L, EstadoPedido.PENDIENTE, -1L, -2L, new BigDecimal("-20.00")))
+                .thenReturn(1);
+        when(estadisticaVendedorRepository.acumular(2L, EstadoPedido.CONFIRMADO, 1L, 2L, new BigDecimal("20.00")))
+                .thenReturn(0);
+        when(estadisticaVendedorRepository.insertar(2L, EstadoPedido.CONFIRMADO, 1L, 2L, new BigDecimal("20.00")))
+                .thenReturn(true);
+
+        // Act
+        estadisticasVendedorService.registrarCambioEstado(detalle, EstadoPedido.PENDIENTE);
+
+        // Assert
+        // CONFIRMADO no tenía fila todavía: se crea con los valores del item
+        verify(estadisticaVendedorRepository, times(1))
+                .insertar(2L, EstadoPedido.CONFIRMADO, 1L, 2L, new BigDecimal("20.00"));
+        verify(estadisticaVendedorRepository, times(1))
+                .acumular(2L, EstadoPedido.CONFIRMADO, 1L, 2L, new BigDecimal("20.00"));
+    }
+
+    @Test
+    @DisplayName("Debería acumular sobre la fila que otra transacción creó entre el UPDATE y el INSERT")
+    void testRegistrarAltas_FilaCreadaEnParalelo() {
+        // Arrange
+        when(estadisticaVendedorRepository.acumular(2L, EstadoPedido.PENDIENTE, 1L, 2L, new BigDecimal("20.00")))
+                .thenReturn(0, 1);
+        when(estadisticaVendedorRepository.insertar(2L, EstadoPedido.PENDIENTE, 1L, 2L, new BigDecimal("20.00")))
+                .thenReturn(false);
+
+        // Act
+        estadisticasVendedorService.registrarAltas(List.of(item(2, EstadoPedido.PENDIENTE)));
+
+        // Assert
+        verify(estadisticaVendedorRepository, times(2))
+                .acumular(2L, EstadoPedido.PENDIENTE, 1L, 2L, new BigDecimal("20.00"));
+        verify(estadisticaVendedorRepository, never()).save(any(EstadisticaVendedor.class));
+    }
+
+    @Test
+    @DisplayName("Debería fallar si el reintento del UPDATE tampoco encuentra la fila")
+    void testRegistrarAltas_FilaInexistenteTrasReintento() {
+        // Arrange
+        when(estadisticaVendedorRepository.acumular(2L, EstadoPedido.PENDIENTE, 1L, 2L, new BigDecimal("20.00")))
+                .thenReturn(0, 0);
+        when(estadisticaVendedorRepository.insertar(2L, EstadoPedido.PENDIENTE, 1L, 2L, new BigDecimal("20.00")))
+                .thenReturn(false);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> estadisticasVendedorService.registrarAltas(List.of(item(2, EstadoPedido.PENDIENTE))));
+        verify(estadisticaVendedorRepository, times(2))
+                .acumular(2L, EstadoPedido.PENDIENTE, 1L, 2L, new BigDecimal("20.00"));
+    }
+
+    @Test
+    @DisplayName("Debería reconstruir los contadores desde detalle_pedidos")
+    void testReconstruir() {
+        // Arrange
+        List<EstadisticaVendedor> recalculadas = List.of(
+                new EstadisticaVendedor(2L, EstadoPedido.PENDIENTE, 1L, 2L, new BigDecimal("20.00")));
+        when(detallePedidoRepository.resumirVentasDeTodosLosVendedores()).thenReturn(recalculadas);
+
+        // Act
+        int filas = estadisticasVendedorService.reconstruir();
+
+        // Assert
+        assertEquals(1, filas);
+        verify(estadisticaVendedorRepository, times(1)).deleteAllInBatch();
+        verify(estadisticaVendedorRepository, times(1)).saveAll(recalculadas);
+    }
+
+    private DetallePedido item(int cantidad, EstadoPedido estado) {
+        return DetallePedido.builder()
+                .vendedor(vendedor)
+                .cantidad(cantidad)
+                .precioUnitario(new BigDecimal("10.00"))
+                .productoNombre("Producto")
+                .estadoItem(estado)
+                .build();
+    }
+}
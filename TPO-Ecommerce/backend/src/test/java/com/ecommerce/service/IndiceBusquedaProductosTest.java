@@ -0,0 +1,114 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductoIndexableDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests Unitarios - IndiceBusquedaProductos")
+class IndiceBusquedaProductosTest {
+
+    private IndiceBusquedaProductos indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceBusquedaProductos();
+        indice.reconstruir(Stream.of(
+                new ProductoIndexableDTO(1L, "Laptop Gamer", "Notebook con placa de video", "Electrónica"),
+                new ProductoIndexableDTO(2L, "Mochila", "Ideal para llevar la laptop", "Accesorios"),
+                new ProductoIndexableDTO(3L, "Auriculares inalámbricos", "Bluetooth con cancelación de ruido", "Electrónica"),
+                new ProductoIndexableDTO(4L, "Remera", "Algodón", "Ropa")));
+    }
+
+    @Test
+    @DisplayName("Debería ignorar mayúsculas y acentos en el texto y en la consulta")
+    void testBuscar_SinAcentos() {
+        // Act
+        List<Long> porCategoria = ids(indice.buscar("electronica", null, 10));
+        List<Long> conAcento = ids(indice.buscar("CANCELACIÓN", null, 10));
+
+        // Assert
+        assertEquals(List.of(1L, 3L), porCategoria);
+        assertEquals(List.of(3L), conAcento);
+    }
+
+    @Test
+    @DisplayName("Debería ordenar por relevancia: el nombre pesa más que la descripción")
+    void testBuscar_Relevancia() {
+        // Act
+        List<IndiceBusquedaProductos.Resultado> resultados = indice.buscar("laptop", null, 10);
+
+        // Assert
+        assertEquals(List.of(1L, 2L), ids(resultados));
+        assertTrue(resultados.get(0).puntaje() > resultados.get(1).puntaje());
+    }
+
+    @Test
+    @DisplayName("Debería exigir todos los términos de la consulta e ignorar artículos y preposiciones")
+    void testBuscar_TodosLosTerminos() {
+        // Act & Assert
+        assertEquals(List.of(1L), ids(indice.buscar("laptop de electrónica", null, 10)));
+        assertTrue(indice.buscar("laptop remera", null, 10).isEmpty());
+        assertTrue(indice.buscar("de la", null, 10).isEmpty());
+        assertTrue(indice.buscar(null, null, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Debería paginar a partir del último resultado sin repetir ni saltear")
+    void testBuscar_Paginacion() {
+        // Arrange
+        List<ProductoIndexableDTO> productos = new ArrayList<>();
+        for (long id = 1; id <= 25; id++) {
+            productos.add(new ProductoIndexableDTO(id, "Taza " + id, id % 2 == 0 ? "taza de cerámica" : null, null));
+        }
+        indice.reconstruir(productos.stream());
+
+        // Act
+        List<Long> recorridos = new ArrayList<>();
+        IndiceBusquedaProductos.Resultado desde = null;
+        List<IndiceBusquedaProductos.Resultado> pagina;
+        do {
+            pagina = indice.buscar("taza", desde, 10);
+            recorridos.addAll(ids(pagina));
+            desde = pagina.isEmpty() ? null : pagina.get(pagina.size() - 1);
+        } while (!pagina.isEmpty());
+
+        // Assert
+        assertEquals(25, recorridos.size());
+        assertEquals(25, recorridos.stream().distinct().count());
+    }
+
+    @Test
+    @DisplayName("Debería reemplazar los términos al reindexar y quitarlos al eliminar")
+    void testIndexarYEliminar() {
+        // Act
+        String nombreAnterior = indice.indexar(new ProductoIndexableDTO(4L, "Buzo", "Algodón", "Ropa"));
+        String nombreEliminado = indice.eliminar(2L);
+
+        // Assert
+        assertEquals("Remera", nombreAnterior);
+        assertEquals("Mochila", nombreEliminado);
+        assertNull(indice.eliminar(2L));
+        assertTrue(indice.buscar("remera", null, 10).isEmpty());
+        assertEquals(List.of(4L), ids(indice.buscar("buzo", null, 10)));
+        assertEquals(List.of(1L), ids(indice.buscar("laptop", null, 10)));
+        assertEquals(3, indice.cantidadProductos());
+    }
+
+    @Test
+    @DisplayName("Debería normalizar texto a minúsculas sin diacríticos")
+    void testNormalizar() {
+        assertEquals("electronica nino pinguino", IndiceBusquedaProductos.normalizar("Electrónica Niño Pingüino"));
+        assertEquals(List.of("zapatillas", "running"), IndiceBusquedaProductos.terminos("Zapatillas de Running!"));
+    }
+
+    private static List<Long> ids(List<IndiceBusquedaProductos.Resultado> resultados) {
+        return resultados.stream().map(IndiceBusquedaProductos.Resultado::id).toList();
+    }
+}
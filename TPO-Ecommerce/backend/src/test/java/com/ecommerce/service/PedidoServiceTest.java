@@ -1,28 +1,39 @@
 package com.ecommerce.service;
 
 import com.ecommerce.dto.CreatePedidoDTO;
+import com.ecommerce.dto.EstadoStockDTO;
+import com.ecommerce.dto.PaginaDTO;
+import com.ecommerce.dto.ResultadoActualizacionLoteDTO;
+import com.ecommerce.dto.VentasPorEstadoDTO;
 import com.ecommerce.entity.*;
 import com.ecommerce.exception.ProductoNotFoundException;
 import com.ecommerce.exception.StockInsuficienteException;
 import com.ecommerce.exception.UsuarioNotFoundException;
 import com.ecommerce.repository.*;
+import com.ecommerce.util.CursorPaginacion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,6 +52,16 @@ class PedidoServiceTest {
     @Mock
     private UsuarioRepository usuarioRepository;
 
+    @Mock
+    private EstadisticasVendedorService estadisticasVendedorService;
+
+    @Mock
+    private CacheProductos cacheProductos;
+
+    // Instancia real: la tabla de transiciones no tiene dependencias (las acciones se prueban aparte)
+    @Spy
+    private TransicionesEstadoItem transicionesEstadoItem = new TransicionesEstadoItem();
+
     @InjectMocks
     private PedidoService pedidoService;
 
@@ -71,6 +92,7 @@ class PedidoServiceTest {
                 .price(new BigDecimal("1500.00"))
                 .stock(10)
                 .ownerUser(vendedor)
+                .version(0L)
                 .build();
 
         pedido = Pedido.builder()
@@ -130,6 +152,79 @@ class PedidoServiceTest {
         verify(pedidoRepository, times(1)).findByUsuarioIdOrderByCreatedAtDesc(1L);
     }
 
+    @Test
+    @DisplayName("Debería paginar el historial por cursor y avisar si hay más pedidos")
+    void testListarPedidosDeUsuario_PrimeraPagina() {
+        // Arrange
+        LocalDateTime fecha = LocalDateTime.of(2024, 5, 10, 12, 0);
+        Pedido segundo = Pedido.builder().id(2L).usuario(usuario).createdAt(fecha.minusDays(1)).build();
+        Pedido tercero = Pedido.builder().id(3L).usuario(usuario).createdAt(fecha.minusDays(2)).build();
+        pedido.setCreatedAt(fecha);
+        when(pedidoRepository.buscarPrimeraPaginaPorUsuario(eq(1L), any(Pageable.class)))
+                .thenReturn(new ArrayList<>(List.of(pedido, segundo, tercero)));
+
+        // Act
+        PaginaDTO<Pedido> pagina = pedidoService.listarPedidosDeUsuario(1L, null, 2);
+
+        // Assert
+        assertEquals(List.of(pedido, segundo), pagina.getItems());
+        assertTrue(pagina.isHasMore());
+        CursorPaginacion cursor = CursorPaginacion.decodificar(pagina.getNextCursor());
+        assertEquals(2L, cursor.getId());
+        assertEquals(fecha.minusDays(1).toString(), cursor.getValor());
+        // Se pide una fila de más para saber si hay página siguiente
+        verify(pedidoRepository).buscarPrimeraPaginaPorUsuario(1L, PageRequest.of(0, 3));
+    }
+
+    @Test
+    @DisplayName("Debería continuar el historial desde la posición del cursor")
+    void testListarPedidosDeUsuario_PaginaSiguiente() {
+        // Arrange
+        LocalDateTime fecha = LocalDateTime.of(2024, 5, 10, 12, 0);
+        String cursor = CursorPaginacion.codificar(fecha, 5L);
+        when(pedidoRepository.buscarPaginaPorUsuario(eq(1L), eq(fecha), eq(5L), any(Pageable.class)))
+                .thenReturn(new ArrayList<>(List.of(pedido)));
+
+        // Act
+        PaginaDTO<Pedido> pagina = pedidoService.listarPedidosDeUsuario(1L, cursor, 20);
+
+        // Assert
+        assertEquals(1, pagina.getItems().size());
+        assertFalse(pagina.isHasMore());
+        assertNull(pagina.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar un cursor que no pertenece al listado")
+    void testListarPedidosDeUsuario_CursorInvalido() {
+        // Arrange
+        String cursor = CursorPaginacion.codificar("no-es-fecha", 5L);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> pedidoService.listarPedidosDeUsuario(1L, cursor, 20));
+        verifyNoInteractions(pedidoRepository);
+    }
+
+    @Test
+    @DisplayName("Debería paginar las ventas del vendedor filtrando por estado")
+    void testListarVentasDeVendedor_PorEstado() {
+        // Arrange
+        DetallePedido venta = agregarItem(pedido, EstadoPedido.CONFIRMADO);
+        venta.setCreatedAt(pedido.getCreatedAt());
+        when(detallePedidoRepository.buscarPrimeraPaginaPorVendedorYEstado(eq(2L), eq(EstadoPedido.CONFIRMADO),
+                any(Pageable.class))).thenReturn(new ArrayList<>(List.of(venta)));
+
+        // Act
+        PaginaDTO<DetallePedido> pagina = pedidoService.listarVentasDeVendedor(2L, EstadoPedido.CONFIRMADO, null, 500);
+
+        // Assert
+        assertEquals(List.of(venta), pagina.getItems());
+        assertFalse(pagina.isHasMore());
+        assertEquals(PedidoService.TAMANIO_PAGINA_MAXIMO, pagina.getSize());
+        verify(detallePedidoRepository, never()).buscarPrimeraPaginaPorVendedor(any(), any());
+    }
+
     @Test
     @DisplayName("Debería crear un pedido correctamente")
     void testCrearPedido() {
@@ -145,13 +240,13 @@ class PedidoServiceTest {
                 .build();
 
         when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
-        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(productoRepository.findByIdIn(Set.of(1L))).thenReturn(List.of(producto));
         when(pedidoRepository.save(any(Pedido.class))).thenAnswer(invocation -> {
             Pedido p = invocation.getArgument(0);
             p.setId(1L);
             return p;
         });
-        when(productoRepository.save(any(Producto.class))).thenReturn(producto);
+        when(productoRepository.reservarStock(eq(1L), eq(1), eq(0L), any(LocalDateTime.class))).thenReturn(1);
 
         // Act
         Pedido resultado = pedidoService.crearPedido(1L, createPedidoDTO);
@@ -160,8 +255,13 @@ class PedidoServiceTest {
         assertNotNull(resultado);
         assertEquals(1, resultado.getItems().size());
         verify(usuarioRepository, times(1)).findById(1L);
-        verify(productoRepository, times(1)).findById(1L);
+        verify(productoRepository, times(1)).findByIdIn(Set.of(1L));
+        verify(productoRepository, times(1)).reservarStock(eq(1L), eq(1), eq(0L), any(LocalDateTime.class));
+        verify(productoRepository, never()).buscarEstadoStock(anyLong());
+        verify(productoRepository, never()).save(any(Producto.class));
         verify(pedidoRepository, times(1)).save(any(Pedido.class));
+        verify(estadisticasVendedorService, times(1)).registrarAltas(resultado.getItems());
+        verify(cacheProductos, times(1)).invalidar(Set.of(1L));
     }
 
     @Test
@@ -194,7 +294,7 @@ class PedidoServiceTest {
                 .build();
 
         when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
-        when(productoRepository.findById(999L)).thenReturn(Optional.empty());
+        when(productoRepository.findByIdIn(Set.of(999L))).thenReturn(List.of());
 
         // Act & Assert
         assertThrows(ProductoNotFoundException.class,
@@ -217,11 +317,131 @@ class PedidoServiceTest {
                 .build();
 
         when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
-        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(productoRepository.findByIdIn(Set.of(1L))).thenReturn(List.of(producto));
 
         // Act & Assert
         assertThrows(StockInsuficienteException.class,
                 () -> pedidoService.crearPedido(1L, createPedidoDTO));
+        verify(productoRepository, never()).reservarStock(anyLong(), anyInt(), anyLong(), any());
+        verify(pedidoRepository, never()).save(any(Pedido.class));
+    }
+
+    @Test
+    @DisplayName("Debería descontar igual si otra operación modificó el producto, con el precio de la fila descontada")
+    void testCrearPedido_ConflictoDeVersionDescuentaSinVersion() {
+        // Arrange
+        CreatePedidoDTO createPedidoDTO = CreatePedidoDTO.builder()
+                .items(List.of(CreatePedidoDTO.ItemCarritoDTO.builder().productoId(1L).cantidad(2).build()))
+                .build();
+
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
+        when(productoRepository.findByIdIn(Set.of(1L))).thenReturn(List.of(producto));
+        // El vendedor cambió el precio entre la lectura y la reserva
+        when(productoRepository.reservarStock(eq(1L), eq(2), eq(0L), any(LocalDateTime.class))).thenReturn(0);
+        when(productoRepository.descontarStock(eq(1L), eq(2), any(LocalDateTime.class))).thenReturn(1);
+        when(productoRepository.buscarEstadoStock(1L))
+                .thenReturn(Optional.of(new EstadoStockDTO(2L, 8, new BigDecimal("1400.00"), "Laptop")));
+        when(pedidoRepository.save(any(Pedido.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Pedido resultado = pedidoService.crearPedido(1L, createPedidoDTO);
+
+        // Assert
+        assertEquals(new BigDecimal("1400.00"), resultado.getItems().get(0).getPrecioUnitario());
+        assertEquals(new BigDecimal("2800.00"), resultado.getTotal());
+        // Sin reintentos: un solo UPDATE condicionado a la versión y un descuento con la guarda de stock
+        verify(productoRepository, times(1)).reservarStock(anyLong(), anyInt(), anyLong(), any(LocalDateTime.class));
+        verify(productoRepository, times(1)).descontarStock(eq(1L), eq(2), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("Debería informar stock insuficiente si otra operación ya se llevó las unidades")
+    void testCrearPedido_ConflictoDeVersionSinStock() {
+        // Arrange
+        CreatePedidoDTO createPedidoDTO = CreatePedidoDTO.builder()
+                .items(List.of(CreatePedidoDTO.ItemCarritoDTO.builder().productoId(1L).cantidad(2).build()))
+                .build();
+
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
+        when(productoRepository.findByIdIn(Set.of(1L))).thenReturn(List.of(producto));
+        when(productoRepository.reservarStock(eq(1L), eq(2), eq(0L), any(LocalDateTime.class))).thenReturn(0);
+        when(productoRepository.descontarStock(eq(1L), eq(2), any(LocalDateTime.class))).thenReturn(0);
+        when(productoRepository.buscarEstadoStock(1L))
+                .thenReturn(Optional.of(new EstadoStockDTO(1L, 1, new BigDecimal("1500.00"), "Laptop")));
+
+        // Act & Assert
+        StockInsuficienteException excepcion = assertThrows(StockInsuficienteException.class,
+                () -> pedidoService.crearPedido(1L, createPedidoDTO));
+        assertTrue(excepcion.getMessage().contains("Disponible: 1"));
+        verify(productoRepository, times(1)).reservarStock(anyLong(), anyInt(), anyLong(), any());
+        verify(pedidoRepository, never()).save(any(Pedido.class));
+    }
+
+    @Test
+    @DisplayName("Debería agrupar productos repetidos y cargarlos en una sola consulta")
+    void testCrearPedido_ProductosRepetidos() {
+        // Arrange
+        CreatePedidoDTO createPedidoDTO = CreatePedidoDTO.builder()
+                .items(Arrays.asList(
+                        CreatePedidoDTO.ItemCarritoDTO.builder().productoId(1L).cantidad(2).build(),
+                        CreatePedidoDTO.ItemCarritoDTO.builder().productoId(1L).cantidad(3).build()))
+                .build();
+
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
+        when(productoRepository.findByIdIn(Set.of(1L))).thenReturn(List.of(producto));
+        when(productoRepository.reservarStock(eq(1L), eq(5), eq(0L), any(LocalDateTime.class))).thenReturn(1);
+        when(pedidoRepository.save(any(Pedido.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Pedido resultado = pedidoService.crearPedido(1L, createPedidoDTO);
+
+        // Assert
+        assertEquals(1, resultado.getItems().size());
+        assertEquals(5, resultado.getItems().get(0).getCantidad());
+        assertEquals(new BigDecimal("7500.00"), resultado.getTotal());
+        verify(productoRepository, times(1)).findByIdIn(Set.of(1L));
+        verify(productoRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar items con cantidad no positiva")
+    void testCrearPedido_CantidadInvalida() {
+        // Arrange
+        CreatePedidoDTO.ItemCarritoDTO itemDTO = CreatePedidoDTO.ItemCarritoDTO.builder()
+                .productoId(1L)
+                .cantidad(-3)
+                .build();
+
+        CreatePedidoDTO createPedidoDTO = CreatePedidoDTO.builder()
+                .items(Arrays.asList(itemDTO))
+                .build();
+
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> pedidoService.crearPedido(1L, createPedidoDTO));
+        verify(productoRepository, never()).reservarStock(anyLong(), anyInt(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Debería devolver el resumen de ventas por estado con ceros para estados sin ventas")
+    void testObtenerResumenVentasPorEstado() {
+        // Arrange
+        when(detallePedidoRepository.resumirVentasPorEstado(2L)).thenReturn(List.of(
+                new VentasPorEstadoDTO(EstadoPedido.PENDIENTE, 3L, 5L, new BigDecimal("7500.00")),
+                new VentasPorEstadoDTO(EstadoPedido.ENTREGADO, 1L, 1L, new BigDecimal("1500.00"))));
+
+        // Act
+        EnumMap<EstadoPedido, VentasPorEstadoDTO> resumen = pedidoService.obtenerResumenVentasPorEstado(2L);
+
+        // Assert
+        assertEquals(EstadoPedido.values().length, resumen.size());
+        assertEquals(3L, resumen.get(EstadoPedido.PENDIENTE).getCantidadItems());
+        assertEquals(new BigDecimal("1500.00"), resumen.get(EstadoPedido.ENTREGADO).getIngresos());
+        assertEquals(0L, resumen.get(EstadoPedido.CANCELADO_VENDEDOR).getCantidadItems());
+        verify(detallePedidoRepository, times(1)).resumirVentasPorEstado(2L);
+        verify(detallePedidoRepository, never()).findByVendedorIdOrderByPedidoCreatedAtDesc(anyLong());
     }
 
     @Test
@@ -240,6 +460,130 @@ class PedidoServiceTest {
         verify(pedidoRepository, times(1)).save(any(Pedido.class));
     }
 
+    @Test
+    @DisplayName("Debería derivar el estado del pedido desde el histograma sin recargar el pedido")
+    void testActualizarEstadoItem_DerivaEstadoDelHistograma() {
+        // Arrange
+        DetallePedido primero = agregarItem(pedido, EstadoPedido.PENDIENTE);
+        agregarItem(pedido, EstadoPedido.PENDIENTE);
+        when(detallePedidoRepository.findById(10L)).thenReturn(Optional.of(primero));
+        when(detallePedidoRepository.save(primero)).thenReturn(primero);
+
+        // Act
+        pedidoService.actualizarEstadoItem(10L, 2L, EstadoPedido.CONFIRMADO);
+
+        // Assert
+        assertEquals(EstadoPedido.CONFIRMADO, pedido.getEstado());
+        assertEquals(1, pedido.getHistogramaEstados().get(EstadoPedido.PENDIENTE));
+        assertEquals(1, pedido.getHistogramaEstados().get(EstadoPedido.CONFIRMADO));
+        verify(pedidoRepository, never()).findById(anyLong());
+        verify(estadisticasVendedorService, times(1)).registrarCambioEstado(primero, EstadoPedido.PENDIENTE);
+    }
+
+    @Test
+    @DisplayName("Debería armar el histograma desde los items en pedidos que no lo tienen")
+    void testActualizarEstadoItem_PedidoSinHistograma() {
+        // Arrange
+        DetallePedido item = DetallePedido.builder()
+                .id(10L)
+                .pedido(pedido)
+                .vendedor(producto.getOwnerUser())
+                .cantidad(1)
+                .precioUnitario(producto.getPrice())
+                .estadoItem(EstadoPedido.EN_TRANSITO)
+                .build();
+        pedido.getItems().add(item);
+        assertNull(pedido.getHistogramaEstados());
+        when(detallePedidoRepository.findById(10L)).thenReturn(Optional.of(item));
+        when(detallePedidoRepository.save(item)).thenReturn(item);
+
+        // Act
+        pedidoService.actualizarEstadoItem(10L, 2L, EstadoPedido.ENTREGADO);
+
+        // Assert
+        assertEquals(EstadoPedido.ENTREGADO, pedido.getEstado());
+        assertEquals(1, pedido.getHistogramaEstados().get(EstadoPedido.ENTREGADO));
+        assertFalse(pedido.getHistogramaEstados().containsKey(EstadoPedido.EN_TRANSITO));
+    }
+
+    @Test
+    @DisplayName("Debería rechazar una transición inválida sin modificar el item")
+    void testActualizarEstadoItem_TransicionInvalida() {
+        // Arrange
+        DetallePedido item = agregarItem(pedido, EstadoPedido.PENDIENTE);
+        when(detallePedidoRepository.findById(10L)).thenReturn(Optional.of(item));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> pedidoService.actualizarEstadoItem(10L, 2L, EstadoPedido.ENTREGADO));
+        assertEquals(EstadoPedido.PENDIENTE, item.getEstadoItem());
+        verify(detallePedidoRepository, never()).save(any(DetallePedido.class));
+    }
+
+    @Test
+    @DisplayName("Debería devolver los estados siguientes de una venta")
+    void testObtenerEstadosSiguientes() {
+        // Arrange
+        DetallePedido item = agregarItem(pedido, EstadoPedido.CONFIRMADO);
+        when(detallePedidoRepository.findById(10L)).thenReturn(Optional.of(item));
+
+        // Act
+        Set<EstadoPedido> siguientes = pedidoService.obtenerEstadosSiguientes(10L, 2L);
+
+        // Assert
+        assertEquals(Set.of(EstadoPedido.PREPARANDO, EstadoPedido.CANCELADO_VENDEDOR), siguientes);
+    }
+
+    @Test
+    @DisplayName("Debería actualizar ventas en lote informando las que fallan")
+    void testActualizarEstadoItems_Lote() {
+        // Arrange
+        DetallePedido primero = agregarItem(pedido, EstadoPedido.PENDIENTE);
+        DetallePedido segundo = agregarItem(pedido, EstadoPedido.PENDIENTE);
+        DetallePedido ajeno = DetallePedido.builder()
+                .id(20L)
+                .pedido(pedido)
+                .vendedor(usuario)
+                .estadoItem(EstadoPedido.PENDIENTE)
+                .build();
+        when(detallePedidoRepository.findByIdIn(Set.of(10L, 11L, 20L, 99L)))
+                .thenReturn(List.of(primero, segundo, ajeno));
+        when(detallePedidoRepository.actualizarEstado(List.of(10L, 11L), EstadoPedido.PENDIENTE, EstadoPedido.CONFIRMADO))
+                .thenReturn(2);
+
+        // Act
+        ResultadoActualizacionLoteDTO resultado = pedidoService.actualizarEstadoItems(
+                List.of(10L, 11L, 20L, 99L), 2L, EstadoPedido.CONFIRMADO);
+
+        // Assert
+        assertEquals(List.of(10L, 11L), resultado.getActualizados());
+        assertEquals(2, resultado.getFallidos().size());
+        assertEquals(20L, resultado.getFallidos().get(0).getDetalleId());
+        assertEquals("Venta no encontrada", resultado.getFallidos().get(1).getMotivo());
+        assertEquals(EstadoPedido.CONFIRMADO, pedido.getEstado());
+        assertEquals(2, pedido.getHistogramaEstados().get(EstadoPedido.CONFIRMADO));
+        verify(detallePedidoRepository, times(1)).actualizarEstado(anyCollection(), any(), any());
+        verify(detallePedidoRepository, never()).save(any(DetallePedido.class));
+        verify(estadisticasVendedorService, times(1))
+                .registrarCambiosEstado(List.of(primero, segundo), EstadoPedido.PENDIENTE, EstadoPedido.CONFIRMADO);
+        verify(pedidoRepository, times(1)).save(pedido);
+    }
+
+    @Test
+    @DisplayName("Debería revertir el lote si alguna venta cambió de estado durante la actualización")
+    void testActualizarEstadoItems_ModificacionConcurrente() {
+        // Arrange
+        DetallePedido item = agregarItem(pedido, EstadoPedido.PENDIENTE);
+        when(detallePedidoRepository.findByIdIn(Set.of(10L))).thenReturn(List.of(item));
+        when(detallePedidoRepository.actualizarEstado(List.of(10L), EstadoPedido.PENDIENTE, EstadoPedido.CONFIRMADO))
+                .thenReturn(0);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> pedidoService.actualizarEstadoItems(List.of(10L), 2L, EstadoPedido.CONFIRMADO));
+        verify(pedidoRepository, never()).save(any(Pedido.class));
+    }
+
     @Test
     @DisplayName("Debería obtener pedidos por estado")
     void testObtenerPedidosPorEstado() {
@@ -255,5 +599,19 @@ class PedidoServiceTest {
         assertEquals(1, resultado.size());
         verify(pedidoRepository, times(1)).findByEstado(EstadoPedido.PENDIENTE);
     }
-}
 
+    private DetallePedido agregarItem(Pedido pedido, EstadoPedido estado) {
+        DetallePedido item = DetallePedido.builder()
+                .id(10L + pedido.getItems().size())
+                .pedido(pedido)
+                .producto(producto)
+                .vendedor(producto.getOwnerUser())
+                .cantidad(1)
+                .precioUnitario(producto.getPrice())
+                .productoNombre(producto.getName())
+                .estadoItem(estado)
+                .build();
+        pedido.agregarItem(item);
+        return item;
+    }
+}
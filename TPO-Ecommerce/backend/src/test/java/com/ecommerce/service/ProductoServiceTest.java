@@ -1,10 +1,17 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.PaginaDTO;
+import com.ecommerce.dto.ProductoFiltroDTO;
+import com.ecommerce.dto.ProductoVistaDTO;
+import com.ecommerce.dto.VersionProductoDTO;
 import com.ecommerce.entity.Categoria;
 import com.ecommerce.entity.Producto;
 import com.ecommerce.entity.Usuario;
+import com.ecommerce.exception.PrecondicionRequeridaException;
+import com.ecommerce.repository.OrdenProducto;
 import com.ecommerce.repository.ProductoRepository;
 import com.ecommerce.service.UsuarioService;
+import com.ecommerce.util.CursorPaginacion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,6 +19,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -21,6 +29,8 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +43,12 @@ class ProductoServiceTest {
     @Mock
     private UsuarioService usuarioService;
 
+    @Mock
+    private BusquedaProductosService busquedaProductosService;
+
+    @Mock
+    private CacheProductos cacheProductos;
+
     @InjectMocks
     private ProductoService productoService;
 
@@ -65,6 +81,7 @@ class ProductoServiceTest {
                 .categoria(categoria)
                 .ownerUser(usuario)
                 .createdAt(LocalDateTime.now())
+                .version(3L)
                 .build();
     }
 
@@ -114,6 +131,42 @@ class ProductoServiceTest {
         verify(productoRepository, times(1)).findById(999L);
     }
 
+    @Test
+    @DisplayName("Debería obtener la vista de detalle desde la cache de productos")
+    void testObtenerVistaProducto() {
+        // Arrange
+        ProductoVistaDTO vista = new ProductoVistaDTO(producto);
+        when(cacheProductos.obtener(1L)).thenReturn(Optional.of(vista));
+
+        // Act
+        Optional<ProductoVistaDTO> resultado = productoService.obtenerVistaProducto(1L);
+
+        // Assert
+        assertSame(vista, resultado.orElseThrow());
+        verify(cacheProductos, times(1)).obtener(1L);
+        verifyNoInteractions(productoRepository);
+    }
+
+    @Test
+    @DisplayName("Debería obtener la versión y la última modificación de la cache o con una consulta liviana")
+    void testObtenerVersion() {
+        // Arrange
+        VersionProductoDTO version = new VersionProductoDTO(7L, LocalDateTime.of(2024, 5, 1, 10, 30));
+        when(cacheProductos.buscar(1L)).thenReturn(Optional.of(new ProductoVistaDTO(producto)));
+        when(cacheProductos.buscar(2L)).thenReturn(Optional.empty());
+        when(productoRepository.findVersion(2L)).thenReturn(Optional.of(version));
+
+        // Act
+        Optional<VersionProductoDTO> cacheado = productoService.obtenerVersion(1L);
+        Optional<VersionProductoDTO> consultado = productoService.obtenerVersion(2L);
+
+        // Assert
+        assertEquals(new VersionProductoDTO(3L, producto.getCreatedAt()), cacheado.orElseThrow());
+        assertEquals(version, consultado.orElseThrow());
+        verify(productoRepository, never()).findVersion(1L);
+        verify(productoRepository, never()).findById(anyLong());
+    }
+
     @Test
     @DisplayName("Debería crear un nuevo producto correctamente")
     void testCrearProducto() {
@@ -144,34 +197,122 @@ class ProductoServiceTest {
         assertEquals(ownerUserId, resultado.getOwnerUser().getId());
         verify(usuarioService, times(1)).findById(ownerUserId);
         verify(productoRepository, times(1)).save(any(Producto.class));
+        verify(busquedaProductosService, times(1)).indexar(resultado);
+        verify(cacheProductos, times(1)).invalidar(2L);
     }
 
     @Test
-    @DisplayName("Debería actualizar un producto existente")
+    @DisplayName("Debería actualizar un producto existente sin perder categoría, vendedor ni fecha de alta")
     void testActualizarProducto_Existe() {
         // Arrange
+        LocalDateTime creado = producto.getCreatedAt();
         Producto productoActualizado = Producto.builder()
                 .name("Laptop Actualizada")
                 .price(new BigDecimal("1600.00"))
                 .stock(15)
                 .build();
 
+        String ifMatch = ProductoService.etag(producto, 5L);
+
         when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
-        when(productoRepository.save(any(Producto.class))).thenAnswer(invocation -> {
+        when(productoRepository.saveAndFlush(any(Producto.class))).thenAnswer(invocation -> {
             Producto p = invocation.getArgument(0);
             p.setUpdatedAt(LocalDateTime.now());
             return p;
         });
 
         // Act
-        Optional<Producto> resultado = productoService.actualizarProducto(1L, productoActualizado);
+        Optional<Producto> resultado = productoService.actualizarProducto(1L, productoActualizado, ifMatch);
 
         // Assert
         assertTrue(resultado.isPresent());
+        assertSame(producto, resultado.get());
         assertEquals(1L, resultado.get().getId());
         assertEquals("Laptop Actualizada", resultado.get().getName());
+        assertEquals(15, resultado.get().getStock());
+        assertEquals(categoria, resultado.get().getCategoria());
+        assertEquals(usuario, resultado.get().getOwnerUser());
+        assertEquals(creado, resultado.get().getCreatedAt());
         verify(productoRepository, times(1)).findById(1L);
-        verify(productoRepository, times(1)).save(any(Producto.class));
+        verify(productoRepository, times(1)).saveAndFlush(producto);
+        verify(busquedaProductosService, times(1)).indexar(resultado.get());
+        verify(cacheProductos, times(1)).invalidar(1L);
+    }
+
+    @Test
+    @DisplayName("Debería aceptar un If-Match con comparación débil o comodín")
+    void testActualizarProducto_IfMatchDebil() {
+        // Arrange
+        Producto productoActualizado = Producto.builder()
+                .name("Laptop Actualizada")
+                .build();
+        String etagViejo = ProductoService.etag(1L, 2L, 5L);
+        String etagActual = ProductoService.etag(producto, 5L);
+
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(productoRepository.saveAndFlush(any(Producto.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act & Assert
+        // El ETag vale con o sin "W/" y en una lista; "*" acepta cualquier versión
+        assertTrue(productoService.actualizarProducto(1L, productoActualizado,
+                etagViejo + ", " + etagActual.substring(2)).isPresent());
+        assertTrue(productoService.actualizarProducto(1L, productoActualizado, "*").isPresent());
+        verify(productoRepository, times(2)).saveAndFlush(producto);
+    }
+
+    @Test
+    @DisplayName("Debería rechazar la actualización si el producto cambió desde la lectura")
+    void testActualizarProducto_PrecondicionFallida() {
+        // Arrange
+        Producto productoActualizado = Producto.builder()
+                .name("Laptop Actualizada")
+                .build();
+        String etagViejo = ProductoService.etag(1L, 2L, 5L);
+
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+
+        // Act & Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> productoService.actualizarProducto(1L, productoActualizado, etagViejo));
+        assertEquals("Laptop", producto.getName());
+        verify(productoRepository, never()).saveAndFlush(any(Producto.class));
+        verify(cacheProductos, never()).invalidar(anyLong());
+    }
+
+    @Test
+    @DisplayName("Debería aceptar el ETag de una generación anterior del catálogo si el producto no cambió")
+    void testActualizarProducto_GeneracionVieja() {
+        // Arrange: después de la lectura se editó otro usuario o una categoría (o se reinició el servidor)
+        Producto productoActualizado = Producto.builder()
+                .name("Laptop Actualizada")
+                .build();
+        String etagGeneracionVieja = ProductoService.etag(producto, 5L);
+
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(productoRepository.saveAndFlush(any(Producto.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act & Assert
+        assertTrue(productoService.actualizarProducto(1L, productoActualizado, etagGeneracionVieja).isPresent());
+        verify(productoRepository, times(1)).saveAndFlush(producto);
+        verify(cacheProductos, never()).generacion();
+    }
+
+    @Test
+    @DisplayName("Debería exigir If-Match para actualizar")
+    void testActualizarProducto_SinIfMatch() {
+        // Arrange
+        Producto productoActualizado = Producto.builder()
+                .name("Laptop Actualizada")
+                .build();
+
+        // Act & Assert
+        assertThrows(PrecondicionRequeridaException.class,
+                () -> productoService.actualizarProducto(1L, productoActualizado, null));
+        assertThrows(PrecondicionRequeridaException.class,
+                () -> productoService.actualizarProducto(1L, productoActualizado, " "));
+        assertEquals("Laptop", producto.getName());
+        verify(productoRepository, never()).findById(anyLong());
+        verify(productoRepository, never()).saveAndFlush(any(Producto.class));
     }
 
     @Test
@@ -185,12 +326,12 @@ class ProductoServiceTest {
         when(productoRepository.findById(999L)).thenReturn(Optional.empty());
 
         // Act
-        Optional<Producto> resultado = productoService.actualizarProducto(999L, productoActualizado);
+        Optional<Producto> resultado = productoService.actualizarProducto(999L, productoActualizado, "*");
 
         // Assert
         assertFalse(resultado.isPresent());
         verify(productoRepository, times(1)).findById(999L);
-        verify(productoRepository, never()).save(any(Producto.class));
+        verify(productoRepository, never()).saveAndFlush(any(Producto.class));
     }
 
     @Test
@@ -207,6 +348,8 @@ class ProductoServiceTest {
         assertTrue(resultado);
         verify(productoRepository, times(1)).existsById(1L);
         verify(productoRepository, times(1)).deleteById(1L);
+        verify(busquedaProductosService, times(1)).eliminar(1L);
+        verify(cacheProductos, times(1)).invalidar(1L);
     }
 
     @Test
@@ -222,86 +365,88 @@ class ProductoServiceTest {
         assertFalse(resultado);
         verify(productoRepository, times(1)).existsById(999L);
         verify(productoRepository, never()).deleteById(anyLong());
+        verifyNoInteractions(busquedaProductosService, cacheProductos);
     }
 
     @Test
-    @DisplayName("Debería buscar productos por nombre")
-    void testBuscarProductosPorNombre() {
+    @DisplayName("Debería contar productos correctamente")
+    void testContarProductos() {
         // Arrange
-        List<Producto> productosEsperados = Arrays.asList(producto);
-        when(productoRepository.findByNombreContainingIgnoreCase("laptop")).thenReturn(productosEsperados);
+        when(productoRepository.count()).thenReturn(5L);
 
         // Act
-        List<Producto> resultado = productoService.buscarProductosPorNombre("laptop");
+        long resultado = productoService.contarProductos();
 
         // Assert
-        assertNotNull(resultado);
-        assertEquals(1, resultado.size());
-        verify(productoRepository, times(1)).findByNombreContainingIgnoreCase("laptop");
+        assertEquals(5L, resultado);
+        verify(productoRepository, times(1)).count();
     }
 
     @Test
-    @DisplayName("Debería retornar todos los productos cuando el nombre es nulo o vacío")
-    void testBuscarProductosPorNombre_NuloOVacio() {
+    @DisplayName("Debería verificar si existe un producto")
+    void testExisteProducto() {
         // Arrange
-        List<Producto> todosLosProductos = Arrays.asList(producto);
-        when(productoRepository.findAll()).thenReturn(todosLosProductos);
+        when(productoRepository.existsById(1L)).thenReturn(true);
+        when(productoRepository.existsById(999L)).thenReturn(false);
 
         // Act
-        List<Producto> resultado1 = productoService.buscarProductosPorNombre(null);
-        List<Producto> resultado2 = productoService.buscarProductosPorNombre("");
+        boolean existe1 = productoService.existeProducto(1L);
+        boolean existe2 = productoService.existeProducto(999L);
 
         // Assert
-        assertNotNull(resultado1);
-        assertNotNull(resultado2);
-        verify(productoRepository, times(2)).findAll();
+        assertTrue(existe1);
+        assertFalse(existe2);
+        verify(productoRepository, times(2)).existsById(anyLong());
     }
 
     @Test
-    @DisplayName("Debería buscar productos por categoría")
-    void testBuscarProductosPorCategoria() {
+    @DisplayName("Debería devolver cursor siguiente cuando hay más productos que el tamaño de página")
+    void testListarProductos_HayMasPaginas() {
         // Arrange
-        List<Producto> productosEsperados = Arrays.asList(producto);
-        when(productoRepository.findByCategoriaId(1L)).thenReturn(productosEsperados);
+        Producto otro = Producto.builder()
+                .id(2L)
+                .name("Mouse")
+                .price(new BigDecimal("20.00"))
+                .stock(3)
+                .build();
+        ProductoFiltroDTO filtro = new ProductoFiltroDTO();
+        when(productoRepository.buscarPagina(eq(filtro), eq(OrdenProducto.PRICE), eq(false), isNull(), eq(2)))
+                .thenReturn(Arrays.asList(producto, otro));
 
         // Act
-        List<Producto> resultado = productoService.buscarProductosPorCategoria(1L);
+        PaginaDTO<Producto> resultado = productoService.listarProductos(filtro, OrdenProducto.PRICE, false, null, 1);
 
         // Assert
-        assertNotNull(resultado);
-        assertEquals(1, resultado.size());
-        verify(productoRepository, times(1)).findByCategoriaId(1L);
+        assertEquals(1, resultado.getItems().size());
+        assertTrue(resultado.isHasMore());
+        CursorPaginacion cursor = CursorPaginacion.decodificar(resultado.getNextCursor());
+        assertEquals("1500.00", cursor.getValor());
+        assertEquals(1L, cursor.getId());
     }
 
     @Test
-    @DisplayName("Debería contar productos correctamente")
-    void testContarProductos() {
+    @DisplayName("Debería limitar el tamaño de página al máximo permitido")
+    void testListarProductos_LimitaTamanio() {
         // Arrange
-        when(productoRepository.count()).thenReturn(5L);
+        when(productoRepository.buscarPagina(isNull(), eq(OrdenProducto.ID), eq(false), isNull(),
+                eq(ProductoService.TAMANIO_PAGINA_MAXIMO + 1)))
+                .thenReturn(Arrays.asList(producto));
 
         // Act
-        long resultado = productoService.contarProductos();
+        PaginaDTO<Producto> resultado = productoService.listarProductos(null, OrdenProducto.ID, false, null, 10_000);
 
         // Assert
-        assertEquals(5L, resultado);
-        verify(productoRepository, times(1)).count();
+        assertEquals(ProductoService.TAMANIO_PAGINA_MAXIMO, resultado.getSize());
+        assertFalse(resultado.isHasMore());
+        assertNull(resultado.getNextCursor());
     }
 
     @Test
-    @DisplayName("Debería verificar si existe un producto")
-    void testExisteProducto() {
-        // Arrange
-        when(productoRepository.existsById(1L)).thenReturn(true);
-        when(productoRepository.existsById(999L)).thenReturn(false);
-
-        // Act
-        boolean existe1 = productoService.existeProducto(1L);
-        boolean existe2 = productoService.existeProducto(999L);
-
-        // Assert
-        assertTrue(existe1);
-        assertFalse(existe2);
-        verify(productoRepository, times(2)).existsById(anyLong());
+    @DisplayName("Debería rechazar un cursor inválido")
+    void testListarProductos_CursorInvalido() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> productoService.listarProductos(null, OrdenProducto.ID, false, "no-es-un-cursor", 20));
+        verify(productoRepository, never()).buscarPagina(any(), any(), anyBoolean(), any(), anyInt());
     }
 }
-
@@ -0,0 +1,121 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.SugerenciaDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests Unitarios - SugerenciasProductos")
+class SugerenciasProductosTest {
+
+    private SugerenciasProductos sugerencias;
+
+    @BeforeEach
+    void setUp() {
+        sugerencias = new SugerenciasProductos();
+        sugerencias.reconstruir(
+                List.of("Laptop Gamer", "Lámpara de escritorio", "Laptop", "Mochila para laptop", "Laptop"),
+                List.of("Electrónica", "Librería"));
+    }
+
+    @Test
+    @DisplayName("Debería sugerir por prefijo sin importar mayúsculas, acentos ni separadores")
+    void testSugerir_Prefijo() {
+        // Act & Assert
+        assertEquals(List.of("Lámpara de escritorio"), textos(sugerencias.sugerir("LAMP", 10)));
+        assertEquals(List.of("Lámpara de escritorio"), textos(sugerencias.sugerir("lampara  de-esc", 10)));
+        assertTrue(sugerencias.sugerir("laptops", 10).isEmpty());
+        assertTrue(sugerencias.sugerir("  ", 10).isEmpty());
+        assertTrue(sugerencias.sugerir(null, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Debería sugerir también desde las palabras siguientes del nombre, salvo preposiciones")
+    void testSugerir_PalabrasSiguientes() {
+        // Act & Assert
+        assertEquals(List.of("Laptop Gamer"), textos(sugerencias.sugerir("gam", 10)));
+        assertEquals(List.of("Lámpara de escritorio"), textos(sugerencias.sugerir("escri", 10)));
+        assertTrue(sugerencias.sugerir("de esc", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Debería ordenar categorías primero y después los nombres con más productos")
+    void testSugerir_Orden() {
+        // Act
+        List<SugerenciaDTO> resultado = sugerencias.sugerir("l", 10);
+
+        // Assert
+        assertEquals(List.of("Librería", "Laptop", "Laptop Gamer", "Mochila para laptop", "Lámpara de escritorio"),
+                textos(resultado));
+        assertEquals(SugerenciaDTO.Tipo.CATEGORIA, resultado.get(0).getTipo());
+        assertEquals(SugerenciaDTO.Tipo.PRODUCTO, resultado.get(1).getTipo());
+        assertEquals(2, sugerencias.sugerir("lap", 2).size());
+    }
+
+    @Test
+    @DisplayName("Debería guardar como máximo MAXIMO_SUGERENCIAS por prefijo")
+    void testSugerir_Maximo() {
+        // Arrange
+        List<String> nombres = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            nombres.add("Taza " + i);
+        }
+        sugerencias.reconstruir(nombres, List.of());
+
+        // Act & Assert
+        assertEquals(SugerenciasProductos.MAXIMO_SUGERENCIAS, sugerencias.sugerir("taza", 100).size());
+        assertEquals(List.of("Taza 4", "Taza 40", "Taza 41"), textos(sugerencias.sugerir("taza 4", 3)));
+    }
+
+    @Test
+    @DisplayName("Debería actualizar las sugerencias al editar o eliminar un producto y liberar sus nodos")
+    void testReemplazarProducto() {
+        // Arrange
+        int nodosAlInicio = sugerencias.cantidadNodos();
+
+        // Act: un producto nuevo, una edición y una eliminación de uno de los dos "Laptop"
+        sugerencias.reemplazarProducto(null, "Laptop Ultra");
+        sugerencias.reemplazarProducto("Laptop Ultra", "Laptop Ultra Delgada");
+        sugerencias.reemplazarProducto("Laptop", null);
+
+        // Assert
+        assertEquals(List.of("Laptop", "Laptop Gamer", "Mochila para laptop", "Laptop Ultra Delgada"),
+                textos(sugerencias.sugerir("laptop", 10)));
+        assertEquals(List.of("Laptop Ultra Delgada"), textos(sugerencias.sugerir("ultra", 10)));
+
+        // Act: al quitar el producto agregado, el trie vuelve a su tamaño original
+        sugerencias.reemplazarProducto("Laptop Ultra Delgada", null);
+
+        // Assert
+        assertEquals(nodosAlInicio, sugerencias.cantidadNodos());
+        assertTrue(sugerencias.sugerir("ultra", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Debería reemplazar las categorías sugeridas")
+    void testReemplazarCategorias() {
+        // Act
+        sugerencias.reemplazarCategorias(List.of("Electrónica", "Libros"));
+
+        // Assert
+        assertEquals(List.of("Libros"), textos(sugerencias.sugerir("lib", 10)));
+        assertEquals(List.of("Electrónica"), textos(sugerencias.sugerir("elec", 10)));
+        assertEquals(6, sugerencias.cantidadNombres());
+    }
+
+    @Test
+    @DisplayName("Debería armar la clave con las palabras normalizadas")
+    void testClave() {
+        assertEquals("funda p laptop", SugerenciasProductos.clave("  Funda p/ Laptop "));
+        assertEquals("", SugerenciasProductos.clave(null));
+    }
+
+    private static List<String> textos(List<SugerenciaDTO> sugerencias) {
+        return sugerencias.stream().map(SugerenciaDTO::getTexto).toList();
+    }
+}
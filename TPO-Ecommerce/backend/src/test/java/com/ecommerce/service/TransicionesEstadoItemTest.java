@@ -0,0 +1,140 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.DetallePedido;
+import com.ecommerce.entity.EstadoPedido;
+import com.ecommerce.entity.Pedido;
+import com.ecommerce.entity.Producto;
+import com.ecommerce.repository.ProductoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests Unitarios - TransicionesEstadoItem")
+class TransicionesEstadoItemTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private CacheProductos cacheProductos;
+
+    @InjectMocks
+    private TransicionesEstadoItem transiciones;
+
+    private Pedido pedido;
+
+    @BeforeEach
+    void setUp() {
+        transiciones.registrarAcciones();
+        pedido = Pedido.builder()
+                .id(1L)
+                .total(BigDecimal.ZERO)
+                .items(new ArrayList<>())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Debería listar los estados siguientes de PENDIENTE")
+    void testSiguientesEstados() {
+        // Act
+        Set<EstadoPedido> siguientes = transiciones.siguientesEstados(EstadoPedido.PENDIENTE);
+
+        // Assert
+        assertEquals(Set.of(EstadoPedido.CONFIRMADO, EstadoPedido.CANCELADO_VENDEDOR,
+                EstadoPedido.CANCELADO_COMPRADOR), siguientes);
+        assertThrows(UnsupportedOperationException.class, () -> siguientes.add(EstadoPedido.ENTREGADO));
+    }
+
+    @ParameterizedTest(name = "{0} es final")
+    @EnumSource(value = EstadoPedido.class, names = {"CANCELADO", "CANCELADO_COMPRADOR", "CANCELADO_VENDEDOR", "DEVUELTO"})
+    @DisplayName("Los estados finales no admiten transiciones")
+    void testEstadosFinales(EstadoPedido estado) {
+        // Act & Assert
+        assertTrue(transiciones.siguientesEstados(estado).isEmpty());
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> transiciones.validarTransicion(estado, EstadoPedido.PENDIENTE));
+        assertEquals("No se puede cambiar el estado de un item cancelado o devuelto", ex.getMessage());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar saltear estados")
+    void testValidarTransicion_Invalida() {
+        // Act & Assert
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> transiciones.validarTransicion(EstadoPedido.PREPARANDO, EstadoPedido.ENTREGADO));
+        assertEquals("Transición de estado inválida desde PREPARANDO", ex.getMessage());
+    }
+
+    @Test
+    @DisplayName("Debería devolver el stock al cancelar por parte del vendedor")
+    void testTransicionar_CancelacionDevuelveStock() {
+        // Arrange
+        DetallePedido item = item(EstadoPedido.CONFIRMADO);
+
+        // Act
+        transiciones.transicionar(item, EstadoPedido.CANCELADO_VENDEDOR);
+
+        // Assert
+        assertEquals(EstadoPedido.CANCELADO_VENDEDOR, item.getEstadoItem());
+        assertEquals(1, pedido.getHistogramaEstados().get(EstadoPedido.CANCELADO_VENDEDOR));
+        verify(productoRepository, times(1)).devolverStock(5L, 3);
+        verify(cacheProductos, times(1)).invalidar(Set.of(5L));
+    }
+
+    @Test
+    @DisplayName("No debería tocar el stock en transiciones que no cancelan")
+    void testTransicionar_SinAcciones() {
+        // Arrange
+        DetallePedido item = item(EstadoPedido.PENDIENTE);
+
+        // Act
+        transiciones.transicionar(item, EstadoPedido.CONFIRMADO);
+
+        // Assert
+        assertEquals(EstadoPedido.CONFIRMADO, item.getEstadoItem());
+        verify(productoRepository, never()).devolverStock(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Debería ejecutar las acciones registradas al entrar a un estado")
+    void testAlEntrar() {
+        // Arrange
+        DetallePedido item = item(EstadoPedido.ENVIADO);
+        ArrayList<DetallePedido> entregados = new ArrayList<>();
+        transiciones.alEntrar(EstadoPedido.ENTREGADO, entregados::addAll);
+
+        // Act
+        transiciones.transicionar(item, EstadoPedido.ENTREGADO);
+
+        // Assert
+        assertEquals(1, entregados.size());
+        assertSame(item, entregados.get(0));
+    }
+
+    private DetallePedido item(EstadoPedido estado) {
+        DetallePedido item = DetallePedido.builder()
+                .id(10L)
+                .pedido(pedido)
+                .producto(Producto.builder().id(5L).name("Producto").build())
+                .cantidad(3)
+                .precioUnitario(new BigDecimal("10.00"))
+                .estadoItem(estado)
+                .build();
+        pedido.agregarItem(item);
+        return item;
+    }
+}
@@ -3,6 +3,8 @@ package com.ecommerce.service;
 import com.ecommerce.entity.Role;
 import com.ecommerce.entity.Usuario;
 import com.ecommerce.repository.UsuarioRepository;
+import com.ecommerce.security.CachePrincipales;
+import com.ecommerce.security.RevocacionTokens;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -11,6 +13,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Arrays;
 import java.util.List;
@@ -31,6 +35,15 @@ class UsuarioServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private RevocacionTokens revocacionTokens;
+
+    @Mock
+    private CachePrincipales cachePrincipales;
+
+    @Mock
+    private CacheProductos cacheProductos;
+
     @InjectMocks
     private UsuarioService usuarioService;
 
@@ -256,6 +269,61 @@ class UsuarioServiceTest {
 
         // Assert
         verify(usuarioRepository, times(1)).deleteById(1L);
+        verify(revocacionTokens, times(1)).revocarTodos(1L);
+        verify(cachePrincipales, times(1)).invalidar(1L);
+        verify(cacheProductos, times(1)).invalidarTodo();
+    }
+
+    @Test
+    @DisplayName("Debería incrementar la versión de token al cambiar el rol")
+    void testActualizarRol_InvalidaTokensAnteriores() {
+        // Arrange
+        usuario.setTokenVersion(3L);
+        when(usuarioRepository.save(usuario)).thenReturn(usuario);
+
+        // Act
+        Usuario resultado = usuarioService.actualizarRol(usuario, Role.ADMIN);
+
+        // Assert
+        assertEquals(Role.ADMIN, resultado.getRole());
+        assertEquals(4L, resultado.getTokenVersion());
+        verify(revocacionTokens, times(1)).revocar(1L, 4L);
+        verify(cachePrincipales, times(1)).invalidar("juan@test.com");
+    }
+
+    @Test
+    @DisplayName("Debería registrar la revocación recién cuando se confirma el cambio de rol")
+    void testActualizarRol_RevocaDespuesDelCommit() {
+        // Arrange
+        when(usuarioRepository.save(usuario)).thenReturn(usuario);
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            // Act
+            usuarioService.actualizarRol(usuario, Role.ADMIN);
+            verifyNoInteractions(revocacionTokens, cachePrincipales);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert
+        verify(revocacionTokens, times(1)).revocar(1L, 1L);
+        verify(cachePrincipales, times(1)).invalidar("juan@test.com");
+    }
+
+    @Test
+    @DisplayName("No debería invalidar tokens si el rol no cambia")
+    void testActualizarRol_MismoRol() {
+        // Arrange
+        when(usuarioRepository.save(usuario)).thenReturn(usuario);
+
+        // Act
+        usuarioService.actualizarRol(usuario, Role.USER);
+
+        // Assert
+        assertEquals(0L, usuario.getTokenVersion());
+        verifyNoInteractions(revocacionTokens);
     }
 }
 
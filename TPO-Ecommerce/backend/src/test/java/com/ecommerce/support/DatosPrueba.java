@@ -0,0 +1,53 @@
+package com.ecommerce.support;
+
+import com.ecommerce.entity.Role;
+import com.ecommerce.entity.Usuario;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Datos de prueba y limpieza compartidos por los tests
+ */
+public final class DatosPrueba {
+
+    // En orden inverso a las claves foráneas: hijos antes que padres
+    private static final List<String> TABLAS_LIMPIEZA = List.of(
+            "detalle_pedidos", "pedidos", "seller_stats", "producto_imagenes", "productos", "usuarios");
+
+    private DatosPrueba() {
+    }
+
+    public static Usuario usuario(String username) {
+        return usuario(username, username);
+    }
+
+    public static Usuario usuario(String username, String nombre) {
+        return Usuario.builder()
+                .nombre(nombre)
+                .apellido("Test")
+                .username(username)
+                .email(username + "@test.com")
+                .password("password")
+                .role(Role.USER)
+                .build();
+    }
+
+    // Para tests con mocks: el usuario no se persiste, el id se asigna a mano
+    public static Usuario usuario(Long id, String username) {
+        Usuario usuario = usuario(username);
+        usuario.setId(id);
+        return usuario;
+    }
+
+    /**
+     * Borra pedidos, seller_stats, productos y usuarios
+     * Para tests con @Transactional(propagation = NOT_SUPPORTED): sin rollback automático
+     * lo que confirman quedaría visible para los demás tests del mismo contexto
+     */
+    public static void limpiar(JdbcTemplate jdbcTemplate) {
+        for (String tabla : TABLAS_LIMPIEZA) {
+            jdbcTemplate.update("DELETE FROM " + tabla);
+        }
+    }
+}
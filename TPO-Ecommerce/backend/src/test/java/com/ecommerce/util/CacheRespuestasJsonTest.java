@@ -0,0 +1,156 @@
+package com.ecommerce.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests Unitarios - CacheRespuestasJson")
+class CacheRespuestasJsonTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private CacheRespuestasJson cache;
+    private AtomicInteger serializaciones;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CacheRespuestasJson();
+        ReflectionTestUtils.setField(cache, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(cache, "megabytesMaximo", 1L);
+        ReflectionTestUtils.setField(cache, "ttlSegundos", 300L);
+        serializaciones = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Debería serializar una sola vez por versión con el ObjectMapper de Spring")
+    void testResponder_SerializaUnaVezPorVersion() throws IOException {
+        // Arrange
+        Map<String, Object> cuerpo = Map.of("nombre", "Electrónica", "creada", LocalDateTime.of(2024, 5, 1, 10, 30));
+
+        // Act
+        ResponseEntity<byte[]> primera = cache.responder(ResponseEntity.ok(), "categorias", 1L, contar(cuerpo), request(null));
+        ResponseEntity<byte[]> segunda = cache.responder(ResponseEntity.ok(), "categorias", 1L, contar(cuerpo), request(null));
+        cache.responder(ResponseEntity.ok(), "categorias", 2L, contar(cuerpo), request(null));
+
+        // Assert
+        assertSame(primera.getBody(), segunda.getBody());
+        assertEquals(MediaType.APPLICATION_JSON, primera.getHeaders().getContentType());
+        assertArrayEquals(objectMapper.writeValueAsBytes(cuerpo), primera.getBody());
+        assertEquals("2024-05-01T10:30:00", objectMapper.readTree(primera.getBody()).get("creada").asText());
+        assertEquals(2, serializaciones.get());
+        assertEquals(1L, cache.estadisticas().get("aciertos"));
+    }
+
+    @Test
+    @DisplayName("Debería enviar la variante gzip solo a quien la acepta y si la respuesta es grande")
+    void testResponder_Gzip() throws IOException {
+        // Arrange
+        List<String> grande = List.of("x".repeat(CacheRespuestasJson.MINIMO_BYTES_GZIP));
+
+        // Act
+        ResponseEntity<byte[]> comprimida = cache.responder(ResponseEntity.ok(), "grande", 1L,
+                contar(grande), request("gzip, deflate, br"));
+        ResponseEntity<byte[]> plana = cache.responder(ResponseEntity.ok(), "grande", 1L,
+                contar(grande), request(null));
+        ResponseEntity<byte[]> chica = cache.responder(ResponseEntity.ok(), "chica", 1L,
+                contar(List.of("x")), request("gzip"));
+
+        // Assert
+        assertEquals("gzip", comprimida.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, comprimida.getHeaders().getFirst(HttpHeaders.VARY));
+        assertTrue(comprimida.getBody().length < plana.getBody().length);
+        assertArrayEquals(plana.getBody(), descomprimir(comprimida.getBody()));
+        assertNull(plana.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertNull(chica.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(2, serializaciones.get());
+    }
+
+    @Test
+    @DisplayName("Debería interpretar Accept-Encoding respetando q=0 y el comodín")
+    void testAceptaGzip() {
+        assertTrue(CacheRespuestasJson.aceptaGzip("gzip"));
+        assertTrue(CacheRespuestasJson.aceptaGzip("deflate, GZIP;q=0.5"));
+        assertTrue(CacheRespuestasJson.aceptaGzip("*"));
+        assertFalse(CacheRespuestasJson.aceptaGzip(null));
+        assertFalse(CacheRespuestasJson.aceptaGzip("br, deflate"));
+        assertFalse(CacheRespuestasJson.aceptaGzip("gzip;q=0"));
+        assertFalse(CacheRespuestasJson.aceptaGzip("gzip; q=0.0, *"));
+    }
+
+    @Test
+    @DisplayName("Debería desalojar las respuestas menos usadas al superar el tamaño máximo")
+    void testResponder_AcotadaPorBytes() {
+        // Arrange: cada respuesta ocupa algo más de 400 KB y el máximo es 1 MB
+        List<String> cuerpo = List.of("a".repeat(400 * 1024));
+
+        // Act
+        cache.responder(ResponseEntity.ok(), "uno", 1L, contar(cuerpo), request(null));
+        cache.responder(ResponseEntity.ok(), "dos", 1L, contar(cuerpo), request(null));
+        cache.responder(ResponseEntity.ok(), "uno", 1L, contar(cuerpo), request(null));
+        cache.responder(ResponseEntity.ok(), "tres", 1L, contar(cuerpo), request(null)); // desaloja "dos"
+        cache.responder(ResponseEntity.ok(), "uno", 1L, contar(cuerpo), request(null));
+        cache.responder(ResponseEntity.ok(), "dos", 1L, contar(cuerpo), request(null));
+
+        // Assert
+        assertEquals(4, serializaciones.get());
+        assertTrue((long) cache.estadisticas().get("bytes") <= 1024 * 1024);
+        assertTrue((long) cache.estadisticas().get("desalojos") >= 1);
+    }
+
+    @Test
+    @DisplayName("Debería volver a serializar cuando la respuesta venció")
+    void testResponder_Vencida() {
+        // Arrange
+        ReflectionTestUtils.setField(cache, "ttlSegundos", -1L);
+
+        // Act
+        cache.responder(ResponseEntity.ok(), "categorias", 1L, contar(List.of()), request(null));
+        cache.responder(ResponseEntity.ok(), "categorias", 1L, contar(List.of()), request(null));
+
+        // Assert
+        assertEquals(2, serializaciones.get());
+    }
+
+    private Supplier<Object> contar(Object cuerpo) {
+        return () -> {
+            serializaciones.incrementAndGet();
+            return cuerpo;
+        };
+    }
+
+    private ServletWebRequest request(String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/categorias");
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return new ServletWebRequest(request);
+    }
+
+    private static byte[] descomprimir(byte[] gzip) throws IOException {
+        try (GZIPInputStream entrada = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return entrada.readAllBytes();
+        }
+    }
+}
@@ -3,10 +3,17 @@ package com.ecommerce.util;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.ecommerce.entity.Role;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
 import java.util.Date;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -40,7 +47,7 @@ class JwtUtilTest {
     @DisplayName("Debería generar un token JWT válido")
     void testGenerateToken() {
         // Act
-        String nuevoToken = jwtUtil.generateToken(email, userId);
+        String nuevoToken = jwtUtil.generateToken(email, userId, Role.USER, 0L);
 
         // Assert
         assertNotNull(nuevoToken);
@@ -52,7 +59,7 @@ class JwtUtilTest {
     @DisplayName("Debería extraer el email del token")
     void testGetEmailFromToken() {
         // Arrange - Generar token fresco
-        String tokenFresco = jwtUtil.generateToken(email, userId);
+        String tokenFresco = jwtUtil.generateToken(email, userId, Role.USER, 0L);
         
         // Act
         String emailExtraido = jwtUtil.getEmailFromToken(tokenFresco);
@@ -66,7 +73,7 @@ class JwtUtilTest {
     @DisplayName("Debería extraer el userId del token")
     void testGetUserIdFromToken() {
         // Arrange - Generar token fresco
-        String tokenFresco = jwtUtil.generateToken(email, userId);
+        String tokenFresco = jwtUtil.generateToken(email, userId, Role.USER, 0L);
         
         // Act
         Long userIdExtraido = jwtUtil.getUserIdFromToken(tokenFresco);
@@ -80,7 +87,7 @@ class JwtUtilTest {
     @DisplayName("Debería validar un token válido")
     void testValidateToken_TokenValido() {
         // Arrange - Generar token fresco
-        String tokenFresco = jwtUtil.generateToken(email, userId);
+        String tokenFresco = jwtUtil.generateToken(email, userId, Role.USER, 0L);
         
         // Act
         boolean esValido = jwtUtil.validateToken(tokenFresco);
@@ -116,7 +123,7 @@ class JwtUtilTest {
     @DisplayName("Debería obtener la fecha de expiración del token")
     void testGetExpirationDateFromToken() {
         // Arrange - Generar token fresco
-        String tokenFresco = jwtUtil.generateToken(email, userId);
+        String tokenFresco = jwtUtil.generateToken(email, userId, Role.USER, 0L);
         
         // Act
         Date fechaExpiracion = jwtUtil.getExpirationDateFromToken(tokenFresco);
@@ -130,7 +137,7 @@ class JwtUtilTest {
     @DisplayName("Debería verificar si un token está expirado")
     void testIsTokenExpired_TokenNoExpirado() {
         // Arrange - Generar token fresco
-        String tokenFresco = jwtUtil.generateToken(email, userId);
+        String tokenFresco = jwtUtil.generateToken(email, userId, Role.USER, 0L);
         
         // Act
         boolean estaExpirado = jwtUtil.isTokenExpired(tokenFresco);
@@ -143,8 +150,8 @@ class JwtUtilTest {
     @DisplayName("Debería generar tokens diferentes para diferentes emails")
     void testGenerateToken_DiferentesEmails() {
         // Act
-        String token1 = jwtUtil.generateToken("email1@test.com", 1L);
-        String token2 = jwtUtil.generateToken("email2@test.com", 2L);
+        String token1 = jwtUtil.generateToken("email1@test.com", 1L, Role.USER, 0L);
+        String token2 = jwtUtil.generateToken("email2@test.com", 2L, Role.USER, 0L);
 
         // Assert
         assertNotEquals(token1, token2);
@@ -156,11 +163,76 @@ class JwtUtilTest {
     @DisplayName("Debería generar tokens diferentes para el mismo email pero diferentes usuarios")
     void testGenerateToken_DiferentesUsuarios() {
         // Act
-        String token1 = jwtUtil.generateToken(email, 1L);
-        String token2 = jwtUtil.generateToken(email, 2L);
+        String token1 = jwtUtil.generateToken(email, 1L, Role.USER, 0L);
+        String token2 = jwtUtil.generateToken(email, 2L, Role.USER, 0L);
 
         // Assert
         assertNotEquals(token1, token2);
     }
-}
 
+    @Test
+    @DisplayName("Debería devolver todos los claims con una sola verificación")
+    void testParse() {
+        // Arrange
+        String tokenFresco = jwtUtil.generateToken(email, userId, Role.USER, 0L);
+
+        // Act
+        Claims claims = jwtUtil.parse(tokenFresco);
+
+        // Assert
+        assertEquals(email, claims.getSubject());
+        assertEquals(userId, claims.get("userId", Long.class));
+        assertTrue(claims.getExpiration().after(new Date()));
+    }
+
+    @Test
+    @DisplayName("Debería rechazar un token con firma alterada")
+    void testParse_FirmaAlterada() {
+        // Arrange
+        String tokenFresco = jwtUtil.generateToken(email, userId, Role.USER, 0L);
+        String tokenAlterado = tokenFresco.substring(0, tokenFresco.length() - 2)
+                + (tokenFresco.endsWith("AA") ? "BB" : "AA");
+
+        // Act & Assert
+        assertThrows(JwtException.class, () -> jwtUtil.parse(tokenAlterado));
+    }
+
+    /**
+     * Costo por llamada de parse contra reconstruir la clave y el parser en cada request
+     * Solo corre con: mvn test -Dtest=JwtUtilTest -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("Costo por llamada: parser cacheado vs clave y parser reconstruidos")
+    void testParse_CostoPorLlamada() {
+        // Arrange
+        String tokenFresco = jwtUtil.generateToken(email, userId, Role.USER, 0L);
+        int iteraciones = 20_000;
+
+        // Implementación anterior: clave y parser nuevos en cada llamada (y uno por claim leído)
+        Runnable anterior = () -> Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(JwtUtil.SECRET_KEY.getBytes()))
+                .build()
+                .parseSignedClaims(tokenFresco);
+        Runnable cacheado = () -> jwtUtil.parse(tokenFresco);
+
+        // Act (primero una vuelta de calentamiento del JIT)
+        medirNanosPorLlamada(anterior, iteraciones);
+        medirNanosPorLlamada(cacheado, iteraciones);
+        double nanosAnterior = medirNanosPorLlamada(anterior, iteraciones);
+        double nanosCacheado = medirNanosPorLlamada(cacheado, iteraciones);
+
+        // Assert (solo se informa: los tiempos dependen de la máquina)
+        System.out.printf("JWT parse: %.0f ns/llamada reconstruyendo clave y parser, %.0f ns/llamada cacheado%n",
+                nanosAnterior, nanosCacheado);
+        assertEquals(email, jwtUtil.parse(tokenFresco).getSubject());
+    }
+
+    private static double medirNanosPorLlamada(Runnable llamada, int iteraciones) {
+        long inicio = System.nanoTime();
+        for (int i = 0; i < iteraciones; i++) {
+            llamada.run();
+        }
+        return (System.nanoTime() - inicio) / (double) iteraciones;
+    }
+}
@@ -0,0 +1,61 @@
+package com.ecommerce.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests Unitarios - Transacciones")
+class TransaccionesTest {
+
+    @Test
+    @DisplayName("Debería reintentar la operación tras un conflicto de concurrencia optimista")
+    void testReintentandoConflictos_Reintenta() {
+        // Arrange
+        AtomicInteger intentos = new AtomicInteger();
+
+        // Act
+        String resultado = Transacciones.reintentandoConflictos(() -> {
+            if (intentos.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("Pedido modificado");
+            }
+            return "ok";
+        });
+
+        // Assert
+        assertEquals("ok", resultado);
+        assertEquals(3, intentos.get());
+    }
+
+    @Test
+    @DisplayName("Debería propagar el conflicto al agotar los intentos")
+    void testReintentandoConflictos_AgotaIntentos() {
+        // Arrange
+        AtomicInteger intentos = new AtomicInteger();
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> Transacciones.reintentandoConflictos(() -> {
+            intentos.incrementAndGet();
+            throw new OptimisticLockingFailureException("Pedido modificado");
+        }));
+        assertEquals(Transacciones.MAXIMO_INTENTOS_CONFLICTO, intentos.get());
+    }
+
+    @Test
+    @DisplayName("No debería reintentar otros errores")
+    void testReintentandoConflictos_OtrosErrores() {
+        // Arrange
+        AtomicInteger intentos = new AtomicInteger();
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class, () -> Transacciones.reintentandoConflictos(() -> {
+            intentos.incrementAndGet();
+            throw new DataIntegrityViolationException("Clave duplicada");
+        }));
+        assertEquals(1, intentos.get());
+    }
+}
@@ -0,0 +1,93 @@
+package com.ecommerce.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests Unitarios - Validadores")
+class ValidadoresTest {
+
+    @Test
+    @DisplayName("Debería armar un ETag débil con las fechas en microsegundos")
+    void testEtag() {
+        // Arrange
+        LocalDateTime modificado = LocalDateTime.of(1970, 1, 1, 0, 0, 1, 2_345_000);
+
+        // Act & Assert
+        assertEquals("W/\"producto-7-1002345-5\"", Validadores.etag("producto", 7L, modificado, 5L));
+        assertEquals("W/\"categorias\"", Validadores.etag("categorias"));
+        // Un cambio dentro del mismo segundo produce otro ETag
+        assertNotEquals(Validadores.etag("pedido", 1L, modificado),
+                Validadores.etag("pedido", 1L, modificado.plusNanos(1_000)));
+    }
+
+    @Test
+    @DisplayName("Debería responder 304 con If-None-Match o If-Modified-Since vigentes")
+    void testCheckNotModified() {
+        // Arrange
+        LocalDateTime modificado = LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123_456_000);
+        String etag = Validadores.etag("pedido", 1L, modificado);
+        long milisegundos = Validadores.milisegundos(modificado);
+
+        // Act
+        ServletWebRequest porEtag = request(HttpHeaders.IF_NONE_MATCH, etag);
+        ServletWebRequest porFecha = request(HttpHeaders.IF_MODIFIED_SINCE, milisegundos);
+        ServletWebRequest sinValidadores = request(null, null);
+
+        // Assert
+        assertTrue(Validadores.esCondicional(porEtag));
+        assertTrue(Validadores.esCondicional(porFecha));
+        assertFalse(Validadores.esCondicional(sinValidadores));
+        assertTrue(porEtag.checkNotModified(etag, milisegundos));
+        assertTrue(porFecha.checkNotModified(etag, milisegundos));
+        assertFalse(sinValidadores.checkNotModified(etag, milisegundos));
+        assertEquals(etag, sinValidadores.getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    @DisplayName("Debería comparar If-Match con el ETag actual ignorando el prefijo débil")
+    void testCoincide() {
+        // Arrange
+        String etag = Validadores.etag("producto", 7L, 5L);
+
+        // Act & Assert
+        assertTrue(Validadores.coincide(etag, etag));
+        assertTrue(Validadores.coincide("\"producto-7-5\"", etag));
+        assertTrue(Validadores.coincide("W/\"producto-7-4\", W/\"producto-7-5\"", etag));
+        assertTrue(Validadores.coincide("*", etag));
+        assertFalse(Validadores.coincide("W/\"producto-7-4\"", etag));
+    }
+
+    @Test
+    @DisplayName("Debería comparar If-Match solo con la parte estable de un ETag compuesto")
+    void testCoincideValidador() {
+        // Arrange: validador de edición (id y versión) y ETag del GET con la generación agregada
+        String validador = Validadores.etag("producto", 7L, 3L);
+
+        // Act & Assert
+        assertTrue(Validadores.coincideValidador(validador, validador));
+        assertTrue(Validadores.coincideValidador("W/\"producto-7-3-1700000000000\"", validador));
+        assertTrue(Validadores.coincideValidador("\"producto-7-3-1800000000000\"", validador));
+        assertTrue(Validadores.coincideValidador("W/\"producto-7-2-1\", W/\"producto-7-3-1\"", validador));
+        assertTrue(Validadores.coincideValidador("*", validador));
+        assertFalse(Validadores.coincideValidador("W/\"producto-7-2-1700000000000\"", validador));
+        assertFalse(Validadores.coincideValidador("W/\"producto-7-30-1700000000000\"", validador));
+        assertFalse(Validadores.coincideValidador("W/\"producto-71-3-1700000000000\"", validador));
+    }
+
+    // MockHttpServletRequest formatea como fecha HTTP los valores long
+    private static ServletWebRequest request(String header, Object valor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/pedidos/1");
+        if (header != null) {
+            request.addHeader(header, valor);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
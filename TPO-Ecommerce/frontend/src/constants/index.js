@@ -34,6 +34,8 @@ export const ERROR_MESSAGES = {
   EMAIL_EXISTS: "El email ya está registrado",
   USERNAME_EXISTS: "El nombre de usuario ya está en uso",
   PRODUCT_NOT_FOUND: "Producto no encontrado",
+  PRODUCT_MODIFIED: "El producto cambió desde que abriste el formulario (otra edición o una venta). Recarga la página para ver los datos actuales",
+  PRODUCT_VERSION_REQUIRED: "No se pudo verificar la versión del producto. Recarga la página e intenta de nuevo",
   USER_NOT_FOUND: "Usuario no encontrado",
 };
 
@@ -0,0 +1,42 @@
+import { useState, useEffect } from "react"
+// Listados paginados por cursor: carga la primera página y las siguientes solo cuando se piden ("Ver más")
+// fetchPage(cursor) debe devolver la página del backend: { items, nextCursor, hasMore }
+export const usePaginatedFetch = (fetchPage, dependencies = []) => {
+  const [items, setItems] = useState([])
+  const [nextCursor, setNextCursor] = useState(null)
+  const [hasMore, setHasMore] = useState(false)
+  const [loading, setLoading] = useState(true)
+  const [loadingMore, setLoadingMore] = useState(false)
+  const [error, setError] = useState(null)
+  const refetch = async () => {
+    try {
+      setLoading(true)
+      setError(null)
+      const page = await fetchPage(null)
+      setItems(page.items)
+      setNextCursor(page.nextCursor)
+      setHasMore(page.hasMore)
+    } catch (err) {
+      setError(err.message)
+    } finally {
+      setLoading(false)
+    }
+  }
+  useEffect(() => {
+    refetch()
+  }, dependencies)
+  // Agrega la página siguiente a lo ya cargado; los errores se propagan para mostrarlos sin perder la lista
+  const loadMore = async () => {
+    if (!hasMore || loadingMore) return
+    setLoadingMore(true)
+    try {
+      const page = await fetchPage(nextCursor)
+      setItems(previous => previous.concat(page.items))
+      setNextCursor(page.nextCursor)
+      setHasMore(page.hasMore)
+    } finally {
+      setLoadingMore(false)
+    }
+  }
+  return { items, loading, loadingMore, error, hasMore, loadMore, refetch }
+}
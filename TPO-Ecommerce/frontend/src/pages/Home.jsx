@@ -11,7 +11,9 @@ import ProductCarousel from "../components/ProductCarousel"
 import ViewControls from "../components/ViewControls"
 import { Search, Package, ChevronLeft, ChevronRight } from "lucide-react"
 const Home = () => {
+  const [searchInput, setSearchInput] = useState("")
   const [searchTerm, setSearchTerm] = useState("")
+  const [suggestions, setSuggestions] = useState([])
   const [selectedCategory, setSelectedCategory] = useState(null)
   const [filteredProducts, setFilteredProducts] = useState([])
   const [currentPage, setCurrentPage] = useState(1)
@@ -38,6 +40,22 @@ const Home = () => {
     loading: categoriesLoading,
     error: categoriesError,
   } = useFetch(() => api.getCategories(), [])
+  // Buscar recién cuando se deja de escribir; mientras tanto solo se piden sugerencias
+  useEffect(() => {
+    const timer = setTimeout(() => setSearchTerm(searchInput.trim()), 300)
+    return () => clearTimeout(timer)
+  }, [searchInput])
+  useEffect(() => {
+    if (!searchInput.trim()) {
+      setSuggestions([])
+      return
+    }
+    let cancelled = false
+    api.getSuggestions(searchInput)
+      .then((result) => { if (!cancelled) setSuggestions(result) })
+      .catch(() => { if (!cancelled) setSuggestions([]) })
+    return () => { cancelled = true }
+  }, [searchInput])
   useEffect(() => {
     if (products) {
       setFilteredProducts(products)
@@ -45,13 +63,17 @@ const Home = () => {
     }
   }, [products])
   const handleSearch = (e) => {
-    setSearchTerm(e.target.value)
+    setSearchInput(e.target.value)
+  }
+  const clearSearch = () => {
+    setSearchInput("")
+    setSearchTerm("")
   }
   const handleCategorySelect = (categoryId) => {
     setSelectedCategory(categoryId === selectedCategory ? null : categoryId)
   }
   const clearFilters = () => {
-    setSearchTerm("")
+    clearSearch()
     setSelectedCategory(null)
     setCurrentPage(1)
   }
@@ -95,7 +117,7 @@ const Home = () => {
             type="text"
             placeholder="Buscar productos..."
             className="input pl-10"
-            value={searchTerm}
+            value={searchInput}
             onChange={handleSearch}
             disabled
           />
@@ -149,9 +171,16 @@ const Home = () => {
           type="text"
           placeholder="Buscar productos..."
           className="input pl-10"
-          value={searchTerm}
+          value={searchInput}
           onChange={handleSearch}
+          list="search-suggestions"
+          autoComplete="off"
         />
+        <datalist id="search-suggestions">
+          {suggestions.map((suggestion) => (
+            <option key={`${suggestion.tipo}-${suggestion.texto}`} value={suggestion.texto} />
+          ))}
+        </datalist>
       </div>
       <div className="grid grid-cols-1 lg:grid-cols-4 gap-8">
         {/* Categories Sidebar */}
@@ -194,7 +223,7 @@ const Home = () => {
                   {searchTerm && (
                     <div className="flex items-center justify-between text-sm">
                       <span className="text-gray-600 dark:text-gray-300">Búsqueda: "{searchTerm}"</span>
-                      <button onClick={() => setSearchTerm("")} className="text-red-600 dark:text-red-400 hover:text-red-800 dark:hover:text-red-300">
+                      <button onClick={clearSearch} className="text-red-600 dark:text-red-400 hover:text-red-800 dark:hover:text-red-300">
                         ×
                       </button>
                     </div>
@@ -2,7 +2,7 @@ import { useState } from "react"
 import { Link } from "react-router-dom"
 import { useAuth } from "../context/AuthContext"
 import { useToast } from "../context/ToastContext"
-import { useFetch } from "../hooks/useFetch"
+import { usePaginatedFetch } from "../hooks/usePaginatedFetch"
 import { api } from "../services/api"
 import { formatPrice, formatDate } from "../utils/formatters"
 import LoadingSpinner from "../components/LoadingSpinner"
@@ -15,9 +15,9 @@ const Orders = () => {
   const [cancelingOrderId, setCancelingOrderId] = useState(null)
   const [refreshing, setRefreshing] = useState(false)
 
-  // Fetch user orders
-  const { data: orders, loading, error: fetchError, refetch } = useFetch(
-    () => api.getMyOrders(),
+  // Fetch user orders: primera página, las siguientes con "Ver más"
+  const { items: orders, loading, loadingMore, error: fetchError, hasMore, loadMore, refetch } = usePaginatedFetch(
+    (cursor) => api.getMyOrders(cursor),
     []
   )
 
@@ -36,6 +36,15 @@ const Orders = () => {
     }
   }
 
+  // Handle load more
+  const handleLoadMore = async () => {
+    try {
+      await loadMore()
+    } catch (err) {
+      error("Error al cargar más pedidos: " + err.message)
+    }
+  }
+
   // Handle cancel order
   const handleCancelOrder = async (orderId) => {
     if (!window.confirm("¿Estás seguro de que quieres cancelar este pedido?")) {
@@ -148,7 +157,7 @@ const Orders = () => {
     )
   }
 
-  if (!orders || orders.length === 0) {
+  if (orders.length === 0) {
     return (
       <EmptyState
         icon={Package}
@@ -311,6 +320,20 @@ const Orders = () => {
           </div>
         ))}
       </div>
+
+      {/* Load More */}
+      {hasMore && (
+        <div className="flex justify-center mt-6">
+          <button
+            onClick={handleLoadMore}
+            disabled={loadingMore}
+            className="btn btn-secondary inline-flex items-center gap-2"
+          >
+            {loadingMore && <LoadingSpinner size="sm" />}
+            {loadingMore ? "Cargando..." : "Ver más"}
+          </button>
+        </div>
+      )}
     </div>
   )
 }
@@ -114,7 +114,8 @@ const ProductForm = () => {
         ownerUserId: user.id, // Keep original type (string or number)
       }
       if (isEditing) {
-        await api.updateProduct(id, productData)
+        // Con el ETag de la lectura: si el producto cambió mientras se editaba, el backend responde 412
+        await api.updateProduct(id, productData, product.etag)
         success("Producto actualizado exitosamente")
       } else {
         await api.createProduct(productData)
@@ -2,6 +2,7 @@ import { useState } from "react"
 import { useAuth } from "../context/AuthContext"
 import { useToast } from "../context/ToastContext"
 import { useFetch } from "../hooks/useFetch"
+import { usePaginatedFetch } from "../hooks/usePaginatedFetch"
 import { api } from "../services/api"
 import { formatPrice, formatDate } from "../utils/formatters"
 import LoadingSpinner from "../components/LoadingSpinner"
@@ -32,10 +33,13 @@ const Sales = () => {
     statusText: ""
   })
 
-  // Fetch sales (ventas)
-  const { data: sales, loading, error: fetchError, refetch } = useFetch(
-    () => api.getMySales(),
-    []
+  // Fetch sales (ventas): primera página del filtro elegido, las siguientes con "Ver más"
+  // El filtro por estado se resuelve en el backend: filtrar en el cliente solo vería las páginas ya cargadas
+  const { items: sales, loading, loadingMore, error: fetchError, hasMore, loadMore, refetch } = usePaginatedFetch(
+    (cursor) => filterStatus === "ALL"
+      ? api.getMySales(cursor)
+      : api.getMySalesByStatus(filterStatus, cursor),
+    [filterStatus]
   )
 
   // Fetch estadísticas
@@ -83,6 +87,15 @@ const Sales = () => {
     }
   }
 
+  // Handle load more
+  const handleLoadMore = async () => {
+    try {
+      await loadMore()
+    } catch (err) {
+      error("Error al cargar más ventas: " + err.message)
+    }
+  }
+
   // Get status text
   const getStatusText = (status) => {
     const statusMap = {
@@ -173,11 +186,6 @@ const Sales = () => {
     return status === "PENDIENTE" || status === "CONFIRMADO"
   }
 
-  // Filter sales
-  const filteredSales = filterStatus === "ALL" 
-    ? sales 
-    : sales?.filter(sale => sale.estadoItem === filterStatus)
-
   if (loading) {
     return (
       <div className="flex justify-center items-center min-h-64">
@@ -201,7 +209,7 @@ const Sales = () => {
     )
   }
 
-  if (!sales || sales.length === 0) {
+  if (filterStatus === "ALL" && sales.length === 0) {
     return (
       <EmptyState
         icon={ShoppingBag}
@@ -297,7 +305,12 @@ const Sales = () => {
 
       {/* Sales List */}
       <div className="space-y-4">
-        {filteredSales?.map((sale) => (
+        {sales.length === 0 && (
+          <p className="text-center py-8 text-gray-600 dark:text-gray-400">
+            No hay ventas en este estado
+          </p>
+        )}
+        {sales.map((sale) => (
           <div
             key={sale.detalleId}
             className="bg-white dark:bg-gray-800 rounded-lg border border-gray-200 dark:border-gray-700 p-6 hover:shadow-lg transition-shadow"
@@ -382,6 +395,20 @@ const Sales = () => {
           ))}
       </div>
 
+      {/* Load More */}
+      {hasMore && (
+        <div className="flex justify-center">
+          <button
+            onClick={handleLoadMore}
+            disabled={loadingMore}
+            className="btn btn-secondary inline-flex items-center gap-2"
+          >
+            {loadingMore && <LoadingSpinner size="sm" />}
+            {loadingMore ? "Cargando..." : "Ver más"}
+          </button>
+        </div>
+      )}
+
       {/* Confirm Modal */}
       <ConfirmModal
         isOpen={confirmModal.isOpen}
@@ -9,17 +9,18 @@ const getAuthToken = () => {
 }
 
 // Helper function to make HTTP requests with JWT support
-const request = async (endpoint, options = {}) => {
+// Los errores llevan el status HTTP (error.status) para distinguir 412/428 de otros fallos
+const send = async (endpoint, options = {}) => {
   const url = `${API_BASE_URL}${endpoint}`
   const token = getAuthToken()
   
   const config = {
+    ...options,
     headers: {
       'Content-Type': 'application/json',
       ...(token && { 'Authorization': `Bearer ${token}` }),
       ...options.headers,
     },
-    ...options,
   }
 
   try {
@@ -27,10 +28,12 @@ const request = async (endpoint, options = {}) => {
     
     if (!response.ok) {
       const errorData = await response.json().catch(() => ({}))
-      throw new Error(errorData.error || errorData.message || `HTTP error! status: ${response.status}`)
+      const error = new Error(errorData.error || errorData.message || `HTTP error! status: ${response.status}`)
+      error.status = response.status
+      throw error
     }
     
-    return await response.json()
+    return response
   } catch (error) {
     if (error.name === 'TypeError' && error.message.includes('fetch')) {
       throw new Error('No se puede conectar con el servidor. Asegúrate de que el backend Spring Boot esté ejecutándose en http://localhost:8081')
@@ -39,6 +42,24 @@ const request = async (endpoint, options = {}) => {
   }
 }
 
+const request = async (endpoint, options = {}) => {
+  const response = await send(endpoint, options)
+  return response.json()
+}
+
+// Igual que request pero devuelve también el ETag: se reenvía como If-Match para editar sin pisar cambios ajenos
+const requestWithEtag = async (endpoint, options = {}) => {
+  const response = await send(endpoint, options)
+  return { data: await response.json(), etag: response.headers.get('ETag') }
+}
+
+// Pedir una página de un listado paginado por cursor: { items, nextCursor, hasMore }
+// La primera página va sin cursor; la siguiente se pide con el nextCursor de la anterior
+const requestPage = (endpoint, cursor = null) => {
+  const separator = endpoint.includes('?') ? '&' : '?'
+  return request(cursor ? `${endpoint}${separator}cursor=${encodeURIComponent(cursor)}` : endpoint)
+}
+
 export const api = {
   // Auth endpoints - AUTENTICACIÓN REAL con Spring Boot + JWT
   async login(emailOrUsername, password) {
@@ -118,24 +139,26 @@ export const api = {
   
   // Products endpoints
   async getProducts(filters = {}) {
-    let products = []
+    // Filtros combinables sobre el listado paginado del backend
+    const params = new URLSearchParams({ size: '100' })
+    if (filters.categoryId) params.set('categoriaId', filters.categoryId)
+    if (filters.search) params.set('q', filters.search)
+    if (filters.availableOnly) params.set('enStock', 'true')
+    if (filters.ownerUserId) params.set('ownerUserId', filters.ownerUserId)
     
-    // Si hay filtros de categoría, usar el endpoint específico
-    if (filters.categoryId) {
-      products = await request(`/productos/categoria/${filters.categoryId}`)
-    }
-    // Si hay búsqueda por texto, usar el endpoint de búsqueda
-    else if (filters.search) {
-      products = await request(`/productos/buscar?nombre=${encodeURIComponent(filters.search)}`)
-    }
-    // Si se solicita solo productos con stock
-    else if (filters.availableOnly) {
-      products = await request('/productos/stock?disponible=true')
-    }
-    // Obtener todos los productos
-    else {
-      products = await request('/productos')
-    }
+    // Solo texto: búsqueda por relevancia (nombre, descripción y categoría, sin importar acentos)
+    const onlySearch = filters.search && !filters.categoryId && !filters.availableOnly && !filters.ownerUserId
+    const endpoint = onlySearch ? '/productos/buscar' : '/productos'
+    
+    // Recorrer las páginas siguiendo el cursor que devuelve el backend
+    let products = []
+    let cursor = null
+    do {
+      if (cursor) params.set('cursor', cursor)
+      const page = await request(`${endpoint}?${params.toString()}`)
+      products = products.concat(page.items)
+      cursor = page.hasMore ? page.nextCursor : null
+    } while (cursor)
     
     // Mapear campos del backend al formato del frontend
     const mappedProducts = products.map(product => ({
@@ -158,11 +181,18 @@ export const api = {
     return mappedProducts
   },
   
+  // Autocompletado del buscador (nombres de productos y categorías)
+  async getSuggestions(query) {
+    const params = new URLSearchParams({ q: query })
+    return request(`/productos/sugerencias?${params.toString()}`)
+  },
+  
   async getProduct(id) {
     try {
-      const product = await request(`/productos/${id}`)
+      const { data: product, etag } = await requestWithEtag(`/productos/${id}`)
       
       // Mapear campos del backend al formato del frontend
+      // etag: versión leída, la pide updateProduct para no pisar una venta o edición posterior
       return {
         id: product.id,
         name: product.name,
@@ -175,7 +205,8 @@ export const api = {
         ownerUserId: product.ownerUserId,
         ownerUserName: product.ownerUserNombre,
         createdAt: product.createdAt,
-        updatedAt: product.updatedAt
+        updatedAt: product.updatedAt,
+        etag
       }
     } catch (error) {
       if (error.message.includes('404')) {
@@ -218,7 +249,8 @@ export const api = {
     }
   },
   
-  async updateProduct(id, productData) {
+  // etag: el de getProduct; el backend rechaza el PUT sin él (428) o si el producto cambió desde esa lectura (412)
+  async updateProduct(id, productData, etag) {
     try {
       const updatedProduct = {
         name: productData.name,
@@ -230,8 +262,9 @@ export const api = {
         ownerUserId: productData.ownerUserId || null,
       }
       
-      const updated = await request(`/productos/${id}`, {
+      const { data: updated, etag: newEtag } = await requestWithEtag(`/productos/${id}`, {
         method: 'PUT',
+        headers: { ...(etag && { 'If-Match': etag }) },
         body: JSON.stringify(updatedProduct),
       })
       
@@ -248,12 +281,19 @@ export const api = {
         ownerUserId: updated.ownerUserId,
         ownerUserName: updated.ownerUserNombre,
         createdAt: updated.createdAt,
-        updatedAt: updated.updatedAt
+        updatedAt: updated.updatedAt,
+        etag: newEtag
       }
     } catch (error) {
       if (error.message.includes('404')) {
         throw new Error(ERROR_MESSAGES.PRODUCT_NOT_FOUND)
       }
+      if (error.status === 412) {
+        throw new Error(ERROR_MESSAGES.PRODUCT_MODIFIED)
+      }
+      if (error.status === 428) {
+        throw new Error(ERROR_MESSAGES.PRODUCT_VERSION_REQUIRED)
+      }
       throw error
     }
   },
@@ -282,56 +322,16 @@ export const api = {
       name: cat.nombre // Backend usa 'nombre', frontend espera 'name'
     }))
   },
-  
-  // Update product stock (for checkout)
-  async updateProductStock(productId, newStock) {
-    try {
-      const product = await request(`/productos/${productId}`)
-      
-      const updated = await request(`/productos/${productId}`, {
-        method: 'PUT',
-        body: JSON.stringify({ 
-          name: product.name,
-          description: product.description,
-          price: product.price,
-          stock: newStock,
-          images: product.images || [],
-          categoriaId: product.categoriaId,
-          ownerUserId: product.ownerUserId
-        }),
-      })
-      
-      // Mapear respuesta al formato del frontend
-      return {
-        id: updated.id,
-        name: updated.name,
-        description: updated.description,
-        price: updated.price,
-        stock: updated.stock,
-        images: updated.images || [],
-        categoryId: updated.categoriaId,
-        categoryName: updated.categoriaNombre,
-        ownerUserId: updated.ownerUserId,
-        ownerUserName: updated.ownerUserNombre,
-        createdAt: updated.createdAt,
-        updatedAt: updated.updatedAt
-      }
-    } catch (error) {
-      if (error.message.includes('404')) {
-        throw new Error(ERROR_MESSAGES.PRODUCT_NOT_FOUND)
-      }
-      throw error
-    }
-  },
 
   // ===== PEDIDOS/ÓRDENES =====
   
   /**
-   * Obtener historial de pedidos del usuario autenticado
+   * Obtener una página del historial de pedidos del usuario autenticado (los más recientes primero)
+   * Pasar el nextCursor de la página anterior para pedir la siguiente
    */
-  async getMyOrders() {
+  async getMyOrders(cursor = null) {
     try {
-      const pedidos = await request('/pedidos/mis-pedidos')
+      const pedidos = await requestPage('/pedidos/mis-pedidos', cursor)
       return pedidos
     } catch (error) {
       throw new Error(error.message || 'Error al obtener pedidos')
@@ -436,11 +436,12 @@ export const api = {
   // ===== VENTAS (PARA VENDEDORES) =====
   
   /**
-   * Obtener todas las ventas del usuario autenticado (como vendedor)
+   * Obtener una página de las ventas del usuario autenticado (como vendedor)
+   * Pasar el nextCursor de la página anterior para pedir la siguiente
    */
-  async getMySales() {
+  async getMySales(cursor = null) {
     try {
-      const ventas = await request('/ventas/mis-ventas')
+      const ventas = await requestPage('/ventas/mis-ventas', cursor)
       return ventas
     } catch (error) {
       throw new Error(error.message || 'Error al obtener ventas')
@@ -448,11 +449,11 @@ export const api = {
   },
 
   /**
-   * Obtener ventas filtradas por estado
+   * Obtener una página de las ventas filtradas por estado
    */
-  async getMySalesByStatus(status) {
+  async getMySalesByStatus(status, cursor = null) {
     try {
-      const ventas = await request(`/ventas/mis-ventas/estado/${status}`)
+      const ventas = await requestPage(`/ventas/mis-ventas/estado/${status}`, cursor)
       return ventas
     } catch (error) {
       throw new Error(error.message || 'Error al obtener ventas')